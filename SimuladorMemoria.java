@@ -1,20 +1,23 @@
 import config.Configuracao;
-import config.LayoutSegmentos;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.PrintWriter;
-import memory.MemoriaFisica;
-import mmu.TLB;
-import mmu.TabelaPaginas;
-import model.TipoSegmento;
+import model.TipoAcesso;
+import relatorio.RelatorioSimulacao;
+import simulacao.MotorSimulacao;
+import simulacao.SimulacaoMulticore;
+import simulacao.SimulacaoPipeline;
+import trace.LeitorTrace;
+import trace.SequenciasPagina;
+import trace.TraceEmMemoria;
 
 /**
  * Ponto de entrada do simulador. Faz a leitura das configurações, processa cada
  * endereço virtual e gera um relatório detalhado com o comportamento da TLB,
- * tabela de páginas e memória física.
+ * tabela de páginas e memória física. Opcionalmente parte de um checkpoint e
+ * grava o estado ao final (ver {@code arquivoCheckpoint} na configuração).
  */
 public class SimuladorMemoria {
+  /** Maior sequência de acessos à mesma página traduzida de uma vez. */
+  private static final int TAMANHO_SEQUENCIA = 4096;
+
   public static void main(String[] args) throws Exception {
     Configuracao config;
 
@@ -33,84 +36,61 @@ public class SimuladorMemoria {
       config = Configuracao.configuracaoPadrao();
     }
 
-    // Componentes principais da simulação.
-    LayoutSegmentos layout = new LayoutSegmentos(config);
-    TLB tlb = new TLB(config.getEntradasTLB());
-    TabelaPaginas tabela = new TabelaPaginas(config);
-    MemoriaFisica memoria = new MemoriaFisica(config.getNumeroMoldurasFisicas());
-
-    long instante = 0;
-
-    try (BufferedReader br = new BufferedReader(new FileReader(config.getArquivoEntrada()));
-        PrintWriter out = new PrintWriter(new FileWriter(config.getArquivoSaida()))) {
-
-      String linha;
-      int tamanhoPagina = config.getTamanhoPagina();
-      int bitsDeslocamento = config.getBitsDeslocamentoPagina();
+    if (config.getNucleos() > 1) {
+      // vários núcleos: cada um consome o fluxo dos seus processos em paralelo
+      SimulacaoMulticore multicore = new SimulacaoMulticore(config);
+      TraceEmMemoria trace = TraceEmMemoria.carrega(config.getArquivoEntrada());
+      try (RelatorioSimulacao relatorio = new RelatorioSimulacao(config)) {
+        multicore.executa(trace, relatorio);
+      }
+      return;
+    }
 
-      while ((linha = br.readLine()) != null) {
-        linha = linha.trim();
-        if (linha.isEmpty()) {
-          continue;
+    // Componentes principais da simulação. O trace pode estar em texto ou no
+    // formato binário (ver trace.ConversorTrace).
+    try (MotorSimulacao motor = new MotorSimulacao(config);
+        LeitorTrace trace = LeitorTrace.abre(config.getArquivoEntrada());
+        RelatorioSimulacao relatorio = new RelatorioSimulacao(config)) {
+
+      // registros do trace consumidos antes do primeiro traduzido nesta execução
+      long pulados = 0;
+      if (config.getRestauraCheckpoint() != null) {
+        long registros = motor.restauraCheckpoint(config.getRestauraCheckpoint());
+        if (config.isRetomaCheckpoint()) {
+          pulados = trace.pula(registros);
         }
-
-        long enderecoVirtual = Long.parseLong(linha);
-        instante++;
-
-        // Separa VPN e deslocamento conforme a configuração.
-        int paginaVirtual = (int) (enderecoVirtual >> bitsDeslocamento);
-        int deslocamento = (int) (enderecoVirtual & (tamanhoPagina - 1));
-
-        TipoSegmento segmento = layout.getSegmento(enderecoVirtual);
-
-        boolean tlbHit = false;
-        int moldura = tlb.lookup(paginaVirtual, instante);
-
-        if (moldura != -1) {
-          tlbHit = true;
-          memoria.atualizaAcesso(moldura, instante);
-        } else {
-          moldura = tabela.obtemMoldura(paginaVirtual);
-          if (moldura == -1) {
-            int molduraSelecionada = memoria.selecionaMolduraParaUso(instante);
-
-            int paginaAntiga = tabela.encontraPaginaPorMoldura(molduraSelecionada);
-            if (paginaAntiga != -1) {
-              // Desmapeia página antiga e invalida entrada na TLB
-              tabela.desmapeiaPagina(paginaAntiga);
-              tlb.invalidaEntrada(paginaAntiga);
-            }
-
-            tabela.mapeiaPagina(paginaVirtual, molduraSelecionada);
-            moldura = molduraSelecionada;
-
-            // Armazena endereço virtual completo (início da página)
-            long enderecoInicioPagina = (long) paginaVirtual << bitsDeslocamento;
-            memoria.setaConteudo(moldura, enderecoInicioPagina, instante);
-          } else {
-            memoria.atualizaAcesso(moldura, instante);
+      }
+      long inicio = motor.getInstante() - pulados;
+      String checkpoint = config.getArquivoCheckpoint();
+      long intervalo = config.getIntervaloCheckpoint();
+
+      if (config.isPipeline()) {
+        new SimulacaoPipeline(motor, config.getTamanhoLote()).executa(trace, relatorio);
+      } else if (config.isAgrupaSequencias() && intervalo == 0 && motor.isSequenciasExatas()) {
+        SequenciasPagina sequencias =
+            new SequenciasPagina(trace, config.getBitsDeslocamentoPagina(), TAMANHO_SEQUENCIA);
+        while (sequencias.proxima()) {
+          motor.traduzSequencia(sequencias, relatorio);
+        }
+      } else {
+        while (trace.proximo()) {
+          long enderecoVirtual = trace.getEndereco();
+          if (trace.getTipoAcesso() == TipoAcesso.FORK) {
+            motor.fork(trace.getProcesso(), (int) enderecoVirtual);
+            continue;
+          }
+          motor.traduz(enderecoVirtual, trace.getProcesso(), trace.getTipoAcesso());
+          motor.registraUltimaTraducao(relatorio, enderecoVirtual);
+          if (intervalo > 0 && motor.getInstante() % intervalo == 0) {
+            motor.gravaCheckpoint(checkpoint, motor.getInstante() - inicio);
           }
-
-          tlb.insereOuAtualiza(paginaVirtual, moldura, instante);
         }
-
-        long enderecoFisico = ((long) moldura << bitsDeslocamento) | (long) deslocamento;
-
-        out.printf("VA=%d VPN=%d OFFSET=%d SEG=%s FRAME=%d PA=%d TLB_HIT=%b%n",
-            enderecoVirtual, paginaVirtual, deslocamento, segmento,
-            moldura, enderecoFisico, tlbHit);
       }
 
-      out.println();
-      out.println("=== TABELA DE PAGINAS ===");
-      tabela.imprimirTabela(out);
-
-      out.println();
-      out.println("=== MEMORIA FISICA (MOLDURAS) ===");
-      long[] conteudo = memoria.getConteudoMolduras();
-      for (int i = 0; i < conteudo.length; i++) {
-        out.printf("FRAME=%d CONTENT=%d%n", i, conteudo[i]);
+      if (checkpoint != null) {
+        motor.gravaCheckpoint(checkpoint, motor.getInstante() - inicio);
       }
+      motor.imprimeResumo(relatorio);
     }
   }
 }
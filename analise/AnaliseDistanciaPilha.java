@@ -0,0 +1,84 @@
+package analise;
+
+import config.Configuracao;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.TreeSet;
+import model.TipoAcesso;
+import simulacao.MotorSimulacao;
+import trace.LeitorTrace;
+
+/**
+ * Gera as curvas de falhas LRU de TLB e memória física para todos os
+ * tamanhos a partir de uma única leitura do trace (ver {@link DistanciaPilha}).
+ *
+ * <p>
+ * Uso: {@code java analise.AnaliseDistanciaPilha <config.properties>
+ * [taxaAmostragem] [curva.csv]}. O trace e o tamanho de página vêm da
+ * configuração; o CSV traz a taxa de falhas para cada potência de dois até o
+ * número de páginas distintas e para os tamanhos da TLB e da memória
+ * configurados, que também são resumidos na saída padrão.
+ *
+ * <p>
+ * As curvas valem para uma TLB LRU totalmente associativa e para a memória
+ * com substituição LRU, cada uma isolada: não incluem as invalidações de TLB
+ * causadas por faltas de página, páginas grandes nem outras políticas. Páginas
+ * de processos diferentes são distintas, com a mesma chave da substituição
+ * global do simulador ({@link MotorSimulacao#chavePagina}).
+ */
+public final class AnaliseDistanciaPilha {
+  private AnaliseDistanciaPilha() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1 || args.length > 3) {
+      System.err.println("Uso: java analise.AnaliseDistanciaPilha <config.properties>"
+          + " [taxaAmostragem] [curva.csv]");
+      System.exit(1);
+    }
+    Configuracao config = Configuracao.deArquivo(args[0]);
+    double taxa = args.length >= 2 ? Double.parseDouble(args[1]) : 1.0;
+    String saida = args.length == 3 ? args[2] : "curva_falhas.csv";
+
+    DistanciaPilha pilha = new DistanciaPilha(taxa);
+    long mascaraPagina = ~((long) config.getTamanhoPagina() - 1);
+    long inicio = System.nanoTime();
+    try (LeitorTrace trace = LeitorTrace.abre(config.getArquivoEntrada())) {
+      while (trace.proximo()) {
+        if (trace.getTipoAcesso() != TipoAcesso.FORK) {
+          pilha.registra(MotorSimulacao.chavePagina(trace.getProcesso(),
+              trace.getEndereco() & mascaraPagina));
+        }
+      }
+    }
+    double segundos = (System.nanoTime() - inicio) / 1e9;
+
+    long entradasTLB = config.isHierarquiaTLB()
+        ? (1L << config.getBitsTLBDados()) : config.getEntradasTLB();
+    long molduras = config.getNumeroMoldurasFisicas();
+    TreeSet<Long> tamanhos = new TreeSet<>();
+    for (long t = 1; t < 2 * Math.max(1, pilha.getPaginasDistintas()); t *= 2) {
+      tamanhos.add(t);
+    }
+    tamanhos.add(entradasTLB);
+    tamanhos.add(molduras);
+
+    try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(saida)))) {
+      out.println("entradas,taxaFalhas,falhas");
+      for (long t : tamanhos) {
+        out.printf(Locale.ROOT, "%d,%.6f,%d%n", t, pilha.getTaxaFalhas(t), pilha.getFalhas(t));
+      }
+    }
+
+    System.out.printf(Locale.ROOT, "REFERENCIAS=%d AMOSTRADAS=%d PAGINAS_DISTINTAS=%d"
+        + " TEMPO=%.2fs%n", pilha.getReferencias(), pilha.getAmostradas(),
+        pilha.getPaginasDistintas(), segundos);
+    System.out.printf(Locale.ROOT, "TLB ENTRADAS=%d TAXA_FALHAS=%.6f FALHAS=%d%n", entradasTLB,
+        pilha.getTaxaFalhas(entradasTLB), pilha.getFalhas(entradasTLB));
+    System.out.printf(Locale.ROOT, "MEMORIA MOLDURAS=%d TAXA_FALTAS=%.6f FALTAS=%d%n", molduras,
+        pilha.getTaxaFalhas(molduras), pilha.getFalhas(molduras));
+    System.out.println("Curva completa em " + saida);
+  }
+}
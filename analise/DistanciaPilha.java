@@ -0,0 +1,146 @@
+package analise;
+
+import java.util.Arrays;
+import util.ArvoreFenwick;
+import util.MapaLongInt;
+
+/**
+ * Calcula, em uma única passada, a distância de pilha LRU de cada referência e
+ * com ela a taxa de falhas de uma cache LRU totalmente associativa de qualquer
+ * tamanho (TLB ou conjunto de molduras).
+ *
+ * <p>
+ * Segue o algoritmo de Bennett e Kruskal: cada página guarda o instante do
+ * último uso e uma {@link ArvoreFenwick} marca os instantes que ainda são o
+ * último uso de alguma página. A distância de uma referência é a quantidade
+ * de marcas posteriores ao uso anterior da mesma página, ou seja, quantas
+ * páginas distintas foram usadas entre os dois acessos; a referência acerta
+ * em toda cache com mais entradas que essa distância. Quando os instantes
+ * esgotam a árvore, os últimos usos são renumerados de forma compacta.
+ *
+ * <p>
+ * Com taxa de amostragem menor que 1 aplica-se o SHARDS de taxa fixa: só as
+ * páginas cujo hash fica abaixo do limiar são processadas, e cada distância
+ * medida equivale a {@code distancia / taxa} páginas no trace completo.
+ */
+public class DistanciaPilha {
+  private static final int CAPACIDADE_INICIAL = 1 << 16;
+  private static final long ESCALA_AMOSTRAGEM = 1L << 24;
+
+  private final double taxaAmostragem;
+  private final long limiarAmostragem;
+  private final MapaLongInt ultimoUso = new MapaLongInt(CAPACIDADE_INICIAL);
+  private ArvoreFenwick arvore = new ArvoreFenwick(CAPACIDADE_INICIAL);
+  private int instante;
+
+  /** Quantidade de referências (amostradas) por distância. */
+  private long[] histograma = new long[1024];
+  private int maiorDistancia = -1;
+  private long referencias;
+  private long amostradas;
+  private long falhasFrias;
+
+  /** @param taxaAmostragem fração das páginas analisadas, em (0, 1] */
+  public DistanciaPilha(double taxaAmostragem) {
+    if (!(taxaAmostragem > 0 && taxaAmostragem <= 1)) {
+      throw new IllegalArgumentException("Taxa de amostragem deve estar em (0, 1]");
+    }
+    this.taxaAmostragem = taxaAmostragem;
+    this.limiarAmostragem = (long) Math.ceil(taxaAmostragem * ESCALA_AMOSTRAGEM);
+  }
+
+  /** Processa a próxima referência à página informada. */
+  public void registra(long pagina) {
+    referencias++;
+    if (limiarAmostragem < ESCALA_AMOSTRAGEM
+        && (MapaLongInt.espalha(pagina) & (ESCALA_AMOSTRAGEM - 1)) >= limiarAmostragem) {
+      return;
+    }
+    amostradas++;
+    if (instante == arvore.getTamanho()) {
+      compacta();
+    }
+    int agora = ++instante;
+    int anterior = ultimoUso.obtem(pagina);
+    if (anterior == -1) {
+      falhasFrias++;
+      if (ultimoUso.tamanho() == ultimoUso.getMaximoChaves()) {
+        ultimoUso.cresce(2 * ultimoUso.getMaximoChaves());
+      }
+    } else {
+      // todas as páginas vivas têm uma marca antes de agora
+      int distancia = ultimoUso.tamanho() - arvore.soma(anterior);
+      arvore.adiciona(anterior, -1);
+      contabiliza(distancia);
+    }
+    arvore.adiciona(agora, 1);
+    ultimoUso.insere(pagina, agora);
+  }
+
+  private void contabiliza(int distancia) {
+    if (distancia >= histograma.length) {
+      histograma = Arrays.copyOf(histograma, Math.max(distancia + 1, histograma.length * 2));
+    }
+    histograma[distancia]++;
+    maiorDistancia = Math.max(maiorDistancia, distancia);
+  }
+
+  /** Renumera os últimos usos como 1..n, preservando a ordem. */
+  private void compacta() {
+    int vivas = ultimoUso.tamanho();
+    int[] instantes = new int[vivas];
+    int[] n = {0};
+    ultimoUso.paraCada((pagina, uso) -> instantes[n[0]++] = uso);
+    Arrays.sort(instantes);
+    ultimoUso.paraCada((pagina, uso) ->
+        ultimoUso.insere(pagina, Arrays.binarySearch(instantes, uso) + 1));
+    int tamanho = arvore.getTamanho();
+    if (vivas * 2L > tamanho) {
+      arvore = new ArvoreFenwick((int) Math.min(Integer.MAX_VALUE - 8, vivas * 2L));
+    }
+    arvore.preencheUns(vivas);
+    instante = vivas;
+  }
+
+  /**
+   * @return fração estimada das referências que falham em uma cache LRU
+   *         totalmente associativa com {@code entradas} posições.
+   */
+  public double getTaxaFalhas(long entradas) {
+    if (amostradas == 0) {
+      return 0.0;
+    }
+    // acerta quando distancia / taxa < entradas
+    long limite = Math.min((long) Math.ceil(entradas * taxaAmostragem), maiorDistancia + 1L);
+    long acertos = 0;
+    for (int d = 0; d < limite; d++) {
+      acertos += histograma[d];
+    }
+    return 1.0 - (double) acertos / amostradas;
+  }
+
+  /** @return falhas estimadas no trace completo para a cache de {@code entradas} posições. */
+  public long getFalhas(long entradas) {
+    return Math.round(getTaxaFalhas(entradas) * referencias);
+  }
+
+  /** @return referências processadas (amostradas ou não). */
+  public long getReferencias() {
+    return referencias;
+  }
+
+  /** @return referências efetivamente analisadas. */
+  public long getAmostradas() {
+    return amostradas;
+  }
+
+  /** @return estimativa de páginas distintas no trace completo. */
+  public long getPaginasDistintas() {
+    return Math.round(ultimoUso.tamanho() / taxaAmostragem);
+  }
+
+  /** @return estimativa da maior distância de pilha no trace completo. */
+  public long getMaiorDistancia() {
+    return Math.round((maiorDistancia + 1) / taxaAmostragem);
+  }
+}
@@ -0,0 +1,81 @@
+package desempenho;
+
+import config.Configuracao;
+import config.LayoutSegmentos;
+import config.Segmento;
+import java.util.concurrent.TimeUnit;
+import model.TipoSegmento;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Classificação de endereços em segmentos ({@code getSegmento}). Com
+ * localidade UNIFORME os endereços cobrem todo o espaço virtual de 32 bits e
+ * caem em segmentos diferentes a cada referência. Com {@code segmentos} > 0 o
+ * layout clássico dá lugar a essa quantidade de segmentos configurados,
+ * espalhados pelo espaço virtual com intervalos livres entre eles.
+ * {@code classifica} mede a classificação do trace inteiro em um só lote.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BenchmarkLayoutSegmentos {
+  @Param({"UNIFORME", "ZIPF", "SEQUENCIAL", "LACO"})
+  private Localidade localidade;
+
+  @Param({"0", "64"})
+  private int segmentos;
+
+  private long[] enderecos;
+  private byte[] classificados;
+  private LayoutSegmentos layout;
+
+  @Setup
+  public void prepara() {
+    Configuracao config = new Configuracao(32, 24, 12, 6, 2, 28, 28, 28, null, null);
+    if (segmentos > 0) {
+      long passo = config.getTamanhoEspacoEnderecoVirtual() / segmentos;
+      Segmento[] definidos = new Segmento[segmentos];
+      for (int i = 0; i < segmentos; i++) {
+        definidos[i] = new Segmento("s" + i, i % 2 == 0 ? TipoSegmento.TEXT : TipoSegmento.DATA,
+            Segmento.LEITURA, i * passo, passo / 2, passo / 2);
+      }
+      config.setSegmentos(definidos);
+    }
+    layout = new LayoutSegmentos(config);
+    long[] paginas = TracesSinteticos.paginas(localidade, TracesSinteticos.TAMANHO, 1 << 20,
+        TracesSinteticos.SEMENTE);
+    enderecos = TracesSinteticos.enderecos(paginas, 12, 0, TracesSinteticos.SEMENTE);
+    classificados = new byte[enderecos.length];
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TracesSinteticos.TAMANHO)
+  public int getSegmento() {
+    int soma = 0;
+    for (long endereco : enderecos) {
+      soma += layout.getSegmento(endereco).ordinal();
+    }
+    return soma;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TracesSinteticos.TAMANHO)
+  public byte[] classifica() {
+    layout.classifica(enderecos, enderecos.length, classificados);
+    return classificados;
+  }
+}
@@ -0,0 +1,79 @@
+package desempenho;
+
+import java.util.concurrent.TimeUnit;
+import memory.MemoriaFisica;
+import memory.PoliticaSubstituicao;
+import model.TipoPoliticaSubstituicao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Escolha de vítima ({@code selecionaMolduraParaUso}) com a memória cheia,
+ * seguida da carga da nova página, para cada política de substituição exceto
+ * a OPT (que depende da sequência futura).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BenchmarkMemoriaFisica {
+  @Param({"1024", "65536"})
+  private int molduras;
+
+  @Param({"LRU", "FIFO", "CLOCK", "LFU", "ARC"})
+  private TipoPoliticaSubstituicao politica;
+
+  @Param({"UNIFORME", "ZIPF", "SEQUENCIAL", "LACO"})
+  private Localidade localidade;
+
+  private long[] chaves;
+  private MemoriaFisica memoria;
+  private long instante;
+
+  @Setup
+  public void prepara() {
+    chaves = TracesSinteticos.paginas(localidade, TracesSinteticos.TAMANHO, 1 << 20,
+        TracesSinteticos.SEMENTE);
+    memoria = new MemoriaFisica(molduras,
+        PoliticaSubstituicao.cria(politica, molduras, null));
+    for (int m = 0; m < molduras; m++) {
+      long chave = (1L << 40) + m; // chaves que o trace nunca usa
+      memoria.setaConteudo(memoria.selecionaMolduraParaUso(++instante, chave), chave, chave,
+          instante);
+    }
+  }
+
+  /** Cada referência substitui uma página, como em uma falta com a memória cheia. */
+  @Benchmark
+  @OperationsPerInvocation(TracesSinteticos.TAMANHO)
+  public long substitui() {
+    long soma = 0;
+    for (long chave : chaves) {
+      int moldura = memoria.selecionaMolduraParaUso(++instante, chave);
+      memoria.setaConteudo(moldura, chave, chave, instante);
+      soma += moldura;
+    }
+    return soma;
+  }
+
+  /** Acesso a uma moldura ocupada, que só atualiza a política. */
+  @Benchmark
+  @OperationsPerInvocation(TracesSinteticos.TAMANHO)
+  public void atualizaAcesso() {
+    for (long chave : chaves) {
+      memoria.atualizaAcesso((int) (chave % molduras), ++instante);
+    }
+  }
+}
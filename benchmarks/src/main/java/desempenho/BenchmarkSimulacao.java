@@ -0,0 +1,96 @@
+package desempenho;
+
+import config.Configuracao;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import simulacao.MotorSimulacao;
+import simulacao.TradutorLote;
+
+/**
+ * Laço completo do simulador: {@link MotorSimulacao#traduz(long)} para cada
+ * endereço (TLB, tabela de páginas, substituição e latências), sem o
+ * relatório. O motor é recriado a cada iteração de medição e o conjunto de
+ * trabalho é o dobro da memória física, de modo que há faltas de página em
+ * todos os padrões exceto ZIPF concentrado. {@code traduzLote} faz o mesmo
+ * trabalho em lotes de {@link #LOTE} endereços pelo {@link TradutorLote}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BenchmarkSimulacao {
+  static final int LOTE = 1024;
+
+  @Param({"1", "2", "3"})
+  private int niveis;
+
+  @Param({"UNIFORME", "ZIPF", "SEQUENCIAL", "LACO"})
+  private Localidade localidade;
+
+  private long[] enderecos;
+  private Configuracao config;
+  private MotorSimulacao motor;
+  private TradutorLote tradutor;
+  private final long[] lote = new long[LOTE];
+  private final long[] fisicos = new long[LOTE];
+  private final byte[] flags = new byte[LOTE];
+
+  @Setup
+  public void prepara() {
+    // 4096 molduras de 4 KiB e TLB de 64 entradas
+    config = new Configuracao(32, 24, 12, 6, niveis, 24, 24, 24, null, null);
+    long[] paginas = TracesSinteticos.paginas(localidade, TracesSinteticos.TAMANHO, 8192,
+        TracesSinteticos.SEMENTE);
+    enderecos = TracesSinteticos.enderecos(paginas, 12, 0, TracesSinteticos.SEMENTE);
+  }
+
+  @Setup(Level.Iteration)
+  public void criaMotor() {
+    motor = new MotorSimulacao(config, null);
+    tradutor = new TradutorLote(motor);
+  }
+
+  @TearDown(Level.Iteration)
+  public void fechaMotor() throws IOException {
+    motor.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TracesSinteticos.TAMANHO)
+  public long traduz() {
+    long soma = 0;
+    for (long endereco : enderecos) {
+      soma += motor.traduz(endereco);
+    }
+    return soma;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TracesSinteticos.TAMANHO)
+  public long traduzLote() {
+    long soma = 0;
+    for (int inicio = 0; inicio < enderecos.length; inicio += LOTE) {
+      int n = Math.min(LOTE, enderecos.length - inicio);
+      System.arraycopy(enderecos, inicio, lote, 0, n);
+      tradutor.traduz(lote, n, fisicos, flags);
+      soma += fisicos[n - 1];
+    }
+    return soma;
+  }
+}
@@ -0,0 +1,89 @@
+package desempenho;
+
+import java.util.concurrent.TimeUnit;
+import mmu.TLB;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Consulta e inserção na {@link TLB} para vários tamanhos, associatividades e
+ * padrões de localidade. Cada operação é uma referência do trace.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BenchmarkTLB {
+  @Param({"64", "1024"})
+  private int entradas;
+
+  /** Vias por conjunto; igual a {@code entradas} para a TLB totalmente associativa. */
+  @Param({"1", "4", "64"})
+  private int vias;
+
+  @Param({"UNIFORME", "ZIPF", "SEQUENCIAL", "LACO"})
+  private Localidade localidade;
+
+  private long[] paginas;
+  private TLB tlb;
+  private long instante;
+
+  @Setup
+  public void prepara() {
+    // conjunto de trabalho 4x maior que a maior TLB
+    paginas = TracesSinteticos.paginas(localidade, TracesSinteticos.TAMANHO, 4096,
+        TracesSinteticos.SEMENTE);
+    tlb = new TLB(entradas, Math.min(vias, entradas));
+    for (long pagina : paginas) {
+      tlb.insereOuAtualiza(pagina, (int) pagina, ++instante);
+    }
+  }
+
+  /** Consulta sem inserir nas falhas: o conteúdo da TLB fica fixo. */
+  @Benchmark
+  @OperationsPerInvocation(TracesSinteticos.TAMANHO)
+  public long consulta() {
+    long soma = 0;
+    for (long pagina : paginas) {
+      soma += tlb.lookup(pagina, ++instante);
+    }
+    return soma;
+  }
+
+  /** Insere ou atualiza cada página, expulsando pela LRU do conjunto. */
+  @Benchmark
+  @OperationsPerInvocation(TracesSinteticos.TAMANHO)
+  public void insere() {
+    for (long pagina : paginas) {
+      tlb.insereOuAtualiza(pagina, (int) pagina, ++instante);
+    }
+  }
+
+  /** Consulta e, na falha, inserção, como faz o motor. */
+  @Benchmark
+  @OperationsPerInvocation(TracesSinteticos.TAMANHO)
+  public long consultaEInsere() {
+    long soma = 0;
+    for (long pagina : paginas) {
+      int moldura = tlb.lookup(pagina, ++instante);
+      if (moldura == -1) {
+        tlb.insereOuAtualiza(pagina, (int) pagina, instante);
+        moldura = (int) pagina;
+      }
+      soma += moldura;
+    }
+    return soma;
+  }
+}
@@ -0,0 +1,69 @@
+package desempenho;
+
+import config.Configuracao;
+import java.util.concurrent.TimeUnit;
+import mmu.TabelaPaginas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Caminhada na {@link TabelaPaginas} ({@code obtemMoldura}) com 1, 2 e 3
+ * níveis sobre um espaço virtual de 32 bits e páginas de 4 KiB. Todas as
+ * páginas do trace estão mapeadas, então cada operação é uma caminhada
+ * completa que termina em acerto.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BenchmarkTabelaPaginas {
+  @Param({"1", "2", "3"})
+  private int niveis;
+
+  @Param({"UNIFORME", "ZIPF", "SEQUENCIAL", "LACO"})
+  private Localidade localidade;
+
+  private long[] paginas;
+  private TabelaPaginas tabela;
+
+  @Setup
+  public void prepara() {
+    // 2^16 molduras: cada página distinta do trace recebe a sua
+    Configuracao config = new Configuracao(32, 28, 12, 6, niveis, 20, 20, 20, null, null);
+    paginas = TracesSinteticos.paginas(localidade, TracesSinteticos.TAMANHO, 1 << 16,
+        TracesSinteticos.SEMENTE);
+    // espalha as VPNs pelo espaço de 2^20 páginas para exercitar nós distintos
+    for (int i = 0; i < paginas.length; i++) {
+      paginas[i] = paginas[i] * 16 + (paginas[i] & 15);
+    }
+    tabela = new TabelaPaginas(config);
+    int proxima = 0;
+    for (long pagina : paginas) {
+      if (tabela.consultaMoldura(pagina) == -1) {
+        tabela.mapeiaPagina(pagina, proxima++);
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TracesSinteticos.TAMANHO)
+  public long obtemMoldura() {
+    long soma = 0;
+    for (long pagina : paginas) {
+      soma += tabela.obtemMoldura(pagina);
+    }
+    return soma;
+  }
+}
@@ -0,0 +1,13 @@
+package desempenho;
+
+/** Padrões de localidade dos traces sintéticos (ver {@link TracesSinteticos}). */
+public enum Localidade {
+    /** Páginas sorteadas com a mesma probabilidade. */
+    UNIFORME,
+    /** Poucas páginas concentram a maior parte das referências (Zipf, s = 1). */
+    ZIPF,
+    /** Varredura que nunca repete página. */
+    SEQUENCIAL,
+    /** Varredura repetida sobre o mesmo conjunto de páginas. */
+    LACO
+}
@@ -0,0 +1,103 @@
+package desempenho;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Gera sequências de páginas e endereços reproduzíveis para os benchmarks.
+ *
+ * <p>
+ * Todas as sequências dependem só dos parâmetros e da semente, de modo que
+ * execuções diferentes (e versões diferentes do simulador) medem exatamente o
+ * mesmo trabalho.
+ */
+public final class TracesSinteticos {
+  /** Referências de cada trace; os benchmarks contam uma operação por referência. */
+  public static final int TAMANHO = 1 << 16;
+  /** Semente padrão dos benchmarks. */
+  public static final long SEMENTE = 42;
+
+  private TracesSinteticos() {
+  }
+
+  /**
+   * Sequência de {@code n} VPNs com a localidade pedida.
+   *
+   * @param distintas páginas do conjunto sorteado (UNIFORME, ZIPF) ou do laço
+   *                  (LACO); a varredura SEQUENCIAL ignora o valor
+   */
+  public static long[] paginas(Localidade localidade, int n, int distintas, long semente) {
+    Random aleatorio = new Random(semente);
+    long[] paginas = new long[n];
+    switch (localidade) {
+      case UNIFORME:
+        for (int i = 0; i < n; i++) {
+          paginas[i] = aleatorio.nextInt(distintas);
+        }
+        break;
+      case ZIPF:
+        double[] acumulada = acumuladaZipf(distintas);
+        int[] permutacao = permutacao(distintas, aleatorio);
+        for (int i = 0; i < n; i++) {
+          int posicao = Arrays.binarySearch(acumulada, aleatorio.nextDouble());
+          int rank = posicao >= 0 ? posicao : Math.min(-posicao - 1, distintas - 1);
+          // as páginas mais populares ficam espalhadas, não nas primeiras VPNs
+          paginas[i] = permutacao[rank];
+        }
+        break;
+      case SEQUENCIAL:
+        for (int i = 0; i < n; i++) {
+          paginas[i] = i;
+        }
+        break;
+      case LACO:
+        for (int i = 0; i < n; i++) {
+          paginas[i] = i % distintas;
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Localidade desconhecida: " + localidade);
+    }
+    return paginas;
+  }
+
+  /**
+   * Converte VPNs em endereços virtuais com deslocamento sorteado dentro da
+   * página; {@code base} é somado a cada endereço.
+   */
+  public static long[] enderecos(long[] paginas, int bitsPagina, long base, long semente) {
+    Random aleatorio = new Random(semente);
+    long[] enderecos = new long[paginas.length];
+    for (int i = 0; i < paginas.length; i++) {
+      enderecos[i] = base + (paginas[i] << bitsPagina) + aleatorio.nextInt(1 << bitsPagina);
+    }
+    return enderecos;
+  }
+
+  private static double[] acumuladaZipf(int n) {
+    double[] acumulada = new double[n];
+    double soma = 0;
+    for (int i = 0; i < n; i++) {
+      soma += 1.0 / (i + 1);
+      acumulada[i] = soma;
+    }
+    for (int i = 0; i < n; i++) {
+      acumulada[i] /= soma;
+    }
+    return acumulada;
+  }
+
+  private static int[] permutacao(int n, Random aleatorio) {
+    int[] p = new int[n];
+    for (int i = 0; i < n; i++) {
+      p[i] = i;
+    }
+    for (int i = n - 1; i > 0; i--) {
+      int j = aleatorio.nextInt(i + 1);
+      int t = p[i];
+      p[i] = p[j];
+      p[j] = t;
+    }
+    return p;
+  }
+}
@@ -1,5 +1,13 @@
 package config;
 
+import model.EstrategiaAlocacao;
+import model.ModoTrocaContexto;
+import model.NivelRelatorio;
+import model.PoliticaInclusaoTLB;
+import model.TipoPoliticaSubstituicao;
+import model.TipoPrefetch;
+import model.TratamentoViolacao;
+
 /**
  * Representa todos os parâmetros necessários para executar o simulador.
  *
@@ -22,6 +30,73 @@ public class Configuracao {
   private final String arquivoEntrada;
   private final String arquivoSaida;
 
+  // Opções avançadas: os valores padrão reproduzem o simulador original.
+  private TipoPoliticaSubstituicao politicaSubstituicao = TipoPoliticaSubstituicao.LRU;
+  private int associatividadeTLB = 0;
+
+  private boolean hierarquiaTLB = false;
+  private int bitsTLBInstrucoes = 4;
+  private int bitsTLBDados = 6;
+  private int bitsTLBL2 = 9;
+  private int associatividadeTLBInstrucoes = 0;
+  private int associatividadeTLBDados = 4;
+  private int associatividadeTLBL2 = 8;
+  private int latenciaTLBL1 = 1;
+  private int latenciaTLBL2 = 7;
+  private PoliticaInclusaoTLB inclusaoTLB = PoliticaInclusaoTLB.NAO_INCLUSIVA;
+
+  private int latenciaMemoria = 100;
+  private int latenciaFaltaPagina = 100_000;
+  private boolean cachePaginacao = false;
+  private int entradasCachePaginacao = 16;
+  private int latenciaCachePaginacao = 1;
+
+  private int moldurasGrandes = 0;
+  private int nivelPaginaGrande = 1;
+  private int limiarPromocaoGrande = 64;
+
+  private NivelRelatorio nivelRelatorio = NivelRelatorio.ACESSOS;
+  private long intervaloAmostragem = 1000;
+  private boolean relatorioSomenteValidos = false;
+
+  private boolean pipeline = false;
+  private boolean agrupaSequencias = true;
+  private int tamanhoLote = 4096;
+
+  private ModoTrocaContexto modoTrocaContexto = ModoTrocaContexto.ASID;
+  private int bitsASID = 12;
+
+  private EstrategiaAlocacao alocacaoMolduras = EstrategiaAlocacao.GLOBAL;
+  private int cotaMolduras = 0;
+  private int janelaConjuntoTrabalho = 0;
+  private int limiarPFF = 1000;
+
+  private String arquivoSwap = null;
+  private int latenciaSwapUs = 100;
+  private int bandaSwapMBps = 500;
+  private int frequenciaCPUMHz = 1000;
+  private int loteWriteBack = 32;
+  private int intervaloWriteBack = 10_000;
+
+  private TipoPrefetch prefetch = TipoPrefetch.NENHUM;
+  private int profundidadePrefetch = 4;
+  private boolean prefetchTLB = false;
+  private int entradasMarkov = 4096;
+
+  private long intervaloMetricas = 0;
+  private String arquivoMetricas = null;
+  private boolean jmxMetricas = false;
+
+  private String arquivoCheckpoint = null;
+  private long intervaloCheckpoint = 0;
+  private String restauraCheckpoint = null;
+  private boolean retomaCheckpoint = true;
+
+  private int nucleos = 1;
+
+  private Segmento[] segmentos = null;
+  private TratamentoViolacao violacaoSegmento = TratamentoViolacao.IGNORA;
+
   /**
    * Cria uma configuração válida para o simulador.
    *
@@ -30,7 +105,7 @@ public class Configuracao {
    * @param bitsEnderecoFisico     quantidade de bits no endereço físico
    * @param bitsDeslocamentoPagina bits do deslocamento dentro da página
    * @param bitsEntradasTLB        log2 do número de entradas da TLB
-   * @param niveisTabelaPaginas    quantidade de níveis da tabela de páginas (1-3)
+   * @param niveisTabelaPaginas    quantidade de níveis da tabela de páginas (1-4)
    * @param bitsTamanhoText        log2 do tamanho do segmento .text
    * @param bitsTamanhoData        log2 do tamanho do segmento .data
    * @param bitsTamanhoStack       log2 do tamanho do segmento .stack
@@ -51,8 +126,11 @@ public class Configuracao {
       throw new IllegalArgumentException(
           "Espaço de endereços virtuais deve ser >= ao tamanho da memória física");
     }
-    if (niveisTabelaPaginas < 1 || niveisTabelaPaginas > 3) {
-      throw new IllegalArgumentException("Níveis da tabela de páginas devem ser 1, 2 ou 3");
+    if (bitsEnderecoVirtual > 63) {
+      throw new IllegalArgumentException("Endereços virtuais podem ter no máximo 63 bits");
+    }
+    if (niveisTabelaPaginas < 1 || niveisTabelaPaginas > 4) {
+      throw new IllegalArgumentException("Níveis da tabela de páginas devem ser de 1 a 4");
     }
     this.bitsEnderecoVirtual = bitsEnderecoVirtual;
     this.bitsEnderecoFisico = bitsEnderecoFisico;
@@ -94,8 +172,40 @@ public class Configuracao {
    * bitsText=12
    * bitsData=12
    * bitsStack=12
-   * arquivoEntrada=enderecos_entrada.txt
+   * arquivoEntrada=enderecos_entrada.txt (texto ou trace binário)
    * arquivoSaida=saida_simulador.txt
+   * politicaSubstituicao=LRU (opcional: LRU, FIFO, CLOCK, LFU, ARC ou OPT)
+   * associatividadeTLB=0 (opcional: vias por conjunto, 0 = totalmente associativa)
+   * hierarquiaTLB=false (opcional: L1 de instruções/dados + L2 compartilhado)
+   * bitsTLBInstrucoes, bitsTLBDados, bitsTLBL2 e associatividadeTLB* de cada nível
+   * latenciaTLBL1=1, latenciaTLBL2=7 (ciclos por consulta)
+   * inclusaoTLB=NAO_INCLUSIVA (opcional: INCLUSIVA, EXCLUSIVA ou NAO_INCLUSIVA)
+   * latenciaMemoria=100, latenciaFaltaPagina=100000 (ciclos)
+   * cachePaginacao=false, entradasCachePaginacao=16, latenciaCachePaginacao=1
+   * moldurasGrandes=0, nivelPaginaGrande=1, limiarPromocaoGrande=64
+   * nivelRelatorio=ACESSOS (opcional: ACESSOS, AMOSTRADO ou RESUMO)
+   * intervaloAmostragem=1000, relatorioSomenteValidos=false
+   * pipeline=false (leitura, tradução e relatório em threads separadas), tamanhoLote=4096
+   * agrupaSequencias=true (traduz de uma vez os acessos seguidos à mesma página)
+   * modoTrocaContexto=ASID (opcional: ASID ou FLUSH), bitsASID=12
+   * alocacaoMolduras=GLOBAL (opcional: GLOBAL, FIXA, CONJUNTO_TRABALHO ou PFF)
+   * cotaMolduras=0 (FIXA; 0 = divisão igual), janelaConjuntoTrabalho=0 (τ; 0 = sem
+   * detecção de thrashing), limiarPFF=1000
+   * arquivoSwap (opcional: ativa o dispositivo de swap), latenciaSwapUs=100,
+   * bandaSwapMBps=500, frequenciaCPUMHz=1000, loteWriteBack=32, intervaloWriteBack=10000
+   * prefetch=NENHUM (opcional: SEQUENCIAL, PASSO ou MARKOV), profundidadePrefetch=4,
+   * prefetchTLB=false, entradasMarkov=4096
+   * intervaloMetricas=0 (acessos entre amostras; 0 = sem amostras), arquivoMetricas
+   * (opcional: CSV das amostras), jmxMetricas=false (publica os contadores via JMX)
+   * arquivoCheckpoint (opcional: grava o estado ao final), intervaloCheckpoint=0 (acessos
+   * entre checkpoints; 0 = só ao final), restauraCheckpoint (opcional: estado inicial),
+   * retomaCheckpoint=true (false = só aquece o estado e lê o trace desde o início)
+   * nucleos=1 (2 a 64: cada núcleo com TLB própria e o processo do trace como fluxo do
+   * núcleo, ver simulacao.SimulacaoMulticore)
+   * segmentos (opcional: nomes separados por espaço, cada um definido em
+   * segmento.NOME=TIPO rwx INICIO TAMANHO [TAMANHO_MAXIMO]; sem ela vale o layout
+   * bitsText/bitsData/bitsStack, ver Segmento)
+   * violacaoSegmento=IGNORA (opcional: IGNORA, CONTA ou ABORTA)
    */
   /**
    * Lê um arquivo .properties (formato chave=valor) e instancia uma Configuracao.
@@ -105,7 +215,11 @@ public class Configuracao {
     try (java.io.FileReader reader = new java.io.FileReader(caminhoArquivo)) {
       props.load(reader);
     }
+    return deProperties(props);
+  }
 
+  /** Instancia uma Configuracao a partir de propriedades já carregadas. */
+  public static Configuracao deProperties(java.util.Properties props) {
     int bitsVirtual = Integer.parseInt(props.getProperty("bitsVirtual", "16"));
     int bitsFisico = Integer.parseInt(props.getProperty("bitsFisico", "14"));
     int bitsPagina = Integer.parseInt(props.getProperty("bitsPagina", "12"));
@@ -117,8 +231,105 @@ public class Configuracao {
     String arquivoEntrada = props.getProperty("arquivoEntrada", "enderecos_entrada.txt");
     String arquivoSaida = props.getProperty("arquivoSaida", "saida_simulador.txt");
 
-    return new Configuracao(bitsVirtual, bitsFisico, bitsPagina, bitsTLB, niveis,
+    Configuracao config = new Configuracao(bitsVirtual, bitsFisico, bitsPagina, bitsTLB, niveis,
         bitsText, bitsData, bitsStack, arquivoEntrada, arquivoSaida);
+    config.setPoliticaSubstituicao(TipoPoliticaSubstituicao.valueOf(
+        props.getProperty("politicaSubstituicao", "LRU").trim().toUpperCase()));
+    config.setAssociatividadeTLB(inteiro(props, "associatividadeTLB", 0));
+
+    config.setHierarquiaTLB(
+        Boolean.parseBoolean(props.getProperty("hierarquiaTLB", "false").trim()));
+    config.setTLBInstrucoes(inteiro(props, "bitsTLBInstrucoes", config.bitsTLBInstrucoes),
+        inteiro(props, "associatividadeTLBInstrucoes", config.associatividadeTLBInstrucoes));
+    config.setTLBDados(inteiro(props, "bitsTLBDados", config.bitsTLBDados),
+        inteiro(props, "associatividadeTLBDados", config.associatividadeTLBDados));
+    config.setTLBL2(inteiro(props, "bitsTLBL2", config.bitsTLBL2),
+        inteiro(props, "associatividadeTLBL2", config.associatividadeTLBL2));
+    config.setLatenciasTLB(inteiro(props, "latenciaTLBL1", config.latenciaTLBL1),
+        inteiro(props, "latenciaTLBL2", config.latenciaTLBL2));
+    config.setInclusaoTLB(PoliticaInclusaoTLB.valueOf(
+        props.getProperty("inclusaoTLB", config.inclusaoTLB.name()).trim().toUpperCase()));
+
+    config.setLatenciaMemoria(inteiro(props, "latenciaMemoria", config.latenciaMemoria));
+    config.setLatenciaFaltaPagina(
+        inteiro(props, "latenciaFaltaPagina", config.latenciaFaltaPagina));
+    config.setCachePaginacao(
+        Boolean.parseBoolean(props.getProperty("cachePaginacao", "false").trim()),
+        inteiro(props, "entradasCachePaginacao", config.entradasCachePaginacao),
+        inteiro(props, "latenciaCachePaginacao", config.latenciaCachePaginacao));
+
+    config.setPaginasGrandes(inteiro(props, "moldurasGrandes", config.moldurasGrandes),
+        inteiro(props, "nivelPaginaGrande", config.nivelPaginaGrande),
+        inteiro(props, "limiarPromocaoGrande", config.limiarPromocaoGrande));
+
+    String intervalo = props.getProperty("intervaloAmostragem");
+    config.setNivelRelatorio(NivelRelatorio.valueOf(
+        props.getProperty("nivelRelatorio", config.nivelRelatorio.name()).trim().toUpperCase()),
+        intervalo == null ? config.intervaloAmostragem : Long.parseLong(intervalo.trim()));
+    config.setRelatorioSomenteValidos(
+        Boolean.parseBoolean(props.getProperty("relatorioSomenteValidos", "false").trim()));
+    config.setPipeline(Boolean.parseBoolean(props.getProperty("pipeline", "false").trim()),
+        inteiro(props, "tamanhoLote", config.tamanhoLote));
+    config.setTrocaContexto(ModoTrocaContexto.valueOf(props.getProperty("modoTrocaContexto",
+        config.modoTrocaContexto.name()).trim().toUpperCase()),
+        inteiro(props, "bitsASID", config.bitsASID));
+    config.setAlocacaoMolduras(EstrategiaAlocacao.valueOf(props.getProperty("alocacaoMolduras",
+        config.alocacaoMolduras.name()).trim().toUpperCase()),
+        inteiro(props, "cotaMolduras", config.cotaMolduras),
+        inteiro(props, "janelaConjuntoTrabalho", config.janelaConjuntoTrabalho),
+        inteiro(props, "limiarPFF", config.limiarPFF));
+    String swap = props.getProperty("arquivoSwap");
+    config.setSwap(swap == null || swap.trim().isEmpty() ? null : swap.trim(),
+        inteiro(props, "latenciaSwapUs", config.latenciaSwapUs),
+        inteiro(props, "bandaSwapMBps", config.bandaSwapMBps),
+        inteiro(props, "frequenciaCPUMHz", config.frequenciaCPUMHz));
+    config.setWriteBack(inteiro(props, "loteWriteBack", config.loteWriteBack),
+        inteiro(props, "intervaloWriteBack", config.intervaloWriteBack));
+    config.setPrefetch(TipoPrefetch.valueOf(props.getProperty("prefetch",
+        config.prefetch.name()).trim().toUpperCase()),
+        inteiro(props, "profundidadePrefetch", config.profundidadePrefetch),
+        Boolean.parseBoolean(props.getProperty("prefetchTLB", "false").trim()),
+        inteiro(props, "entradasMarkov", config.entradasMarkov));
+    String metricas = props.getProperty("arquivoMetricas");
+    String intervaloMetricas = props.getProperty("intervaloMetricas");
+    config.setMetricas(intervaloMetricas == null ? config.intervaloMetricas
+        : Long.parseLong(intervaloMetricas.trim()),
+        metricas == null || metricas.trim().isEmpty() ? null : metricas.trim(),
+        Boolean.parseBoolean(props.getProperty("jmxMetricas", "false").trim()));
+    String checkpoint = props.getProperty("arquivoCheckpoint");
+    String intervaloCheckpoint = props.getProperty("intervaloCheckpoint");
+    config.setCheckpoint(checkpoint == null || checkpoint.trim().isEmpty() ? null
+        : checkpoint.trim(), intervaloCheckpoint == null ? config.intervaloCheckpoint
+        : Long.parseLong(intervaloCheckpoint.trim()));
+    String restaura = props.getProperty("restauraCheckpoint");
+    config.setRestauraCheckpoint(restaura == null || restaura.trim().isEmpty() ? null
+        : restaura.trim(),
+        Boolean.parseBoolean(props.getProperty("retomaCheckpoint", "true").trim()));
+    config.setNucleos(inteiro(props, "nucleos", config.nucleos));
+    config.setAgrupaSequencias(
+        Boolean.parseBoolean(props.getProperty("agrupaSequencias", "true").trim()));
+    String segmentos = props.getProperty("segmentos");
+    if (segmentos != null && !segmentos.trim().isEmpty()) {
+      String[] nomes = segmentos.trim().split("\\s+");
+      Segmento[] definidos = new Segmento[nomes.length];
+      for (int i = 0; i < nomes.length; i++) {
+        String definicao = props.getProperty("segmento." + nomes[i]);
+        if (definicao == null) {
+          throw new IllegalArgumentException("Segmento sem definição: segmento." + nomes[i]);
+        }
+        definidos[i] = Segmento.de(nomes[i], definicao);
+      }
+      config.setSegmentos(definidos);
+    }
+    config.setViolacaoSegmento(TratamentoViolacao.valueOf(props.getProperty("violacaoSegmento",
+        config.violacaoSegmento.name()).trim().toUpperCase()));
+    return config;
+  }
+
+  /** Lê uma propriedade inteira opcional. */
+  private static int inteiro(java.util.Properties props, String chave, int padrao) {
+    String valor = props.getProperty(chave);
+    return valor == null ? padrao : Integer.parseInt(valor.trim());
   }
 
   /** @return quantidade de bits utilizada para representar endereços virtuais. */
@@ -188,6 +399,561 @@ public class Configuracao {
     return arquivoSaida;
   }
 
+  /** @return algoritmo usado para escolher a moldura vítima. */
+  public TipoPoliticaSubstituicao getPoliticaSubstituicao() {
+    return politicaSubstituicao;
+  }
+
+  /** Define o algoritmo de substituição de páginas. */
+  public void setPoliticaSubstituicao(TipoPoliticaSubstituicao politicaSubstituicao) {
+    if (politicaSubstituicao == null) {
+      throw new IllegalArgumentException("Política de substituição não pode ser nula");
+    }
+    this.politicaSubstituicao = politicaSubstituicao;
+  }
+
+  /**
+   * @return vias por conjunto da TLB (1 = mapeamento direto, 0 = totalmente
+   *         associativa).
+   */
+  public int getAssociatividadeTLB() {
+    return associatividadeTLB;
+  }
+
+  /** Define a associatividade da TLB; deve dividir a quantidade de entradas. */
+  public void setAssociatividadeTLB(int associatividadeTLB) {
+    int entradas = getEntradasTLB();
+    if (associatividadeTLB < 0 || associatividadeTLB > entradas
+        || (associatividadeTLB > 0 && entradas % associatividadeTLB != 0)) {
+      throw new IllegalArgumentException(
+          "Associatividade da TLB deve ser 0 ou um divisor do número de entradas");
+    }
+    this.associatividadeTLB = associatividadeTLB;
+  }
+
+  /** @return true se a simulação usa L1 de instruções/dados e L2 compartilhado. */
+  public boolean isHierarquiaTLB() {
+    return hierarquiaTLB;
+  }
+
+  /** Ativa ou desativa a hierarquia de TLBs. */
+  public void setHierarquiaTLB(boolean hierarquiaTLB) {
+    this.hierarquiaTLB = hierarquiaTLB;
+  }
+
+  /** @return log2 das entradas da TLB L1 de instruções. */
+  public int getBitsTLBInstrucoes() {
+    return bitsTLBInstrucoes;
+  }
+
+  /** @return vias por conjunto da TLB L1 de instruções. */
+  public int getAssociatividadeTLBInstrucoes() {
+    return associatividadeTLBInstrucoes;
+  }
+
+  /** Define tamanho (log2) e associatividade da TLB L1 de instruções. */
+  public void setTLBInstrucoes(int bits, int associatividade) {
+    validaNivelTLB(bits, associatividade);
+    this.bitsTLBInstrucoes = bits;
+    this.associatividadeTLBInstrucoes = associatividade;
+  }
+
+  /** @return log2 das entradas da TLB L1 de dados. */
+  public int getBitsTLBDados() {
+    return bitsTLBDados;
+  }
+
+  /** @return vias por conjunto da TLB L1 de dados. */
+  public int getAssociatividadeTLBDados() {
+    return associatividadeTLBDados;
+  }
+
+  /** Define tamanho (log2) e associatividade da TLB L1 de dados. */
+  public void setTLBDados(int bits, int associatividade) {
+    validaNivelTLB(bits, associatividade);
+    this.bitsTLBDados = bits;
+    this.associatividadeTLBDados = associatividade;
+  }
+
+  /** @return log2 das entradas da TLB L2 compartilhada. */
+  public int getBitsTLBL2() {
+    return bitsTLBL2;
+  }
+
+  /** @return vias por conjunto da TLB L2. */
+  public int getAssociatividadeTLBL2() {
+    return associatividadeTLBL2;
+  }
+
+  /** Define tamanho (log2) e associatividade da TLB L2. */
+  public void setTLBL2(int bits, int associatividade) {
+    validaNivelTLB(bits, associatividade);
+    this.bitsTLBL2 = bits;
+    this.associatividadeTLBL2 = associatividade;
+  }
+
+  private static void validaNivelTLB(int bits, int associatividade) {
+    if (bits < 0 || bits > 24) {
+      throw new IllegalArgumentException("Tamanho de TLB deve estar entre 2^0 e 2^24 entradas");
+    }
+    int entradas = 1 << bits;
+    if (associatividade < 0 || associatividade > entradas
+        || (associatividade > 0 && entradas % associatividade != 0)) {
+      throw new IllegalArgumentException(
+          "Associatividade da TLB deve ser 0 ou um divisor do número de entradas");
+    }
+  }
+
+  /** @return ciclos de uma consulta à TLB de nível 1. */
+  public int getLatenciaTLBL1() {
+    return latenciaTLBL1;
+  }
+
+  /** @return ciclos de uma consulta à TLB de nível 2. */
+  public int getLatenciaTLBL2() {
+    return latenciaTLBL2;
+  }
+
+  /** Define as latências (em ciclos) das consultas a cada nível de TLB. */
+  public void setLatenciasTLB(int latenciaL1, int latenciaL2) {
+    if (latenciaL1 < 0 || latenciaL2 < 0) {
+      throw new IllegalArgumentException("Latências não podem ser negativas");
+    }
+    this.latenciaTLBL1 = latenciaL1;
+    this.latenciaTLBL2 = latenciaL2;
+  }
+
+  /** @return relação de inclusão entre os níveis de TLB. */
+  public PoliticaInclusaoTLB getInclusaoTLB() {
+    return inclusaoTLB;
+  }
+
+  /** Define a relação de inclusão entre os níveis de TLB. */
+  public void setInclusaoTLB(PoliticaInclusaoTLB inclusaoTLB) {
+    if (inclusaoTLB == null) {
+      throw new IllegalArgumentException("Política de inclusão não pode ser nula");
+    }
+    this.inclusaoTLB = inclusaoTLB;
+  }
+
+  /** @return ciclos de uma referência à memória (caminhada ou dado). */
+  public int getLatenciaMemoria() {
+    return latenciaMemoria;
+  }
+
+  /** Define os ciclos de cada referência à memória. */
+  public void setLatenciaMemoria(int latenciaMemoria) {
+    if (latenciaMemoria < 0) {
+      throw new IllegalArgumentException("Latências não podem ser negativas");
+    }
+    this.latenciaMemoria = latenciaMemoria;
+  }
+
+  /** @return ciclos gastos para tratar uma falta de página. */
+  public int getLatenciaFaltaPagina() {
+    return latenciaFaltaPagina;
+  }
+
+  /** Define os ciclos de tratamento de uma falta de página. */
+  public void setLatenciaFaltaPagina(int latenciaFaltaPagina) {
+    if (latenciaFaltaPagina < 0) {
+      throw new IllegalArgumentException("Latências não podem ser negativas");
+    }
+    this.latenciaFaltaPagina = latenciaFaltaPagina;
+  }
+
+  /** @return true se a cache de estruturas de paginação está ativa. */
+  public boolean isCachePaginacao() {
+    return cachePaginacao;
+  }
+
+  /** @return entradas da cache de paginação em cada nível intermediário. */
+  public int getEntradasCachePaginacao() {
+    return entradasCachePaginacao;
+  }
+
+  /** @return ciclos de uma consulta à cache de paginação. */
+  public int getLatenciaCachePaginacao() {
+    return latenciaCachePaginacao;
+  }
+
+  /** Ativa a cache de paginação com o tamanho (por nível) e a latência informados. */
+  public void setCachePaginacao(boolean ativa, int entradasPorNivel, int latencia) {
+    if (entradasPorNivel < 1 || latencia < 0) {
+      throw new IllegalArgumentException(
+          "Cache de paginação precisa de ao menos 1 entrada e latência não negativa");
+    }
+    this.cachePaginacao = ativa;
+    this.entradasCachePaginacao = entradasPorNivel;
+    this.latenciaCachePaginacao = latencia;
+  }
+
+  /** @return quantidade de páginas grandes reservadas na memória física (0 = desativado). */
+  public int getMoldurasGrandes() {
+    return moldurasGrandes;
+  }
+
+  /**
+   * @return quantos níveis acima das folhas as páginas grandes são mapeadas
+   *         (1 equivale a 2 MB no x86-64, 2 a 1 GB).
+   */
+  public int getNivelPaginaGrande() {
+    return nivelPaginaGrande;
+  }
+
+  /** @return faltas de TLB numa região de .data/.bss antes de promovê-la. */
+  public int getLimiarPromocaoGrande() {
+    return limiarPromocaoGrande;
+  }
+
+  /** Configura a reserva e a promoção de páginas grandes. */
+  public void setPaginasGrandes(int molduras, int nivel, int limiarPromocao) {
+    if (molduras < 0 || limiarPromocao < 1) {
+      throw new IllegalArgumentException("Parâmetros de páginas grandes inválidos");
+    }
+    if (molduras > 0 && (nivel < 1 || nivel >= niveisTabelaPaginas)) {
+      throw new IllegalArgumentException(
+          "Páginas grandes precisam de um nível intermediário (1 a niveis-1)");
+    }
+    this.moldurasGrandes = molduras;
+    this.nivelPaginaGrande = nivel;
+    this.limiarPromocaoGrande = limiarPromocao;
+  }
+
+  /** @return quais acessos geram linhas no relatório. */
+  public NivelRelatorio getNivelRelatorio() {
+    return nivelRelatorio;
+  }
+
+  /** @return no nível AMOSTRADO, um a cada quantos acessos é listado. */
+  public long getIntervaloAmostragem() {
+    return intervaloAmostragem;
+  }
+
+  /** Define o nível do relatório e o intervalo usado no modo amostrado. */
+  public void setNivelRelatorio(NivelRelatorio nivel, long intervaloAmostragem) {
+    if (nivel == null || intervaloAmostragem < 1) {
+      throw new IllegalArgumentException("Nível de relatório ou intervalo inválido");
+    }
+    this.nivelRelatorio = nivel;
+    this.intervaloAmostragem = intervaloAmostragem;
+  }
+
+  /** @return true se o relatório omite entradas inválidas e molduras livres. */
+  public boolean isRelatorioSomenteValidos() {
+    return relatorioSomenteValidos;
+  }
+
+  public void setRelatorioSomenteValidos(boolean somenteValidos) {
+    this.relatorioSomenteValidos = somenteValidos;
+  }
+
+  /** @return true se leitura, tradução e relatório rodam em threads separadas. */
+  public boolean isPipeline() {
+    return pipeline;
+  }
+
+  /** @return referências por lote trocado entre as etapas. */
+  public int getTamanhoLote() {
+    return tamanhoLote;
+  }
+
+  /** @return tratamento das TLBs nas trocas de processo. */
+  public ModoTrocaContexto getModoTrocaContexto() {
+    return modoTrocaContexto;
+  }
+
+  /** @return bits do identificador de espaço de endereçamento (2^n ASIDs). */
+  public int getBitsASID() {
+    return bitsASID;
+  }
+
+  /** Define o tratamento das TLBs nas trocas de contexto e a quantidade de ASIDs. */
+  public void setTrocaContexto(ModoTrocaContexto modo, int bitsASID) {
+    if (modo == null || bitsASID < 1 || bitsASID > 16) {
+      throw new IllegalArgumentException("bitsASID deve estar entre 1 e 16");
+    }
+    this.modoTrocaContexto = modo;
+    this.bitsASID = bitsASID;
+  }
+
+  /** @return forma de repartir as molduras entre os processos. */
+  public EstrategiaAlocacao getAlocacaoMolduras() {
+    return alocacaoMolduras;
+  }
+
+  /** @return molduras por processo na alocação FIXA (0 = divisão igual). */
+  public int getCotaMolduras() {
+    return cotaMolduras;
+  }
+
+  /** @return janela τ do conjunto de trabalho, em referências do processo (0 = desligado). */
+  public int getJanelaConjuntoTrabalho() {
+    return janelaConjuntoTrabalho;
+  }
+
+  /** @return referências entre faltas abaixo das quais o PFF aumenta o processo. */
+  public int getLimiarPFF() {
+    return limiarPFF;
+  }
+
+  /**
+   * Define a alocação de molduras. A janela do conjunto de trabalho também
+   * liga a detecção de thrashing em qualquer estratégia e é obrigatória em
+   * {@link EstrategiaAlocacao#CONJUNTO_TRABALHO}.
+   */
+  public void setAlocacaoMolduras(EstrategiaAlocacao estrategia, int cota, int janela,
+      int limiarPFF) {
+    if (estrategia == null || cota < 0 || janela < 0 || limiarPFF < 1) {
+      throw new IllegalArgumentException("Parâmetros de alocação de molduras inválidos");
+    }
+    if (estrategia == EstrategiaAlocacao.CONJUNTO_TRABALHO && janela == 0) {
+      throw new IllegalArgumentException(
+          "Alocação por conjunto de trabalho exige janelaConjuntoTrabalho > 0");
+    }
+    this.alocacaoMolduras = estrategia;
+    this.cotaMolduras = cota;
+    this.janelaConjuntoTrabalho = janela;
+    this.limiarPFF = limiarPFF;
+  }
+
+  /** @return arquivo do dispositivo de swap ou null se o swap não é simulado. */
+  public String getArquivoSwap() {
+    return arquivoSwap;
+  }
+
+  /** @return latência de cada operação no dispositivo de swap, em microssegundos. */
+  public int getLatenciaSwapUs() {
+    return latenciaSwapUs;
+  }
+
+  /** @return banda do dispositivo de swap, em MB/s. */
+  public int getBandaSwapMBps() {
+    return bandaSwapMBps;
+  }
+
+  /** @return frequência usada para converter tempos de E/S em ciclos, em MHz. */
+  public int getFrequenciaCPUMHz() {
+    return frequenciaCPUMHz;
+  }
+
+  /** @return molduras sujas gravadas por rodada do daemon de write-back. */
+  public int getLoteWriteBack() {
+    return loteWriteBack;
+  }
+
+  /** @return referências entre rodadas do daemon de write-back (0 = sem daemon). */
+  public int getIntervaloWriteBack() {
+    return intervaloWriteBack;
+  }
+
+  /** Ativa (arquivo não nulo) o dispositivo de swap com a latência e a banda informadas. */
+  public void setSwap(String arquivo, int latenciaUs, int bandaMBps, int frequenciaMHz) {
+    if (latenciaUs < 0 || bandaMBps < 1 || frequenciaMHz < 1) {
+      throw new IllegalArgumentException("Parâmetros do dispositivo de swap inválidos");
+    }
+    this.arquivoSwap = arquivo;
+    this.latenciaSwapUs = latenciaUs;
+    this.bandaSwapMBps = bandaMBps;
+    this.frequenciaCPUMHz = frequenciaMHz;
+  }
+
+  /** @return estratégia de antecipação de páginas nas faltas. */
+  public TipoPrefetch getPrefetch() {
+    return prefetch;
+  }
+
+  /** @return máximo de páginas antecipadas por falta. */
+  public int getProfundidadePrefetch() {
+    return profundidadePrefetch;
+  }
+
+  /** @return true se as páginas antecipadas também entram na TLB. */
+  public boolean isPrefetchTLB() {
+    return prefetchTLB;
+  }
+
+  /** @return linhas da tabela de correlação do prefetch MARKOV. */
+  public int getEntradasMarkov() {
+    return entradasMarkov;
+  }
+
+  /** Define a antecipação de páginas nas faltas. */
+  public void setPrefetch(TipoPrefetch tipo, int profundidade, boolean naTLB, int entradasMarkov) {
+    if (tipo == null || profundidade < 1 || profundidade > 64 || entradasMarkov < 1) {
+      throw new IllegalArgumentException("Parâmetros de prefetch inválidos");
+    }
+    this.prefetch = tipo;
+    this.profundidadePrefetch = profundidade;
+    this.prefetchTLB = naTLB;
+    this.entradasMarkov = entradasMarkov;
+  }
+
+  /** @return acessos entre amostras das métricas (0 = sem amostras periódicas). */
+  public long getIntervaloMetricas() {
+    return intervaloMetricas;
+  }
+
+  /** @return arquivo CSV das amostras das métricas ou null. */
+  public String getArquivoMetricas() {
+    return arquivoMetricas;
+  }
+
+  /** @return true se os contadores são publicados como MBean. */
+  public boolean isJmxMetricas() {
+    return jmxMetricas;
+  }
+
+  /**
+   * Define a coleta de métricas durante a simulação: uma amostra a cada
+   * {@code intervalo} acessos, gravada no CSV (se informado) e publicada via
+   * JMX (se {@code jmx}).
+   */
+  public void setMetricas(long intervalo, String arquivo, boolean jmx) {
+    if (intervalo < 0 || arquivo != null && intervalo == 0) {
+      throw new IllegalArgumentException(
+          "intervaloMetricas deve ser positivo quando arquivoMetricas é informado");
+    }
+    this.intervaloMetricas = intervalo;
+    this.arquivoMetricas = arquivo;
+    this.jmxMetricas = jmx;
+  }
+
+  /** @return arquivo em que o estado da simulação é gravado ou null. */
+  public String getArquivoCheckpoint() {
+    return arquivoCheckpoint;
+  }
+
+  /** @return acessos entre checkpoints (0 = só ao final da simulação). */
+  public long getIntervaloCheckpoint() {
+    return intervaloCheckpoint;
+  }
+
+  /** @return checkpoint de onde a simulação parte ou null. */
+  public String getRestauraCheckpoint() {
+    return restauraCheckpoint;
+  }
+
+  /**
+   * @return true se a simulação continua o trace do ponto salvo no checkpoint;
+   *         false se só usa o estado salvo e lê o trace desde o início.
+   */
+  public boolean isRetomaCheckpoint() {
+    return retomaCheckpoint;
+  }
+
+  /**
+   * Define o arquivo em que o estado é gravado ao final da simulação e, se
+   * {@code intervalo} for positivo, também a cada {@code intervalo} acessos.
+   */
+  public void setCheckpoint(String arquivo, long intervalo) {
+    if (intervalo < 0 || arquivo == null && intervalo > 0) {
+      throw new IllegalArgumentException(
+          "intervaloCheckpoint exige arquivoCheckpoint e não pode ser negativo");
+    }
+    this.arquivoCheckpoint = arquivo;
+    this.intervaloCheckpoint = intervalo;
+  }
+
+  /**
+   * Define o checkpoint restaurado antes da simulação e se o trace continua de
+   * onde ele foi gravado ({@code retoma}) ou recomeça com o estado aquecido.
+   */
+  public void setRestauraCheckpoint(String arquivo, boolean retoma) {
+    this.restauraCheckpoint = arquivo;
+    this.retomaCheckpoint = retoma;
+  }
+
+  /** @return segmentos configurados ou null para o layout clássico. */
+  public Segmento[] getSegmentos() {
+    return segmentos == null ? null : segmentos.clone();
+  }
+
+  /**
+   * Substitui o layout clássico pelos segmentos informados (null o restaura).
+   * Os nomes devem ser distintos e as áreas reservadas, inclusive as de
+   * crescimento, devem caber no espaço virtual sem se sobrepor.
+   */
+  public void setSegmentos(Segmento... segmentos) {
+    if (segmentos != null) {
+      if (segmentos.length == 0) {
+        throw new IllegalArgumentException("Informe ao menos um segmento");
+      }
+      Segmento[] ordenados = segmentos.clone();
+      java.util.Arrays.sort(ordenados,
+          java.util.Comparator.comparingLong(Segmento::getInicioReservado));
+      java.util.Set<String> nomes = new java.util.HashSet<>();
+      for (int i = 0; i < ordenados.length; i++) {
+        Segmento s = ordenados[i];
+        if (!nomes.add(s.getNome())) {
+          throw new IllegalArgumentException("Segmento repetido: " + s.getNome());
+        }
+        if (s.getFimReservado() >= getTamanhoEspacoEnderecoVirtual()) {
+          throw new IllegalArgumentException(
+              "Segmento " + s.getNome() + " excede o espaço de endereços virtuais");
+        }
+        if (i > 0 && s.getInicioReservado() <= ordenados[i - 1].getFimReservado()) {
+          throw new IllegalArgumentException("Segmentos " + ordenados[i - 1].getNome() + " e "
+              + s.getNome() + " se sobrepõem");
+        }
+      }
+      segmentos = segmentos.clone();
+    }
+    this.segmentos = segmentos;
+  }
+
+  /** @return tratamento dos acessos fora dos segmentos ou sem permissão. */
+  public TratamentoViolacao getViolacaoSegmento() {
+    return violacaoSegmento;
+  }
+
+  public void setViolacaoSegmento(TratamentoViolacao violacaoSegmento) {
+    if (violacaoSegmento == null) {
+      throw new IllegalArgumentException("Tratamento de violações não pode ser nulo");
+    }
+    this.violacaoSegmento = violacaoSegmento;
+  }
+
+  /** @return núcleos simulados (1 = simulação sequencial de um único núcleo). */
+  public int getNucleos() {
+    return nucleos;
+  }
+
+  /** Define quantos núcleos, cada um com suas TLBs, compartilham a memória. */
+  public void setNucleos(int nucleos) {
+    if (nucleos < 1 || nucleos > 64) {
+      throw new IllegalArgumentException("nucleos deve estar entre 1 e 64");
+    }
+    this.nucleos = nucleos;
+  }
+
+  /** Define o tamanho dos lotes e o intervalo do daemon de write-back. */
+  public void setWriteBack(int lote, int intervalo) {
+    if (lote < 1 || intervalo < 0) {
+      throw new IllegalArgumentException("Parâmetros de write-back inválidos");
+    }
+    this.loteWriteBack = lote;
+    this.intervaloWriteBack = intervalo;
+  }
+
+  /** @return true se acessos seguidos à mesma página são traduzidos de uma vez. */
+  public boolean isAgrupaSequencias() {
+    return agrupaSequencias;
+  }
+
+  public void setAgrupaSequencias(boolean agrupaSequencias) {
+    this.agrupaSequencias = agrupaSequencias;
+  }
+
+  /** Ativa o modo em pipeline com lotes do tamanho informado. */
+  public void setPipeline(boolean ativo, int tamanhoLote) {
+    if (tamanhoLote < 1) {
+      throw new IllegalArgumentException("Tamanho de lote deve ser positivo");
+    }
+    this.pipeline = ativo;
+    this.tamanhoLote = tamanhoLote;
+  }
+
   // Derivados
 
   /** @return tamanho da página em bytes (2^bitsDeslocamento). */
@@ -195,13 +961,14 @@ public class Configuracao {
     return (int) (1L << bitsDeslocamentoPagina);
   }
 
+  /** @return quantidade de bits da VPN (endereço virtual sem o deslocamento). */
+  public int getBitsPaginaVirtual() {
+    return bitsEnderecoVirtual - bitsDeslocamentoPagina;
+  }
+
   /** @return quantidade total de páginas virtuais possíveis. */
-  public int getNumeroPaginasVirtuais() {
-    int bitsPagina = bitsEnderecoVirtual - bitsDeslocamentoPagina;
-    if (bitsPagina >= 31) {
-      throw new ArithmeticException("Overflow: bitsPagina muito grande para int");
-    }
-    return (int) (1L << bitsPagina);
+  public long getNumeroPaginasVirtuais() {
+    return 1L << getBitsPaginaVirtual();
   }
 
   /** @return número de molduras físicas disponíveis. */
@@ -1,12 +1,33 @@
 package config;
 
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Comparator;
+import model.TipoAcesso;
 import model.TipoSegmento;
 
 /**
  * Responsável por particionar o espaço de endereços virtuais em segmentos e
  * responder rapidamente a qual segmento um endereço pertence.
+ *
+ * <p>
+ * Os segmentos vêm da configuração ({@link Configuracao#getSegmentos()}) ou,
+ * sem ela, formam o layout clássico .text/.data/.bss/.stack. Ficam ordenados
+ * por endereço em vetores primitivos, com a área de crescimento de cada um já
+ * incluída, e {@link #indice(long)} faz uma busca binária sobre os inícios.
+ *
+ * <p>
+ * O limite atual dos segmentos que crescem ({@link #brk(int, long)}) é estado
+ * do processo dono do layout; a classificação não o consulta e pode ser feita
+ * por várias threads ao mesmo tempo.
  */
 public class LayoutSegmentos {
+  /**
+   * Segmentos até os quais {@link #classifica} compara cada endereço com todos
+   * eles; acima disso a busca binária por endereço sai mais barata.
+   */
+  private static final int MAXIMO_COMPARACOES = 8;
+  private static final byte DESCONHECIDO = (byte) TipoSegmento.DESCONHECIDO.ordinal();
 
   private final long inicioText;
   private final long fimText;
@@ -20,6 +41,19 @@ public class LayoutSegmentos {
   private final long inicioStack;
   private final long fimStack;
 
+  // um elemento por segmento, em ordem crescente de endereço
+  private final String[] nomes;
+  private final TipoSegmento[] tipos;
+  private final byte[] permissoes;
+  /** Primeiro e último endereço de cada segmento, contando a área de crescimento. */
+  private final long[] inicios;
+  private final long[] fins;
+  /** Início (pilha) ou fim (demais) atual dos segmentos que crescem. */
+  private final long[] limites;
+  private final boolean[] paraBaixo;
+  private final long[] expansoes;
+  private final long mascaraPagina;
+
   /**
    * Pré-calcula os intervalos de cada segmento a partir da configuração atual.
    */
@@ -42,24 +76,237 @@ public class LayoutSegmentos {
     // A pilha cresce de cima para baixo: reservamos o final do espaço virtual.
     this.fimStack = tamanhoEV - 1;
     this.inicioStack = fimStack - config.getTamanhoStack() + 1;
+
+    Segmento[] segmentos = config.getSegmentos();
+    if (segmentos == null) {
+      segmentos = layoutClassico();
+    }
+    Arrays.sort(segmentos, Comparator.comparingLong(Segmento::getInicioReservado));
+    int n = segmentos.length;
+    this.nomes = new String[n];
+    this.tipos = new TipoSegmento[n];
+    this.permissoes = new byte[n];
+    this.inicios = new long[n];
+    this.fins = new long[n];
+    this.limites = new long[n];
+    this.paraBaixo = new boolean[n];
+    this.expansoes = new long[n];
+    this.mascaraPagina = -(long) config.getTamanhoPagina();
+    for (int i = 0; i < n; i++) {
+      Segmento s = segmentos[i];
+      nomes[i] = s.getNome();
+      tipos[i] = s.getTipo();
+      permissoes[i] = (byte) s.getPermissoes();
+      inicios[i] = s.getInicioReservado();
+      fins[i] = s.getFimReservado();
+      paraBaixo[i] = s.getTipo() == TipoSegmento.STACK;
+      limites[i] = paraBaixo[i] ? s.getInicio() : s.getInicio() + s.getTamanho() - 1;
+    }
+  }
+
+  /** Cópia do layout com os limites atuais, para o processo criado por um fork. */
+  private LayoutSegmentos(LayoutSegmentos pai) {
+    this.inicioText = pai.inicioText;
+    this.fimText = pai.fimText;
+    this.inicioData = pai.inicioData;
+    this.fimData = pai.fimData;
+    this.inicioBss = pai.inicioBss;
+    this.fimBss = pai.fimBss;
+    this.inicioStack = pai.inicioStack;
+    this.fimStack = pai.fimStack;
+    this.nomes = pai.nomes;
+    this.tipos = pai.tipos;
+    this.permissoes = pai.permissoes;
+    this.inicios = pai.inicios;
+    this.fins = pai.fins;
+    this.paraBaixo = pai.paraBaixo;
+    this.mascaraPagina = pai.mascaraPagina;
+    this.limites = pai.limites.clone();
+    this.expansoes = new long[pai.expansoes.length];
+  }
+
+  /** @return layout independente com os mesmos segmentos e limites atuais. */
+  public LayoutSegmentos copia() {
+    return new LayoutSegmentos(this);
+  }
+
+  /**
+   * Segmentos do layout original. Onde a pilha encontra o .bss prevalecem os
+   * segmentos de baixo, como na classificação por comparações em sequência.
+   */
+  private Segmento[] layoutClassico() {
+    int rw = Segmento.LEITURA | Segmento.ESCRITA;
+    Segmento text = new Segmento(".text", TipoSegmento.TEXT,
+        Segmento.LEITURA | Segmento.EXECUCAO, inicioText, fimText - inicioText + 1,
+        fimText - inicioText + 1);
+    Segmento data = new Segmento(".data", TipoSegmento.DATA, rw, inicioData,
+        fimData - inicioData + 1, fimData - inicioData + 1);
+    Segmento bss = new Segmento(".bss", TipoSegmento.BSS, rw, inicioBss,
+        fimBss - inicioBss + 1, fimBss - inicioBss + 1);
+    long inicio = Math.max(inicioStack, fimBss + 1);
+    if (inicio > fimStack) {
+      return new Segmento[] {text, data, bss};
+    }
+    Segmento stack = new Segmento(".stack", TipoSegmento.STACK, rw, inicio,
+        fimStack - inicio + 1, fimStack - inicio + 1);
+    return new Segmento[] {text, data, bss, stack};
+  }
+
+  /** @return posição do segmento que contém o endereço ou -1 se nenhum contém. */
+  public int indice(long enderecoVirtual) {
+    // último segmento que começa até o endereço
+    int baixo = 0;
+    int alto = inicios.length - 1;
+    while (baixo <= alto) {
+      int meio = (baixo + alto) >>> 1;
+      if (inicios[meio] <= enderecoVirtual) {
+        baixo = meio + 1;
+      } else {
+        alto = meio - 1;
+      }
+    }
+    return alto >= 0 && enderecoVirtual <= fins[alto] ? alto : -1;
   }
 
   /**
    * Classifica um endereço virtual retornando o segmento correspondente.
    */
   public TipoSegmento getSegmento(long enderecoVirtual) {
-    if (enderecoVirtual >= inicioText && enderecoVirtual <= fimText) {
-      return TipoSegmento.TEXT;
+    int i = indice(enderecoVirtual);
+    return i < 0 ? TipoSegmento.DESCONHECIDO : tipos[i];
+  }
+
+  /**
+   * Classifica {@code n} endereços de uma vez, gravando o ordinal do
+   * {@link TipoSegmento} de cada um (o mesmo de {@link #getSegmento(long)}).
+   * Com poucos segmentos, o laço interno compara todos os endereços com um
+   * segmento por vez, sem desvios, e pode ser vetorizado pelo JIT.
+   */
+  public void classifica(long[] enderecos, int n, byte[] segmentos) {
+    if (inicios.length > MAXIMO_COMPARACOES) {
+      for (int i = 0; i < n; i++) {
+        segmentos[i] = (byte) getSegmento(enderecos[i]).ordinal();
+      }
+      return;
     }
-    if (enderecoVirtual >= inicioData && enderecoVirtual <= fimData) {
-      return TipoSegmento.DATA;
+    Arrays.fill(segmentos, 0, n, DESCONHECIDO);
+    // os segmentos não se sobrepõem: cada endereço é marcado no máximo uma vez
+    for (int s = 0; s < inicios.length; s++) {
+      long inicio = inicios[s];
+      long fim = fins[s];
+      byte tipo = (byte) tipos[s].ordinal();
+      for (int i = 0; i < n; i++) {
+        long e = enderecos[i];
+        segmentos[i] = e >= inicio && e <= fim ? tipo : segmentos[i];
+      }
     }
-    if (enderecoVirtual >= inicioBss && enderecoVirtual <= fimBss) {
-      return TipoSegmento.BSS;
+  }
+
+  /** @return tipo do segmento na posição informada. */
+  public TipoSegmento getTipo(int indice) {
+    return tipos[indice];
+  }
+
+  /** @return nome do segmento na posição informada. */
+  public String getNome(int indice) {
+    return nomes[indice];
+  }
+
+  /** @return permissões do segmento na posição informada (ver {@link Segmento}). */
+  public int getPermissoes(int indice) {
+    return permissoes[indice];
+  }
+
+  /** @return true se o segmento na posição informada aceita o tipo de acesso. */
+  public boolean permite(int indice, TipoAcesso tipo) {
+    return (permissoes[indice] & 1 << tipo.ordinal()) != 0;
+  }
+
+  /** @return quantidade de segmentos. */
+  public int getQuantidade() {
+    return inicios.length;
+  }
+
+  /**
+   * Acompanha um acesso ao segmento: se o endereço está além do limite atual,
+   * na área de crescimento, o segmento cresce até a página dele, como o
+   * {@code brk} (ou a expansão da pilha) que o programa teria feito antes.
+   *
+   * @return true se o segmento cresceu
+   */
+  public boolean registraAcesso(int indice, long enderecoVirtual) {
+    if (paraBaixo[indice] ? enderecoVirtual >= limites[indice]
+        : enderecoVirtual <= limites[indice]) {
+      return false;
     }
-    if (enderecoVirtual >= inicioStack && enderecoVirtual <= fimStack) {
-      return TipoSegmento.STACK;
+    long pagina = enderecoVirtual & mascaraPagina;
+    brk(indice, paraBaixo[indice] ? Math.max(pagina, inicios[indice])
+        : Math.min(pagina - mascaraPagina - 1, fins[indice]));
+    return true;
+  }
+
+  /**
+   * Move o limite do segmento (o fim, ou o início da pilha) para o endereço
+   * informado, dentro da área reservada.
+   *
+   * @return limite anterior
+   */
+  public long brk(int indice, long limite) {
+    if (limite < inicios[indice] || limite > fins[indice]) {
+      throw new IllegalArgumentException("Limite fora da área reservada do segmento "
+          + nomes[indice]);
+    }
+    long anterior = limites[indice];
+    if (limite != anterior) {
+      limites[indice] = limite;
+      expansoes[indice]++;
+    }
+    return anterior;
+  }
+
+  /** @return início (pilha) ou fim (demais segmentos) atual do segmento. */
+  public long getLimite(int indice) {
+    return limites[indice];
+  }
+
+  /** Escreve uma linha por segmento com o intervalo atual e as mudanças de limite. */
+  public void imprimeEstatisticas(PrintWriter out, String prefixo) {
+    for (int i = 0; i < inicios.length; i++) {
+      long inicio = paraBaixo[i] ? limites[i] : inicios[i];
+      long fim = paraBaixo[i] ? fins[i] : limites[i];
+      out.printf("%sSEGMENTO NOME=%s TIPO=%s PERMISSOES=%s INICIO=0x%x FIM=0x%x"
+          + " RESERVADO=0x%x-0x%x BRK=%d%n", prefixo, nomes[i], tipos[i],
+          Segmento.textoPermissoes(permissoes[i]), inicio, fim, inicios[i], fins[i],
+          expansoes[i]);
     }
-    return TipoSegmento.DESCONHECIDO;
+  }
+
+  // Os getters abaixo descrevem o layout clássico, mesmo com segmentos
+  // configurados: são a referência do gerador de traces e do promotor de
+  // páginas grandes.
+
+  /** @return último endereço do segmento .text (que começa em 0). */
+  public long getFimText() {
+    return fimText;
+  }
+
+  /** @return primeiro endereço do segmento .data. */
+  public long getInicioData() {
+    return inicioData;
+  }
+
+  /** @return último endereço do segmento .bss (contíguo ao .data). */
+  public long getFimBss() {
+    return fimBss;
+  }
+
+  /** @return endereço mais baixo da pilha. */
+  public long getInicioStack() {
+    return inicioStack;
+  }
+
+  /** @return último endereço do espaço virtual, topo da pilha. */
+  public long getFimStack() {
+    return fimStack;
   }
 }
@@ -0,0 +1,133 @@
+package config;
+
+import model.TipoAcesso;
+import model.TipoSegmento;
+
+/**
+ * Segmento nomeado do espaço de endereços virtuais, declarado na configuração
+ * (chaves {@code segmentos} e {@code segmento.<nome>}).
+ *
+ * <p>
+ * Além do intervalo inicial, o segmento pode reservar uma área de
+ * crescimento até {@code tamanhoMaximo} bytes: para cima, como o heap movido
+ * por {@code brk}, ou para baixo quando o tipo é {@link TipoSegmento#STACK}.
+ * O tipo classifica os acessos para as TLBs, o prefetch e as métricas; as
+ * permissões são verificadas quando {@code violacaoSegmento} não é IGNORA.
+ */
+public final class Segmento {
+  /** Bits das permissões, um por {@link TipoAcesso} (R, W e X). */
+  public static final int LEITURA = 1 << TipoAcesso.LEITURA.ordinal();
+  public static final int ESCRITA = 1 << TipoAcesso.ESCRITA.ordinal();
+  public static final int EXECUCAO = 1 << TipoAcesso.EXECUCAO.ordinal();
+
+  private final String nome;
+  private final TipoSegmento tipo;
+  private final int permissoes;
+  private final long inicio;
+  private final long tamanho;
+  private final long tamanhoMaximo;
+
+  /**
+   * @param inicio        endereço mais baixo do intervalo inicial
+   * @param tamanho       bytes do intervalo inicial
+   * @param tamanhoMaximo bytes até onde o segmento pode crescer (>= tamanho)
+   */
+  public Segmento(String nome, TipoSegmento tipo, int permissoes, long inicio, long tamanho,
+      long tamanhoMaximo) {
+    if (nome == null || nome.isEmpty() || tipo == null || tipo == TipoSegmento.DESCONHECIDO) {
+      throw new IllegalArgumentException("Segmento precisa de nome e tipo");
+    }
+    if (permissoes < 0 || permissoes > (LEITURA | ESCRITA | EXECUCAO)) {
+      throw new IllegalArgumentException("Permissões inválidas no segmento " + nome);
+    }
+    if (inicio < 0 || tamanho < 1 || tamanhoMaximo < tamanho
+        || (tipo == TipoSegmento.STACK ? inicio + tamanho < tamanhoMaximo
+            : inicio + tamanhoMaximo < 0)) {
+      throw new IllegalArgumentException("Intervalo inválido no segmento " + nome);
+    }
+    this.nome = nome;
+    this.tipo = tipo;
+    this.permissoes = permissoes;
+    this.inicio = inicio;
+    this.tamanho = tamanho;
+    this.tamanhoMaximo = tamanhoMaximo;
+  }
+
+  /**
+   * Lê a definição {@code <tipo> <permissões> <início> <tamanho> [<tamanhoMáximo>]},
+   * com as permissões no formato {@code rwx} ({@code -} para as ausentes) e os
+   * números em decimal ou hexadecimal ({@code 0x...}).
+   */
+  public static Segmento de(String nome, String definicao) {
+    String[] campos = definicao.trim().split("\\s+");
+    if (campos.length < 4 || campos.length > 5) {
+      throw new IllegalArgumentException("Definição inválida do segmento " + nome
+          + ": esperado <tipo> <permissões> <início> <tamanho> [<tamanhoMáximo>]");
+    }
+    long tamanho = Long.decode(campos[3]);
+    return new Segmento(nome, TipoSegmento.valueOf(campos[0].toUpperCase()),
+        permissoes(nome, campos[1]), Long.decode(campos[2]), tamanho,
+        campos.length == 5 ? Long.decode(campos[4]) : tamanho);
+  }
+
+  private static int permissoes(String nome, String texto) {
+    String letras = "rwx";
+    if (texto.length() != letras.length()) {
+      throw new IllegalArgumentException("Permissões inválidas no segmento " + nome);
+    }
+    int bits = 0;
+    for (int i = 0; i < letras.length(); i++) {
+      char c = Character.toLowerCase(texto.charAt(i));
+      if (c == letras.charAt(i)) {
+        bits |= 1 << i;
+      } else if (c != '-') {
+        throw new IllegalArgumentException("Permissões inválidas no segmento " + nome);
+      }
+    }
+    return bits;
+  }
+
+  /** @return permissões no formato {@code rwx}. */
+  public static String textoPermissoes(int permissoes) {
+    return ((permissoes & LEITURA) != 0 ? "r" : "-") + ((permissoes & ESCRITA) != 0 ? "w" : "-")
+        + ((permissoes & EXECUCAO) != 0 ? "x" : "-");
+  }
+
+  public String getNome() {
+    return nome;
+  }
+
+  public TipoSegmento getTipo() {
+    return tipo;
+  }
+
+  /** @return combinação de {@link #LEITURA}, {@link #ESCRITA} e {@link #EXECUCAO}. */
+  public int getPermissoes() {
+    return permissoes;
+  }
+
+  /** @return endereço mais baixo do intervalo inicial. */
+  public long getInicio() {
+    return inicio;
+  }
+
+  /** @return bytes do intervalo inicial. */
+  public long getTamanho() {
+    return tamanho;
+  }
+
+  /** @return bytes até onde o segmento pode crescer. */
+  public long getTamanhoMaximo() {
+    return tamanhoMaximo;
+  }
+
+  /** @return endereço mais baixo que o segmento pode alcançar. */
+  public long getInicioReservado() {
+    return tipo == TipoSegmento.STACK ? inicio + tamanho - tamanhoMaximo : inicio;
+  }
+
+  /** @return último endereço que o segmento pode alcançar. */
+  public long getFimReservado() {
+    return tipo == TipoSegmento.STACK ? inicio + tamanho - 1 : inicio + tamanhoMaximo - 1;
+  }
+}
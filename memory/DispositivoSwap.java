@@ -0,0 +1,179 @@
+package memory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import util.MapaLongInt;
+
+/**
+ * Área de swap simulada sobre um arquivo local.
+ *
+ * <p>
+ * Cada página (identificada pela mesma chave usada nas políticas de
+ * substituição) recebe um slot na primeira gravação e o mantém. O conteúdo da
+ * página não é simulado: cada slot guarda só um selo de 16 bytes (chave e
+ * versão), gravado e lido de fato no arquivo, e a leitura confere o selo com a
+ * versão esperada. O custo, porém, é o de transferir a página inteira.
+ *
+ * <p>
+ * O custo de cada operação é uma latência fixa mais o tempo de transferência
+ * das páginas na banda configurada, em ciclos. Um lote de páginas paga uma
+ * única latência.
+ */
+public class DispositivoSwap implements Closeable {
+  private static final int TAMANHO_SELO = 16;
+
+  private final FileChannel canal;
+  private final int tamanhoPagina;
+  private final long ciclosLatencia;
+  private final double ciclosPorPagina;
+  private final MapaLongInt slotPorPagina = new MapaLongInt(1024);
+  private int[] versoes = new int[1024];
+  private int slots;
+  private final ByteBuffer selo = ByteBuffer.allocate(TAMANHO_SELO);
+
+  private long paginasLidas;
+  private long paginasGravadas;
+  private long operacoesGravacao;
+  private long ciclosOcupado;
+
+  /**
+   * Cria (ou trunca) o arquivo de swap.
+   *
+   * @param latenciaUs    latência por operação, em microssegundos
+   * @param bandaMBps     banda de transferência, em MB/s
+   * @param frequenciaMHz ciclos por microssegundo usados na conversão
+   */
+  public DispositivoSwap(String caminho, int tamanhoPagina, int latenciaUs, int bandaMBps,
+      int frequenciaMHz) throws IOException {
+    this.canal = FileChannel.open(Paths.get(caminho), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.tamanhoPagina = tamanhoPagina;
+    this.ciclosLatencia = (long) latenciaUs * frequenciaMHz;
+    // bytes / (MB/s) = microssegundos
+    this.ciclosPorPagina = (double) tamanhoPagina / bandaMBps * frequenciaMHz;
+  }
+
+  /** @return true se a página tem uma cópia gravada no swap. */
+  public boolean contem(long chave) {
+    return slotPorPagina.obtem(chave) != -1;
+  }
+
+  /**
+   * Lê a página do swap, se ela tiver sido gravada.
+   *
+   * @return ciclos gastos (0 se a página não está no swap)
+   */
+  public long le(long chave) {
+    int slot = slotPorPagina.obtem(chave);
+    if (slot == -1) {
+      return 0;
+    }
+    selo.clear();
+    try {
+      while (selo.hasRemaining()) {
+        if (canal.read(selo, (long) slot * TAMANHO_SELO + selo.position()) < 0) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (selo.position() != TAMANHO_SELO || selo.getLong(0) != chave
+        || selo.getInt(8) != versoes[slot]) {
+      throw new IllegalStateException("Slot " + slot + " do swap não contém a página esperada");
+    }
+    paginasLidas++;
+    return custo(1);
+  }
+
+  /**
+   * Grava as {@code n} primeiras páginas de {@code chaves} em uma única
+   * operação.
+   *
+   * @return ciclos gastos
+   */
+  public long grava(long[] chaves, int n) {
+    if (n == 0) {
+      return 0;
+    }
+    try {
+      for (int i = 0; i < n; i++) {
+        int slot = slot(chaves[i]);
+        versoes[slot]++;
+        selo.clear();
+        selo.putLong(chaves[i]).putInt(versoes[slot]).putInt(0).flip();
+        long posicao = (long) slot * TAMANHO_SELO;
+        while (selo.hasRemaining()) {
+          posicao += canal.write(selo, posicao);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    paginasGravadas += n;
+    operacoesGravacao++;
+    return custo(n);
+  }
+
+  private int slot(long chave) {
+    int slot = slotPorPagina.obtem(chave);
+    if (slot != -1) {
+      return slot;
+    }
+    if (slotPorPagina.tamanho() == slotPorPagina.getMaximoChaves()) {
+      slotPorPagina.cresce(slotPorPagina.getMaximoChaves() * 2);
+    }
+    if (slots == versoes.length) {
+      versoes = Arrays.copyOf(versoes, slots * 2);
+    }
+    slot = slots++;
+    slotPorPagina.insere(chave, slot);
+    return slot;
+  }
+
+  private long custo(int paginas) {
+    long ciclos = ciclosLatencia + Math.round(paginas * ciclosPorPagina);
+    ciclosOcupado += ciclos;
+    return ciclos;
+  }
+
+  /** @return páginas lidas do swap. */
+  public long getPaginasLidas() {
+    return paginasLidas;
+  }
+
+  /** @return páginas gravadas no swap. */
+  public long getPaginasGravadas() {
+    return paginasGravadas;
+  }
+
+  /** @return operações de gravação (cada lote conta uma vez). */
+  public long getOperacoesGravacao() {
+    return operacoesGravacao;
+  }
+
+  /** @return slots ocupados no arquivo. */
+  public int getSlots() {
+    return slots;
+  }
+
+  /** @return ciclos em que o dispositivo esteve ocupado. */
+  public long getCiclosOcupado() {
+    return ciclosOcupado;
+  }
+
+  public int getTamanhoPagina() {
+    return tamanhoPagina;
+  }
+
+  @Override
+  public void close() throws IOException {
+    canal.close();
+  }
+}
@@ -1,21 +1,123 @@
 package memory;
 
+import java.util.Arrays;
+
 /**
  * Simula as molduras físicas da RAM, guardando o endereço virtual atualmente
- * mapeado em cada uma e o instante do último acesso, para viabilizar LRU.
+ * mapeado em cada uma e o instante do último acesso.
+ *
+ * <p>
+ * Molduras livres ficam em uma pilha, e a escolha da vítima quando a memória
+ * está cheia é delegada a uma {@link PoliticaSubstituicao}; assim nenhuma
+ * operação precisa varrer todas as molduras.
+ *
+ * <p>
+ * Opcionalmente um bloco contíguo no topo da memória é reservado para páginas
+ * grandes (como o {@code hugetlbfs} do Linux): essas molduras ficam fora da
+ * pilha de livres e da política de substituição e são entregues em blocos
+ * alinhados por {@link #alocaMolduraGrande()}.
+ *
+ * <p>
+ * Cada moldura ocupada conta quantos espaços de endereçamento a mapeiam: 1 ao
+ * ser carregada e mais um para cada processo que passa a compartilhá-la em um
+ * fork ({@link #compartilha(int)}).
  */
 public class MemoriaFisica {
   private final long[] conteudoMolduras;
   private final long[] instanteUltimoAcesso;
+  private final int[] referencias;
+  private final int[] pilhaLivres;
+  private int topoLivres;
+  private final PoliticaSubstituicao politica;
+
+  private int inicioReservaGrande;
+  private int fimReservaGrande;
+  private int[] pilhaGrandes = new int[0];
+  private int topoGrandes;
+
+  private long substituicoes;
+  private long esgotamentos;
 
-  /** Inicializa o vetor de molduras marcando todas como livres. */
+  /** Inicializa o vetor de molduras marcando todas como livres, com substituição LRU. */
   public MemoriaFisica(int numeroMolduras) {
+    this(numeroMolduras, new PoliticaLRU(numeroMolduras));
+  }
+
+  /** Inicializa as molduras livres usando a política de substituição informada. */
+  public MemoriaFisica(int numeroMolduras, PoliticaSubstituicao politica) {
     this.conteudoMolduras = new long[numeroMolduras];
     this.instanteUltimoAcesso = new long[numeroMolduras];
+    this.referencias = new int[numeroMolduras];
+    this.pilhaLivres = new int[numeroMolduras];
+    this.politica = politica;
 
     for (int i = 0; i < numeroMolduras; i++) {
       conteudoMolduras[i] = -1; // livre
       instanteUltimoAcesso[i] = 0;
+      // a moldura 0 fica no topo para ser a primeira entregue
+      pilhaLivres[i] = numeroMolduras - 1 - i;
+    }
+    this.topoLivres = numeroMolduras;
+    this.inicioReservaGrande = numeroMolduras;
+    this.fimReservaGrande = numeroMolduras;
+  }
+
+  /**
+   * Separa {@code quantidade} blocos alinhados de {@code paginasPorBloco}
+   * molduras no topo da memória para uso exclusivo de páginas grandes. Deve
+   * ser chamado antes de qualquer alocação.
+   */
+  public void reservaMoldurasGrandes(int quantidade, int paginasPorBloco) {
+    int n = conteudoMolduras.length;
+    if (topoLivres != n || fimReservaGrande != inicioReservaGrande) {
+      throw new IllegalStateException("Reserva de páginas grandes deve preceder as alocações");
+    }
+    long total = (long) quantidade * paginasPorBloco;
+    if (quantidade < 0 || paginasPorBloco < 1 || total > n) {
+      throw new IllegalArgumentException("Reserva de páginas grandes excede a memória física");
+    }
+    int inicio = (int) ((n - total) / paginasPorBloco * paginasPorBloco);
+    int fim = (int) (inicio + total);
+    topoLivres = 0;
+    for (int i = n - 1; i >= 0; i--) {
+      if (i < inicio || i >= fim) {
+        pilhaLivres[topoLivres++] = i;
+      }
+    }
+    pilhaGrandes = new int[quantidade];
+    for (int b = quantidade - 1; b >= 0; b--) {
+      pilhaGrandes[topoGrandes++] = inicio + b * paginasPorBloco;
+    }
+    inicioReservaGrande = inicio;
+    fimReservaGrande = fim;
+  }
+
+  /** @return primeira moldura de um bloco livre de página grande ou -1. */
+  public int alocaMolduraGrande() {
+    return topoGrandes > 0 ? pilhaGrandes[--topoGrandes] : -1;
+  }
+
+  /** @return molduras reservadas para páginas grandes. */
+  public int getMoldurasReservadasGrandes() {
+    return fimReservaGrande - inicioReservaGrande;
+  }
+
+  /** @return true se a moldura pertence à reserva de páginas grandes. */
+  public boolean isMolduraGrande(int moldura) {
+    return moldura >= inicioReservaGrande && moldura < fimReservaGrande;
+  }
+
+  /**
+   * Registra a página grande que passou a ocupar o bloco iniciado em
+   * {@code molduraBase}; cada moldura recebe o endereço da página base
+   * correspondente.
+   */
+  public void setaConteudoGrande(int molduraBase, int paginasPorBloco, long enderecoVirtual,
+      int tamanhoPagina, long instante) {
+    for (int k = 0; k < paginasPorBloco; k++) {
+      conteudoMolduras[molduraBase + k] = enderecoVirtual + (long) k * tamanhoPagina;
+      instanteUltimoAcesso[molduraBase + k] = instante;
+      referencias[molduraBase + k] = 1;
     }
   }
 
@@ -26,45 +128,185 @@ public class MemoriaFisica {
   /** Atualiza somente o instante de acesso para uma moldura já ocupada. */
   public void atualizaAcesso(int moldura, long instante) {
     instanteUltimoAcesso[moldura] = instante;
+    if (!isMolduraGrande(moldura)) {
+      politica.registraAcesso(moldura, instante);
+    }
+  }
+
+  /**
+   * Igual a {@link #atualizaAcesso(int, long)} para {@code vezes} acessos
+   * seguidos à moldura, o último no instante informado.
+   */
+  public void atualizaAcessos(int moldura, long instante, long vezes) {
+    instanteUltimoAcesso[moldura] = instante;
+    if (!isMolduraGrande(moldura)) {
+      politica.registraAcessos(moldura, instante, vezes);
+    }
   }
 
   /**
    * Registra o endereço virtual (início da página) que passou a ocupar a moldura.
    */
   public void setaConteudo(int moldura, long enderecoVirtual, long instante) {
+    setaConteudo(moldura, enderecoVirtual, enderecoVirtual, instante);
+  }
+
+  /**
+   * Igual a {@link #setaConteudo(int, long, long)}, informando à política uma
+   * chave diferente do endereço (páginas de processos distintos podem ter o
+   * mesmo endereço virtual).
+   */
+  public void setaConteudo(int moldura, long enderecoVirtual, long chave, long instante) {
     conteudoMolduras[moldura] = enderecoVirtual;
     instanteUltimoAcesso[moldura] = instante;
+    referencias[moldura] = 1;
+    politica.registraCarga(moldura, chave, instante);
+  }
+
+  /**
+   * Igual a {@link #setaConteudo(int, long, long, long)} para uma página
+   * trazida por antecipação, que entra com a menor prioridade na política.
+   */
+  public void setaConteudoAntecipado(int moldura, long enderecoVirtual, long chave,
+      long instante) {
+    conteudoMolduras[moldura] = enderecoVirtual;
+    instanteUltimoAcesso[moldura] = instante;
+    referencias[moldura] = 1;
+    politica.registraCargaAntecipada(moldura, chave, instante);
   }
 
   /**
    * Seleciona a moldura que será usada pela próxima página.
    *
    * <p>
-   * Primeiramente procura espaços livres; caso não existam, escolhe a moldura
-   * com menor instante registrado (LRU).
+   * Primeiramente retira uma moldura da pilha de livres; caso não existam,
+   * a política de substituição escolhe a vítima.
    */
   public int selecionaMolduraParaUso(long instanteAtual) {
-    // tenta achar livre
-    for (int i = 0; i < conteudoMolduras.length; i++) {
-      if (conteudoMolduras[i] == -1) {
-        instanteUltimoAcesso[i] = instanteAtual;
-        return i;
+    return selecionaMolduraParaUso(instanteAtual, -1);
+  }
+
+  /**
+   * Igual a {@link #selecionaMolduraParaUso(long)}, informando à política qual
+   * página (endereço de início ou a chave usada em {@link #setaConteudo}) vai
+   * ocupar a moldura.
+   */
+  public int selecionaMolduraParaUso(long instanteAtual, long enderecoNovaPagina) {
+    int moldura;
+    if (topoLivres > 0) {
+      moldura = pilhaLivres[--topoLivres];
+      if (topoLivres == 0) {
+        esgotamentos++;
       }
+    } else {
+      moldura = politica.selecionaVitima(enderecoNovaPagina, instanteAtual);
+      substituicoes++;
+    }
+    instanteUltimoAcesso[moldura] = instanteAtual;
+    return moldura;
+  }
+
+  /**
+   * Escolhe a vítima pela política de substituição mesmo havendo molduras
+   * livres (substituição local de um processo que atingiu sua cota).
+   */
+  public int substituiMoldura(long instanteAtual, long chaveNovaPagina) {
+    int moldura = politica.selecionaVitima(chaveNovaPagina, instanteAtual);
+    substituicoes++;
+    instanteUltimoAcesso[moldura] = instanteAtual;
+    return moldura;
+  }
+
+  /** Devolve uma moldura à pilha de livres, sem substituí-la por outra página. */
+  public void liberaMoldura(int moldura) {
+    if (conteudoMolduras[moldura] == -1) {
+      return;
+    }
+    conteudoMolduras[moldura] = -1;
+    referencias[moldura] = 0;
+    politica.remove(moldura);
+    pilhaLivres[topoLivres++] = moldura;
+  }
+
+  /** Registra mais um espaço de endereçamento que mapeia a moldura ocupada. */
+  public void compartilha(int moldura) {
+    referencias[moldura]++;
+  }
+
+  /**
+   * Registra que um dos espaços de endereçamento deixou de mapear a moldura
+   * (cópia na escrita), que continua ocupada pelos demais.
+   *
+   * @return espaços de endereçamento que ainda a mapeiam
+   */
+  public int liberaReferencia(int moldura) {
+    if (referencias[moldura] <= 1) {
+      throw new IllegalStateException("Moldura " + moldura + " não é compartilhada");
     }
+    return --referencias[moldura];
+  }
+
+  /** @return espaços de endereçamento que mapeiam a moldura (0 se livre). */
+  public int getReferencias(int moldura) {
+    return referencias[moldura];
+  }
 
-    // nenhum livre => LRU
-    int indiceVitima = 0;
-    long menorInstante = instanteUltimoAcesso[0];
+  /** @return instante do último acesso à moldura. */
+  public long getInstanteUltimoAcesso(int moldura) {
+    return instanteUltimoAcesso[moldura];
+  }
 
-    for (int i = 1; i < conteudoMolduras.length; i++) {
-      if (instanteUltimoAcesso[i] < menorInstante) {
-        menorInstante = instanteUltimoAcesso[i];
-        indiceVitima = i;
+  /** @return cópia da pilha de molduras livres (o topo é a última posição). */
+  public int[] getPilhaLivres() {
+    return Arrays.copyOf(pilhaLivres, topoLivres);
+  }
+
+  /**
+   * Recoloca a memória, ainda sem alocações, no estado de um checkpoint. As
+   * molduras ocupadas são apresentadas à política em ordem crescente do
+   * último acesso, o que reconstrói exatamente a ordem do LRU (as demais
+   * políticas guardam estado que os instantes não reconstroem).
+   *
+   * @param chaves chave de cada moldura ocupada (ver {@link #setaConteudo(int, long, long, long)})
+   * @param livres pilha de molduras livres, com o topo na última posição
+   */
+  public void restaura(long[] conteudo, long[] instantes, long[] chaves, int[] livres) {
+    int n = conteudoMolduras.length;
+    if (topoLivres != n || fimReservaGrande != inicioReservaGrande) {
+      throw new IllegalStateException("A memória só pode ser restaurada antes das alocações");
+    }
+    System.arraycopy(conteudo, 0, conteudoMolduras, 0, n);
+    System.arraycopy(instantes, 0, instanteUltimoAcesso, 0, n);
+    System.arraycopy(livres, 0, pilhaLivres, 0, livres.length);
+    topoLivres = livres.length;
+    Integer[] ocupadas = new Integer[n];
+    int k = 0;
+    for (int m = 0; m < n; m++) {
+      if (conteudo[m] != -1) {
+        ocupadas[k++] = m;
       }
     }
+    Arrays.sort(ocupadas, 0, k, (a, b) -> Long.compare(instantes[a], instantes[b]));
+    for (int i = 0; i < k; i++) {
+      int m = ocupadas[i];
+      referencias[m] = 1;
+      politica.registraCarga(m, chaves[m], instantes[m]);
+    }
+  }
+
+  /** @return quantidade de molduras atualmente livres. */
+  public int getMoldurasLivres() {
+    return topoLivres;
+  }
+
+  /** @return vítimas escolhidas pela política de substituição. */
+  public long getSubstituicoes() {
+    return substituicoes;
+  }
 
-    instanteUltimoAcesso[indiceVitima] = instanteAtual;
-    return indiceVitima;
+  /** @return vezes em que a última moldura livre foi entregue. */
+  public long getEsgotamentos() {
+    return esgotamentos;
   }
 
   public int getNumeroMolduras() {
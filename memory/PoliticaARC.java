@@ -0,0 +1,129 @@
+package memory;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import util.ListasIntrusivas;
+
+/**
+ * Adaptive Replacement Cache (Megiddo e Modha).
+ *
+ * <p>
+ * As molduras residentes ficam em T1 (vistas uma vez) ou T2 (vistas mais de
+ * uma vez), ambas listas intrusivas em ordem LRU. As listas fantasmas B1 e B2
+ * guardam apenas as chaves das páginas expulsas de T1 e T2 e ajustam o
+ * tamanho alvo {@code p} de T1 sempre que uma página volta a ser pedida.
+ *
+ * <p>
+ * Uma página antecipada entra no fim de T1 e ainda não conta como vista: o
+ * primeiro uso a leva ao início de T1, e só o segundo a promove a T2.
+ */
+public class PoliticaARC implements PoliticaSubstituicao {
+  private final int capacidade;
+  private final ListasIntrusivas residentes;
+  private final long[] chaveDaMoldura;
+  /** A página foi antecipada e ainda não foi usada. */
+  private final boolean[] antecipada;
+  private final int t1;
+  private final int t2;
+  private final LinkedHashSet<Long> fantasmasB1 = new LinkedHashSet<>();
+  private final LinkedHashSet<Long> fantasmasB2 = new LinkedHashSet<>();
+  private int alvoT1;
+
+  public PoliticaARC(int numeroMolduras) {
+    this(numeroMolduras, new ListasIntrusivas(numeroMolduras, 0), new long[numeroMolduras],
+        new boolean[numeroMolduras]);
+  }
+
+  private PoliticaARC(int capacidade, ListasIntrusivas residentes, long[] chaveDaMoldura,
+      boolean[] antecipada) {
+    this.capacidade = capacidade;
+    this.residentes = residentes;
+    this.chaveDaMoldura = chaveDaMoldura;
+    this.antecipada = antecipada;
+    this.t1 = residentes.novaLista();
+    this.t2 = residentes.novaLista();
+  }
+
+  @Override
+  public void registraCarga(int moldura, long chave, long instante) {
+    chaveDaMoldura[moldura] = chave;
+    antecipada[moldura] = false;
+    if (fantasmasB1.remove(chave) || fantasmasB2.remove(chave)) {
+      residentes.insereInicio(t2, moldura);
+      return;
+    }
+    residentes.insereInicio(t1, moldura);
+    limitaFantasmas();
+  }
+
+  @Override
+  public void registraCargaAntecipada(int moldura, long chave, long instante) {
+    // entra no fim de T1 sem consultar os fantasmas: ainda não houve pedido
+    chaveDaMoldura[moldura] = chave;
+    antecipada[moldura] = true;
+    residentes.insereFim(t1, moldura);
+    limitaFantasmas();
+  }
+
+  @Override
+  public void registraAcesso(int moldura, long instante) {
+    if (antecipada[moldura]) {
+      antecipada[moldura] = false;
+      residentes.insereInicio(t1, moldura);
+    } else {
+      residentes.insereInicio(t2, moldura);
+    }
+  }
+
+  /** Mantém |T1| + |B1| <= c e o total de residentes e fantasmas <= 2c. */
+  private void limitaFantasmas() {
+    if (residentes.tamanho(t1) + fantasmasB1.size() > capacidade) {
+      removeMaisAntigo(fantasmasB1);
+    }
+    int total = residentes.tamanho(t1) + residentes.tamanho(t2)
+        + fantasmasB1.size() + fantasmasB2.size();
+    if (total > 2 * capacidade) {
+      removeMaisAntigo(fantasmasB2.isEmpty() ? fantasmasB1 : fantasmasB2);
+    }
+  }
+
+  @Override
+  public int selecionaVitima(long chaveNova, long instante) {
+    boolean fantasmaB2 = false;
+    if (fantasmasB1.contains(chaveNova)) {
+      int delta = Math.max(1, fantasmasB2.size() / fantasmasB1.size());
+      alvoT1 = Math.min(capacidade, alvoT1 + delta);
+    } else if (fantasmasB2.contains(chaveNova)) {
+      int delta = Math.max(1, fantasmasB1.size() / fantasmasB2.size());
+      alvoT1 = Math.max(0, alvoT1 - delta);
+      fantasmaB2 = true;
+    }
+
+    int tamanhoT1 = residentes.tamanho(t1);
+    boolean expulsaT1 = tamanhoT1 > 0
+        && (tamanhoT1 > alvoT1 || (fantasmaB2 && tamanhoT1 == alvoT1)
+            || residentes.tamanho(t2) == 0);
+    int vitima = residentes.ultimo(expulsaT1 ? t1 : t2);
+    residentes.remove(vitima);
+    (expulsaT1 ? fantasmasB1 : fantasmasB2).add(chaveDaMoldura[vitima]);
+    return vitima;
+  }
+
+  @Override
+  public void remove(int moldura) {
+    residentes.remove(moldura);
+  }
+
+  @Override
+  public PoliticaSubstituicao novaParticao() {
+    return new PoliticaARC(capacidade, residentes, chaveDaMoldura, antecipada);
+  }
+
+  private static void removeMaisAntigo(LinkedHashSet<Long> fantasmas) {
+    Iterator<Long> it = fantasmas.iterator();
+    if (it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package memory;
+
+import util.ListasIntrusivas;
+
+/** FIFO: substitui a página carregada há mais tempo, ignorando os acessos. */
+public class PoliticaFIFO implements PoliticaSubstituicao {
+  private final ListasIntrusivas fila;
+  private final int lista;
+
+  public PoliticaFIFO(int numeroMolduras) {
+    this(new ListasIntrusivas(numeroMolduras, 0));
+  }
+
+  private PoliticaFIFO(ListasIntrusivas fila) {
+    this.fila = fila;
+    this.lista = fila.novaLista();
+  }
+
+  @Override
+  public void registraCarga(int moldura, long chave, long instante) {
+    fila.insereInicio(lista, moldura);
+  }
+
+  @Override
+  public void registraCargaAntecipada(int moldura, long chave, long instante) {
+    fila.insereFim(lista, moldura);
+  }
+
+  @Override
+  public void registraAcesso(int moldura, long instante) {
+    // a ordem de chegada não muda com acessos
+  }
+
+  @Override
+  public int selecionaVitima(long chaveNova, long instante) {
+    int vitima = fila.ultimo(lista);
+    fila.remove(vitima);
+    return vitima;
+  }
+
+  @Override
+  public void remove(int moldura) {
+    fila.remove(moldura);
+  }
+
+  @Override
+  public PoliticaSubstituicao novaParticao() {
+    return new PoliticaFIFO(fila);
+  }
+}
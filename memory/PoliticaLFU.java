@@ -0,0 +1,56 @@
+package memory;
+
+import util.HeapIndexado;
+
+/**
+ * LFU: substitui a página com menos acessos desde que foi carregada, usando o
+ * acesso mais antigo como desempate. Mantida em um heap indexado, O(log n).
+ */
+public class PoliticaLFU implements PoliticaSubstituicao {
+  private final HeapIndexado heap;
+
+  public PoliticaLFU(int numeroMolduras) {
+    this(new HeapIndexado(numeroMolduras));
+  }
+
+  private PoliticaLFU(HeapIndexado heap) {
+    this.heap = heap;
+  }
+
+  @Override
+  public void registraCarga(int moldura, long chave, long instante) {
+    heap.insereOuAtualiza(moldura, 1, instante);
+  }
+
+  @Override
+  public void registraCargaAntecipada(int moldura, long chave, long instante) {
+    heap.insereOuAtualiza(moldura, 0, instante);
+  }
+
+  @Override
+  public void registraAcesso(int moldura, long instante) {
+    heap.insereOuAtualiza(moldura, heap.getPrimaria(moldura) + 1, instante);
+  }
+
+  @Override
+  public void registraAcessos(int moldura, long instante, long vezes) {
+    heap.insereOuAtualiza(moldura, heap.getPrimaria(moldura) + vezes, instante);
+  }
+
+  @Override
+  public int selecionaVitima(long chaveNova, long instante) {
+    int vitima = heap.topo();
+    heap.remove(vitima);
+    return vitima;
+  }
+
+  @Override
+  public void remove(int moldura) {
+    heap.remove(moldura);
+  }
+
+  @Override
+  public PoliticaSubstituicao novaParticao() {
+    return new PoliticaLFU(new HeapIndexado(heap));
+  }
+}
@@ -0,0 +1,53 @@
+package memory;
+
+import util.ListasIntrusivas;
+
+/**
+ * LRU exato: as molduras ficam em uma lista intrusiva ordenada por recência;
+ * acesso e substituição custam O(1).
+ */
+public class PoliticaLRU implements PoliticaSubstituicao {
+  private final ListasIntrusivas ordem;
+  private final int lista;
+
+  public PoliticaLRU(int numeroMolduras) {
+    this(new ListasIntrusivas(numeroMolduras, 0));
+  }
+
+  private PoliticaLRU(ListasIntrusivas ordem) {
+    this.ordem = ordem;
+    this.lista = ordem.novaLista();
+  }
+
+  @Override
+  public void registraCarga(int moldura, long chave, long instante) {
+    ordem.insereInicio(lista, moldura);
+  }
+
+  @Override
+  public void registraCargaAntecipada(int moldura, long chave, long instante) {
+    ordem.insereFim(lista, moldura);
+  }
+
+  @Override
+  public void registraAcesso(int moldura, long instante) {
+    ordem.insereInicio(lista, moldura);
+  }
+
+  @Override
+  public int selecionaVitima(long chaveNova, long instante) {
+    int vitima = ordem.ultimo(lista);
+    ordem.remove(vitima);
+    return vitima;
+  }
+
+  @Override
+  public void remove(int moldura) {
+    ordem.remove(moldura);
+  }
+
+  @Override
+  public PoliticaSubstituicao novaParticao() {
+    return new PoliticaLRU(ordem);
+  }
+}
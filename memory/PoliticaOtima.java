@@ -0,0 +1,113 @@
+package memory;
+
+import util.HeapIndexado;
+import util.MapaLongInt;
+
+/**
+ * Algoritmo ótimo de Bélády (OPT): substitui a página cujo próximo uso está
+ * mais distante no futuro.
+ *
+ * <p>
+ * Na construção é montado um índice com a posição do próximo uso de cada
+ * referência do trace; o instante {@code t} corresponde à posição {@code t-1}.
+ * A última posição de cada página durante a montagem fica em um
+ * {@link MapaLongInt}, sem boxing por registro; ao final ele guarda o
+ * primeiro uso de cada página e passa a servir às páginas antecipadas, cujo
+ * próximo uso não é o da referência corrente.
+ * As molduras ficam em um heap indexado pela distância do próximo uso.
+ */
+public class PoliticaOtima implements PoliticaSubstituicao {
+  /** Nenhum uso posterior: maior que qualquer posição de um vetor. */
+  private static final int NUNCA = Integer.MAX_VALUE;
+  private static final int CAPACIDADE_INICIAL = 1 << 12;
+
+  private final int[] proximoUso;
+  /** Uso de cada página não anterior à última consulta; avança com o tempo. */
+  private final MapaLongInt ocorrencia;
+  private final HeapIndexado heap;
+
+  public PoliticaOtima(int numeroMolduras, long[] sequenciaFutura) {
+    this.heap = new HeapIndexado(numeroMolduras);
+    this.proximoUso = new int[sequenciaFutura.length];
+    MapaLongInt ultimaPosicao = new MapaLongInt(CAPACIDADE_INICIAL);
+    for (int i = sequenciaFutura.length - 1; i >= 0; i--) {
+      long chave = sequenciaFutura[i];
+      int posterior = ultimaPosicao.obtem(chave);
+      if (posterior == -1) {
+        proximoUso[i] = NUNCA;
+        if (ultimaPosicao.tamanho() == ultimaPosicao.getMaximoChaves()) {
+          ultimaPosicao.cresce(2 * ultimaPosicao.getMaximoChaves());
+        }
+      } else {
+        proximoUso[i] = posterior;
+      }
+      ultimaPosicao.insere(chave, i);
+    }
+    this.ocorrencia = ultimaPosicao;
+  }
+
+  private PoliticaOtima(int[] proximoUso, MapaLongInt ocorrencia, HeapIndexado heap) {
+    this.proximoUso = proximoUso;
+    this.ocorrencia = ocorrencia;
+    this.heap = heap;
+  }
+
+  private void atualiza(int moldura, long instante) {
+    long posicao = instante - 1;
+    int proximo = posicao >= 0 && posicao < proximoUso.length
+        ? proximoUso[(int) posicao]
+        : NUNCA;
+    // heap mínimo: o próximo uso mais distante deve ficar no topo
+    heap.insereOuAtualiza(moldura, -proximo, moldura);
+  }
+
+  @Override
+  public void registraCarga(int moldura, long chave, long instante) {
+    atualiza(moldura, instante);
+  }
+
+  /**
+   * A página não é a da referência corrente: seu próximo uso é a primeira
+   * ocorrência da chave depois dela, achada seguindo o encadeamento de
+   * {@code proximoUso} a partir da última consultada.
+   */
+  @Override
+  public void registraCargaAntecipada(int moldura, long chave, long instante) {
+    int proximo = ocorrencia.obtem(chave);
+    if (proximo == -1) {
+      proximo = NUNCA;
+    }
+    while (proximo < instante) {
+      proximo = proximoUso[proximo];
+    }
+    if (proximo == NUNCA) {
+      ocorrencia.remove(chave);
+    } else {
+      ocorrencia.insere(chave, proximo);
+    }
+    heap.insereOuAtualiza(moldura, -proximo, moldura);
+  }
+
+  @Override
+  public void registraAcesso(int moldura, long instante) {
+    atualiza(moldura, instante);
+  }
+
+  @Override
+  public int selecionaVitima(long chaveNova, long instante) {
+    int vitima = heap.topo();
+    heap.remove(vitima);
+    return vitima;
+  }
+
+  @Override
+  public void remove(int moldura) {
+    heap.remove(moldura);
+  }
+
+  /** A nova partição reaproveita o índice de próximos usos, que é igual para todas. */
+  @Override
+  public PoliticaSubstituicao novaParticao() {
+    return new PoliticaOtima(proximoUso, ocorrencia, new HeapIndexado(heap));
+  }
+}
@@ -0,0 +1,120 @@
+package memory;
+
+import java.util.Arrays;
+import model.TipoPoliticaSubstituicao;
+
+/**
+ * Substituição local: as molduras ocupadas são divididas em partições (uma
+ * por processo), cada uma acompanhada por sua própria instância da política
+ * configurada. Só a primeira é criada por inteiro; as demais vêm de
+ * {@link PoliticaSubstituicao#novaParticao} e dividem com ela os vetores
+ * indexados por moldura, de modo que o custo de cada nova partição não
+ * depende do tamanho da memória.
+ *
+ * <p>
+ * Quem usa a memória informa a partição que recebe as próximas cargas
+ * ({@link #setParticaoAtual}) e aquela de onde sairá a próxima vítima
+ * ({@link #setParticaoVitima}); acessos e liberações são encaminhados à
+ * partição dona da moldura. As partições são criadas sob demanda.
+ */
+public final class PoliticaParticionada implements PoliticaSubstituicao {
+  private final TipoPoliticaSubstituicao tipo;
+  private final int numeroMolduras;
+  private final long[] sequenciaFutura;
+  private final int[] particaoMoldura;
+  private PoliticaSubstituicao[] particoes = new PoliticaSubstituicao[4];
+  private int[] residentes = new int[4];
+  private int particaoAtual;
+  private int particaoVitima;
+
+  public PoliticaParticionada(TipoPoliticaSubstituicao tipo, int numeroMolduras,
+      long[] sequenciaFutura) {
+    this.tipo = tipo;
+    this.numeroMolduras = numeroMolduras;
+    this.sequenciaFutura = sequenciaFutura;
+    this.particaoMoldura = new int[numeroMolduras];
+    Arrays.fill(particaoMoldura, -1);
+    particao(0);
+  }
+
+  private PoliticaSubstituicao particao(int indice) {
+    if (indice >= particoes.length) {
+      int tamanho = Math.max(indice + 1, particoes.length * 2);
+      particoes = Arrays.copyOf(particoes, tamanho);
+      residentes = Arrays.copyOf(residentes, tamanho);
+    }
+    PoliticaSubstituicao p = particoes[indice];
+    if (p == null) {
+      p = particoes[0] == null
+          ? PoliticaSubstituicao.cria(tipo, numeroMolduras, sequenciaFutura)
+          : particoes[0].novaParticao();
+      particoes[indice] = p;
+    }
+    return p;
+  }
+
+  /** Partição que recebe as próximas cargas. */
+  public void setParticaoAtual(int indice) {
+    particao(indice);
+    particaoAtual = indice;
+  }
+
+  /** Partição de onde {@link #selecionaVitima} retira a próxima moldura. */
+  public void setParticaoVitima(int indice) {
+    particao(indice);
+    particaoVitima = indice;
+  }
+
+  /** @return molduras ocupadas pela partição. */
+  public int getResidentes(int indice) {
+    return indice < residentes.length ? residentes[indice] : 0;
+  }
+
+  /** @return partição dona da moldura ou -1 se ela não está ocupada. */
+  public int getParticao(int moldura) {
+    return particaoMoldura[moldura];
+  }
+
+  @Override
+  public void registraCarga(int moldura, long chave, long instante) {
+    particaoMoldura[moldura] = particaoAtual;
+    residentes[particaoAtual]++;
+    particoes[particaoAtual].registraCarga(moldura, chave, instante);
+  }
+
+  @Override
+  public void registraCargaAntecipada(int moldura, long chave, long instante) {
+    particaoMoldura[moldura] = particaoAtual;
+    residentes[particaoAtual]++;
+    particoes[particaoAtual].registraCargaAntecipada(moldura, chave, instante);
+  }
+
+  @Override
+  public void registraAcesso(int moldura, long instante) {
+    particoes[particaoMoldura[moldura]].registraAcesso(moldura, instante);
+  }
+
+  @Override
+  public void registraAcessos(int moldura, long instante, long vezes) {
+    particoes[particaoMoldura[moldura]].registraAcessos(moldura, instante, vezes);
+  }
+
+  @Override
+  public int selecionaVitima(long chaveNova, long instante) {
+    int vitima = particoes[particaoVitima].selecionaVitima(chaveNova, instante);
+    residentes[particaoVitima]--;
+    particaoMoldura[vitima] = -1;
+    return vitima;
+  }
+
+  @Override
+  public void remove(int moldura) {
+    int indice = particaoMoldura[moldura];
+    if (indice == -1) {
+      return;
+    }
+    particoes[indice].remove(moldura);
+    residentes[indice]--;
+    particaoMoldura[moldura] = -1;
+  }
+}
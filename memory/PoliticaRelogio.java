@@ -0,0 +1,70 @@
+package memory;
+
+/**
+ * Clock (segunda chance): um ponteiro percorre as molduras circularmente,
+ * limpando o bit de referência das que foram usadas e escolhendo a primeira
+ * que já estiver com o bit zerado.
+ *
+ * <p>
+ * As partições criadas por {@link #novaParticao} dividem os vetores; cada
+ * uma tem o próprio ponteiro e só considera as molduras que carregou.
+ */
+public class PoliticaRelogio implements PoliticaSubstituicao {
+  private final PoliticaRelogio[] dona;
+  private final boolean[] referenciada;
+  private int ponteiro;
+
+  public PoliticaRelogio(int numeroMolduras) {
+    this(new PoliticaRelogio[numeroMolduras], new boolean[numeroMolduras]);
+  }
+
+  private PoliticaRelogio(PoliticaRelogio[] dona, boolean[] referenciada) {
+    this.dona = dona;
+    this.referenciada = referenciada;
+  }
+
+  @Override
+  public void registraCarga(int moldura, long chave, long instante) {
+    dona[moldura] = this;
+    referenciada[moldura] = true;
+  }
+
+  @Override
+  public void registraCargaAntecipada(int moldura, long chave, long instante) {
+    dona[moldura] = this;
+    referenciada[moldura] = false;
+  }
+
+  @Override
+  public void registraAcesso(int moldura, long instante) {
+    referenciada[moldura] = true;
+  }
+
+  @Override
+  public int selecionaVitima(long chaveNova, long instante) {
+    while (true) {
+      int atual = ponteiro;
+      ponteiro = (ponteiro + 1) % dona.length;
+      if (dona[atual] != this) {
+        continue;
+      }
+      if (referenciada[atual]) {
+        referenciada[atual] = false;
+        continue;
+      }
+      dona[atual] = null;
+      return atual;
+    }
+  }
+
+  @Override
+  public void remove(int moldura) {
+    dona[moldura] = null;
+    referenciada[moldura] = false;
+  }
+
+  @Override
+  public PoliticaSubstituicao novaParticao() {
+    return new PoliticaRelogio(dona, referenciada);
+  }
+}
@@ -0,0 +1,91 @@
+package memory;
+
+import model.TipoPoliticaSubstituicao;
+
+/**
+ * Algoritmo de substituição de páginas usado por {@link MemoriaFisica} quando
+ * não há molduras livres.
+ *
+ * <p>
+ * A política só enxerga molduras ocupadas: é avisada quando uma moldura recebe
+ * uma página, quando é acessada e quando é liberada, e escolhe a vítima quando
+ * a memória está cheia. A moldura escolhida deixa de ser acompanhada até a
+ * próxima {@link #registraCarga}.
+ */
+public interface PoliticaSubstituicao {
+
+  /** A moldura passou a conter a página identificada por {@code chave}. */
+  void registraCarga(int moldura, long chave, long instante);
+
+  /**
+   * A moldura recebeu uma página trazida por antecipação (prefetch), que ainda
+   * não foi usada e deve ser uma das primeiras candidatas a vítima. Por padrão
+   * é tratada como uma carga comum.
+   */
+  default void registraCargaAntecipada(int moldura, long chave, long instante) {
+    registraCarga(moldura, chave, instante);
+  }
+
+  /** A página presente na moldura foi referenciada novamente. */
+  void registraAcesso(int moldura, long instante);
+
+  /**
+   * A página foi referenciada {@code vezes} vezes seguidas, a última no
+   * instante informado. Por padrão equivale a um único acesso, o que basta às
+   * políticas que só guardam a ordem ou o último acesso; as que contam acessos
+   * precisam sobrescrever.
+   */
+  default void registraAcessos(int moldura, long instante, long vezes) {
+    registraAcesso(moldura, instante);
+  }
+
+  /**
+   * Escolhe e retira a moldura que dará lugar à página {@code chaveNova}.
+   *
+   * @return moldura vítima
+   */
+  int selecionaVitima(long chaveNova, long instante);
+
+  /** A moldura foi liberada sem substituição e deve ser esquecida. */
+  void remove(int moldura);
+
+  /**
+   * Nova instância vazia da mesma política, para a substituição local: divide
+   * com esta os vetores indexados por moldura e guarda só as próprias cabeças
+   * de lista, heap ou ponteiro. Cada moldura pode estar em apenas uma delas.
+   *
+   * @throws UnsupportedOperationException se a política não pode ser dividida
+   */
+  default PoliticaSubstituicao novaParticao() {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " não é particionável");
+  }
+
+  /**
+   * Instancia a política pedida.
+   *
+   * @param sequenciaFutura chaves de todas as referências do trace, na ordem;
+   *                        obrigatória apenas para {@link TipoPoliticaSubstituicao#OPT}
+   */
+  static PoliticaSubstituicao cria(TipoPoliticaSubstituicao tipo, int numeroMolduras,
+      long[] sequenciaFutura) {
+    switch (tipo) {
+      case LRU:
+        return new PoliticaLRU(numeroMolduras);
+      case FIFO:
+        return new PoliticaFIFO(numeroMolduras);
+      case CLOCK:
+        return new PoliticaRelogio(numeroMolduras);
+      case LFU:
+        return new PoliticaLFU(numeroMolduras);
+      case ARC:
+        return new PoliticaARC(numeroMolduras);
+      case OPT:
+        if (sequenciaFutura == null) {
+          throw new IllegalArgumentException("A política OPT precisa da sequência futura de acessos");
+        }
+        return new PoliticaOtima(numeroMolduras, sequenciaFutura);
+      default:
+        throw new IllegalArgumentException("Política desconhecida: " + tipo);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package memory;
+
+import model.TipoPrefetch;
+import model.TipoSegmento;
+
+/**
+ * Escolhe páginas para trazer à memória junto com a que acabou de faltar.
+ *
+ * <p>
+ * Cada espaço de endereçamento tem sua instância. O prefetcher só vê a
+ * sequência de faltas de página e devolve candidatos; quem o chama descarta os
+ * que já estão na memória ou fora do espaço virtual e decide onde carregá-los.
+ */
+public interface Prefetcher {
+
+  /**
+   * Registra a falta e sugere páginas a antecipar.
+   *
+   * @param destino recebe as VPNs sugeridas, na ordem de preferência
+   * @return quantidade de VPNs escritas em {@code destino}
+   */
+  int sugere(long paginaVirtual, TipoSegmento segmento, long[] destino);
+
+  /**
+   * Instancia o prefetcher pedido.
+   *
+   * @param profundidade   máximo de páginas sugeridas por falta
+   * @param entradasMarkov tamanho da tabela de correlação do MARKOV
+   * @return prefetcher ou null para {@link TipoPrefetch#NENHUM}
+   */
+  static Prefetcher cria(TipoPrefetch tipo, int profundidade, int entradasMarkov) {
+    switch (tipo) {
+      case NENHUM:
+        return null;
+      case SEQUENCIAL:
+        return new PrefetcherSequencial(profundidade);
+      case PASSO:
+        return new PrefetcherPasso(profundidade);
+      case MARKOV:
+        return new PrefetcherMarkov(profundidade, entradasMarkov);
+      default:
+        throw new IllegalArgumentException("Prefetch desconhecido: " + tipo);
+    }
+  }
+}
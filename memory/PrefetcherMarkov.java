@@ -0,0 +1,75 @@
+package memory;
+
+import java.util.Arrays;
+import model.TipoSegmento;
+import util.MapaLongInt;
+
+/**
+ * Prefetcher de correlação (Markov): para cada página que faltou guarda as
+ * páginas que faltaram logo depois dela, da mais recente para a mais antiga,
+ * e as sugere quando essa página volta a faltar.
+ *
+ * <p>
+ * A tabela é de mapeamento direto, indexada pelo hash da VPN; uma página nova
+ * toma a linha de outra que colida com ela.
+ */
+public class PrefetcherMarkov implements Prefetcher {
+  private final int largura;
+  private final int mascara;
+  private final long[] etiquetas;
+  /** {@code largura} sucessores por linha; -1 marca posição vazia. */
+  private final long[] sucessores;
+  private long faltaAnterior = -1;
+
+  /** @param entradas linhas da tabela (arredondado para potência de 2) */
+  public PrefetcherMarkov(int profundidade, int entradas) {
+    int linhas = Integer.highestOneBit(Math.max(1, entradas - 1)) << 1;
+    this.largura = profundidade;
+    this.mascara = linhas - 1;
+    this.etiquetas = new long[linhas];
+    this.sucessores = new long[linhas * profundidade];
+    Arrays.fill(etiquetas, -1);
+    Arrays.fill(sucessores, -1);
+  }
+
+  private int linha(long pagina) {
+    return (int) MapaLongInt.espalha(pagina) & mascara;
+  }
+
+  @Override
+  public int sugere(long paginaVirtual, TipoSegmento segmento, long[] destino) {
+    if (faltaAnterior != -1 && faltaAnterior != paginaVirtual) {
+      registraSucessor(faltaAnterior, paginaVirtual);
+    }
+    faltaAnterior = paginaVirtual;
+
+    int l = linha(paginaVirtual);
+    if (etiquetas[l] != paginaVirtual) {
+      return 0;
+    }
+    int n = 0;
+    for (int i = l * largura; i < (l + 1) * largura && sucessores[i] != -1; i++) {
+      destino[n++] = sucessores[i];
+    }
+    return n;
+  }
+
+  /** Põe {@code sucessor} na frente da linha de {@code pagina}, sem repetições. */
+  private void registraSucessor(long pagina, long sucessor) {
+    int l = linha(pagina);
+    int inicio = l * largura;
+    if (etiquetas[l] != pagina) {
+      etiquetas[l] = pagina;
+      Arrays.fill(sucessores, inicio, inicio + largura, -1);
+    }
+    int fim = inicio + largura - 1;
+    for (int i = inicio; i < inicio + largura; i++) {
+      if (sucessores[i] == sucessor || sucessores[i] == -1) {
+        fim = i;
+        break;
+      }
+    }
+    System.arraycopy(sucessores, inicio, sucessores, inicio + 1, fim - inicio);
+    sucessores[inicio] = sucessor;
+  }
+}
@@ -0,0 +1,45 @@
+package memory;
+
+import java.util.Arrays;
+import model.TipoSegmento;
+
+/**
+ * Detecção de passo por segmento: quando duas faltas seguidas do mesmo
+ * segmento repetem a distância entre VPNs, sugere as próximas páginas nesse
+ * passo. Passos negativos cobrem, por exemplo, a pilha crescendo para baixo.
+ *
+ * <p>
+ * Com o passo confirmado, a última página sugerida passa a valer como a última
+ * falta: as antecipações certas evitam as faltas intermediárias, e a falta
+ * seguinte, logo além delas, mantém o passo em vez de anulá-lo.
+ */
+public class PrefetcherPasso implements Prefetcher {
+  private final int profundidade;
+  private final long[] ultimaFalta = new long[TipoSegmento.values().length];
+  private final long[] passo = new long[TipoSegmento.values().length];
+  private final boolean[] confirmado = new boolean[TipoSegmento.values().length];
+
+  public PrefetcherPasso(int profundidade) {
+    this.profundidade = profundidade;
+    Arrays.fill(ultimaFalta, -1);
+  }
+
+  @Override
+  public int sugere(long paginaVirtual, TipoSegmento segmento, long[] destino) {
+    int s = segmento.ordinal();
+    long distancia = ultimaFalta[s] == -1 ? 0 : paginaVirtual - ultimaFalta[s];
+    confirmado[s] = distancia != 0 && distancia == passo[s];
+    passo[s] = distancia;
+    ultimaFalta[s] = paginaVirtual;
+    if (!confirmado[s]) {
+      return 0;
+    }
+    for (int i = 0; i < profundidade; i++) {
+      destino[i] = paginaVirtual + distancia * (i + 1);
+    }
+    if (profundidade > 0) {
+      ultimaFalta[s] = destino[profundidade - 1];
+    }
+    return profundidade;
+  }
+}
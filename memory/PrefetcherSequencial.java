@@ -0,0 +1,20 @@
+package memory;
+
+import model.TipoSegmento;
+
+/** Read-ahead: sugere as {@code profundidade} páginas seguintes à que faltou. */
+public class PrefetcherSequencial implements Prefetcher {
+  private final int profundidade;
+
+  public PrefetcherSequencial(int profundidade) {
+    this.profundidade = profundidade;
+  }
+
+  @Override
+  public int sugere(long paginaVirtual, TipoSegmento segmento, long[] destino) {
+    for (int i = 0; i < profundidade; i++) {
+      destino[i] = paginaVirtual + 1 + i;
+    }
+    return profundidade;
+  }
+}
@@ -0,0 +1,105 @@
+package mmu;
+
+/**
+ * Cache de estruturas de paginação (semelhante às caches de PML4/PDPT/PD dos
+ * processadores x86-64).
+ *
+ * <p>
+ * Para cada nível intermediário da tabela guarda, em uma pequena estrutura
+ * totalmente associativa com LRU, o ponteiro para o nó filho indexado pelo
+ * prefixo da VPN que leva até ele. Em uma caminhada, o acerto mais profundo
+ * permite começar diretamente no nó seguinte, evitando as referências à
+ * memória dos níveis superiores.
+ */
+public class CachePaginacao {
+  private final long[][] prefixos;
+  private final Object[][] nos;
+  private final long[][] usos;
+  private long relogio;
+
+  private long consultas;
+  private long acertos;
+  private long niveisEvitados;
+
+  /**
+   * @param niveisIntermediarios quantidade de níveis não folha da tabela
+   * @param entradasPorNivel     capacidade da cache de cada nível
+   */
+  public CachePaginacao(int niveisIntermediarios, int entradasPorNivel) {
+    this.prefixos = new long[niveisIntermediarios][entradasPorNivel];
+    this.nos = new Object[niveisIntermediarios][entradasPorNivel];
+    this.usos = new long[niveisIntermediarios][entradasPorNivel];
+  }
+
+  /** @return quantidade de níveis cobertos pela cache. */
+  public int getNiveis() {
+    return nos.length;
+  }
+
+  /**
+   * Procura o nó filho do nível informado associado ao prefixo.
+   *
+   * @return nó armazenado ou null em caso de falha
+   */
+  Object consulta(int nivel, long prefixo) {
+    Object[] nosNivel = nos[nivel];
+    long[] prefixosNivel = prefixos[nivel];
+    for (int i = 0; i < nosNivel.length; i++) {
+      if (nosNivel[i] != null && prefixosNivel[i] == prefixo) {
+        usos[nivel][i] = ++relogio;
+        return nosNivel[i];
+      }
+    }
+    return null;
+  }
+
+  /** Guarda o ponteiro para o nó filho, substituindo a entrada menos usada. */
+  void insere(int nivel, long prefixo, Object no) {
+    Object[] nosNivel = nos[nivel];
+    long[] usosNivel = usos[nivel];
+    int vitima = 0;
+    for (int i = 0; i < nosNivel.length; i++) {
+      if (nosNivel[i] == null || prefixos[nivel][i] == prefixo) {
+        vitima = i;
+        break;
+      }
+      if (usosNivel[i] < usosNivel[vitima]) {
+        vitima = i;
+      }
+    }
+    nosNivel[vitima] = no;
+    prefixos[nivel][vitima] = prefixo;
+    usosNivel[vitima] = ++relogio;
+  }
+
+  /** Registra o resultado de uma consulta feita no início da caminhada. */
+  void registraConsulta(int niveisPulados) {
+    consultas++;
+    if (niveisPulados > 0) {
+      acertos++;
+      niveisEvitados += niveisPulados;
+    }
+  }
+
+  /** Descarta todas as entradas (ex.: quando a estrutura da tabela muda). */
+  public void invalidaTudo() {
+    for (Object[] nosNivel : nos) {
+      java.util.Arrays.fill(nosNivel, null);
+    }
+  }
+
+  /** @return caminhadas que consultaram a cache. */
+  public long getConsultas() {
+    return consultas;
+  }
+
+  /** @return caminhadas que encontraram ao menos um nível na cache. */
+  public long getAcertos() {
+    return acertos;
+  }
+
+  /** @return total de níveis da tabela que deixaram de ser lidos da memória. */
+  public long getNiveisEvitados() {
+    return niveisEvitados;
+  }
+}
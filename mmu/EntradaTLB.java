@@ -1,12 +1,16 @@
 package mmu;
 
 /**
- * Entrada individual da TLB. Armazena uma VPN, a moldura correspondente e o
- * instante usado pelo algoritmo LRU.
+ * Entrada individual da TLB. Armazena uma VPN, a moldura correspondente, o
+ * ASID do espaço de endereçamento dono da tradução e o instante usado pelo
+ * algoritmo LRU. A {@link TLB} guarda esses campos em
+ * vetores primitivos e só produz objetos desta classe para inspeção.
  */
 public class EntradaTLB {
-    private int paginaVirtual;
+    private long paginaVirtual;
     private int moldura;
+    private int bitsPagina;
+    private int asid;
     private boolean valida;
     private long instanteInsercao;
 
@@ -16,12 +20,12 @@ public class EntradaTLB {
     }
 
     /** @return a página virtual indexada por esta entrada. */
-    public int getPaginaVirtual() {
+    public long getPaginaVirtual() {
         return paginaVirtual;
     }
 
     /** Atualiza a VPN armazenada na entrada. */
-    public void setPaginaVirtual(int paginaVirtual) {
+    public void setPaginaVirtual(long paginaVirtual) {
         this.paginaVirtual = paginaVirtual;
     }
 
@@ -35,6 +39,24 @@ public class EntradaTLB {
         this.moldura = moldura;
     }
 
+    /** Bits de VPN cobertos pela entrada (0 para páginas normais). */
+    public int getBitsPagina() {
+        return bitsPagina;
+    }
+
+    public void setBitsPagina(int bitsPagina) {
+        this.bitsPagina = bitsPagina;
+    }
+
+    /** Identificador do espaço de endereçamento (processo) dono da tradução. */
+    public int getAsid() {
+        return asid;
+    }
+
+    public void setAsid(int asid) {
+        this.asid = asid;
+    }
+
     public boolean isValida() {
         return valida;
     }
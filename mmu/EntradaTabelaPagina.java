@@ -1,9 +1,30 @@
 package mmu;
 
-/** Representa uma entrada folha da tabela de páginas (VPN -> moldura). */
+/**
+ * Representa uma entrada folha da tabela de páginas (VPN -> moldura).
+ *
+ * <p>
+ * Internamente a tabela guarda cada entrada compactada em um {@code long}: os
+ * 32 bits inferiores contêm a moldura e os superiores os bits de controle.
+ * Esta classe é apenas uma visão desse valor para quem consulta a tabela.
+ */
 public class EntradaTabelaPagina {
+  /** Máscara da moldura dentro da entrada compactada. */
+  static final long MASCARA_MOLDURA = 0xFFFF_FFFFL;
+  /** Indica que a entrada contém um mapeamento válido. */
+  static final long BIT_VALIDA = 1L << 32;
+  /** Indica que a página foi escrita desde que foi carregada ou limpa. */
+  static final long BIT_SUJA = 1L << 33;
+  /**
+   * Indica que a moldura é compartilhada desde um fork e que a primeira
+   * escrita deve copiá-la (copy-on-write); a página fica só para leitura.
+   */
+  static final long BIT_COPIA_NA_ESCRITA = 1L << 34;
+
   private int moldura;
   private boolean valida;
+  private boolean suja;
+  private boolean copiaNaEscrita;
 
   /** Inicialmente a entrada é inválida e aponta para nenhuma moldura. */
   public EntradaTabelaPagina() {
@@ -11,6 +32,39 @@ public class EntradaTabelaPagina {
     this.valida = false;
   }
 
+  /** Reconstrói a visão a partir de uma entrada compactada. */
+  EntradaTabelaPagina(long compactada) {
+    this.valida = isValida(compactada);
+    this.moldura = valida ? moldura(compactada) : -1;
+    this.suja = isSuja(compactada);
+    this.copiaNaEscrita = isCopiaNaEscrita(compactada);
+  }
+
+  /** Junta moldura e bits de controle em um único valor. */
+  static long compacta(int moldura, long bits) {
+    return (moldura & MASCARA_MOLDURA) | bits;
+  }
+
+  /** @return moldura contida em uma entrada compactada. */
+  static int moldura(long compactada) {
+    return (int) (compactada & MASCARA_MOLDURA);
+  }
+
+  /** @return true se a entrada compactada é válida. */
+  static boolean isValida(long compactada) {
+    return (compactada & BIT_VALIDA) != 0;
+  }
+
+  /** @return true se a entrada compactada tem o bit de sujeira ligado. */
+  static boolean isSuja(long compactada) {
+    return (compactada & BIT_SUJA) != 0;
+  }
+
+  /** @return true se a entrada compactada tem o bit de copy-on-write ligado. */
+  static boolean isCopiaNaEscrita(long compactada) {
+    return (compactada & BIT_COPIA_NA_ESCRITA) != 0;
+  }
+
   /** @return moldura física associada à página virtual. */
   public int getMoldura() {
     return moldura;
@@ -30,4 +84,24 @@ public class EntradaTabelaPagina {
   public void setValida(boolean valida) {
     this.valida = valida;
   }
+
+  /** @return true se a página foi modificada desde a última gravação. */
+  public boolean isSuja() {
+    return suja;
+  }
+
+  /** Liga/desliga o bit de sujeira. */
+  public void setSuja(boolean suja) {
+    this.suja = suja;
+  }
+
+  /** @return true se a página é compartilhada e será copiada na primeira escrita. */
+  public boolean isCopiaNaEscrita() {
+    return copiaNaEscrita;
+  }
+
+  /** Liga/desliga o bit de copy-on-write. */
+  public void setCopiaNaEscrita(boolean copiaNaEscrita) {
+    this.copiaNaEscrita = copiaNaEscrita;
+  }
 }
@@ -0,0 +1,288 @@
+package mmu;
+
+import config.Configuracao;
+import java.util.Locale;
+import model.PoliticaInclusaoTLB;
+import model.TipoSegmento;
+
+/**
+ * Hierarquia de TLBs consultada antes da tabela de páginas.
+ *
+ * <p>
+ * No modo simples existe apenas uma TLB unificada, equivalente ao simulador
+ * original. No modo hierárquico há TLBs de nível 1 separadas para instruções
+ * (segmento .text) e dados (demais segmentos), apoiadas por uma TLB de nível 2
+ * compartilhada e maior. Cada nível tem latência própria e a relação entre
+ * eles segue a {@link PoliticaInclusaoTLB} configurada.
+ *
+ * <p>
+ * Além dos acertos e falhas de cada TLB, a hierarquia contabiliza onde cada
+ * tradução foi servida, os ciclos gastos nas consultas às TLBs e o alcance
+ * (páginas base cobertas) médio de cada nível, que cresce com páginas grandes.
+ *
+ * <p>
+ * As traduções são marcadas com o ASID atual; uma troca de contexto pode só
+ * mudar o ASID ({@link #setASID(int)}) ou esvaziar todos os níveis
+ * ({@link #invalidaTudo()}).
+ */
+public class HierarquiaTLB {
+  /** Tradução servida pelo nível 1. */
+  public static final int NIVEL_L1 = 1;
+  /** Tradução servida pelo nível 2. */
+  public static final int NIVEL_L2 = 2;
+  /** Tradução não encontrada em nenhuma TLB. */
+  public static final int NIVEL_NENHUM = 0;
+
+  private final TLB l1Instrucoes;
+  private final TLB l1Dados;
+  private final TLB l2;
+  private final int latenciaL1;
+  private final int latenciaL2;
+  private final PoliticaInclusaoTLB inclusao;
+  /** TLBs distintas da hierarquia (no modo simples, só a unificada). */
+  private final TLB[] distintas;
+
+  private long traducoes;
+  private long servidasL1;
+  private long servidasL2;
+  private long ciclos;
+  private int nivelUltimaTraducao;
+  private long somaAlcanceL1;
+  private long somaAlcanceL2;
+  private long esvaziamentos;
+
+  /** Monta a hierarquia descrita na configuração. */
+  public HierarquiaTLB(Configuracao config) {
+    this.latenciaL1 = config.getLatenciaTLBL1();
+    this.latenciaL2 = config.getLatenciaTLBL2();
+    this.inclusao = config.getInclusaoTLB();
+    if (config.isHierarquiaTLB()) {
+      this.l1Instrucoes = new TLB(1 << config.getBitsTLBInstrucoes(),
+          config.getAssociatividadeTLBInstrucoes());
+      this.l1Dados = new TLB(1 << config.getBitsTLBDados(), config.getAssociatividadeTLBDados());
+      this.l2 = new TLB(1 << config.getBitsTLBL2(), config.getAssociatividadeTLBL2());
+    } else {
+      this.l1Dados = new TLB(config.getEntradasTLB(), config.getAssociatividadeTLB());
+      this.l1Instrucoes = l1Dados;
+      this.l2 = null;
+    }
+    this.distintas = l2 == null ? new TLB[] {l1Dados} : new TLB[] {l1Instrucoes, l1Dados, l2};
+  }
+
+  /** TLB de nível 1 responsável pelo segmento. */
+  private TLB nivel1(TipoSegmento segmento) {
+    return segmento == TipoSegmento.TEXT ? l1Instrucoes : l1Dados;
+  }
+
+  /**
+   * Procura a VPN nos níveis da hierarquia. Um acerto no L2 promove a tradução
+   * para o L1 correspondente.
+   *
+   * @return moldura traduzida ou -1 se nenhuma TLB contém a VPN.
+   */
+  public int lookup(long paginaVirtual, TipoSegmento segmento, long instante) {
+    traducoes++;
+    TLB l1 = nivel1(segmento);
+    somaAlcanceL1 += l1.getPaginasCobertas();
+    if (l2 != null) {
+      somaAlcanceL2 += l2.getPaginasCobertas();
+    }
+    ciclos += latenciaL1;
+    int moldura = l1.lookup(paginaVirtual, instante);
+    if (moldura != -1) {
+      servidasL1++;
+      nivelUltimaTraducao = NIVEL_L1;
+      return moldura;
+    }
+    if (l2 == null) {
+      nivelUltimaTraducao = NIVEL_NENHUM;
+      return -1;
+    }
+    ciclos += latenciaL2;
+    moldura = l2.lookup(paginaVirtual, instante);
+    if (moldura == -1) {
+      nivelUltimaTraducao = NIVEL_NENHUM;
+      return -1;
+    }
+    servidasL2++;
+    nivelUltimaTraducao = NIVEL_L2;
+    int bits = l2.getBitsPaginaUltimoAcerto();
+    if (inclusao == PoliticaInclusaoTLB.EXCLUSIVA) {
+      l2.invalidaEntrada(paginaVirtual);
+    }
+    insereNoL1(l1, paginaVirtual, moldura, bits, instante);
+    return moldura;
+  }
+
+  /**
+   * Contabiliza {@code vezes} novas consultas à VPN que acabou de ser
+   * traduzida, todas servidas pelo nível 1 do segmento (onde a última
+   * tradução sempre deixa a VPN como a mais recente). Equivale a repetir
+   * {@link #lookup} sem refazer as buscas.
+   */
+  public void registraAcertosRepetidos(long paginaVirtual, TipoSegmento segmento, long vezes,
+      long instante) {
+    TLB l1 = nivel1(segmento);
+    traducoes += vezes;
+    servidasL1 += vezes;
+    ciclos += vezes * latenciaL1;
+    somaAlcanceL1 += vezes * l1.getPaginasCobertas();
+    if (l2 != null) {
+      somaAlcanceL2 += vezes * l2.getPaginasCobertas();
+    }
+    nivelUltimaTraducao = NIVEL_L1;
+    l1.registraAcertosRepetidos(paginaVirtual, vezes, instante);
+  }
+
+  /** Instala a tradução obtida da tabela de páginas após uma falta em todas as TLBs. */
+  public void insereOuAtualiza(long paginaVirtual, int moldura, TipoSegmento segmento,
+      long instante) {
+    insereOuAtualiza(paginaVirtual, moldura, 0, segmento, instante);
+  }
+
+  /**
+   * Instala a tradução de uma página que cobre {@code 2^bitsPagina} páginas
+   * base (0 para páginas normais).
+   */
+  public void insereOuAtualiza(long paginaVirtual, int moldura, int bitsPagina,
+      TipoSegmento segmento, long instante) {
+    if (l2 != null && inclusao != PoliticaInclusaoTLB.EXCLUSIVA) {
+      insereNoL2(paginaVirtual, moldura, bitsPagina, instante);
+    }
+    insereNoL1(nivel1(segmento), paginaVirtual, moldura, bitsPagina, instante);
+  }
+
+  private void insereNoL1(TLB l1, long paginaVirtual, int moldura, int bits, long instante) {
+    l1.insereOuAtualiza(paginaVirtual, moldura, bits, instante);
+    if (l2 != null && inclusao == PoliticaInclusaoTLB.EXCLUSIVA && l1.getPaginaExpulsa() != -1) {
+      // no modo exclusivo o L2 funciona como cache de vítimas do L1
+      insereNoL2(l1.getPaginaExpulsa(), l1.getMolduraExpulsa(), l1.getBitsPaginaExpulsa(),
+          l1.getASIDExpulso(), instante);
+    }
+  }
+
+  private void insereNoL2(long paginaVirtual, int moldura, int bits, long instante) {
+    insereNoL2(paginaVirtual, moldura, bits, l2.getASID(), instante);
+  }
+
+  private void insereNoL2(long paginaVirtual, int moldura, int bits, int asid, long instante) {
+    l2.insereOuAtualiza(paginaVirtual, moldura, bits, asid, instante);
+    if (inclusao == PoliticaInclusaoTLB.INCLUSIVA && l2.getPaginaExpulsa() != -1) {
+      l1Instrucoes.invalidaEntrada(l2.getPaginaExpulsa(), l2.getASIDExpulso());
+      l1Dados.invalidaEntrada(l2.getPaginaExpulsa(), l2.getASIDExpulso());
+    }
+  }
+
+  /** Invalida a VPN do ASID atual em todos os níveis (usado em substituições). */
+  public void invalidaEntrada(long paginaVirtual) {
+    invalidaEntrada(paginaVirtual, l1Dados.getASID());
+  }
+
+  /** Invalida a VPN do ASID informado em todos os níveis. */
+  public void invalidaEntrada(long paginaVirtual, int asid) {
+    for (TLB t : distintas) {
+      t.invalidaEntrada(paginaVirtual, asid);
+    }
+  }
+
+  /** Invalida em todos os níveis as traduções do ASID informado. */
+  public void invalidaASID(int asid) {
+    for (TLB t : distintas) {
+      t.invalidaASID(asid);
+    }
+  }
+
+  /** Esvazia todos os níveis (troca de contexto sem ASID). */
+  public void invalidaTudo() {
+    esvaziamentos++;
+    for (TLB t : distintas) {
+      t.invalidaTudo();
+    }
+  }
+
+  /** Define o ASID das próximas consultas e inserções em todos os níveis. */
+  public void setASID(int asid) {
+    for (TLB t : distintas) {
+      t.setASID(asid);
+    }
+  }
+
+  /** @return TLBs distintas: L1 de instruções, L1 de dados e L2, ou só a unificada. */
+  public TLB[] getTLBs() {
+    return distintas.clone();
+  }
+
+  /** @return vezes em que todos os níveis foram esvaziados. */
+  public long getEsvaziamentos() {
+    return esvaziamentos;
+  }
+
+  /**
+   * @return nível que serviu a última consulta ({@link #NIVEL_L1},
+   *         {@link #NIVEL_L2} ou {@link #NIVEL_NENHUM}).
+   */
+  public int getNivelUltimaTraducao() {
+    return nivelUltimaTraducao;
+  }
+
+  /** @return ciclos acumulados nas consultas às TLBs. */
+  public long getCiclos() {
+    return ciclos;
+  }
+
+  /** @return total de traduções pedidas à hierarquia. */
+  public long getTraducoes() {
+    return traducoes;
+  }
+
+  /** @return traduções servidas por alguma TLB de nível 1. */
+  public long getServidasL1() {
+    return servidasL1;
+  }
+
+  /** @return traduções servidas pela TLB de nível 2. */
+  public long getServidasL2() {
+    return servidasL2;
+  }
+
+  /** @return true se existem L1 separados e um L2 compartilhado. */
+  public boolean isHierarquica() {
+    return l2 != null;
+  }
+
+  /** Escreve os contadores de cada nível e onde as traduções foram servidas. */
+  public void imprimeEstatisticas(java.io.PrintWriter out) {
+    if (l2 == null) {
+      imprimeNivel(out, "TLB", l1Dados);
+    } else {
+      imprimeNivel(out, "TLB_L1I", l1Instrucoes);
+      imprimeNivel(out, "TLB_L1D", l1Dados);
+      imprimeNivel(out, "TLB_L2", l2);
+    }
+    out.printf("TRADUCOES=%d SERVIDAS_L1=%d SERVIDAS_L2=%d SERVIDAS_TABELA=%d%n",
+        traducoes, servidasL1, servidasL2, traducoes - servidasL1 - servidasL2);
+    out.printf(Locale.ROOT, "ALCANCE_MEDIO_L1_PAGINAS=%.1f", media(somaAlcanceL1));
+    if (l2 != null) {
+      out.printf(Locale.ROOT, " ALCANCE_MEDIO_L2_PAGINAS=%.1f", media(somaAlcanceL2));
+    }
+    out.println();
+    out.printf(Locale.ROOT, "CICLOS_TLB=%d CICLOS_TLB_POR_ACESSO=%.3f%n",
+        ciclos, traducoes == 0 ? 0.0 : (double) ciclos / traducoes);
+  }
+
+  private double media(long soma) {
+    return traducoes == 0 ? 0.0 : (double) soma / traducoes;
+  }
+
+  private static void imprimeNivel(java.io.PrintWriter out, String nome, TLB tlb) {
+    long acessos = tlb.getAcertos() + tlb.getFalhas();
+    out.printf(Locale.ROOT,
+        "%s ENTRADAS=%d VIAS=%d ACESSOS=%d ACERTOS=%d FALHAS=%d TAXA_ACERTO=%.4f", nome,
+        tlb.getCapacidade(), tlb.getVias(), acessos, tlb.getAcertos(), tlb.getFalhas(),
+        acessos == 0 ? 0.0 : (double) tlb.getAcertos() / acessos);
+    if (tlb.getAcertosGrandes() > 0) {
+      out.printf(" ACERTOS_PAGINAS_GRANDES=%d", tlb.getAcertosGrandes());
+    }
+    out.printf(" ALCANCE_PAGINAS=%d%n", tlb.getPaginasCobertas());
+  }
+}
@@ -0,0 +1,103 @@
+package mmu;
+
+import config.Configuracao;
+import java.util.Locale;
+
+/**
+ * Modelo de custo (em ciclos) da tradução de endereços.
+ *
+ * <p>
+ * Soma as consultas às TLBs (latências de {@link HierarquiaTLB}), as consultas
+ * à cache de paginação, cada referência à memória feita durante a caminhada na
+ * tabela e o tratamento das faltas de página (custo fixo mais, com o
+ * dispositivo de swap ativo, o tempo de E/S de cada falta). O AMAT acrescenta ao custo médio
+ * de tradução o acesso ao dado propriamente dito.
+ *
+ * <p>
+ * Com vários processos, os contadores de caminhada de todas as tabelas de
+ * páginas são somados.
+ */
+public class ModeloLatencia {
+  private final int latenciaMemoria;
+  private final int latenciaFaltaPagina;
+  private final int latenciaCachePaginacao;
+
+  private long faltasPagina;
+  private long ciclosSwap;
+
+  public ModeloLatencia(Configuracao config) {
+    this.latenciaMemoria = config.getLatenciaMemoria();
+    this.latenciaFaltaPagina = config.getLatenciaFaltaPagina();
+    this.latenciaCachePaginacao = config.getLatenciaCachePaginacao();
+  }
+
+  /** Contabiliza uma falta de página tratada pelo sistema operacional. */
+  public void registraFalta() {
+    faltasPagina++;
+  }
+
+  /** Soma ao tratamento das faltas os ciclos de E/S no dispositivo de swap. */
+  public void registraCiclosSwap(long ciclos) {
+    ciclosSwap += ciclos;
+  }
+
+  /** @return faltas de página registradas. */
+  public long getFaltasPagina() {
+    return faltasPagina;
+  }
+
+  /** @return ciclos totais gastos em tradução até o momento. */
+  public long getCiclosTraducao(HierarquiaTLB tlb, TabelaPaginas... tabelas) {
+    long ciclos = tlb.getCiclos();
+    for (TabelaPaginas tabela : tabelas) {
+      ciclos += tabela.getReferenciasCaminhada() * latenciaMemoria;
+      if (tabela.getCachePaginacao() != null) {
+        ciclos += tabela.getCachePaginacao().getConsultas() * latenciaCachePaginacao;
+      }
+    }
+    ciclos += faltasPagina * latenciaFaltaPagina + ciclosSwap;
+    return ciclos;
+  }
+
+  /** @return tempo médio de acesso à memória (tradução + acesso ao dado), em ciclos. */
+  public double getAMAT(HierarquiaTLB tlb, TabelaPaginas... tabelas) {
+    long acessos = tlb.getTraducoes();
+    return acessos == 0 ? 0.0
+        : (double) getCiclosTraducao(tlb, tabelas) / acessos + latenciaMemoria;
+  }
+
+  /** Escreve os custos de caminhada, faltas, tradução e o AMAT. */
+  public void imprimeEstatisticas(java.io.PrintWriter out, HierarquiaTLB tlb,
+      TabelaPaginas... tabelas) {
+    long acessos = tlb.getTraducoes();
+    long caminhadas = 0;
+    long referencias = 0;
+    long consultasCache = 0;
+    long acertosCache = 0;
+    long niveisEvitados = 0;
+    boolean comCache = false;
+    for (TabelaPaginas tabela : tabelas) {
+      caminhadas += tabela.getCaminhadas();
+      referencias += tabela.getReferenciasCaminhada();
+      CachePaginacao cache = tabela.getCachePaginacao();
+      if (cache != null) {
+        comCache = true;
+        consultasCache += cache.getConsultas();
+        acertosCache += cache.getAcertos();
+        niveisEvitados += cache.getNiveisEvitados();
+      }
+    }
+    long ciclos = getCiclosTraducao(tlb, tabelas);
+    out.printf(Locale.ROOT, "NIVEIS_TABELA=%d CAMINHADAS=%d REFERENCIAS_CAMINHADA=%d"
+        + " REFERENCIAS_POR_CAMINHADA=%.3f%n", tabelas[0].getNiveis(), caminhadas,
+        referencias, caminhadas == 0 ? 0.0 : (double) referencias / caminhadas);
+    if (comCache) {
+      out.printf("CACHE_PAGINACAO CONSULTAS=%d ACERTOS=%d NIVEIS_EVITADOS=%d%n",
+          consultasCache, acertosCache, niveisEvitados);
+    }
+    out.printf("FALTAS_PAGINA=%d%n", faltasPagina);
+    out.printf(Locale.ROOT, "CICLOS_TRADUCAO=%d CICLOS_TRADUCAO_POR_ACESSO=%.3f%n", ciclos,
+        acessos == 0 ? 0.0 : (double) ciclos / acessos);
+    out.printf(Locale.ROOT, "AMAT=%.3f%n", getAMAT(tlb, tabelas));
+  }
+}
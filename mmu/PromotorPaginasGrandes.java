@@ -0,0 +1,108 @@
+package mmu;
+
+import config.Configuracao;
+import config.LayoutSegmentos;
+import memory.MemoriaFisica;
+import model.TipoSegmento;
+
+/**
+ * Política de promoção de regiões quentes de .data/.bss para páginas grandes.
+ *
+ * <p>
+ * O intervalo contíguo formado por .data e .bss é dividido em regiões do
+ * tamanho de uma página grande. Cada falta de TLB em uma região conta como um
+ * indício de pressão sobre o alcance da TLB; ao atingir o limiar configurado a
+ * região é promovida: as páginas base mapeadas são desmapeadas (liberando suas
+ * molduras e invalidando a TLB) e a região inteira passa a ser mapeada por uma
+ * página grande obtida da reserva de {@link MemoriaFisica}. Só regiões
+ * inteiramente contidas em .data/.bss são candidatas.
+ */
+public class PromotorPaginasGrandes {
+  private final TabelaPaginas tabela;
+  private final MemoriaFisica memoria;
+  private final HierarquiaTLB tlb;
+  private final int niveisAcimaDaFolha;
+  private final int bitsPaginaGrande;
+  private final int limiar;
+  private final int tamanhoPagina;
+  private final int bitsDeslocamento;
+
+  private final long primeiraRegiao;
+  private final int[] falhasPorRegiao;
+  private final boolean[] promovida;
+
+  private long promocoes;
+  private long paginasMigradas;
+  private long promocoesSemMoldura;
+
+  public PromotorPaginasGrandes(Configuracao config, LayoutSegmentos layout, TabelaPaginas tabela,
+      MemoriaFisica memoria, HierarquiaTLB tlb) {
+    this.tabela = tabela;
+    this.memoria = memoria;
+    this.tlb = tlb;
+    this.niveisAcimaDaFolha = config.getNivelPaginaGrande();
+    this.bitsPaginaGrande = tabela.getBitsPaginaGrande(niveisAcimaDaFolha);
+    this.limiar = config.getLimiarPromocaoGrande();
+    this.tamanhoPagina = config.getTamanhoPagina();
+    this.bitsDeslocamento = config.getBitsDeslocamentoPagina();
+
+    long bitsRegiao = bitsDeslocamento + bitsPaginaGrande;
+    long tamanhoRegiao = 1L << bitsRegiao;
+    this.primeiraRegiao = (layout.getInicioData() + tamanhoRegiao - 1) >>> bitsRegiao;
+    long ultimaRegiao = ((layout.getFimBss() + 1) >>> bitsRegiao) - 1;
+    int regioes = (int) Math.max(0, ultimaRegiao - primeiraRegiao + 1);
+    this.falhasPorRegiao = new int[regioes];
+    this.promovida = new boolean[regioes];
+  }
+
+  /**
+   * Deve ser chamado a cada falta em todas as TLBs, antes da caminhada.
+   * Pode promover a região da VPN para uma página grande.
+   */
+  public void registraFalhaTLB(long paginaVirtual, TipoSegmento segmento, long instante) {
+    if (segmento != TipoSegmento.DATA && segmento != TipoSegmento.BSS) {
+      return;
+    }
+    long regiao = (paginaVirtual >>> bitsPaginaGrande) - primeiraRegiao;
+    if (regiao < 0 || regiao >= falhasPorRegiao.length || promovida[(int) regiao]) {
+      return;
+    }
+    int r = (int) regiao;
+    if (++falhasPorRegiao[r] >= limiar) {
+      promove(r, instante);
+    }
+  }
+
+  private void promove(int regiao, long instante) {
+    int molduraBase = memoria.alocaMolduraGrande();
+    if (molduraBase == -1) {
+      promocoesSemMoldura++;
+      falhasPorRegiao[regiao] = 0;
+      return;
+    }
+    long primeiraPagina = (primeiraRegiao + regiao) << bitsPaginaGrande;
+    int paginas = 1 << bitsPaginaGrande;
+    for (int k = 0; k < paginas; k++) {
+      long vpn = primeiraPagina + k;
+      int moldura = tabela.consultaMoldura(vpn);
+      if (moldura != -1) {
+        tabela.desmapeiaPagina(vpn);
+        memoria.liberaMoldura(moldura);
+        tlb.invalidaEntrada(vpn);
+        paginasMigradas++;
+      }
+    }
+    tabela.mapeiaPaginaGrande(primeiraPagina, niveisAcimaDaFolha, molduraBase);
+    memoria.setaConteudoGrande(molduraBase, paginas, primeiraPagina << bitsDeslocamento,
+        tamanhoPagina, instante);
+    promovida[regiao] = true;
+    promocoes++;
+  }
+
+  /** Escreve quantas regiões foram promovidas e quantas páginas migraram. */
+  public void imprimeEstatisticas(java.io.PrintWriter out) {
+    out.printf("PAGINAS_GRANDES BITS_VPN=%d PROMOCOES=%d PAGINAS_MIGRADAS=%d"
+        + " PROMOCOES_SEM_MOLDURA=%d%n", bitsPaginaGrande, promocoes, paginasMigradas,
+        promocoesSemMoldura);
+  }
+}
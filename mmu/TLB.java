@@ -1,87 +1,430 @@
 package mmu;
 
+import util.ListasIntrusivas;
+import util.MapaLongInt;
+
 /**
- * Tradução simplificada de uma TLB associativa com política LRU.
+ * TLB com associatividade configurável e política LRU por conjunto.
+ *
+ * <p>
+ * As entradas são divididas em conjuntos de {@code vias} posições, escolhidos
+ * pelos bits inferiores da VPN: uma via por conjunto equivale ao mapeamento
+ * direto e um único conjunto à TLB totalmente associativa. Cada conjunto mantém
+ * sua própria ordem LRU em uma lista intrusiva e suas posições livres em outra.
+ *
+ * <p>
+ * As entradas ficam em vetores paralelos de tipos primitivos. Conjuntos
+ * pequenos são percorridos diretamente; conjuntos com mais de
+ * {@value #VIAS_MAXIMAS_VARREDURA} vias (como uma TLB grande totalmente
+ * associativa) usam um mapa VPN -> posição com endereçamento aberto, de modo
+ * que consulta, inserção e invalidação custam O(1).
+ *
+ * <p>
+ * Cada entrada guarda o próprio tamanho de página (em bits de VPN cobertos):
+ * entradas de páginas grandes são indexadas pela VPN deslocada desses bits e
+ * só são procuradas quando existe alguma na TLB.
+ *
+ * <p>
+ * Cada entrada também guarda o ASID do espaço de endereçamento que a criou.
+ * Consultas e inserções usam o ASID atual ({@link #setASID(int)}), de modo que
+ * traduções de vários processos convivem sem esvaziar a TLB a cada troca.
  */
 public class TLB {
-  private final EntradaTLB[] entradas;
+  /** A partir desta quantidade de vias a busca no conjunto passa a usar o mapa. */
+  static final int VIAS_MAXIMAS_VARREDURA = 16;
+
+  private final int capacidade;
+  private final int vias;
+  private final int numeroConjuntos;
+
+  /** VPN deslocada do tamanho da página (igual à VPN para páginas normais). */
+  private final long[] paginasVirtuais;
+  /** Moldura da primeira página base coberta pela entrada. */
+  private final int[] molduras;
+  private final byte[] bitsPagina;
+  private final int[] asids;
+  private final boolean[] validas;
+  private final long[] instantes;
+
+  /** Quantidade de entradas válidas de cada tamanho de página grande. */
+  private final int[] entradasPorTamanho = new int[64];
+  private int entradasGrandes;
+  private long paginasCobertas;
+
+  /** Listas 0..n-1: ordem LRU de cada conjunto; n..2n-1: posições livres. */
+  private final ListasIntrusivas listas;
+  private final MapaLongInt indice;
+
+  private long acertos;
+  private long acertosGrandes;
+  private long falhas;
+  private long paginaExpulsa = -1;
+  private int molduraExpulsa = -1;
+  private int bitsPaginaExpulsa;
+  private int bitsPaginaUltimoAcerto;
+  private int asidExpulso;
+  private int asidAtual;
 
   /**
-   * Instancia a TLB com a capacidade configurada preenchendo entradas inválidas.
+   * Instancia uma TLB totalmente associativa com a capacidade configurada.
    */
   public TLB(int capacidade) {
-    this.entradas = new EntradaTLB[capacidade];
+    this(capacidade, 0);
+  }
+
+  /**
+   * Instancia a TLB com a capacidade e a associatividade informadas.
+   *
+   * @param associatividade vias por conjunto: 1 para mapeamento direto, 0 (ou a
+   *                        própria capacidade) para totalmente associativa
+   */
+  public TLB(int capacidade, int associatividade) {
+    int viasEfetivas = associatividade <= 0 ? capacidade : associatividade;
+    if (capacidade <= 0 || viasEfetivas > capacidade || capacidade % viasEfetivas != 0) {
+      throw new IllegalArgumentException(
+          "Associatividade da TLB deve dividir a quantidade de entradas");
+    }
+    this.capacidade = capacidade;
+    this.vias = viasEfetivas;
+    this.numeroConjuntos = capacidade / viasEfetivas;
+
+    this.paginasVirtuais = new long[capacidade];
+    this.molduras = new int[capacidade];
+    this.bitsPagina = new byte[capacidade];
+    this.asids = new int[capacidade];
+    this.validas = new boolean[capacidade];
+    this.instantes = new long[capacidade];
+    this.listas = new ListasIntrusivas(capacidade, 2 * numeroConjuntos);
+    this.indice = vias > VIAS_MAXIMAS_VARREDURA ? new MapaLongInt(capacidade) : null;
+
     for (int i = 0; i < capacidade; i++) {
-      entradas[i] = new EntradaTLB();
+      molduras[i] = -1;
+      listas.insereFim(numeroConjuntos + conjunto(i), i);
     }
   }
 
+  /** Conjunto ao qual a posição pertence. */
+  private int conjunto(int posicao) {
+    return posicao / vias;
+  }
+
+  /** Conjunto em que a VPN deve ser procurada. */
+  private int conjuntoDaPagina(long paginaVirtual) {
+    return (int) Long.remainderUnsigned(paginaVirtual, numeroConjuntos);
+  }
+
+  /**
+   * Chave do mapa: etiqueta, tamanho da página e ASID juntos (o ASID 0 não
+   * altera a chave).
+   */
+  private static long chaveIndice(long etiqueta, int bits, int asid) {
+    return ((etiqueta << 6) | bits) ^ MapaLongInt.espalha(asid);
+  }
+
+  /** @return posição que contém a etiqueta com o tamanho e o ASID informados ou -1. */
+  private int procura(long etiqueta, int bits, int asid) {
+    if (indice != null) {
+      int pos = indice.obtem(chaveIndice(etiqueta, bits, asid));
+      return pos != -1 && paginasVirtuais[pos] == etiqueta && bitsPagina[pos] == bits
+          && asids[pos] == asid ? pos : -1;
+    }
+    int inicio = conjuntoDaPagina(etiqueta) * vias;
+    for (int i = inicio; i < inicio + vias; i++) {
+      if (validas[i] && paginasVirtuais[i] == etiqueta && bitsPagina[i] == bits
+          && asids[i] == asid) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** @return posição cuja entrada (de qualquer tamanho) cobre a VPN ou -1. */
+  private int procuraCobertura(long paginaVirtual, int asid) {
+    int pos = procura(paginaVirtual, 0, asid);
+    if (pos != -1 || entradasGrandes == 0) {
+      return pos;
+    }
+    for (int bits = 1; bits < entradasPorTamanho.length; bits++) {
+      if (entradasPorTamanho[bits] > 0) {
+        pos = procura(paginaVirtual >>> bits, bits, asid);
+        if (pos != -1) {
+          return pos;
+        }
+      }
+    }
+    return -1;
+  }
+
   /**
    * Procura a VPN infromada e, em caso de hit, atualiza o instante para LRU.
    *
    * @return moldura traduzida ou -1 em caso de miss.
    */
-  public int lookup(int paginaVirtual, long instanteAtual) {
-    for (EntradaTLB e : entradas) {
-      if (e.isValida() && e.getPaginaVirtual() == paginaVirtual) {
-        // Atualiza instante para comportamento LRU correto
-        e.setInstanteInsercao(instanteAtual);
-        return e.getMoldura();
-      }
+  public int lookup(long paginaVirtual, long instanteAtual) {
+    int pos = procuraCobertura(paginaVirtual, asidAtual);
+    if (pos == -1) {
+      falhas++;
+      return -1;
     }
-    return -1;
+    acertos++;
+    instantes[pos] = instanteAtual;
+    listas.insereInicio(conjunto(pos), pos);
+    int bits = bitsPagina[pos];
+    bitsPaginaUltimoAcerto = bits;
+    if (bits == 0) {
+      return molduras[pos];
+    }
+    acertosGrandes++;
+    return molduras[pos] + (int) (paginaVirtual & ((1L << bits) - 1));
   }
 
   /**
-   * Insere uma nova entrada ou atualiza a existente. Caso não haja vaga livre,
-   * substitui a entrada mais antiga (menor instante).
+   * Contabiliza {@code vezes} acertos seguidos na entrada que cobre a VPN, que
+   * precisa ser a usada mais recentemente no conjunto (como logo após uma
+   * consulta ou inserção da mesma VPN).
+   *
+   * @throws IllegalStateException se a VPN não está na TLB
    */
-  public void insereOuAtualiza(int paginaVirtual, int moldura, long instanteAtual) {
-    // já existe?
-    for (EntradaTLB e : entradas) {
-      if (e.isValida() && e.getPaginaVirtual() == paginaVirtual) {
-        e.setMoldura(moldura);
-        e.setInstanteInsercao(instanteAtual);
-        return;
+  public void registraAcertosRepetidos(long paginaVirtual, long vezes, long instanteAtual) {
+    int pos = procuraCobertura(paginaVirtual, asidAtual);
+    if (pos == -1) {
+      throw new IllegalStateException("VPN " + paginaVirtual + " não está na TLB");
+    }
+    acertos += vezes;
+    instantes[pos] = instanteAtual;
+    int bits = bitsPagina[pos];
+    bitsPaginaUltimoAcerto = bits;
+    if (bits > 0) {
+      acertosGrandes += vezes;
+    }
+  }
+
+  /**
+   * Insere uma nova entrada ou atualiza a existente. Caso não haja vaga livre
+   * no conjunto, substitui a entrada usada há mais tempo nele; a tradução
+   * descartada fica disponível em {@link #getPaginaExpulsa()}.
+   */
+  public void insereOuAtualiza(long paginaVirtual, int moldura, long instanteAtual) {
+    insereOuAtualiza(paginaVirtual, moldura, 0, instanteAtual);
+  }
+
+  /**
+   * Igual a {@link #insereOuAtualiza(long, int, long)} para uma página que cobre
+   * {@code 2^bits} páginas base.
+   *
+   * @param paginaVirtual qualquer VPN coberta pela página
+   * @param moldura       moldura correspondente a essa VPN
+   */
+  public void insereOuAtualiza(long paginaVirtual, int moldura, int bits, long instanteAtual) {
+    insereOuAtualiza(paginaVirtual, moldura, bits, asidAtual, instanteAtual);
+  }
+
+  /**
+   * Igual a {@link #insereOuAtualiza(long, int, int, long)} para o ASID
+   * informado em vez do atual (usado ao mover vítimas entre níveis).
+   */
+  public void insereOuAtualiza(long paginaVirtual, int moldura, int bits, int asid,
+      long instanteAtual) {
+    paginaExpulsa = -1;
+    molduraExpulsa = -1;
+    bitsPaginaExpulsa = 0;
+    asidExpulso = 0;
+    long etiqueta = paginaVirtual >>> bits;
+    int molduraBase = moldura - (int) (paginaVirtual & ((1L << bits) - 1));
+    int pos = procura(etiqueta, bits, asid);
+    if (pos == -1) {
+      int conj = conjuntoDaPagina(etiqueta);
+      pos = listas.primeiro(numeroConjuntos + conj);
+      if (pos == -1) {
+        pos = listas.ultimo(conj);
+        bitsPaginaExpulsa = bitsPagina[pos];
+        paginaExpulsa = paginasVirtuais[pos] << bitsPaginaExpulsa;
+        molduraExpulsa = molduras[pos];
+        asidExpulso = asids[pos];
+        descartaPosicao(pos);
+      }
+      paginasVirtuais[pos] = etiqueta;
+      bitsPagina[pos] = (byte) bits;
+      asids[pos] = asid;
+      validas[pos] = true;
+      contabilizaTamanho(bits, 1);
+      if (indice != null) {
+        indice.insere(chaveIndice(etiqueta, bits, asid), pos);
       }
     }
+    molduras[pos] = molduraBase;
+    instantes[pos] = instanteAtual;
+    listas.insereInicio(conjunto(pos), pos);
+  }
 
-    // vaga livre?
-    for (EntradaTLB e : entradas) {
-      if (!e.isValida()) {
-        e.setPaginaVirtual(paginaVirtual);
-        e.setMoldura(moldura);
-        e.setValida(true);
-        e.setInstanteInsercao(instanteAtual);
-        return;
+  private void contabilizaTamanho(int bits, int delta) {
+    paginasCobertas += delta * (1L << bits);
+    if (bits > 0) {
+      entradasPorTamanho[bits] += delta;
+      entradasGrandes += delta;
+    }
+  }
+
+  /**
+   * Invalida as entradas do ASID atual que cobrem a VPN informada (usado em
+   * substituições), inclusive páginas grandes.
+   */
+  public void invalidaEntrada(long paginaVirtual) {
+    invalidaEntrada(paginaVirtual, asidAtual);
+  }
+
+  /** Invalida as entradas do ASID informado que cobrem a VPN. */
+  public void invalidaEntrada(long paginaVirtual, int asid) {
+    int pos;
+    while ((pos = procuraCobertura(paginaVirtual, asid)) != -1) {
+      invalidaPosicao(pos);
+    }
+  }
+
+  /** Invalida todas as entradas do ASID informado (reutilização do ASID). */
+  public void invalidaASID(int asid) {
+    for (int i = 0; i < capacidade; i++) {
+      if (validas[i] && asids[i] == asid) {
+        invalidaPosicao(i);
       }
     }
+  }
+
+  /** Define o ASID usado nas próximas consultas e inserções. */
+  public void setASID(int asid) {
+    this.asidAtual = asid;
+  }
 
-    // substitui mais antiga
-    EntradaTLB maisAntiga = entradas[0];
-    for (EntradaTLB e : entradas) {
-      if (e.getInstanteInsercao() < maisAntiga.getInstanteInsercao()) {
-        maisAntiga = e;
+  /** @return ASID usado nas consultas e inserções. */
+  public int getASID() {
+    return asidAtual;
+  }
+
+  /** Invalida todas as entradas. */
+  public void invalidaTudo() {
+    for (int i = 0; i < capacidade; i++) {
+      if (validas[i]) {
+        invalidaPosicao(i);
       }
     }
-    maisAntiga.setPaginaVirtual(paginaVirtual);
-    maisAntiga.setMoldura(moldura);
-    maisAntiga.setInstanteInsercao(instanteAtual);
-    maisAntiga.setValida(true);
   }
 
-  /** Invalida a entrada referente à VPN informada (usado em substituições). */
-  public void invalidaEntrada(int paginaVirtual) {
-    for (EntradaTLB e : entradas) {
-      if (e.isValida() && e.getPaginaVirtual() == paginaVirtual) {
-        e.setValida(false);
-        e.setMoldura(-1);
-        return;
+  private void invalidaPosicao(int pos) {
+    descartaPosicao(pos);
+    validas[pos] = false;
+    molduras[pos] = -1;
+    listas.insereFim(numeroConjuntos + conjunto(pos), pos);
+  }
+
+  /** Retira a entrada válida do índice e dos contadores de tamanho. */
+  private void descartaPosicao(int pos) {
+    if (!validas[pos]) {
+      return;
+    }
+    if (indice != null) {
+      indice.remove(chaveIndice(paginasVirtuais[pos], bitsPagina[pos], asids[pos]));
+    }
+    contabilizaTamanho(bitsPagina[pos], -1);
+  }
+
+  /**
+   * @return VPN descartada pela última chamada a {@link #insereOuAtualiza} ou -1
+   *         se nenhuma entrada válida foi substituída.
+   */
+  public long getPaginaExpulsa() {
+    return paginaExpulsa;
+  }
+
+  /** @return moldura da tradução descartada pela última inserção ou -1. */
+  public int getMolduraExpulsa() {
+    return molduraExpulsa;
+  }
+
+  /** @return tamanho (bits de VPN) da tradução descartada pela última inserção. */
+  public int getBitsPaginaExpulsa() {
+    return bitsPaginaExpulsa;
+  }
+
+  /** @return ASID da tradução descartada pela última inserção. */
+  public int getASIDExpulso() {
+    return asidExpulso;
+  }
+
+  /** @return tamanho (bits de VPN) da entrada encontrada no último acerto. */
+  public int getBitsPaginaUltimoAcerto() {
+    return bitsPaginaUltimoAcerto;
+  }
+
+  /** @return acertos em entradas de páginas grandes. */
+  public long getAcertosGrandes() {
+    return acertosGrandes;
+  }
+
+  /** @return páginas base cobertas pelas entradas válidas (alcance da TLB). */
+  public long getPaginasCobertas() {
+    return paginasCobertas;
+  }
+
+  /** @return consultas que encontraram a VPN. */
+  public long getAcertos() {
+    return acertos;
+  }
+
+  /** @return consultas que não encontraram a VPN. */
+  public long getFalhas() {
+    return falhas;
+  }
+
+  /** @return quantidade total de entradas. */
+  public int getCapacidade() {
+    return capacidade;
+  }
+
+  /** @return vias por conjunto. */
+  public int getVias() {
+    return vias;
+  }
+
+  /** Recebe as entradas visitadas por {@link TLB#paraCadaEntrada}. */
+  public interface VisitanteEntrada {
+    void visita(long paginaVirtual, int moldura, int bits, int asid, long instante);
+  }
+
+  /**
+   * Percorre as entradas válidas de cada conjunto, da usada há mais tempo à
+   * mais recente, com a VPN e a moldura da primeira página base coberta.
+   * Reinseri-las nessa ordem com
+   * {@link #insereOuAtualiza(long, int, int, int, long)} reconstrói a ordem LRU
+   * de cada conjunto.
+   */
+  public void paraCadaEntrada(VisitanteEntrada visitante) {
+    int[] ordem = new int[vias];
+    for (int c = 0; c < numeroConjuntos; c++) {
+      int n = 0;
+      for (int pos = listas.primeiro(c); pos != -1; pos = listas.seguinte(pos)) {
+        ordem[n++] = pos;
+      }
+      while (n > 0) {
+        int pos = ordem[--n];
+        visitante.visita(paginasVirtuais[pos] << bitsPagina[pos], molduras[pos],
+            bitsPagina[pos], asids[pos], instantes[pos]);
       }
     }
   }
 
+  /** @return cópia das entradas no formato de objetos, para inspeção. */
   public EntradaTLB[] getEntradas() {
+    EntradaTLB[] entradas = new EntradaTLB[capacidade];
+    for (int i = 0; i < capacidade; i++) {
+      EntradaTLB e = new EntradaTLB();
+      e.setPaginaVirtual(paginasVirtuais[i] << bitsPagina[i]);
+      e.setMoldura(molduras[i]);
+      e.setBitsPagina(bitsPagina[i]);
+      e.setAsid(asids[i]);
+      e.setValida(validas[i]);
+      e.setInstanteInsercao(instantes[i]);
+      entradas[i] = e;
+    }
     return entradas;
   }
 }
@@ -1,24 +1,99 @@
 package mmu;
 
 import config.Configuracao;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
- * Implementa uma tabela de páginas genérica com 1 a 3 níveis, dividindo os bits
- * da VPN igualmente entre os níveis e armazenando folhas com
- * EntradaTabelaPagina.
+ * Implementa uma tabela de páginas esparsa com 1 a 4 níveis, dividindo os bits
+ * da VPN igualmente entre os níveis.
+ *
+ * <p>
+ * Os níveis intermediários e as folhas só são alocados quando alguma VPN do
+ * intervalo correspondente é mapeada pela primeira vez, de modo que o consumo
+ * de memória acompanha o conjunto de páginas efetivamente tocado (e não o
+ * tamanho do espaço virtual). As folhas guardam as entradas compactadas em
+ * vetores de {@code long} (ver {@link EntradaTabelaPagina#compacta}).
+ *
+ * <p>
+ * A tabela não guarda o sentido inverso (moldura -> VPN): o conteúdo de cada
+ * moldura já fica em {@link memory.MemoriaFisica}, uma única vez para todos os
+ * processos, e a memória da tabela cresce só com as páginas mapeadas.
+ *
+ * <p>
+ * Um nível intermediário também pode apontar diretamente para uma página
+ * grande (como as páginas de 2 MB e 1 GB do x86-64), que cobre todas as VPNs
+ * abaixo dele e encerra a caminhada mais cedo.
+ *
+ * <p>
+ * {@link #fork()} cria a tabela do processo filho copiando só os níveis
+ * intermediários: as folhas passam a ser compartilhadas pelas duas tabelas e
+ * cada uma copia a folha na primeira vez em que precisa alterá-la. As páginas
+ * mapeadas no fork ficam marcadas com o bit de copy-on-write.
  */
 public class TabelaPaginas {
+  /** Maior quantidade de bits que um único nível pode indexar. */
+  private static final int MAXIMO_BITS_POR_NIVEL = 30;
+
+  /** Acima deste número de VPNs o relatório lista apenas entradas válidas. */
+  private static final int BITS_MAXIMOS_IMPRESSAO_COMPLETA = 20;
+
   private final int niveis;
   private final int bitsVPN;
   private final int[] bitsPorNivel;
-  private final Object raiz;
+  private final int[] deslocamentoPorNivel;
+  private Object raiz;
+  private long nosAlocados;
+
+  /**
+   * Folhas compartilhadas com outras tabelas desde um fork, cada uma com a
+   * quantidade de tabelas que ainda apontam para ela (o mesmo contador em
+   * todas essas tabelas).
+   */
+  private final Map<long[], int[]> folhasCompartilhadas = new IdentityHashMap<>();
+  private long folhasCopiadas;
+
+  private CachePaginacao cachePaginacao;
+  private long caminhadas;
+  private long referenciasCaminhada;
+  private int bitsPaginaUltimaCaminhada;
+
+  /** Entrada de nível intermediário que mapeia uma página grande. */
+  static final class MapeamentoGrande {
+    final int molduraBase;
+    final int bitsPagina;
+
+    MapeamentoGrande(int molduraBase, int bitsPagina) {
+      this.molduraBase = molduraBase;
+      this.bitsPagina = bitsPagina;
+    }
 
-  /** Constrói toda a hierarquia da tabela de páginas conforme a configuração. */
+    int moldura(long paginaVirtual) {
+      return molduraBase + (int) (paginaVirtual & ((1L << bitsPagina) - 1));
+    }
+  }
+
+  /** Prepara a geometria da tabela; nenhum nível é alocado até o primeiro mapeamento. */
   public TabelaPaginas(Configuracao config) {
     this.niveis = config.getNiveisTabelaPaginas();
-    this.bitsVPN = config.getBitsEnderecoVirtual() - config.getBitsDeslocamentoPagina();
+    this.bitsVPN = config.getBitsPaginaVirtual();
     this.bitsPorNivel = calculaBitsPorNivel();
-    this.raiz = criaNivel(0);
+    this.deslocamentoPorNivel = calculaDeslocamentos();
+    for (int bits : bitsPorNivel) {
+      if (bits > MAXIMO_BITS_POR_NIVEL) {
+        throw new IllegalArgumentException(
+            "Cada nível da tabela de páginas indexa no máximo 2^" + MAXIMO_BITS_POR_NIVEL
+                + " entradas; aumente a quantidade de níveis");
+      }
+    }
+  }
+
+  /** Tabela do filho em um fork: mesma geometria, sem caminhadas contabilizadas. */
+  private TabelaPaginas(TabelaPaginas pai) {
+    this.niveis = pai.niveis;
+    this.bitsVPN = pai.bitsVPN;
+    this.bitsPorNivel = pai.bitsPorNivel;
+    this.deslocamentoPorNivel = pai.deslocamentoPorNivel;
   }
 
   /**
@@ -35,101 +110,451 @@ public class TabelaPaginas {
     return bits;
   }
 
-  /** Recursivamente instancia a estrutura de níveis até chegar nas folhas. */
-  private Object criaNivel(int nivel) {
+  /** Calcula quantos bits a VPN deve ser deslocada para obter o índice de cada nível. */
+  private int[] calculaDeslocamentos() {
+    int[] deslocamentos = new int[niveis];
+    int shift = bitsVPN;
+    for (int i = 0; i < niveis; i++) {
+      shift -= bitsPorNivel[i];
+      deslocamentos[i] = shift;
+    }
+    return deslocamentos;
+  }
+
+  /** Índice da VPN dentro do nível informado (similar ao hardware real). */
+  private int indice(long paginaVirtual, int nivel) {
+    long mascara = (1L << bitsPorNivel[nivel]) - 1;
+    return (int) ((paginaVirtual >>> deslocamentoPorNivel[nivel]) & mascara);
+  }
+
+  /** Instancia um nó vazio do nível informado. */
+  private Object criaNo(int nivel) {
+    nosAlocados++;
     int tamanho = 1 << bitsPorNivel[nivel];
     if (nivel == niveis - 1) {
-      EntradaTabelaPagina[] folhas = new EntradaTabelaPagina[tamanho];
-      for (int i = 0; i < tamanho; i++) {
-        folhas[i] = new EntradaTabelaPagina();
+      return new long[tamanho];
+    }
+    return new Object[tamanho];
+  }
+
+  /**
+   * Percorre a hierarquia e retorna a folha que contém a VPN fornecida.
+   *
+   * @param cria quando verdadeiro, aloca os nós ausentes no caminho
+   * @return folha correspondente ou null se o caminho ainda não existe
+   * @throws IllegalStateException se {@code cria} e a VPN pertence a uma página grande
+   */
+  private long[] acessarFolha(long paginaVirtual, boolean cria) {
+    if (raiz == null) {
+      if (!cria) {
+        return null;
       }
-      return folhas;
+      raiz = criaNo(0);
     }
-    Object[] proximoNivel = new Object[tamanho];
-    for (int i = 0; i < tamanho; i++) {
-      proximoNivel[i] = criaNivel(nivel + 1);
+    Object atual = raiz;
+    for (int i = 0; i < niveis - 1; i++) {
+      Object[] no = (Object[]) atual;
+      int idx = indice(paginaVirtual, i);
+      if (no[idx] instanceof MapeamentoGrande) {
+        if (cria) {
+          throw new IllegalStateException(
+              "VPN " + paginaVirtual + " já pertence a uma página grande");
+        }
+        return null;
+      }
+      if (no[idx] == null) {
+        if (!cria) {
+          return null;
+        }
+        no[idx] = criaNo(i + 1);
+      }
+      atual = no[idx];
     }
-    return proximoNivel;
+    return (long[]) atual;
   }
 
   /**
-   * Decompõe uma VPN nos índices de cada nível (similar ao hardware real).
+   * Igual a {@link #acessarFolha} para quem vai alterar a folha: se ela ainda
+   * é compartilhada com outra tabela, esta passa a usar uma cópia.
    */
-  private int[] extraiIndices(int paginaVirtual) {
-    int[] indices = new int[niveis];
-    int shift = bitsVPN;
-    for (int i = 0; i < niveis; i++) {
-      shift -= bitsPorNivel[i];
-      int mascara = (1 << bitsPorNivel[i]) - 1;
-      indices[i] = (paginaVirtual >> shift) & mascara;
+  private long[] folhaParaEscrita(long paginaVirtual, boolean cria) {
+    long[] folha = acessarFolha(paginaVirtual, cria);
+    if (folha == null || folhasCompartilhadas.isEmpty()) {
+      return folha;
+    }
+    int[] referencias = folhasCompartilhadas.remove(folha);
+    if (referencias == null || referencias[0] == 1) {
+      // as demais tabelas já copiaram a folha
+      return folha;
+    }
+    referencias[0]--;
+    long[] copia = folha.clone();
+    if (niveis == 1) {
+      raiz = copia;
+    } else {
+      Object atual = raiz;
+      for (int i = 0; i < niveis - 2; i++) {
+        atual = ((Object[]) atual)[indice(paginaVirtual, i)];
+      }
+      ((Object[]) atual)[indice(paginaVirtual, niveis - 2)] = copia;
+    }
+    if (cachePaginacao != null) {
+      // a cache pode guardar a folha antiga
+      cachePaginacao.invalidaTudo();
+    }
+    nosAlocados++;
+    folhasCopiadas++;
+    return copia;
+  }
+
+  /**
+   * Prepara o fork do processo dono desta tabela: marca as páginas mapeadas
+   * como copy-on-write e devolve a tabela do filho, que compartilha as folhas
+   * desta.
+   *
+   * @throws IllegalStateException se há páginas grandes mapeadas
+   */
+  public TabelaPaginas fork() {
+    TabelaPaginas filho = new TabelaPaginas(this);
+    if (raiz != null) {
+      filho.raiz = clonaParaFork(raiz, 0, filho);
+    }
+    return filho;
+  }
+
+  private Object clonaParaFork(Object no, int nivel, TabelaPaginas filho) {
+    if (nivel == niveis - 1) {
+      long[] folha = (long[]) no;
+      int[] referencias = folhasCompartilhadas.get(folha);
+      if (referencias == null) {
+        // folha própria: as entradas compartilhadas de uma folha que ainda é de
+        // outra tabela já foram marcadas no fork anterior
+        for (int i = 0; i < folha.length; i++) {
+          if (EntradaTabelaPagina.isValida(folha[i])) {
+            folha[i] |= EntradaTabelaPagina.BIT_COPIA_NA_ESCRITA;
+          }
+        }
+        referencias = new int[] {1};
+        folhasCompartilhadas.put(folha, referencias);
+      }
+      referencias[0]++;
+      filho.folhasCompartilhadas.put(folha, referencias);
+      return folha;
+    }
+    Object[] filhos = (Object[]) no;
+    Object[] copia = new Object[filhos.length];
+    filho.nosAlocados++;
+    for (int i = 0; i < filhos.length; i++) {
+      if (filhos[i] instanceof MapeamentoGrande) {
+        throw new IllegalStateException("fork não disponível com páginas grandes mapeadas");
+      }
+      if (filhos[i] != null) {
+        copia[i] = clonaParaFork(filhos[i], nivel + 1, filho);
+      }
+    }
+    return copia;
+  }
+
+  /** @return true se a página está mapeada com o bit de copy-on-write ligado. */
+  public boolean isCopiaNaEscrita(long paginaVirtual) {
+    return EntradaTabelaPagina.isCopiaNaEscrita(leEntrada(paginaVirtual));
+  }
+
+  /**
+   * Desliga o bit de copy-on-write de uma página que deixou de ser
+   * compartilhada, liberando a escrita sem cópia.
+   */
+  public void liberaEscrita(long paginaVirtual) {
+    long[] folha = folhaParaEscrita(paginaVirtual, false);
+    if (folha != null) {
+      folha[indice(paginaVirtual, niveis - 1)] &= ~EntradaTabelaPagina.BIT_COPIA_NA_ESCRITA;
     }
-    return indices;
   }
 
-  /** Percorre a hierarquia e retorna a folha referente à VPN fornecida. */
-  private EntradaTabelaPagina acessarEntrada(int paginaVirtual) {
-    int[] indices = extraiIndices(paginaVirtual);
+  /** @return folhas copiadas por terem sido alteradas enquanto compartilhadas. */
+  public long getFolhasCopiadas() {
+    return folhasCopiadas;
+  }
+
+  /** @return página grande que cobre a VPN ou null. */
+  private MapeamentoGrande procuraGrande(long paginaVirtual) {
     Object atual = raiz;
-    for (int i = 0; i < niveis - 1; i++) {
-      atual = ((Object[]) atual)[indices[i]];
+    for (int i = 0; i < niveis - 1 && atual != null; i++) {
+      atual = ((Object[]) atual)[indice(paginaVirtual, i)];
+      if (atual instanceof MapeamentoGrande) {
+        return (MapeamentoGrande) atual;
+      }
     }
-    EntradaTabelaPagina[] folhas = (EntradaTabelaPagina[]) atual;
-    return folhas[indices[niveis - 1]];
+    return null;
   }
 
-  /** API pública para obter a entrada completa de uma VPN. */
-  public EntradaTabelaPagina getEntrada(int paginaVirtual) {
-    return acessarEntrada(paginaVirtual);
+  /** Lê a entrada compactada da VPN (0 quando o caminho não existe). */
+  private long leEntrada(long paginaVirtual) {
+    long[] folha = acessarFolha(paginaVirtual, false);
+    if (folha == null) {
+      MapeamentoGrande grande = procuraGrande(paginaVirtual);
+      return grande == null ? 0
+          : EntradaTabelaPagina.compacta(grande.moldura(paginaVirtual),
+              EntradaTabelaPagina.BIT_VALIDA);
+    }
+    return folha[indice(paginaVirtual, niveis - 1)];
+  }
+
+  /** API pública para obter uma cópia da entrada de uma VPN. */
+  public EntradaTabelaPagina getEntrada(long paginaVirtual) {
+    return new EntradaTabelaPagina(leEntrada(paginaVirtual));
   }
 
   /**
+   * Caminhada de hardware após uma falta na TLB. Cada nível lido conta como
+   * uma referência à memória; com a cache de paginação ativa, os níveis
+   * superiores já presentes nela são pulados.
+   *
    * @return moldura física caso a VPN esteja mapeada ou -1 caso contrário.
    */
-  public int obtemMoldura(int paginaVirtual) {
-    EntradaTabelaPagina e = getEntrada(paginaVirtual);
-    if (e.isValida()) {
-      return e.getMoldura();
+  public int obtemMoldura(long paginaVirtual) {
+    caminhadas++;
+    bitsPaginaUltimaCaminhada = 0;
+    Object no = raiz;
+    int nivel = 0;
+    if (cachePaginacao != null) {
+      for (int i = niveis - 2; i >= 0; i--) {
+        Object filho = cachePaginacao.consulta(i, paginaVirtual >>> deslocamentoPorNivel[i]);
+        if (filho != null) {
+          no = filho;
+          nivel = i + 1;
+          break;
+        }
+      }
+      cachePaginacao.registraConsulta(nivel);
+    }
+    if (no == null) {
+      // raiz ainda não alocada: a leitura da entrada de nível 0 encontra um vazio
+      referenciasCaminhada++;
+      return -1;
+    }
+    for (; nivel < niveis - 1; nivel++) {
+      referenciasCaminhada++;
+      Object filho = ((Object[]) no)[indice(paginaVirtual, nivel)];
+      if (filho == null) {
+        return -1;
+      }
+      if (filho instanceof MapeamentoGrande) {
+        MapeamentoGrande grande = (MapeamentoGrande) filho;
+        bitsPaginaUltimaCaminhada = grande.bitsPagina;
+        return grande.moldura(paginaVirtual);
+      }
+      if (cachePaginacao != null) {
+        cachePaginacao.insere(nivel, paginaVirtual >>> deslocamentoPorNivel[nivel], filho);
+      }
+      no = filho;
+    }
+    referenciasCaminhada++;
+    long e = ((long[]) no)[indice(paginaVirtual, niveis - 1)];
+    if (EntradaTabelaPagina.isValida(e)) {
+      return EntradaTabelaPagina.moldura(e);
     }
     return -1;
   }
 
-  /** Grava um novo mapeamento VPN -> moldura. */
-  public void mapeiaPagina(int paginaVirtual, int moldura) {
-    EntradaTabelaPagina e = getEntrada(paginaVirtual);
-    e.setMoldura(moldura);
-    e.setValida(true);
+  /**
+   * Consulta o mapeamento atual sem simular uma caminhada de hardware (não
+   * conta referências nem usa a cache de paginação).
+   *
+   * @return moldura física caso a VPN esteja mapeada ou -1 caso contrário.
+   */
+  public int consultaMoldura(long paginaVirtual) {
+    long e = leEntrada(paginaVirtual);
+    return EntradaTabelaPagina.isValida(e) ? EntradaTabelaPagina.moldura(e) : -1;
+  }
+
+  /**
+   * @return bits de VPN cobertos pela página encontrada na última caminhada
+   *         (0 para páginas normais).
+   */
+  public int getBitsPaginaUltimaCaminhada() {
+    return bitsPaginaUltimaCaminhada;
+  }
+
+  /**
+   * @return bits de VPN cobertos por uma página grande mapeada
+   *         {@code niveisAcimaDaFolha} níveis acima das folhas.
+   */
+  public int getBitsPaginaGrande(int niveisAcimaDaFolha) {
+    if (niveisAcimaDaFolha < 1 || niveisAcimaDaFolha >= niveis) {
+      throw new IllegalArgumentException("Página grande exige um nível intermediário válido");
+    }
+    return deslocamentoPorNivel[niveis - 1 - niveisAcimaDaFolha];
+  }
+
+  /**
+   * Mapeia uma página grande em um nível intermediário. Todas as VPNs cobertas
+   * devem estar desmapeadas; o nó que existia naquela posição é descartado.
+   *
+   * @param paginaVirtual      qualquer VPN da página grande
+   * @param niveisAcimaDaFolha 1 para o equivalente a 2 MB, 2 para 1 GB etc.
+   * @param molduraBase        primeira de um bloco contíguo e alinhado de molduras
+   */
+  public void mapeiaPaginaGrande(long paginaVirtual, int niveisAcimaDaFolha, int molduraBase) {
+    int nivel = niveis - 1 - niveisAcimaDaFolha;
+    int bits = getBitsPaginaGrande(niveisAcimaDaFolha);
+    if (raiz == null) {
+      raiz = criaNo(0);
+    }
+    Object atual = raiz;
+    for (int i = 0; i < nivel; i++) {
+      Object[] no = (Object[]) atual;
+      int idx = indice(paginaVirtual, i);
+      if (no[idx] == null) {
+        no[idx] = criaNo(i + 1);
+      } else if (no[idx] instanceof MapeamentoGrande) {
+        throw new IllegalStateException("Região já pertence a uma página grande maior");
+      }
+      atual = no[idx];
+    }
+    ((Object[]) atual)[indice(paginaVirtual, nivel)] = new MapeamentoGrande(molduraBase, bits);
+    if (cachePaginacao != null) {
+      // o nó substituído pode estar referenciado na cache
+      cachePaginacao.invalidaTudo();
+    }
+  }
+
+  /** Ativa (ou desativa, com null) a cache de estruturas de paginação. */
+  public void setCachePaginacao(CachePaginacao cachePaginacao) {
+    if (cachePaginacao != null && cachePaginacao.getNiveis() != niveis - 1) {
+      throw new IllegalArgumentException(
+          "Cache de paginação deve cobrir os " + (niveis - 1) + " níveis intermediários");
+    }
+    this.cachePaginacao = cachePaginacao;
+  }
+
+  /** @return cache de paginação em uso ou null. */
+  public CachePaginacao getCachePaginacao() {
+    return cachePaginacao;
+  }
+
+  /** @return caminhadas feitas por {@link #obtemMoldura}. */
+  public long getCaminhadas() {
+    return caminhadas;
+  }
+
+  /** @return referências à memória feitas durante as caminhadas. */
+  public long getReferenciasCaminhada() {
+    return referenciasCaminhada;
+  }
+
+  /** @return quantidade de níveis da tabela. */
+  public int getNiveis() {
+    return niveis;
+  }
+
+  /**
+   * Grava um novo mapeamento VPN -> moldura, alocando o caminho se necessário.
+   */
+  public void mapeiaPagina(long paginaVirtual, int moldura) {
+    long[] folha = folhaParaEscrita(paginaVirtual, true);
+    folha[indice(paginaVirtual, niveis - 1)] =
+        EntradaTabelaPagina.compacta(moldura, EntradaTabelaPagina.BIT_VALIDA);
   }
 
   /** Invalida uma entrada previamente mapeada. */
-  public void desmapeiaPagina(int paginaVirtual) {
-    EntradaTabelaPagina e = getEntrada(paginaVirtual);
-    e.setValida(false);
-    e.setMoldura(-1);
+  public void desmapeiaPagina(long paginaVirtual) {
+    long[] folha = folhaParaEscrita(paginaVirtual, false);
+    if (folha == null) {
+      return;
+    }
+    folha[indice(paginaVirtual, niveis - 1)] = 0;
   }
 
   /**
-   * Procura qual VPN ocupa determinada moldura, útil para substituição.
+   * Liga ou desliga o bit de sujeira de uma página base mapeada (páginas
+   * grandes não têm o bit).
    */
-  public int encontraPaginaPorMoldura(int moldura) {
-    int total = getNumeroPaginas();
-    for (int vpn = 0; vpn < total; vpn++) {
-      EntradaTabelaPagina e = getEntrada(vpn);
-      if (e.isValida() && e.getMoldura() == moldura) {
-        return vpn;
+  public void setSuja(long paginaVirtual, boolean suja) {
+    long[] folha = folhaParaEscrita(paginaVirtual, false);
+    if (folha == null) {
+      return;
+    }
+    int idx = indice(paginaVirtual, niveis - 1);
+    if (EntradaTabelaPagina.isValida(folha[idx])) {
+      folha[idx] = suja ? folha[idx] | EntradaTabelaPagina.BIT_SUJA
+          : folha[idx] & ~EntradaTabelaPagina.BIT_SUJA;
+    }
+  }
+
+  /** @return true se a página está mapeada com o bit de sujeira ligado. */
+  public boolean isSuja(long paginaVirtual) {
+    return EntradaTabelaPagina.isSuja(leEntrada(paginaVirtual));
+  }
+
+  /** Visitante usado para percorrer somente os mapeamentos válidos. */
+  @FunctionalInterface
+  public interface VisitanteMapeamento {
+    void visita(long paginaVirtual, int moldura);
+  }
+
+  /** Percorre, em ordem crescente de VPN, todas as entradas válidas já alocadas. */
+  public void paraCadaMapeamento(VisitanteMapeamento visitante) {
+    if (raiz != null) {
+      percorre(raiz, 0, 0, visitante);
+    }
+  }
+
+  private void percorre(Object no, int nivel, long prefixo, VisitanteMapeamento visitante) {
+    if (nivel == niveis - 1) {
+      long[] folha = (long[]) no;
+      for (int i = 0; i < folha.length; i++) {
+        if (EntradaTabelaPagina.isValida(folha[i])) {
+          long vpn = (prefixo << bitsPorNivel[nivel]) | i;
+          visitante.visita(vpn, EntradaTabelaPagina.moldura(folha[i]));
+        }
+      }
+      return;
+    }
+    Object[] filhos = (Object[]) no;
+    for (int i = 0; i < filhos.length; i++) {
+      if (filhos[i] instanceof MapeamentoGrande) {
+        MapeamentoGrande grande = (MapeamentoGrande) filhos[i];
+        long primeira = ((prefixo << bitsPorNivel[nivel]) | i) << grande.bitsPagina;
+        for (int k = 0; k < (1 << grande.bitsPagina); k++) {
+          visitante.visita(primeira + k, grande.molduraBase + k);
+        }
+      } else if (filhos[i] != null) {
+        percorre(filhos[i], nivel + 1, (prefixo << bitsPorNivel[nivel]) | i, visitante);
       }
     }
-    return -1;
   }
 
   /** @return total de páginas virtuais possíveis. */
-  public int getNumeroPaginas() {
-    return 1 << bitsVPN;
+  public long getNumeroPaginas() {
+    return 1L << bitsVPN;
   }
 
-  /** Imprime todas as entradas (útil para depuração/relatório final). */
+  /** @return quantidade de nós (intermediários e folhas) alocados até agora. */
+  public long getNosAlocados() {
+    return nosAlocados;
+  }
+
+  /**
+   * @return true se o espaço virtual é pequeno o bastante para o relatório
+   *         listar também as entradas inválidas.
+   */
+  public boolean isListagemCompleta() {
+    return bitsVPN <= BITS_MAXIMOS_IMPRESSAO_COMPLETA;
+  }
+
+  /**
+   * Imprime as entradas (útil para depuração/relatório final). Espaços pequenos
+   * são listados por completo; nos demais apenas as entradas válidas aparecem.
+   */
   public void imprimirTabela(java.io.PrintWriter out) {
-    int total = getNumeroPaginas();
-    for (int vpn = 0; vpn < total; vpn++) {
+    if (!isListagemCompleta()) {
+      paraCadaMapeamento((vpn, moldura) ->
+          out.printf("VPN=%d VALID=%b FRAME=%d%n", vpn, true, moldura));
+      return;
+    }
+    long total = getNumeroPaginas();
+    for (long vpn = 0; vpn < total; vpn++) {
       EntradaTabelaPagina e = getEntrada(vpn);
       out.printf("VPN=%d VALID=%b FRAME=%d%n", vpn, e.isValida(), e.getMoldura());
     }
@@ -0,0 +1,13 @@
+package model;
+
+/** Forma de repartir as molduras físicas entre os processos do trace. */
+public enum EstrategiaAlocacao {
+    /** Substituição global: a vítima pode ser de qualquer processo. */
+    GLOBAL,
+    /** Cota fixa de molduras por processo, com substituição local. */
+    FIXA,
+    /** Cada processo recebe o tamanho do seu conjunto de trabalho (Denning). */
+    CONJUNTO_TRABALHO,
+    /** Controle pela frequência de faltas de página (PFF). */
+    PFF
+}
@@ -0,0 +1,9 @@
+package model;
+
+/** Tratamento das TLBs quando o processo em execução muda. */
+public enum ModoTrocaContexto {
+    /** Sem identificador de espaço de endereçamento: toda troca esvazia as TLBs. */
+    FLUSH,
+    /** Entradas marcadas com o ASID do processo: a troca só muda o ASID atual. */
+    ASID
+}
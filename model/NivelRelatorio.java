@@ -0,0 +1,11 @@
+package model;
+
+/** Quanto do processamento por acesso aparece no relatório de saída. */
+public enum NivelRelatorio {
+    /** Uma linha por acesso (formato original). */
+    ACESSOS,
+    /** Uma linha a cada {@code intervaloAmostragem} acessos. */
+    AMOSTRADO,
+    /** Apenas tabela, molduras e estatísticas finais. */
+    RESUMO
+}
@@ -0,0 +1,11 @@
+package model;
+
+/** Relação entre o conteúdo das TLBs de nível 1 e a TLB compartilhada de nível 2. */
+public enum PoliticaInclusaoTLB {
+    /** Toda entrada do L1 também está no L2; expulsões do L2 invalidam o L1. */
+    INCLUSIVA,
+    /** Uma tradução fica em apenas um nível; o L2 recebe as vítimas do L1. */
+    EXCLUSIVA,
+    /** Preenche os dois níveis, mas sem invalidação cruzada. */
+    NAO_INCLUSIVA
+}
@@ -0,0 +1,60 @@
+package model;
+
+/**
+ * Tipo de referência à memória registrado no trace. {@link #FORK} não é uma
+ * referência, e sim o evento de criação de um processo.
+ */
+public enum TipoAcesso {
+    /** Leitura de dados (padrão quando o trace não informa o tipo). */
+    LEITURA('R'),
+    /** Escrita de dados. */
+    ESCRITA('W'),
+    /** Busca de instrução. */
+    EXECUCAO('X'),
+    /**
+     * O processo do registro executa {@code fork()}: o campo do endereço traz
+     * o pid do processo criado.
+     */
+    FORK('F');
+
+    private static final TipoAcesso[] VALORES = values();
+
+    private final char letra;
+
+    TipoAcesso(char letra) {
+        this.letra = letra;
+    }
+
+    /** @return letra usada no formato texto (R, W, X ou F). */
+    public char getLetra() {
+        return letra;
+    }
+
+    /** @return tipo correspondente ao código gravado no trace binário. */
+    public static TipoAcesso deCodigo(int codigo) {
+        if (codigo < 0 || codigo >= VALORES.length) {
+            throw new IllegalArgumentException("Tipo de acesso inválido: " + codigo);
+        }
+        return VALORES[codigo];
+    }
+
+    /** @return tipo da letra informada (maiúscula ou minúscula) ou null. */
+    public static TipoAcesso deLetra(int letra) {
+        switch (letra) {
+            case 'R':
+            case 'r':
+                return LEITURA;
+            case 'W':
+            case 'w':
+                return ESCRITA;
+            case 'X':
+            case 'x':
+                return EXECUCAO;
+            case 'F':
+            case 'f':
+                return FORK;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package model;
+
+/** Algoritmos disponíveis para escolher a moldura vítima em uma falta de página. */
+public enum TipoPoliticaSubstituicao {
+    LRU,
+    FIFO,
+    CLOCK,
+    LFU,
+    ARC,
+    OPT
+}
@@ -0,0 +1,13 @@
+package model;
+
+/** Estratégias de antecipação (prefetch) de páginas nas faltas. */
+public enum TipoPrefetch {
+    /** Só a página que faltou é carregada. */
+    NENHUM,
+    /** Traz as próximas N páginas virtuais (read-ahead). */
+    SEQUENCIAL,
+    /** Detecta um passo constante entre faltas de cada segmento. */
+    PASSO,
+    /** Repete as faltas que seguiram a página que faltou da última vez. */
+    MARKOV
+}
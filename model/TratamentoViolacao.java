@@ -0,0 +1,11 @@
+package model;
+
+/** O que o simulador faz com um acesso fora dos segmentos ou sem permissão. */
+public enum TratamentoViolacao {
+    /** Não verifica: o acesso é traduzido com o segmento DESCONHECIDO (original). */
+    IGNORA,
+    /** Traduz o acesso e contabiliza a violação nas estatísticas do processo. */
+    CONTA,
+    /** Interrompe a simulação na primeira violação. */
+    ABORTA
+}
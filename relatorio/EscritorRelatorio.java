@@ -0,0 +1,188 @@
+package relatorio;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escritor de texto que formata diretamente em um vetor de bytes reaproveitado
+ * e o descarrega em um {@link FileChannel}.
+ *
+ * <p>
+ * Os métodos {@link #texto}, {@link #numero}, {@link #booleano} e
+ * {@link #novaLinha} não criam objetos e são usados nas linhas emitidas a cada
+ * acesso e relançam falhas de gravação como {@link UncheckedIOException}.
+ * Por ser um {@link Writer} (em UTF-8), o mesmo escritor também pode
+ * ser envolvido por um {@link java.io.PrintWriter} para as seções que usam
+ * {@code printf}; como nenhum dos dois guarda caracteres pendentes, a ordem
+ * da saída é preservada.
+ */
+public final class EscritorRelatorio extends Writer {
+  private static final int TAMANHO_BUFFER = 1 << 16;
+  /** Maior sequência gravada de uma vez: um long com sinal ou um caractere UTF-8. */
+  private static final int RESERVA = 20;
+  private static final byte[] VERDADEIRO = {'t', 'r', 'u', 'e'};
+  private static final byte[] FALSO = {'f', 'a', 'l', 's', 'e'};
+
+  private final FileChannel canal;
+  private final byte[] buffer = new byte[TAMANHO_BUFFER];
+  private final ByteBuffer envoltorio = ByteBuffer.wrap(buffer);
+  private final byte[] quebraLinha = System.lineSeparator().getBytes();
+  private int posicao;
+  private long bytesEscritos;
+
+  /** Cria (ou sobrescreve) o arquivo de saída. */
+  public EscritorRelatorio(String caminho) throws IOException {
+    this.canal = FileChannel.open(Paths.get(caminho), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+  }
+
+  private void garante(int bytes) {
+    if (posicao + bytes > buffer.length) {
+      descarrega();
+    }
+  }
+
+  private void descarrega() {
+    envoltorio.limit(posicao).position(0);
+    try {
+      while (envoltorio.hasRemaining()) {
+        canal.write(envoltorio);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    bytesEscritos += posicao;
+    posicao = 0;
+  }
+
+  /** Acrescenta o texto, codificado em UTF-8. */
+  public EscritorRelatorio texto(String s) {
+    acrescenta(s, 0, s.length());
+    return this;
+  }
+
+  private void acrescenta(String s, int inicio, int fim) {
+    for (int i = inicio; i < fim; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        garante(1);
+        buffer[posicao++] = (byte) c;
+      } else if (Character.isHighSurrogate(c) && i + 1 < fim
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        caractere(Character.toCodePoint(c, s.charAt(++i)));
+      } else {
+        caractere(c);
+      }
+    }
+  }
+
+  /** Acrescenta um único código Unicode. */
+  private void caractere(int c) {
+    garante(4);
+    if (c < 0x80) {
+      buffer[posicao++] = (byte) c;
+    } else if (c < 0x800) {
+      buffer[posicao++] = (byte) (0xC0 | c >> 6);
+      buffer[posicao++] = (byte) (0x80 | c & 0x3F);
+    } else if (c < 0x10000) {
+      buffer[posicao++] = (byte) (0xE0 | c >> 12);
+      buffer[posicao++] = (byte) (0x80 | c >> 6 & 0x3F);
+      buffer[posicao++] = (byte) (0x80 | c & 0x3F);
+    } else {
+      buffer[posicao++] = (byte) (0xF0 | c >> 18);
+      buffer[posicao++] = (byte) (0x80 | c >> 12 & 0x3F);
+      buffer[posicao++] = (byte) (0x80 | c >> 6 & 0x3F);
+      buffer[posicao++] = (byte) (0x80 | c & 0x3F);
+    }
+  }
+
+  /** Acrescenta o número em decimal. */
+  public EscritorRelatorio numero(long valor) {
+    garante(RESERVA);
+    if (valor < 0) {
+      buffer[posicao++] = '-';
+    } else {
+      valor = -valor;
+    }
+    // trabalha com o valor negativo para cobrir Long.MIN_VALUE
+    int digitos = 1;
+    for (long v = valor; v <= -10; v /= 10) {
+      digitos++;
+    }
+    int fim = posicao + digitos;
+    for (int i = fim - 1; i >= posicao; i--) {
+      buffer[i] = (byte) ('0' - valor % 10);
+      valor /= 10;
+    }
+    posicao = fim;
+    return this;
+  }
+
+  /** Acrescenta {@code true} ou {@code false}, como {@code %b}. */
+  public EscritorRelatorio booleano(boolean valor) {
+    byte[] b = valor ? VERDADEIRO : FALSO;
+    garante(b.length);
+    System.arraycopy(b, 0, buffer, posicao, b.length);
+    posicao += b.length;
+    return this;
+  }
+
+  /** Acrescenta o separador de linha da plataforma, como {@code %n}. */
+  public EscritorRelatorio novaLinha() {
+    garante(quebraLinha.length);
+    System.arraycopy(quebraLinha, 0, buffer, posicao, quebraLinha.length);
+    posicao += quebraLinha.length;
+    return this;
+  }
+
+  /** @return bytes já gravados no arquivo ou pendentes no buffer. */
+  public long getBytesEscritos() {
+    return bytesEscritos + posicao;
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    caractere(c & 0xFFFF);
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    for (int i = off; i < off + len; i++) {
+      char c = cbuf[i];
+      if (Character.isHighSurrogate(c) && i + 1 < off + len
+          && Character.isLowSurrogate(cbuf[i + 1])) {
+        caractere(Character.toCodePoint(c, cbuf[++i]));
+      } else {
+        caractere(c);
+      }
+    }
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    acrescenta(str, off, off + len);
+  }
+
+  /** Grava o conteúdo pendente no arquivo. */
+  @Override
+  public void flush() throws IOException {
+    descarrega();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!canal.isOpen()) {
+      return;
+    }
+    try {
+      descarrega();
+    } finally {
+      canal.close();
+    }
+  }
+}
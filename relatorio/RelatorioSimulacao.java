@@ -0,0 +1,148 @@
+package relatorio;
+
+import config.Configuracao;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import memory.MemoriaFisica;
+import mmu.TabelaPaginas;
+import model.NivelRelatorio;
+import model.TipoSegmento;
+
+/**
+ * Relatório de saída da simulação.
+ *
+ * <p>
+ * As linhas por acesso, a tabela de páginas e as molduras são formatadas pelo
+ * {@link EscritorRelatorio} sem criar objetos por linha. O
+ * {@link NivelRelatorio} configurado decide quais acessos aparecem e, com
+ * {@code relatorioSomenteValidos}, a tabela e as molduras listam apenas
+ * entradas válidas e molduras ocupadas. As seções de estatísticas, pequenas,
+ * são escritas em {@link #getSaida()}.
+ */
+public final class RelatorioSimulacao implements Closeable {
+  private final EscritorRelatorio escritor;
+  private final PrintWriter saida;
+  private final NivelRelatorio nivel;
+  private final long intervaloAmostragem;
+  private final boolean somenteValidos;
+  private long linhasAcesso;
+
+  /** Abre o arquivo de saída da configuração. */
+  public RelatorioSimulacao(Configuracao config) throws IOException {
+    this.escritor = new EscritorRelatorio(config.getArquivoSaida());
+    this.saida = new PrintWriter(escritor);
+    this.nivel = config.getNivelRelatorio();
+    this.intervaloAmostragem = config.getIntervaloAmostragem();
+    this.somenteValidos = config.isRelatorioSomenteValidos();
+  }
+
+  /** @return true se o acesso de número {@code instante} deve gerar uma linha. */
+  public boolean registraAcesso(long instante) {
+    switch (nivel) {
+      case ACESSOS:
+        return true;
+      case AMOSTRADO:
+        return instante % intervaloAmostragem == 0;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Escreve a linha de um acesso, no mesmo formato de
+   * {@code "VA=%d VPN=%d OFFSET=%d SEG=%s FRAME=%d PA=%d TLB_HIT=%b%n"}, se o
+   * nível de relatório a seleciona.
+   */
+  public void acesso(long instante, long enderecoVirtual, long paginaVirtual, int deslocamento,
+      TipoSegmento segmento, int moldura, long enderecoFisico, boolean tlbHit) {
+    acesso(instante, enderecoVirtual, paginaVirtual, deslocamento, segmento, moldura,
+        enderecoFisico, tlbHit, 0);
+  }
+
+  /**
+   * Igual ao anterior, acrescentando {@code " PID=n"} à linha quando o acesso
+   * não é do processo 0.
+   */
+  public void acesso(long instante, long enderecoVirtual, long paginaVirtual, int deslocamento,
+      TipoSegmento segmento, int moldura, long enderecoFisico, boolean tlbHit, int processo) {
+    if (!registraAcesso(instante)) {
+      return;
+    }
+    linhasAcesso++;
+    escritor.texto("VA=").numero(enderecoVirtual)
+        .texto(" VPN=").numero(paginaVirtual)
+        .texto(" OFFSET=").numero(deslocamento)
+        .texto(" SEG=").texto(segmento.name())
+        .texto(" FRAME=").numero(moldura)
+        .texto(" PA=").numero(enderecoFisico)
+        .texto(" TLB_HIT=").booleano(tlbHit);
+    if (processo != 0) {
+      escritor.texto(" PID=").numero(processo);
+    }
+    escritor.novaLinha();
+  }
+
+  /** Escreve a seção da tabela de páginas. */
+  public void imprimeTabela(TabelaPaginas tabela) {
+    escritor.novaLinha().texto("=== TABELA DE PAGINAS ===").novaLinha();
+    imprimeEntradas(tabela);
+  }
+
+  /** Escreve a seção da tabela de páginas de um dos processos do trace. */
+  public void imprimeTabela(TabelaPaginas tabela, int processo) {
+    escritor.novaLinha().texto("=== TABELA DE PAGINAS PID=").numero(processo).texto(" ===")
+        .novaLinha();
+    imprimeEntradas(tabela);
+  }
+
+  private void imprimeEntradas(TabelaPaginas tabela) {
+    if (somenteValidos || !tabela.isListagemCompleta()) {
+      tabela.paraCadaMapeamento(this::entradaTabela);
+      return;
+    }
+    long total = tabela.getNumeroPaginas();
+    for (long vpn = 0; vpn < total; vpn++) {
+      entradaTabela(vpn, tabela.consultaMoldura(vpn));
+    }
+  }
+
+  private void entradaTabela(long paginaVirtual, int moldura) {
+    escritor.texto("VPN=").numero(paginaVirtual)
+        .texto(" VALID=").booleano(moldura != -1)
+        .texto(" FRAME=").numero(moldura)
+        .novaLinha();
+  }
+
+  /** Escreve a seção com o conteúdo de cada moldura física. */
+  public void imprimeMolduras(MemoriaFisica memoria) {
+    escritor.novaLinha().texto("=== MEMORIA FISICA (MOLDURAS) ===").novaLinha();
+    long[] conteudo = memoria.getConteudoMolduras();
+    for (int i = 0; i < conteudo.length; i++) {
+      if (somenteValidos && conteudo[i] == -1) {
+        continue;
+      }
+      escritor.texto("FRAME=").numero(i).texto(" CONTENT=").numero(conteudo[i]).novaLinha();
+    }
+  }
+
+  /** Escreve a configuração do relatório quando nem todos os acessos foram listados. */
+  public void imprimeEstatisticas() {
+    if (nivel != NivelRelatorio.ACESSOS) {
+      saida.printf("RELATORIO NIVEL=%s INTERVALO=%d LINHAS_ACESSO=%d%n", nivel,
+          nivel == NivelRelatorio.AMOSTRADO ? intervaloAmostragem : 0, linhasAcesso);
+    }
+  }
+
+  /** @return destino para as seções escritas com {@code printf}. */
+  public PrintWriter getSaida() {
+    return saida;
+  }
+
+  /** Grava o que estiver pendente e fecha o arquivo. */
+  @Override
+  public void close() throws IOException {
+    saida.flush();
+    escritor.close();
+  }
+}
@@ -0,0 +1,265 @@
+package simulacao;
+
+import config.Configuracao;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import memory.MemoriaFisica;
+import memory.PoliticaParticionada;
+import model.EstrategiaAlocacao;
+
+/**
+ * Reparte as molduras físicas entre os processos do {@link MotorSimulacao} e
+ * detecta thrashing.
+ *
+ * <p>
+ * Na alocação GLOBAL a vítima é a escolhida pela política de substituição
+ * entre todas as molduras. Nas demais cada processo tem uma partição da
+ * {@link PoliticaParticionada} e um alvo de molduras: a cota fixa, o tamanho
+ * do seu conjunto de trabalho ou, no PFF, o conjunto residente atual mais uma
+ * moldura quando as faltas estão frequentes. Abaixo do alvo o processo recebe
+ * uma moldura livre ou a toma do processo mais acima do próprio alvo; no alvo
+ * substitui uma das suas.
+ *
+ * <p>
+ * Com {@code janelaConjuntoTrabalho > 0} o conjunto de trabalho de cada
+ * processo é acompanhado em qualquer estratégia, e a soma deles acima do
+ * número de molduras é contada como thrashing.
+ */
+final class AlocacaoMolduras {
+  private final MotorSimulacao motor;
+  private final MemoriaFisica memoria;
+  private final PoliticaParticionada particoes;
+  private final EstrategiaAlocacao estrategia;
+  private final int cotaFixa;
+  private final int janela;
+  private final int limiarPFF;
+  private final int molduras;
+  /** PFF: tempo virtual do dono no último uso de cada moldura. */
+  private final long[] ultimoUso;
+  private final List<Processo> processos = new ArrayList<>();
+  private long[] paginasALiberar = new long[64];
+
+  private long agregado;
+  private long maximoAgregado;
+  private boolean emThrashing;
+  private long episodiosThrashing;
+  private long referenciasThrashing;
+  private long primeiroThrashing;
+
+  /** @param particoes política particionada da memória ou null na alocação GLOBAL */
+  AlocacaoMolduras(Configuracao config, MotorSimulacao motor, MemoriaFisica memoria,
+      PoliticaParticionada particoes) {
+    this.motor = motor;
+    this.memoria = memoria;
+    this.particoes = particoes;
+    this.estrategia = config.getAlocacaoMolduras();
+    this.cotaFixa = config.getCotaMolduras();
+    this.janela = config.getJanelaConjuntoTrabalho();
+    this.limiarPFF = config.getLimiarPFF();
+    this.molduras = memoria.getNumeroMolduras() - memoria.getMoldurasReservadasGrandes();
+    this.ultimoUso = estrategia == EstrategiaAlocacao.PFF
+        ? new long[memoria.getNumeroMolduras()]
+        : null;
+  }
+
+  /** Dá ao processo recém-criado sua partição e seu conjunto de trabalho. */
+  void registraProcesso(Processo p) {
+    p.particao = processos.size();
+    processos.add(p);
+    if (janela > 0) {
+      p.conjunto = new ConjuntoTrabalho(janela);
+    }
+  }
+
+  /** O processo passou a executar: suas cargas vão para a própria partição. */
+  void ativa(Processo p) {
+    if (particoes != null) {
+      particoes.setParticaoAtual(p.particao);
+    }
+  }
+
+  /**
+   * Desliza a janela do conjunto de trabalho do processo. Na alocação por
+   * conjunto de trabalho a página que sai da janela é liberada.
+   */
+  void registraReferencia(Processo p, long pagina, long instante) {
+    if (p.conjunto == null) {
+      return;
+    }
+    int antes = p.conjunto.getTamanho();
+    long saiu = p.conjunto.registra(pagina);
+    agregado += p.conjunto.getTamanho() - antes;
+    if (saiu != -1 && estrategia == EstrategiaAlocacao.CONJUNTO_TRABALHO
+        && motor.liberaPagina(p, saiu)) {
+      p.paginasLiberadas++;
+    }
+    maximoAgregado = Math.max(maximoAgregado, agregado);
+    if (agregado > molduras) {
+      referenciasThrashing++;
+      if (!emThrashing) {
+        emThrashing = true;
+        episodiosThrashing++;
+        if (primeiroThrashing == 0) {
+          primeiroThrashing = instante;
+        }
+      }
+    } else {
+      emThrashing = false;
+    }
+  }
+
+  /** A referência do processo foi servida pela moldura. */
+  void registraUso(Processo p, int moldura) {
+    if (ultimoUso != null) {
+      ultimoUso[moldura] = p.acessos;
+    }
+  }
+
+  /** Escolhe a moldura que receberá a página que faltou ao processo. */
+  int selecionaMoldura(Processo p, long instante, long chave) {
+    if (particoes == null) {
+      return memoria.selecionaMolduraParaUso(instante, chave);
+    }
+    if (cresce(p) || particoes.getResidentes(p.particao) == 0) {
+      if (memoria.getMoldurasLivres() > 0) {
+        return memoria.selecionaMolduraParaUso(instante, chave);
+      }
+      Processo doador = doador(p);
+      if (doador != null) {
+        p.moldurasTomadas++;
+        doador.moldurasCedidas++;
+        return vitima(doador, instante, chave);
+      }
+    }
+    p.substituicoesLocais++;
+    return vitima(p, instante, chave);
+  }
+
+  /**
+   * Escolhe a moldura de uma página antecipada: uma livre enquanto o processo
+   * está abaixo da cota (sem limite no PFF), senão uma vítima do próprio
+   * processo. Não conta como falta nem toma molduras de outros processos.
+   */
+  int selecionaMolduraAntecipada(Processo p, long instante, long chave) {
+    if (particoes == null) {
+      return memoria.selecionaMolduraParaUso(instante, chave);
+    }
+    boolean abaixoDaCota = estrategia == EstrategiaAlocacao.PFF
+        || particoes.getResidentes(p.particao) < cota(p);
+    if (memoria.getMoldurasLivres() > 0 && abaixoDaCota) {
+      return memoria.selecionaMolduraParaUso(instante, chave);
+    }
+    return vitima(p, instante, chave);
+  }
+
+  private int vitima(Processo p, long instante, long chave) {
+    particoes.setParticaoVitima(p.particao);
+    return memoria.substituiMoldura(instante, chave);
+  }
+
+  /** @return true se o processo deve ganhar uma moldura em vez de substituir uma sua. */
+  private boolean cresce(Processo p) {
+    switch (estrategia) {
+      case FIXA:
+      case CONJUNTO_TRABALHO:
+        return particoes.getResidentes(p.particao) < cota(p);
+      case PFF:
+        long anterior = p.ultimaFalta;
+        p.ultimaFalta = p.acessos;
+        if (p.faltasPagina == 1 || p.acessos - anterior <= limiarPFF) {
+          return true;
+        }
+        // faltas espaçadas: o processo encolhe para o que usou desde a falta anterior
+        liberaNaoUsadas(p, anterior);
+        return memoria.getMoldurasLivres() > 0;
+      default:
+        return false;
+    }
+  }
+
+  /** @return molduras que o processo deveria ocupar. */
+  private int cota(Processo p) {
+    switch (estrategia) {
+      case FIXA:
+        return cotaFixa > 0 ? cotaFixa : Math.max(1, molduras / processos.size());
+      case CONJUNTO_TRABALHO:
+        return Math.max(1, p.conjunto.getTamanho());
+      default:
+        return particoes.getResidentes(p.particao);
+    }
+  }
+
+  /** @return outro processo mais acima do próprio alvo (ou com mais molduras) ou null. */
+  private Processo doador(Processo p) {
+    Processo melhor = null;
+    int melhorExcesso = 0;
+    int melhorResidentes = 0;
+    for (Processo q : processos) {
+      int residentes = particoes.getResidentes(q.particao);
+      if (q == p || residentes == 0) {
+        continue;
+      }
+      int excesso = residentes - cota(q);
+      if (melhor == null || excesso > melhorExcesso
+          || (excesso == melhorExcesso && residentes > melhorResidentes)) {
+        melhor = q;
+        melhorExcesso = excesso;
+        melhorResidentes = residentes;
+      }
+    }
+    return melhor;
+  }
+
+  /** PFF: libera as páginas do processo não referenciadas desde {@code desde}. */
+  private void liberaNaoUsadas(Processo p, long desde) {
+    int[] total = {0};
+    p.getTabela().paraCadaMapeamento((pagina, moldura) -> {
+      if (!memoria.isMolduraGrande(moldura) && ultimoUso[moldura] < desde) {
+        if (total[0] == paginasALiberar.length) {
+          paginasALiberar = Arrays.copyOf(paginasALiberar, total[0] * 2);
+        }
+        paginasALiberar[total[0]++] = pagina;
+      }
+    });
+    for (int i = 0; i < total[0]; i++) {
+      if (motor.liberaPagina(p, paginasALiberar[i])) {
+        p.paginasLiberadas++;
+      }
+    }
+  }
+
+  /** Escreve a estratégia, o thrashing detectado e a situação de cada processo. */
+  void imprimeEstatisticas(PrintWriter out) {
+    out.printf("ALOCACAO_MOLDURAS=%s MOLDURAS=%d PROCESSOS=%d%n", estrategia, molduras,
+        processos.size());
+    if (janela > 0) {
+      out.printf("CONJUNTO_TRABALHO JANELA=%d AGREGADO=%d AGREGADO_MAXIMO=%d"
+          + " EPISODIOS_THRASHING=%d REFERENCIAS_EM_THRASHING=%d%n", janela, agregado,
+          maximoAgregado, episodiosThrashing, referenciasThrashing);
+      if (episodiosThrashing > 0) {
+        out.printf("THRASHING DETECTADO: conjunto de trabalho agregado de até %d páginas"
+            + " para %d molduras (primeira vez no acesso %d)%n", maximoAgregado, molduras,
+            primeiroThrashing);
+      }
+    }
+    for (Processo p : motor.getProcessos()) {
+      out.printf("ALOCACAO PID=%d", p.getPid());
+      if (estrategia == EstrategiaAlocacao.FIXA
+          || estrategia == EstrategiaAlocacao.CONJUNTO_TRABALHO) {
+        out.printf(" COTA=%d", cota(p));
+      }
+      out.printf(" RESIDENTES=%d", particoes != null
+          ? particoes.getResidentes(p.particao)
+          : p.getPaginasResidentes());
+      if (p.conjunto != null) {
+        out.printf(" CONJUNTO_TRABALHO=%d MAXIMO_CONJUNTO_TRABALHO=%d", p.conjunto.getTamanho(),
+            p.conjunto.getMaximo());
+      }
+      out.printf(" FALTAS_PAGINA=%d SUBSTITUICOES_LOCAIS=%d MOLDURAS_TOMADAS=%d"
+          + " MOLDURAS_CEDIDAS=%d PAGINAS_LIBERADAS=%d%n", p.faltasPagina,
+          p.substituicoesLocais, p.moldurasTomadas, p.moldurasCedidas, p.paginasLiberadas);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package simulacao;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+import model.TipoPrefetch;
+import util.MapaLongInt;
+
+/**
+ * Contabilidade do prefetch do {@link MotorSimulacao}: marca as molduras
+ * carregadas por antecipação até o primeiro uso e mede cobertura, precisão e
+ * poluição.
+ *
+ * <ul>
+ * <li>cobertura: faltas evitadas (páginas antecipadas que foram usadas) sobre
+ * o total de faltas que teriam ocorrido sem o prefetch;</li>
+ * <li>precisão: páginas antecipadas usadas sobre as antecipadas;</li>
+ * <li>poluição: páginas expulsas para dar lugar a antecipações e faltas
+ * posteriores a essas mesmas páginas.</li>
+ * </ul>
+ *
+ * <p>
+ * As expulsões causadas por prefetch são lembradas em uma janela com o número
+ * de molduras da memória, para que uma falta posterior seja atribuída a elas.
+ */
+final class AntecipacaoPaginas {
+  private final TipoPrefetch tipo;
+  private final int profundidade;
+  private final boolean naTLB;
+  /** Moldura carregada por prefetch e ainda não usada. */
+  private final boolean[] antecipada;
+  private final MapaLongInt expulsasPorPrefetch;
+  private final long[] janelaExpulsas;
+  private int posicaoJanela;
+
+  private long emitidas;
+  private long uteis;
+  private long inuteis;
+  private long descartadas;
+  private long expulsoesPorPrefetch;
+  private long faltasPorPoluicao;
+
+  AntecipacaoPaginas(TipoPrefetch tipo, int profundidade, boolean naTLB, int numeroMolduras) {
+    this.tipo = tipo;
+    this.profundidade = profundidade;
+    this.naTLB = naTLB;
+    this.antecipada = new boolean[numeroMolduras];
+    this.expulsasPorPrefetch = new MapaLongInt(numeroMolduras);
+    this.janelaExpulsas = new long[numeroMolduras];
+  }
+
+  boolean isNaTLB() {
+    return naTLB;
+  }
+
+  /** Um candidato foi ignorado (já residente, fora do espaço virtual ou repetido). */
+  void registraDescarte() {
+    descartadas++;
+  }
+
+  /** A moldura recebeu uma página, antecipada ou pedida. */
+  void registraCarga(int moldura, boolean porPrefetch) {
+    antecipada[moldura] = porPrefetch;
+    if (porPrefetch) {
+      emitidas++;
+    }
+  }
+
+  /** A página da moldura foi referenciada. */
+  void registraUso(int moldura) {
+    if (antecipada[moldura]) {
+      antecipada[moldura] = false;
+      uteis++;
+    }
+  }
+
+  /** A página de chave {@code chave} deixou a moldura. */
+  void registraExpulsao(int moldura, long chave, boolean porPrefetch) {
+    if (antecipada[moldura]) {
+      antecipada[moldura] = false;
+      inuteis++;
+    } else if (porPrefetch) {
+      expulsoesPorPrefetch++;
+      lembra(chave);
+    }
+  }
+
+  private void lembra(long chave) {
+    if (expulsasPorPrefetch.obtem(chave) != -1) {
+      return;
+    }
+    if (expulsasPorPrefetch.tamanho() == janelaExpulsas.length) {
+      expulsasPorPrefetch.remove(janelaExpulsas[posicaoJanela]);
+    }
+    janelaExpulsas[posicaoJanela] = chave;
+    posicaoJanela = (posicaoJanela + 1) % janelaExpulsas.length;
+    expulsasPorPrefetch.insere(chave, 0);
+  }
+
+  /** Uma falta de página pediu a página de chave {@code chave}. */
+  void registraFalta(long chave) {
+    if (expulsasPorPrefetch.obtem(chave) != -1) {
+      // a entrada fica na janela e sai quando a posição dela for reaproveitada
+      faltasPorPoluicao++;
+      expulsasPorPrefetch.insere(chave, 1);
+    }
+  }
+
+  /** Escreve os contadores; {@code faltas} são as faltas de página que ocorreram. */
+  void imprimeEstatisticas(PrintWriter out, long faltas) {
+    long pendentes = emitidas - uteis - inuteis;
+    out.printf(Locale.ROOT, "PREFETCH TIPO=%s PROFUNDIDADE=%d NA_TLB=%b EMITIDAS=%d UTEIS=%d"
+        + " INUTEIS=%d PENDENTES=%d DESCARTADAS=%d%n", tipo, profundidade, naTLB, emitidas,
+        uteis, inuteis, pendentes, descartadas);
+    long semPrefetch = uteis + faltas;
+    out.printf(Locale.ROOT, "PREFETCH COBERTURA=%.4f PRECISAO=%.4f EXPULSOES_POR_PREFETCH=%d"
+        + " FALTAS_POR_POLUICAO=%d%n", semPrefetch == 0 ? 0.0 : (double) uteis / semPrefetch,
+        emitidas == 0 ? 0.0 : (double) uteis / emitidas, expulsoesPorPrefetch, faltasPorPoluicao);
+  }
+}
@@ -0,0 +1,366 @@
+package simulacao;
+
+import config.Configuracao;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import memory.MemoriaFisica;
+import mmu.TLB;
+import mmu.TabelaPaginas;
+import model.EstrategiaAlocacao;
+import model.TipoPoliticaSubstituicao;
+import model.TratamentoViolacao;
+
+/**
+ * Grava e restaura o estado de um {@link MotorSimulacao} em um arquivo
+ * binário compacto, para retomar simulações longas ou partir várias
+ * simulações do mesmo estado aquecido.
+ *
+ * <p>
+ * O arquivo (little-endian) começa pelo número mágico {@code SIMC}, a versão e
+ * a geometria de memória e TLBs, que precisa coincidir com a da restauração.
+ * Seguem o instante, os registros do trace já consumidos, o rodízio de ASIDs e
+ * o processo em execução; cada processo com seu ASID e seus mapeamentos (VPN,
+ * moldura); o conteúdo, o instante do último acesso e o dono de cada moldura,
+ * com a pilha de livres; e, para cada TLB distinta, o ASID corrente e as
+ * entradas de cada conjunto da usada há mais tempo à mais recente.
+ *
+ * <p>
+ * A gravação passa por um arquivo temporário renomeado ao final, de modo que
+ * um checkpoint interrompido não estraga o anterior. A restauração lê o
+ * arquivo por janelas mapeadas em memória, como o trace binário.
+ *
+ * <p>
+ * Só é salvo o estado que decide as traduções seguintes: estatísticas, cache
+ * de paginação, prefetchers e métricas recomeçam vazios, e a ordem da política
+ * de substituição é refeita pelos instantes de acesso, o que só é exato para
+ * LRU. Swap, páginas grandes, políticas diferentes de LRU (a ordem do FIFO, o
+ * ponteiro e os bits do CLOCK, as contagens do LFU e as listas do ARC) e
+ * alocações de molduras diferentes de GLOBAL guardam estado que não faz parte
+ * do arquivo e são recusados.
+ */
+final class Checkpoint {
+  /** "SIMC" lido como int little-endian. */
+  private static final int MAGICO = 0x434d4953;
+  private static final int VERSAO = 1;
+  static final int TAMANHO_JANELA = 1 << 28;
+
+  private Checkpoint() {
+  }
+
+  /** Recusa configurações cujo estado não cabe no checkpoint. */
+  static void verificaSuporte(Configuracao config) {
+    String recurso = null;
+    if (config.getArquivoSwap() != null) {
+      recurso = "swap";
+    } else if (config.getMoldurasGrandes() > 0) {
+      recurso = "páginas grandes";
+    } else if (config.getPoliticaSubstituicao() != TipoPoliticaSubstituicao.LRU) {
+      recurso = "a política " + config.getPoliticaSubstituicao();
+    } else if (config.getAlocacaoMolduras() != EstrategiaAlocacao.GLOBAL
+        || config.getJanelaConjuntoTrabalho() > 0) {
+      recurso = "alocação de molduras " + config.getAlocacaoMolduras()
+          + " ou janelaConjuntoTrabalho";
+    } else if (config.getViolacaoSegmento() != TratamentoViolacao.IGNORA) {
+      recurso = "verificação de segmentos";
+    }
+    if (recurso != null) {
+      throw new IllegalArgumentException("Checkpoint não disponível com " + recurso);
+    }
+    if (config.isPipeline() && config.getIntervaloCheckpoint() > 0) {
+      throw new IllegalArgumentException("intervaloCheckpoint exige pipeline=false");
+    }
+  }
+
+  /** Parâmetros que precisam ser iguais na gravação e na restauração. */
+  private static int[] geometria(MotorSimulacao motor) {
+    Configuracao config = motor.getConfig();
+    TLB[] tlbs = motor.getTLB().getTLBs();
+    int[] g = new int[7 + 2 * tlbs.length];
+    g[0] = config.getBitsEnderecoVirtual();
+    g[1] = config.getBitsDeslocamentoPagina();
+    g[2] = config.getNiveisTabelaPaginas();
+    g[3] = motor.getMemoria().getNumeroMolduras();
+    g[4] = config.getModoTrocaContexto().ordinal();
+    g[5] = config.getBitsASID();
+    g[6] = tlbs.length;
+    for (int i = 0; i < tlbs.length; i++) {
+      g[7 + 2 * i] = tlbs[i].getCapacidade();
+      g[8 + 2 * i] = tlbs[i].getVias();
+    }
+    return g;
+  }
+
+  /** Grava o estado do motor; ver {@link MotorSimulacao#gravaCheckpoint}. */
+  static void grava(MotorSimulacao motor, String arquivo, long registrosTrace)
+      throws IOException {
+    verificaSuporte(motor.getConfig());
+    Path destino = Paths.get(arquivo);
+    Path temporario = Paths.get(arquivo + ".tmp");
+    try (Saida out = new Saida(temporario)) {
+      out.putInt(MAGICO);
+      out.putInt(VERSAO);
+      int[] g = geometria(motor);
+      out.putInt(g.length);
+      for (int v : g) {
+        out.putInt(v);
+      }
+      out.putLong(motor.getInstante());
+      out.putLong(registrosTrace);
+      out.putInt(motor.getProximoASID());
+
+      Collection<Processo> processos = motor.getProcessos();
+      Processo atual = motor.getAtual();
+      int indiceAtual = -1;
+      out.putInt(processos.size());
+      int i = 0;
+      for (Processo p : processos) {
+        if (p == atual) {
+          indiceAtual = i;
+        }
+        i++;
+        TabelaPaginas tabela = p.getTabela();
+        out.putInt(p.getPid());
+        out.putInt(p.getAsid());
+        long[] mapeamentos = new long[1];
+        tabela.paraCadaMapeamento((vpn, m) -> mapeamentos[0]++);
+        out.putLong(mapeamentos[0]);
+        tabela.paraCadaMapeamento((vpn, m) -> {
+          out.putLong(vpn);
+          out.putInt(m);
+        });
+      }
+      out.putInt(indiceAtual);
+
+      MemoriaFisica memoria = motor.getMemoria();
+      long[] conteudo = memoria.getConteudoMolduras();
+      for (int m = 0; m < conteudo.length; m++) {
+        out.putLong(conteudo[m]);
+        out.putLong(memoria.getInstanteUltimoAcesso(m));
+        out.putInt(indiceDono(processos, motor.getDono(m)));
+      }
+      int[] livres = memoria.getPilhaLivres();
+      out.putInt(livres.length);
+      for (int m : livres) {
+        out.putInt(m);
+      }
+
+      for (TLB t : motor.getTLB().getTLBs()) {
+        out.putInt(t.getASID());
+        int[] entradas = new int[1];
+        t.paraCadaEntrada((vpn, m, bits, asid, instante) -> entradas[0]++);
+        out.putInt(entradas[0]);
+        t.paraCadaEntrada((vpn, m, bits, asid, instante) -> {
+          out.putLong(vpn);
+          out.putInt(m);
+          out.putInt(bits);
+          out.putInt(asid);
+          out.putLong(instante);
+        });
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /** @return posição do processo na coleção (em ordem de pid) ou -1. */
+  private static int indiceDono(Collection<Processo> processos, Processo dono) {
+    if (dono == null) {
+      return -1;
+    }
+    int i = 0;
+    for (Processo p : processos) {
+      if (p == dono) {
+        return i;
+      }
+      i++;
+    }
+    throw new IllegalStateException("Moldura pertence a processo desconhecido");
+  }
+
+  /** Restaura o estado no motor; ver {@link MotorSimulacao#restauraCheckpoint}. */
+  static long restaura(MotorSimulacao motor, String arquivo) throws IOException {
+    verificaSuporte(motor.getConfig());
+    if (motor.getInstante() != 0 || !motor.getProcessos().isEmpty()) {
+      throw new IllegalStateException("Checkpoint só pode ser restaurado em um motor novo");
+    }
+    try (Entrada in = new Entrada(Paths.get(arquivo))) {
+      if (in.getInt() != MAGICO || in.getInt() != VERSAO) {
+        throw new IOException(arquivo + " não é um checkpoint do simulador");
+      }
+      int[] g = new int[in.getInt()];
+      for (int i = 0; i < g.length; i++) {
+        g[i] = in.getInt();
+      }
+      if (!Arrays.equals(g, geometria(motor))) {
+        throw new IllegalArgumentException("Checkpoint " + arquivo
+            + " foi gravado com outra geometria de memória, tabela ou TLB");
+      }
+      long instante = in.getLong();
+      long registrosTrace = in.getLong();
+      int proximoASID = in.getInt();
+
+      Processo[] processos = new Processo[in.getInt()];
+      for (int i = 0; i < processos.length; i++) {
+        Processo p = motor.getProcesso(in.getInt());
+        int asid = in.getInt();
+        if (asid != -1) {
+          motor.restauraASID(p, asid);
+        }
+        TabelaPaginas tabela = p.getTabela();
+        for (long k = in.getLong(); k > 0; k--) {
+          long vpn = in.getLong();
+          tabela.mapeiaPagina(vpn, in.getInt());
+        }
+        processos[i] = p;
+      }
+      int indiceAtual = in.getInt();
+
+      MemoriaFisica memoria = motor.getMemoria();
+      int n = memoria.getNumeroMolduras();
+      long[] conteudo = new long[n];
+      long[] instantes = new long[n];
+      long[] chaves = new long[n];
+      for (int m = 0; m < n; m++) {
+        conteudo[m] = in.getLong();
+        instantes[m] = in.getLong();
+        int dono = in.getInt();
+        if (dono != -1) {
+          motor.restauraDono(m, processos[dono]);
+          chaves[m] = MotorSimulacao.chavePagina(processos[dono].getPid(), conteudo[m]);
+        }
+      }
+      int[] livres = new int[in.getInt()];
+      for (int i = 0; i < livres.length; i++) {
+        livres[i] = in.getInt();
+      }
+      memoria.restaura(conteudo, instantes, chaves, livres);
+
+      for (TLB t : motor.getTLB().getTLBs()) {
+        t.setASID(in.getInt());
+        for (int k = in.getInt(); k > 0; k--) {
+          long vpn = in.getLong();
+          int m = in.getInt();
+          int bits = in.getInt();
+          int asid = in.getInt();
+          t.insereOuAtualiza(vpn, m, bits, asid, in.getLong());
+        }
+      }
+      motor.restauraEstado(instante, proximoASID,
+          indiceAtual == -1 ? null : processos[indiceAtual]);
+      return registrosTrace;
+    }
+  }
+
+  /** Gravação sequencial em um buffer, chamada também de dentro de visitantes. */
+  private static final class Saida implements Closeable {
+    private final FileChannel canal;
+    private final ByteBuffer buffer =
+        ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+    Saida(Path caminho) throws IOException {
+      this.canal = FileChannel.open(caminho, StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    void putInt(int valor) {
+      if (buffer.remaining() < Integer.BYTES) {
+        esvazia();
+      }
+      buffer.putInt(valor);
+    }
+
+    void putLong(long valor) {
+      if (buffer.remaining() < Long.BYTES) {
+        esvazia();
+      }
+      buffer.putLong(valor);
+    }
+
+    private void esvazia() {
+      buffer.flip();
+      try {
+        while (buffer.hasRemaining()) {
+          canal.write(buffer);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        esvazia();
+      } finally {
+        canal.close();
+      }
+    }
+  }
+
+  /** Leitura sequencial por janelas mapeadas de até {@value #TAMANHO_JANELA} bytes. */
+  private static final class Entrada implements Closeable {
+    private final FileChannel canal;
+    private final long tamanhoArquivo;
+    private MappedByteBuffer janela;
+    private long inicioJanela;
+
+    Entrada(Path caminho) throws IOException {
+      this.canal = FileChannel.open(caminho, StandardOpenOption.READ);
+      try {
+        this.tamanhoArquivo = canal.size();
+        mapeia(0);
+      } catch (IOException | RuntimeException e) {
+        canal.close();
+        throw e;
+      }
+    }
+
+    private void mapeia(long inicio) throws IOException {
+      long tamanho = Math.min(TAMANHO_JANELA, tamanhoArquivo - inicio);
+      janela = canal.map(FileChannel.MapMode.READ_ONLY, inicio, tamanho);
+      janela.order(ByteOrder.LITTLE_ENDIAN);
+      inicioJanela = inicio;
+    }
+
+    /** Mapeia a janela seguinte se a atual não tem os próximos bytes. */
+    private void garante(int bytes) throws IOException {
+      if (janela.remaining() < bytes) {
+        long posicao = inicioJanela + janela.position();
+        if (posicao + bytes > tamanhoArquivo) {
+          throw new IOException("Checkpoint truncado na posição " + posicao);
+        }
+        mapeia(posicao);
+      }
+    }
+
+    int getInt() throws IOException {
+      garante(Integer.BYTES);
+      return janela.getInt();
+    }
+
+    long getLong() throws IOException {
+      garante(Long.BYTES);
+      return janela.getLong();
+    }
+
+    @Override
+    public void close() throws IOException {
+      canal.close();
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package simulacao;
+
+import util.MapaLongInt;
+
+/**
+ * Conjunto de trabalho W(t, τ) de um processo: páginas referenciadas nas suas
+ * últimas τ referências (tempo virtual do processo).
+ *
+ * <p>
+ * As τ últimas páginas ficam em um vetor circular e um mapa conta quantas
+ * vezes cada página aparece na janela, de modo que cada referência custa O(1).
+ */
+final class ConjuntoTrabalho {
+  private final long[] janela;
+  private final MapaLongInt ocorrencias;
+  private int posicao;
+  private boolean cheia;
+  private int maximo;
+
+  ConjuntoTrabalho(int tau) {
+    this.janela = new long[tau];
+    this.ocorrencias = new MapaLongInt(tau + 1);
+  }
+
+  /**
+   * Registra a referência à página e desliza a janela.
+   *
+   * @return página que deixou o conjunto de trabalho ou -1
+   */
+  long registra(long pagina) {
+    int n = ocorrencias.obtem(pagina);
+    ocorrencias.insere(pagina, n == -1 ? 1 : n + 1);
+    long saiu = -1;
+    if (cheia) {
+      // a nova página já foi contada: se for a mesma que sai, continua presente
+      long antiga = janela[posicao];
+      int restantes = ocorrencias.obtem(antiga) - 1;
+      if (restantes == 0) {
+        ocorrencias.remove(antiga);
+        saiu = antiga;
+      } else {
+        ocorrencias.insere(antiga, restantes);
+      }
+    }
+    janela[posicao] = pagina;
+    if (++posicao == janela.length) {
+      posicao = 0;
+      cheia = true;
+    }
+    maximo = Math.max(maximo, ocorrencias.tamanho());
+    return saiu;
+  }
+
+  /** @return páginas distintas na janela. */
+  int getTamanho() {
+    return ocorrencias.tamanho();
+  }
+
+  /** @return maior tamanho já observado. */
+  int getMaximo() {
+    return maximo;
+  }
+}
@@ -0,0 +1,198 @@
+package simulacao;
+
+import config.Configuracao;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import memory.DispositivoSwap;
+import memory.MemoriaFisica;
+import util.ListasIntrusivas;
+
+/**
+ * Páginas sujas, dispositivo de swap e daemon de write-back do
+ * {@link MotorSimulacao}.
+ *
+ * <p>
+ * Uma escrita liga o bit de sujeira da entrada da tabela de páginas e põe a
+ * moldura no fim da fila de sujas. Substituir uma moldura suja obriga a falta
+ * a esperar a gravação da vítima; a página que faltou é lida do swap se já foi
+ * gravada lá. A cada {@code intervaloWriteBack} referências o daemon grava de
+ * uma vez as {@code loteWriteBack} molduras sujas há mais tempo, de modo que
+ * as substituições encontrem páginas limpas. Essas gravações ocupam o
+ * dispositivo, mas não atrasam nenhuma falta.
+ */
+final class GerenciadorSwap implements Closeable {
+  private final MotorSimulacao motor;
+  private final MemoriaFisica memoria;
+  private final DispositivoSwap dispositivo;
+  private final String arquivo;
+  private final boolean[] suja;
+  /** Molduras sujas, da mais recente (início) para a mais antiga. */
+  private final ListasIntrusivas sujas;
+  private final int lote;
+  private final int intervalo;
+  private final int bitsDeslocamento;
+  private final int latenciaFalta;
+  private final int frequenciaMHz;
+  private final long[] chavesLote;
+
+  private long faltas;
+  private long leiturasAntecipadas;
+  private long faltasComLeitura;
+  private long ciclosServico;
+  private long maiorCicloServico;
+  private long substituicoes;
+  private long substituicoesSujas;
+  private long ciclosEspera;
+  private long rodadasDaemon;
+  private long paginasDaemon;
+  private long paginasLiberadas;
+
+  GerenciadorSwap(Configuracao config, MotorSimulacao motor, MemoriaFisica memoria)
+      throws IOException {
+    this.motor = motor;
+    this.memoria = memoria;
+    this.arquivo = config.getArquivoSwap();
+    this.dispositivo = new DispositivoSwap(arquivo, config.getTamanhoPagina(),
+        config.getLatenciaSwapUs(), config.getBandaSwapMBps(), config.getFrequenciaCPUMHz());
+    this.suja = new boolean[memoria.getNumeroMolduras()];
+    this.sujas = new ListasIntrusivas(memoria.getNumeroMolduras(), 1);
+    this.lote = config.getLoteWriteBack();
+    this.intervalo = config.getIntervaloWriteBack();
+    this.bitsDeslocamento = config.getBitsDeslocamentoPagina();
+    this.latenciaFalta = config.getLatenciaFaltaPagina();
+    this.frequenciaMHz = config.getFrequenciaCPUMHz();
+    this.chavesLote = new long[lote];
+  }
+
+  /** A referência do processo à página na moldura foi uma escrita. */
+  void registraEscrita(Processo p, long pagina, int moldura) {
+    if (suja[moldura] || memoria.isMolduraGrande(moldura)) {
+      return;
+    }
+    suja[moldura] = true;
+    sujas.insereInicio(0, moldura);
+    p.getTabela().setSuja(pagina, true);
+  }
+
+  private void limpa(int moldura) {
+    suja[moldura] = false;
+    sujas.remove(moldura);
+  }
+
+  /**
+   * A página do dono vai deixar a moldura: se estiver suja, é gravada no swap.
+   *
+   * @param substituicao true se a moldura foi escolhida para uma falta, que
+   *                     então espera a gravação
+   * @return ciclos que a falta espera
+   */
+  long despeja(Processo dono, long pagina, int moldura, boolean substituicao) {
+    if (substituicao) {
+      substituicoes++;
+    }
+    if (!suja[moldura]) {
+      return 0;
+    }
+    limpa(moldura);
+    chavesLote[0] = MotorSimulacao.chavePagina(dono.getPid(), pagina << bitsDeslocamento);
+    long ciclos = dispositivo.grava(chavesLote, 1);
+    if (!substituicao) {
+      paginasLiberadas++;
+      return 0;
+    }
+    substituicoesSujas++;
+    ciclosEspera += ciclos;
+    return ciclos;
+  }
+
+  /**
+   * A moldura recebe uma nova página; a marca de sujeira que restou de uma
+   * liberação feita fora do motor (promoção a página grande) é descartada.
+   *
+   * @param demanda false se a página foi antecipada (a leitura não atrasa falta alguma)
+   * @return ciclos para ler a página do swap (0 se ela nunca foi gravada)
+   */
+  long carrega(int moldura, long chave, boolean demanda) {
+    if (suja[moldura]) {
+      limpa(moldura);
+    }
+    long ciclos = dispositivo.le(chave);
+    if (ciclos > 0) {
+      if (demanda) {
+        faltasComLeitura++;
+      } else {
+        leiturasAntecipadas++;
+      }
+    }
+    return ciclos;
+  }
+
+  /** Contabiliza o tempo de E/S de uma falta já atendida. */
+  void registraFalta(long ciclos) {
+    faltas++;
+    ciclosServico += ciclos;
+    maiorCicloServico = Math.max(maiorCicloServico, ciclos);
+  }
+
+  /** Dispara o daemon de write-back a cada {@code intervalo} referências. */
+  void registraReferencia(long instante) {
+    if (intervalo > 0 && instante % intervalo == 0) {
+      writeBack();
+    }
+  }
+
+  private void writeBack() {
+    int n = 0;
+    int moldura;
+    while (n < lote && (moldura = sujas.ultimo(0)) != -1) {
+      limpa(moldura);
+      Processo dono = motor.getDono(moldura);
+      long pagina = motor.paginaNaMoldura(moldura);
+      if (pagina == -1) {
+        continue;
+      }
+      dono.getTabela().setSuja(pagina, false);
+      chavesLote[n++] = MotorSimulacao.chavePagina(dono.getPid(), pagina << bitsDeslocamento);
+    }
+    if (n > 0) {
+      dispositivo.grava(chavesLote, n);
+      rodadasDaemon++;
+      paginasDaemon += n;
+    }
+  }
+
+  private double microssegundos(double ciclos) {
+    return ciclos / frequenciaMHz;
+  }
+
+  /** Escreve tempo de atendimento das faltas, volume de write-back e esperas por páginas sujas. */
+  void imprimeEstatisticas(PrintWriter out) {
+    long bytesGravados = dispositivo.getPaginasGravadas() * dispositivo.getTamanhoPagina();
+    out.printf("SWAP ARQUIVO=%s SLOTS=%d PAGINAS_LIDAS=%d PAGINAS_GRAVADAS=%d BYTES_GRAVADOS=%d"
+        + " OPERACOES_GRAVACAO=%d CICLOS_DISPOSITIVO=%d%n", arquivo, dispositivo.getSlots(),
+        dispositivo.getPaginasLidas(), dispositivo.getPaginasGravadas(), bytesGravados,
+        dispositivo.getOperacoesGravacao(), dispositivo.getCiclosOcupado());
+    double mediaServico = faltas == 0 ? 0.0 : (double) ciclosServico / faltas + latenciaFalta;
+    out.printf(Locale.ROOT, "FALTAS_SWAP FALTAS=%d LIDAS_DO_SWAP=%d CICLOS_E_S=%d"
+        + " TEMPO_MEDIO_ATENDIMENTO_US=%.3f TEMPO_MAXIMO_ATENDIMENTO_US=%.3f", faltas,
+        faltasComLeitura, ciclosServico, microssegundos(mediaServico),
+        microssegundos(faltas == 0 ? 0 : maiorCicloServico + latenciaFalta));
+    if (leiturasAntecipadas > 0) {
+      out.printf(" LIDAS_ANTECIPADAS=%d", leiturasAntecipadas);
+    }
+    out.println();
+    out.printf(Locale.ROOT, "WRITE_BACK RODADAS=%d PAGINAS_DAEMON=%d LOTE_MEDIO=%.1f"
+        + " PAGINAS_LIBERADAS=%d SUBSTITUICOES=%d SUBSTITUICOES_SUJAS=%d TAXA_ESPERA_SUJA=%.4f"
+        + " CICLOS_ESPERA=%d%n", rodadasDaemon, paginasDaemon,
+        rodadasDaemon == 0 ? 0.0 : (double) paginasDaemon / rodadasDaemon, paginasLiberadas,
+        substituicoes, substituicoesSujas,
+        substituicoes == 0 ? 0.0 : (double) substituicoesSujas / substituicoes, ciclosEspera);
+  }
+
+  @Override
+  public void close() throws IOException {
+    dispositivo.close();
+  }
+}
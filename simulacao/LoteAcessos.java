@@ -0,0 +1,32 @@
+package simulacao;
+
+/**
+ * Bloco de referências que circula entre as etapas do pipeline. Os vetores são
+ * alocados uma vez e reaproveitados a cada volta.
+ */
+final class LoteAcessos {
+  final long[] enderecos;
+  final byte[] tipos;
+  final int[] processos;
+  final int[] molduras;
+  final byte[] segmentos;
+  final boolean[] acertosTLB;
+  int tamanho;
+  /** Número (instante) do primeiro acesso do lote. */
+  long primeiroInstante;
+  /** Marca o último lote do trace. */
+  boolean ultimo;
+
+  LoteAcessos(int capacidade) {
+    this.enderecos = new long[capacidade];
+    this.tipos = new byte[capacidade];
+    this.processos = new int[capacidade];
+    this.molduras = new int[capacidade];
+    this.segmentos = new byte[capacidade];
+    this.acertosTLB = new boolean[capacidade];
+  }
+
+  int capacidade() {
+    return enderecos.length;
+  }
+}
@@ -0,0 +1,318 @@
+package simulacao;
+
+import config.Configuracao;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import memory.MemoriaFisica;
+import mmu.HierarquiaTLB;
+import model.TipoSegmento;
+
+/**
+ * Amostras periódicas dos contadores do {@link MotorSimulacao}, para
+ * acompanhar simulações longas enquanto rodam.
+ *
+ * <p>
+ * No caminho quente só são incrementados os contadores por segmento; os
+ * totais (acertos e falhas de TLB, caminhadas, substituições e esgotamentos
+ * da memória, cópias na escrita) já são mantidos pela {@link HierarquiaTLB}, pelas tabelas de
+ * páginas e pela {@link MemoriaFisica} e são lidos apenas a cada amostra. Cada
+ * amostra vira uma linha do CSV com os valores do intervalo e é publicada,
+ * imutável, para o MBean {@code simulador:type=MetricasSimulacao}, que pode
+ * ser lido de outra thread sem sincronizar com a simulação.
+ */
+public final class MetricasSimulacao implements MetricasSimulacaoMXBean, Closeable {
+  /** Acessos entre publicações quando só o JMX está ativo. */
+  static final long INTERVALO_JMX = 1 << 16;
+
+  private static final AtomicInteger INSTANCIAS = new AtomicInteger();
+  private static final TipoSegmento[] SEGMENTOS = TipoSegmento.values();
+
+  // posições de cada contador nos vetores das amostras
+  private static final int ACESSOS = 0;
+  private static final int ACERTOS_TLB = 1;
+  private static final int FALHAS_TLB = 2;
+  private static final int CAMINHADAS = 3;
+  private static final int FALTAS = 4;
+  private static final int SUBSTITUICOES = 5;
+  private static final int ESGOTAMENTOS = 6;
+  private static final int QUEBRAS_COW = 7;
+  private static final int POR_SEGMENTO = 8;
+  private static final int TOTAL_CONTADORES = POR_SEGMENTO + 3 * SEGMENTOS.length;
+
+  private final MotorSimulacao motor;
+  private final HierarquiaTLB tlb;
+  private final MemoriaFisica memoria;
+  private final long intervalo;
+  private final PrintWriter csv;
+  private final String arquivo;
+  private ObjectName nome;
+
+  private final long[] acessosSegmento = new long[SEGMENTOS.length];
+  private final long[] acertosSegmento = new long[SEGMENTOS.length];
+  private final long[] faltasSegmento = new long[SEGMENTOS.length];
+  private long proximaAmostra;
+  private long[] anteriores = new long[TOTAL_CONTADORES];
+  private long amostras;
+
+  /** Contadores acumulados e do último intervalo, publicados juntos. */
+  private static final class Amostra {
+    final long[] totais;
+    final long[] intervalo;
+    final int moldurasLivres;
+
+    Amostra(long[] totais, long[] intervalo, int moldurasLivres) {
+      this.totais = totais;
+      this.intervalo = intervalo;
+      this.moldurasLivres = moldurasLivres;
+    }
+  }
+
+  private volatile Amostra ultima =
+      new Amostra(new long[TOTAL_CONTADORES], new long[TOTAL_CONTADORES], 0);
+  private volatile long amostrasPublicadas;
+
+  MetricasSimulacao(Configuracao config, MotorSimulacao motor, HierarquiaTLB tlb,
+      MemoriaFisica memoria) throws IOException {
+    this.motor = motor;
+    this.tlb = tlb;
+    this.memoria = memoria;
+    this.intervalo = config.getIntervaloMetricas() > 0 ? config.getIntervaloMetricas()
+        : INTERVALO_JMX;
+    this.proximaAmostra = intervalo;
+    this.arquivo = config.getArquivoMetricas();
+    if (arquivo != null) {
+      csv = new PrintWriter(new BufferedWriter(new FileWriter(arquivo)));
+      csv.print("instante,acessos,acertosTLB,falhasTLB,taxaAcertoTLB,caminhadas,faltasPagina,"
+          + "substituicoes,esgotamentos,moldurasLivres");
+      for (TipoSegmento s : SEGMENTOS) {
+        csv.printf(",acessos_%s,acertosTLB_%s,faltas_%s", s, s, s);
+      }
+      csv.println(",quebrasCOW");
+    } else {
+      csv = null;
+    }
+    if (config.isJmxMetricas()) {
+      registraMBean();
+    }
+  }
+
+  private void registraMBean() {
+    try {
+      MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+      nome = new ObjectName("simulador:type=MetricasSimulacao,id="
+          + INSTANCIAS.incrementAndGet());
+      servidor.registerMBean(this, nome);
+    } catch (JMException e) {
+      throw new IllegalStateException("Falha ao registrar o MBean das métricas", e);
+    }
+  }
+
+  /**
+   * Contabiliza um acesso já traduzido e, ao fim de cada intervalo, tira uma
+   * amostra.
+   *
+   * @param instante acessos traduzidos até agora, contando este
+   */
+  void registra(long instante, TipoSegmento segmento, boolean acertoTLB, boolean falta) {
+    int s = segmento.ordinal();
+    acessosSegmento[s]++;
+    if (acertoTLB) {
+      acertosSegmento[s]++;
+    }
+    if (falta) {
+      faltasSegmento[s]++;
+    }
+    if (instante >= proximaAmostra) {
+      proximaAmostra = instante + intervalo;
+      amostra();
+    }
+  }
+
+  /** Passa a amostrar a partir do instante restaurado de um checkpoint. */
+  void reinicia(long instante) {
+    proximaAmostra = instante + intervalo;
+    anteriores[ACESSOS] = instante;
+  }
+
+  /** Lê os contadores, grava a linha do intervalo e publica a amostra. */
+  private void amostra() {
+    long[] totais = new long[TOTAL_CONTADORES];
+    long acertos = tlb.getServidasL1() + tlb.getServidasL2();
+    totais[ACESSOS] = motor.getInstante();
+    totais[ACERTOS_TLB] = acertos;
+    totais[FALHAS_TLB] = tlb.getTraducoes() - acertos;
+    totais[CAMINHADAS] = motor.getCaminhadas();
+    totais[SUBSTITUICOES] = memoria.getSubstituicoes();
+    totais[ESGOTAMENTOS] = memoria.getEsgotamentos();
+    totais[QUEBRAS_COW] = motor.getQuebrasCopiaNaEscrita();
+    for (int s = 0; s < SEGMENTOS.length; s++) {
+      totais[POR_SEGMENTO + 3 * s] = acessosSegmento[s];
+      totais[POR_SEGMENTO + 3 * s + 1] = acertosSegmento[s];
+      totais[POR_SEGMENTO + 3 * s + 2] = faltasSegmento[s];
+      totais[FALTAS] += faltasSegmento[s];
+    }
+    long[] doIntervalo = new long[TOTAL_CONTADORES];
+    for (int i = 0; i < TOTAL_CONTADORES; i++) {
+      doIntervalo[i] = totais[i] - anteriores[i];
+    }
+    anteriores = totais;
+    int livres = memoria.getMoldurasLivres();
+    if (csv != null) {
+      escreveLinha(totais[ACESSOS], doIntervalo, livres);
+    }
+    amostras++;
+    ultima = new Amostra(totais, doIntervalo, livres);
+    amostrasPublicadas = amostras;
+  }
+
+  private void escreveLinha(long instante, long[] v, int livres) {
+    csv.printf(Locale.ROOT, "%d,%d,%d,%d,%.4f,%d,%d,%d,%d,%d", instante, v[ACESSOS],
+        v[ACERTOS_TLB], v[FALHAS_TLB], taxa(v[ACERTOS_TLB], v[ACERTOS_TLB] + v[FALHAS_TLB]),
+        v[CAMINHADAS], v[FALTAS], v[SUBSTITUICOES], v[ESGOTAMENTOS], livres);
+    for (int i = POR_SEGMENTO; i < TOTAL_CONTADORES; i++) {
+      csv.print(',');
+      csv.print(v[i]);
+    }
+    csv.print(',');
+    csv.println(v[QUEBRAS_COW]);
+  }
+
+  private static double taxa(long parte, long total) {
+    return total == 0 ? 0.0 : (double) parte / total;
+  }
+
+  /** Escreve a linha de resumo das métricas no relatório. */
+  void imprimeEstatisticas(PrintWriter out) {
+    out.printf("METRICAS AMOSTRAS=%d INTERVALO=%d ARQUIVO=%s JMX=%s%n", amostras + pendente(),
+        intervalo, arquivo, nome == null ? "-" : nome);
+  }
+
+  /** @return 1 se há acessos depois da última amostra (fechados em {@link #close()}). */
+  private int pendente() {
+    return motor.getInstante() > anteriores[ACESSOS] ? 1 : 0;
+  }
+
+  /** Tira a amostra do intervalo incompleto, fecha o CSV e remove o MBean. */
+  @Override
+  public void close() throws IOException {
+    if (pendente() == 1) {
+      amostra();
+    }
+    if (csv != null) {
+      csv.close();
+      if (csv.checkError()) {
+        throw new IOException("Falha ao gravar " + arquivo);
+      }
+    }
+    if (nome != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(nome);
+      } catch (JMException e) {
+        throw new IOException("Falha ao remover o MBean das métricas", e);
+      }
+      nome = null;
+    }
+  }
+
+  private Map<String, Long> porSegmento(int deslocamento) {
+    long[] totais = ultima.totais;
+    Map<String, Long> mapa = new LinkedHashMap<>();
+    for (int s = 0; s < SEGMENTOS.length; s++) {
+      mapa.put(SEGMENTOS[s].name(), totais[POR_SEGMENTO + 3 * s + deslocamento]);
+    }
+    return mapa;
+  }
+
+  @Override
+  public long getAmostras() {
+    return amostrasPublicadas;
+  }
+
+  @Override
+  public long getAcessos() {
+    return ultima.totais[ACESSOS];
+  }
+
+  @Override
+  public long getAcertosTLB() {
+    return ultima.totais[ACERTOS_TLB];
+  }
+
+  @Override
+  public long getFalhasTLB() {
+    return ultima.totais[FALHAS_TLB];
+  }
+
+  @Override
+  public double getTaxaAcertoTLB() {
+    long[] t = ultima.totais;
+    return taxa(t[ACERTOS_TLB], t[ACERTOS_TLB] + t[FALHAS_TLB]);
+  }
+
+  @Override
+  public double getTaxaAcertoTLBIntervalo() {
+    long[] v = ultima.intervalo;
+    return taxa(v[ACERTOS_TLB], v[ACERTOS_TLB] + v[FALHAS_TLB]);
+  }
+
+  @Override
+  public long getCaminhadas() {
+    return ultima.totais[CAMINHADAS];
+  }
+
+  @Override
+  public long getFaltasPagina() {
+    return ultima.totais[FALTAS];
+  }
+
+  @Override
+  public long getFaltasPaginaIntervalo() {
+    return ultima.intervalo[FALTAS];
+  }
+
+  @Override
+  public long getSubstituicoes() {
+    return ultima.totais[SUBSTITUICOES];
+  }
+
+  @Override
+  public long getEsgotamentosMolduras() {
+    return ultima.totais[ESGOTAMENTOS];
+  }
+
+  @Override
+  public long getQuebrasCopiaNaEscrita() {
+    return ultima.totais[QUEBRAS_COW];
+  }
+
+  @Override
+  public int getMoldurasLivres() {
+    return ultima.moldurasLivres;
+  }
+
+  @Override
+  public Map<String, Long> getAcessosPorSegmento() {
+    return porSegmento(0);
+  }
+
+  @Override
+  public Map<String, Long> getAcertosTLBPorSegmento() {
+    return porSegmento(1);
+  }
+
+  @Override
+  public Map<String, Long> getFaltasPorSegmento() {
+    return porSegmento(2);
+  }
+}
@@ -0,0 +1,49 @@
+package simulacao;
+
+import java.util.Map;
+
+/**
+ * Contadores de uma simulação em andamento, publicados via JMX por
+ * {@link MetricasSimulacao}. Os valores são os da última amostra (a cada
+ * {@code intervaloMetricas} acessos); os sufixos {@code Intervalo} se referem
+ * só aos acessos entre as duas últimas amostras.
+ */
+public interface MetricasSimulacaoMXBean {
+
+  /** @return amostras publicadas até agora. */
+  long getAmostras();
+
+  long getAcessos();
+
+  long getAcertosTLB();
+
+  long getFalhasTLB();
+
+  double getTaxaAcertoTLB();
+
+  double getTaxaAcertoTLBIntervalo();
+
+  /** @return caminhadas na tabela de páginas (falhas de TLB servidas pela tabela). */
+  long getCaminhadas();
+
+  long getFaltasPagina();
+
+  long getFaltasPaginaIntervalo();
+
+  /** @return vítimas escolhidas pela política de substituição. */
+  long getSubstituicoes();
+
+  /** @return vezes em que a última moldura livre foi entregue. */
+  long getEsgotamentosMolduras();
+
+  /** @return escritas que copiaram uma página compartilhada por fork. */
+  long getQuebrasCopiaNaEscrita();
+
+  int getMoldurasLivres();
+
+  Map<String, Long> getAcessosPorSegmento();
+
+  Map<String, Long> getAcertosTLBPorSegmento();
+
+  Map<String, Long> getFaltasPorSegmento();
+}
@@ -0,0 +1,1017 @@
+package simulacao;
+
+import config.Configuracao;
+import config.LayoutSegmentos;
+import config.Segmento;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import memory.MemoriaFisica;
+import memory.Prefetcher;
+import memory.PoliticaParticionada;
+import memory.PoliticaSubstituicao;
+import mmu.CachePaginacao;
+import mmu.HierarquiaTLB;
+import mmu.ModeloLatencia;
+import mmu.PromotorPaginasGrandes;
+import mmu.TabelaPaginas;
+import model.EstrategiaAlocacao;
+import model.ModoTrocaContexto;
+import model.TipoAcesso;
+import model.TipoPrefetch;
+import model.TipoPoliticaSubstituicao;
+import model.TipoSegmento;
+import model.TratamentoViolacao;
+import relatorio.RelatorioSimulacao;
+import trace.LeitorTrace;
+import trace.SequenciasPagina;
+import util.MapaLongInt;
+
+/**
+ * Estado completo de uma simulação (TLBs, tabelas de páginas, memória física e
+ * modelos auxiliares) e a tradução de um endereço virtual por vez.
+ *
+ * <p>
+ * {@link #traduz(long, int)} devolve o endereço físico e deixa os demais
+ * campos da tradução (VPN, segmento, moldura, acerto na TLB) disponíveis nos
+ * getters até a próxima chamada. As traduções precisam ser feitas na ordem do
+ * trace e por uma única thread.
+ *
+ * <p>
+ * Cada processo do trace ganha, ao aparecer, um {@link Processo} com tabela de
+ * páginas e layout próprios; as molduras físicas e as TLBs são compartilhadas.
+ * Quando o processo muda, as TLBs são esvaziadas (modo FLUSH) ou passam a usar
+ * o ASID do novo processo (modo ASID). Os ASIDs são atribuídos em rodízio e,
+ * quando se esgotam, o mais antigo é tomado de outro processo e suas entradas
+ * são invalidadas.
+ *
+ * <p>
+ * A divisão das molduras entre os processos (global, cotas, conjunto de
+ * trabalho ou PFF) fica a cargo de {@link AlocacaoMolduras}. Com um arquivo de
+ * swap configurado, {@link GerenciadorSwap} acompanha as páginas escritas e
+ * cobra a E/S das faltas; o motor deve então ser fechado ao final.
+ *
+ * <p>
+ * Com prefetch configurado, cada falta de página consulta o {@link Prefetcher}
+ * do processo e carrega as páginas sugeridas com a menor prioridade na
+ * política de substituição; {@link AntecipacaoPaginas} mede o resultado.
+ *
+ * <p>
+ * Com {@code intervaloMetricas} ou {@code jmxMetricas} configurados,
+ * {@link MetricasSimulacao} amostra os contadores durante a simulação.
+ *
+ * <p>
+ * Com {@code violacaoSegmento} diferente de IGNORA, cada acesso é conferido
+ * contra os segmentos do processo: endereços fora de todos eles e acessos sem
+ * a permissão do segmento são violações, e os segmentos que crescem acompanham
+ * os acessos à área reservada (ver {@link LayoutSegmentos#registraAcesso}).
+ *
+ * <p>
+ * Registros F do trace executam {@link #fork(int, int)}: o filho começa com
+ * as mesmas páginas do pai, compartilhando as molduras, e a primeira escrita
+ * de qualquer um dos dois em uma página compartilhada a copia para uma
+ * moldura nova (copy-on-write).
+ *
+ * <p>
+ * O estado pode ser gravado em um checkpoint e restaurado em um motor novo
+ * (ver {@link #gravaCheckpoint} e {@link #restauraCheckpoint}).
+ */
+public class MotorSimulacao implements Closeable {
+  private final Configuracao config;
+  private final HierarquiaTLB tlb;
+  private final ModeloLatencia latencia;
+  private final MemoriaFisica memoria;
+  private final int tamanhoPagina;
+  private final int bitsDeslocamento;
+  private final ModoTrocaContexto modoTroca;
+  private final TratamentoViolacao violacaoSegmento;
+  private final AlocacaoMolduras alocacao;
+  private final GerenciadorSwap swap;
+  private final AntecipacaoPaginas antecipacao;
+  private final MetricasSimulacao metricas;
+  private final long[] candidatos;
+  private final long[] paginasAntecipadas;
+  private final int[] moldurasAntecipadas;
+
+  private final Map<Integer, Processo> processos = new TreeMap<>();
+  private final Processo[] donoPorMoldura;
+  /** Demais processos que mapeiam cada moldura compartilhada por fork. */
+  private final Map<Integer, List<Processo>> outrosDonos = new HashMap<>();
+  private long forks;
+  private long quebrasCopiaNaEscrita;
+  private long copiasEvitadas;
+  private final Processo[] donoPorASID;
+  private int proximoASID;
+  private long trocasContexto;
+  private long asidsReciclados;
+  private Processo atual;
+
+  private long instante;
+  private long paginaVirtual;
+  private int deslocamento;
+  private TipoSegmento segmento;
+  private int moldura;
+  private boolean tlbHit;
+  private boolean falta;
+
+  /** Monta os componentes descritos na configuração. */
+  public MotorSimulacao(Configuracao config) throws IOException {
+    this(config, config.getPoliticaSubstituicao() == TipoPoliticaSubstituicao.OPT
+        ? lerSequenciaPaginas(config)
+        : null);
+  }
+
+  /**
+   * Igual a {@link #MotorSimulacao(Configuracao)}, recebendo já calculada a
+   * sequência de chaves de página exigida pela política OPT (ver
+   * {@link #sequenciaPaginas}).
+   */
+  public MotorSimulacao(Configuracao config, long[] sequenciaFutura) {
+    if (config.getArquivoCheckpoint() != null || config.getRestauraCheckpoint() != null) {
+      Checkpoint.verificaSuporte(config);
+    }
+    this.config = config;
+    this.tlb = new HierarquiaTLB(config);
+    this.latencia = new ModeloLatencia(config);
+    int numeroMolduras = config.getNumeroMoldurasFisicas();
+    PoliticaSubstituicao politica;
+    PoliticaParticionada particoes = null;
+    if (config.getAlocacaoMolduras() == EstrategiaAlocacao.GLOBAL) {
+      politica = PoliticaSubstituicao.cria(config.getPoliticaSubstituicao(), numeroMolduras,
+          sequenciaFutura);
+    } else {
+      particoes = new PoliticaParticionada(config.getPoliticaSubstituicao(), numeroMolduras,
+          sequenciaFutura);
+      politica = particoes;
+    }
+    this.memoria = new MemoriaFisica(numeroMolduras, politica);
+    if (config.getMoldurasGrandes() > 0) {
+      int paginasPorBloco =
+          1 << new TabelaPaginas(config).getBitsPaginaGrande(config.getNivelPaginaGrande());
+      memoria.reservaMoldurasGrandes(config.getMoldurasGrandes(), paginasPorBloco);
+    }
+    this.tamanhoPagina = config.getTamanhoPagina();
+    this.bitsDeslocamento = config.getBitsDeslocamentoPagina();
+    this.modoTroca = config.getModoTrocaContexto();
+    this.violacaoSegmento = config.getViolacaoSegmento();
+    this.donoPorMoldura = new Processo[numeroMolduras];
+    this.donoPorASID = new Processo[1 << config.getBitsASID()];
+    this.alocacao = particoes != null || config.getJanelaConjuntoTrabalho() > 0
+        ? new AlocacaoMolduras(config, this, memoria, particoes)
+        : null;
+    try {
+      this.swap = config.getArquivoSwap() != null ? new GerenciadorSwap(config, this, memoria)
+          : null;
+      this.metricas = config.getIntervaloMetricas() > 0 || config.isJmxMetricas()
+          ? new MetricasSimulacao(config, this, tlb, memoria)
+          : null;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    int profundidade = config.getProfundidadePrefetch();
+    this.antecipacao = config.getPrefetch() != TipoPrefetch.NENHUM
+        ? new AntecipacaoPaginas(config.getPrefetch(), profundidade, config.isPrefetchTLB(),
+            numeroMolduras)
+        : null;
+    this.candidatos = new long[profundidade];
+    this.paginasAntecipadas = new long[profundidade];
+    this.moldurasAntecipadas = new int[profundidade];
+  }
+
+  /** @return processo com o pid informado, criado na primeira referência. */
+  public Processo getProcesso(int pid) {
+    Processo p = processos.get(pid);
+    if (p == null) {
+      p = registraProcesso(pid, new LayoutSegmentos(config), new TabelaPaginas(config));
+    }
+    return p;
+  }
+
+  private Processo registraProcesso(int pid, LayoutSegmentos layout, TabelaPaginas tabela) {
+    if (config.isCachePaginacao()) {
+      tabela.setCachePaginacao(new CachePaginacao(config.getNiveisTabelaPaginas() - 1,
+          config.getEntradasCachePaginacao()));
+    }
+    PromotorPaginasGrandes promotor = config.getMoldurasGrandes() > 0
+        ? new PromotorPaginasGrandes(config, layout, tabela, memoria, tlb)
+        : null;
+    Processo p = new Processo(pid, layout, tabela, promotor);
+    p.prefetcher = Prefetcher.cria(config.getPrefetch(), config.getProfundidadePrefetch(),
+        config.getEntradasMarkov());
+    processos.put(pid, p);
+    if (alocacao != null) {
+      alocacao.registraProcesso(p);
+    }
+    return p;
+  }
+
+  /**
+   * Cria o processo {@code filho} como cópia do espaço de endereçamento de
+   * {@code pai} (registro F do trace): a tabela de páginas do filho compartilha
+   * as folhas e as molduras do pai, e as páginas mapeadas dos dois ficam
+   * marcadas para cópia na primeira escrita. O fork não conta como acesso.
+   *
+   * @throws IllegalStateException se o filho já existe ou a configuração usa
+   *         swap, alocação local, páginas grandes, OPT ou checkpoints
+   */
+  public void fork(int pai, int filho) {
+    if (swap != null || alocacao != null || config.getMoldurasGrandes() > 0
+        || config.getPoliticaSubstituicao() == TipoPoliticaSubstituicao.OPT
+        || config.getArquivoCheckpoint() != null || config.getRestauraCheckpoint() != null) {
+      throw new IllegalStateException("fork no trace não é suportado com swap, alocação local,"
+          + " páginas grandes, política OPT ou checkpoint");
+    }
+    if (filho < 0) {
+      throw new IllegalArgumentException("pid inválido no fork: " + filho);
+    }
+    if (processos.containsKey(filho)) {
+      throw new IllegalStateException("fork do processo " + pai + " para o pid " + filho
+          + ", que já existe");
+    }
+    Processo origem = getProcesso(pai);
+    Processo p = registraProcesso(filho, origem.getLayout().copia(),
+        origem.getTabela().fork());
+    p.getTabela().paraCadaMapeamento((vpn, m) -> {
+      memoria.compartilha(m);
+      outrosDonos.computeIfAbsent(m, k -> new ArrayList<>()).add(p);
+    });
+    forks++;
+  }
+
+  /** Coloca o processo em execução, tratando as TLBs conforme o modo de troca. */
+  private void trocaProcesso(int pid) {
+    Processo anterior = atual;
+    atual = getProcesso(pid);
+    if (anterior != null) {
+      trocasContexto++;
+      atual.trocasContexto++;
+    }
+    if (alocacao != null) {
+      alocacao.ativa(atual);
+    }
+    if (modoTroca == ModoTrocaContexto.FLUSH) {
+      if (anterior != null) {
+        // a troca da raiz da tabela descarta TLBs e cache de paginação
+        tlb.invalidaTudo();
+        if (atual.getTabela().getCachePaginacao() != null) {
+          atual.getTabela().getCachePaginacao().invalidaTudo();
+        }
+      }
+      return;
+    }
+    if (atual.asid == -1) {
+      atribuiASID(atual);
+    }
+    tlb.setASID(atual.asid);
+  }
+
+  private void atribuiASID(Processo p) {
+    int asid = proximoASID;
+    proximoASID = (proximoASID + 1) % donoPorASID.length;
+    Processo antigo = donoPorASID[asid];
+    if (antigo != null) {
+      antigo.asid = -1;
+      tlb.invalidaASID(asid);
+      asidsReciclados++;
+    }
+    donoPorASID[asid] = p;
+    p.asid = asid;
+  }
+
+  /** Traduz o próximo endereço do trace como leitura do processo 0. */
+  public long traduz(long enderecoVirtual) {
+    return traduz(enderecoVirtual, 0, false);
+  }
+
+  /** Traduz o próximo endereço do trace como leitura do processo informado. */
+  public long traduz(long enderecoVirtual, int pid) {
+    return traduz(enderecoVirtual, pid, TipoAcesso.LEITURA);
+  }
+
+  /**
+   * Traduz o próximo endereço do trace como leitura ou escrita.
+   *
+   * @param escrita true se a referência modifica a página (tipo W do trace)
+   */
+  public long traduz(long enderecoVirtual, int pid, boolean escrita) {
+    return traduz(enderecoVirtual, pid, escrita ? TipoAcesso.ESCRITA : TipoAcesso.LEITURA);
+  }
+
+  /**
+   * Traduz o próximo endereço do trace: TLB, tabela de páginas do processo e,
+   * em caso de falta de página, substituição na memória física compartilhada.
+   *
+   * @param tipo tipo da referência no trace (W modifica a página)
+   * @return endereço físico correspondente.
+   */
+  public long traduz(long enderecoVirtual, int pid, TipoAcesso tipo) {
+    executa(pid);
+    return traduz(enderecoVirtual, tipo, atual.getLayout().getSegmento(enderecoVirtual));
+  }
+
+  /** Coloca o processo em execução, se ainda não estiver. */
+  void executa(int pid) {
+    if (atual == null || atual.getPid() != pid) {
+      trocaProcesso(pid);
+    }
+  }
+
+  /**
+   * Traduz um endereço do processo em execução já classificado no segmento
+   * (ver {@link TradutorLote}).
+   */
+  long traduz(long enderecoVirtual, TipoAcesso tipo, TipoSegmento segmento) {
+    boolean escrita = tipo == TipoAcesso.ESCRITA;
+    Processo processo = atual;
+    TabelaPaginas tabela = processo.getTabela();
+    instante++;
+    processo.acessos++;
+
+    // Separa VPN e deslocamento conforme a configuração.
+    paginaVirtual = enderecoVirtual >>> bitsDeslocamento;
+    deslocamento = (int) (enderecoVirtual & (tamanhoPagina - 1));
+
+    this.segmento = segmento;
+    if (violacaoSegmento != TratamentoViolacao.IGNORA) {
+      verificaSegmento(processo, enderecoVirtual, tipo);
+    }
+    if (alocacao != null) {
+      alocacao.registraReferencia(processo, paginaVirtual, instante);
+    }
+
+    tlbHit = false;
+    falta = false;
+    moldura = tlb.lookup(paginaVirtual, segmento, instante);
+
+    if (moldura != -1) {
+      tlbHit = true;
+      processo.acertosTLB++;
+      memoria.atualizaAcesso(moldura, instante);
+    } else {
+      if (processo.getPromotor() != null) {
+        processo.getPromotor().registraFalhaTLB(paginaVirtual, segmento, instante);
+      }
+      moldura = tabela.obtemMoldura(paginaVirtual);
+      int bitsPaginaTraduzida = tabela.getBitsPaginaUltimaCaminhada();
+      if (moldura == -1) {
+        falta = true;
+        latencia.registraFalta();
+        processo.faltasPagina++;
+
+        // Endereço virtual completo (início da página) que ocupará a moldura
+        long enderecoInicioPagina = paginaVirtual << bitsDeslocamento;
+        long chave = chavePagina(processo.getPid(), enderecoInicioPagina);
+        if (antecipacao != null) {
+          antecipacao.registraFalta(chave);
+        }
+        int molduraSelecionada = alocacao == null
+            ? memoria.selecionaMolduraParaUso(instante, chave)
+            : alocacao.selecionaMoldura(processo, instante, chave);
+        long ciclosSwap = instala(processo, paginaVirtual, molduraSelecionada, chave, false);
+        moldura = molduraSelecionada;
+        bitsPaginaTraduzida = 0;
+        if (swap != null) {
+          swap.registraFalta(ciclosSwap);
+          latencia.registraCiclosSwap(ciclosSwap);
+        }
+        if (processo.prefetcher != null) {
+          antecipa(processo, chave);
+        }
+      } else {
+        memoria.atualizaAcesso(moldura, instante);
+      }
+
+      tlb.insereOuAtualiza(paginaVirtual, moldura, bitsPaginaTraduzida, segmento, instante);
+    }
+    if (escrita && forks > 0 && tabela.isCopiaNaEscrita(paginaVirtual)) {
+      quebraCopiaNaEscrita(processo);
+    }
+    if (alocacao != null) {
+      alocacao.registraUso(processo, moldura);
+    }
+    if (antecipacao != null) {
+      antecipacao.registraUso(moldura);
+    }
+    if (metricas != null) {
+      metricas.registra(instante, segmento, tlbHit, falta);
+    }
+    if (swap != null) {
+      if (escrita) {
+        swap.registraEscrita(processo, paginaVirtual, moldura);
+      }
+      swap.registraReferencia(instante);
+    }
+
+    return ((long) moldura << bitsDeslocamento) | (long) deslocamento;
+  }
+
+  /**
+   * Trata a escrita do processo em execução na página compartilhada da última
+   * tradução: se outro processo ainda mapeia a moldura, a página é copiada
+   * para uma moldura nova; senão a escrita é só liberada.
+   */
+  private void quebraCopiaNaEscrita(Processo processo) {
+    TabelaPaginas tabela = processo.getTabela();
+    int compartilhada = moldura;
+    if (memoria.getReferencias(compartilhada) == 1) {
+      tabela.liberaEscrita(paginaVirtual);
+      copiasEvitadas++;
+      return;
+    }
+    quebrasCopiaNaEscrita++;
+    processo.quebrasCopiaNaEscrita++;
+    memoria.liberaReferencia(compartilhada);
+    List<Processo> outros = outrosDonos.get(compartilhada);
+    if (donoPorMoldura[compartilhada] == processo) {
+      donoPorMoldura[compartilhada] = outros.remove(outros.size() - 1);
+    } else {
+      outros.remove(processo);
+    }
+    if (outros.isEmpty()) {
+      outrosDonos.remove(compartilhada);
+    }
+    tabela.desmapeiaPagina(paginaVirtual);
+    invalidaTraducao(processo, paginaVirtual);
+
+    long chave = chavePagina(processo.getPid(), paginaVirtual << bitsDeslocamento);
+    int nova = memoria.selecionaMolduraParaUso(instante, chave);
+    instala(processo, paginaVirtual, nova, chave, false);
+    moldura = nova;
+    tlb.insereOuAtualiza(paginaVirtual, moldura, 0, segmento, instante);
+  }
+
+  /**
+   * Confere o acesso contra os segmentos do processo, contabilizando a violação
+   * ou interrompendo a simulação conforme {@code violacaoSegmento}.
+   */
+  private void verificaSegmento(Processo processo, long enderecoVirtual, TipoAcesso tipo) {
+    LayoutSegmentos layout = processo.getLayout();
+    int i = layout.indice(enderecoVirtual);
+    if (i >= 0 && layout.permite(i, tipo)) {
+      layout.registraAcesso(i, enderecoVirtual);
+      return;
+    }
+    if (i < 0) {
+      processo.violacoesForaSegmento++;
+    } else {
+      processo.violacoesPermissao++;
+    }
+    if (violacaoSegmento == TratamentoViolacao.ABORTA) {
+      throw new IllegalStateException(String.format("Violação de segmento no acesso %d:"
+          + " processo %d, %s em 0x%x %s", instante, processo.getPid(), tipo, enderecoVirtual,
+          i < 0 ? "fora dos segmentos" : "no segmento " + layout.getNome(i) + " ("
+              + Segmento.textoPermissoes(layout.getPermissoes(i)) + ")"));
+    }
+  }
+
+  /**
+   * @return true se {@link #traduzSequencia} pode aplicar as repetições de uma
+   *         vez: sem swap, alocação local, métricas nem verificação de
+   *         segmentos, que acompanham cada referência individualmente.
+   */
+  public boolean isSequenciasExatas() {
+    return swap == null && alocacao == null && metricas == null
+        && violacaoSegmento == TratamentoViolacao.IGNORA;
+  }
+
+  /**
+   * Traduz uma sequência de referências do mesmo processo à mesma página,
+   * escrevendo uma linha por referência no relatório, com o mesmo resultado
+   * de traduzi-las uma a uma. Só a primeira (e a primeira após uma mudança de
+   * segmento dentro da página) passa pela TLB; as seguintes são acertos
+   * garantidos no nível 1 e são contabilizadas de uma vez. Depois de um fork,
+   * as escritas também passam pela tradução completa, que faz a cópia na
+   * escrita. Exige {@link #isSequenciasExatas()}.
+   */
+  public void traduzSequencia(SequenciasPagina sequencia, RelatorioSimulacao relatorio) {
+    int pid = sequencia.getProcesso();
+    long endereco = sequencia.getEndereco(0);
+    if (sequencia.isFork()) {
+      fork(pid, (int) endereco);
+      return;
+    }
+    traduz(endereco, pid, sequencia.getTipo(0));
+    registraUltimaTraducao(relatorio, endereco);
+    LayoutSegmentos layout = atual.getLayout();
+    long base = (long) moldura << bitsDeslocamento;
+    int repetidas = 0;
+    for (int i = 1; i < sequencia.getTamanho(); i++) {
+      endereco = sequencia.getEndereco(i);
+      if (layout.getSegmento(endereco) != segmento
+          || forks > 0 && sequencia.getTipo(i) == TipoAcesso.ESCRITA) {
+        repete(repetidas);
+        repetidas = 0;
+        traduz(endereco, pid, sequencia.getTipo(i));
+        registraUltimaTraducao(relatorio, endereco);
+        base = (long) moldura << bitsDeslocamento;
+        continue;
+      }
+      repetidas++;
+      long instanteAcesso = instante + repetidas;
+      if (relatorio.registraAcesso(instanteAcesso)) {
+        int d = (int) (endereco & (tamanhoPagina - 1));
+        relatorio.acesso(instanteAcesso, endereco, paginaVirtual, d, segmento, moldura,
+            base | d, true, pid);
+      }
+    }
+    repete(repetidas);
+    deslocamento = (int) (endereco & (tamanhoPagina - 1));
+  }
+
+  /** Aplica {@code vezes} acertos na TLB à página da última tradução. */
+  private void repete(int vezes) {
+    if (vezes == 0) {
+      return;
+    }
+    instante += vezes;
+    atual.acessos += vezes;
+    atual.acertosTLB += vezes;
+    tlb.registraAcertosRepetidos(paginaVirtual, segmento, vezes, instante);
+    memoria.atualizaAcessos(moldura, instante, vezes);
+    tlbHit = true;
+    falta = false;
+  }
+
+  /**
+   * Coloca a página do processo na moldura escolhida, desmapeando a página que
+   * a ocupava.
+   *
+   * @param antecipada true se a página vem do prefetch
+   * @return ciclos de swap que a falta espera (0 sem swap ou para antecipadas)
+   */
+  private long instala(Processo processo, long pagina, int m, long chave, boolean antecipada) {
+    Processo dono = donoPorMoldura[m];
+    long paginaAntiga = paginaNaMoldura(m);
+    long ciclosSwap = 0;
+    if (paginaAntiga != -1) {
+      // Desmapeia página antiga e invalida entrada na TLB
+      if (swap != null) {
+        ciclosSwap += swap.despeja(dono, paginaAntiga, m, !antecipada);
+      }
+      dono.getTabela().desmapeiaPagina(paginaAntiga);
+      invalidaTraducao(dono, paginaAntiga);
+      List<Processo> outros = outrosDonos.isEmpty() ? null : outrosDonos.remove(m);
+      if (outros != null) {
+        // a página ainda era compartilhada por fork: sai de todos os processos
+        for (Processo o : outros) {
+          // quem compartilha a moldura mapeia a página na mesma VPN
+          o.getTabela().desmapeiaPagina(paginaAntiga);
+          invalidaTraducao(o, paginaAntiga);
+        }
+      }
+      if (antecipacao != null) {
+        antecipacao.registraExpulsao(m,
+            chavePagina(dono.getPid(), paginaAntiga << bitsDeslocamento), antecipada);
+      }
+    }
+
+    processo.getTabela().mapeiaPagina(pagina, m);
+    donoPorMoldura[m] = processo;
+    long enderecoInicioPagina = pagina << bitsDeslocamento;
+    if (antecipada) {
+      memoria.setaConteudoAntecipado(m, enderecoInicioPagina, chave, instante);
+    } else {
+      memoria.setaConteudo(m, enderecoInicioPagina, chave, instante);
+    }
+    if (antecipacao != null) {
+      antecipacao.registraCarga(m, antecipada);
+    }
+    if (swap != null) {
+      ciclosSwap += swap.carrega(m, chave, !antecipada);
+    }
+    return antecipada ? 0 : ciclosSwap;
+  }
+
+  /**
+   * Carrega as páginas sugeridas pelo prefetcher após a falta da página
+   * atual, cuja moldura e chave já estão em {@link #moldura} e
+   * {@code chaveFalta}. Todas as molduras são escolhidas antes das cargas,
+   * para que uma página antecipada não expulse outra da mesma falta.
+   */
+  private void antecipa(Processo processo, long chaveFalta) {
+    TabelaPaginas tabela = processo.getTabela();
+    long limite = tabela.getNumeroPaginas();
+    int sugeridas = processo.prefetcher.sugere(paginaVirtual, segmento, candidatos);
+    int n = 0;
+    for (int i = 0; i < sugeridas; i++) {
+      long c = candidatos[i];
+      boolean repetida = false;
+      for (int j = 0; j < n && !repetida; j++) {
+        repetida = paginasAntecipadas[j] == c;
+      }
+      if (c < 0 || c >= limite || c == paginaVirtual || repetida
+          || tabela.consultaMoldura(c) != -1) {
+        antecipacao.registraDescarte();
+      } else {
+        paginasAntecipadas[n++] = c;
+      }
+    }
+
+    int prontas = 0;
+    while (prontas < n) {
+      long chave = chavePagina(processo.getPid(), paginasAntecipadas[prontas] << bitsDeslocamento);
+      int m = alocacao == null
+          ? memoria.selecionaMolduraParaUso(instante, chave)
+          : alocacao.selecionaMolduraAntecipada(processo, instante, chave);
+      if (m == moldura) {
+        // memória pequena demais: a política devolveu a página que acabou de faltar
+        memoria.setaConteudo(m, paginaVirtual << bitsDeslocamento, chaveFalta, instante);
+        for (int j = prontas; j < n; j++) {
+          antecipacao.registraDescarte();
+        }
+        break;
+      }
+      moldurasAntecipadas[prontas++] = m;
+    }
+
+    for (int i = 0; i < prontas; i++) {
+      long pagina = paginasAntecipadas[i];
+      long inicio = pagina << bitsDeslocamento;
+      int m = moldurasAntecipadas[i];
+      instala(processo, pagina, m, chavePagina(processo.getPid(), inicio), true);
+      if (antecipacao.isNaTLB()) {
+        tlb.insereOuAtualiza(pagina, m, 0, processo.getLayout().getSegmento(inicio), instante);
+      }
+    }
+  }
+
+  /** Remove das TLBs a tradução de uma página desmapeada do processo dono. */
+  private void invalidaTraducao(Processo dono, long pagina) {
+    if (modoTroca == ModoTrocaContexto.FLUSH) {
+      // só o processo em execução pode ter entradas nas TLBs
+      if (dono == atual) {
+        tlb.invalidaEntrada(pagina);
+      }
+    } else if (dono.asid != -1) {
+      tlb.invalidaEntrada(pagina, dono.asid);
+    }
+  }
+
+  /**
+   * Devolve à memória a moldura de uma página base do processo (páginas
+   * grandes não são liberadas).
+   *
+   * @return true se a página estava mapeada e foi liberada
+   */
+  boolean liberaPagina(Processo dono, long pagina) {
+    int m = dono.getTabela().consultaMoldura(pagina);
+    if (m == -1 || memoria.isMolduraGrande(m)) {
+      return false;
+    }
+    if (swap != null) {
+      swap.despeja(dono, pagina, m, false);
+    }
+    if (antecipacao != null) {
+      antecipacao.registraExpulsao(m, chavePagina(dono.getPid(), pagina << bitsDeslocamento),
+          false);
+    }
+    dono.getTabela().desmapeiaPagina(pagina);
+    invalidaTraducao(dono, pagina);
+    memoria.liberaMoldura(m);
+    donoPorMoldura[m] = null;
+    return true;
+  }
+
+  /**
+   * VPN da página que o dono mapeia na moldura, lida do conteúdo da memória
+   * física (a mesma VPN em todos os processos que a compartilham).
+   *
+   * @return VPN ou -1 se a moldura está livre ou sem dono
+   */
+  long paginaNaMoldura(int moldura) {
+    long conteudo = memoria.getConteudoMolduras()[moldura];
+    return donoPorMoldura[moldura] == null || conteudo == -1 ? -1
+        : conteudo >>> bitsDeslocamento;
+  }
+
+  /** @return processo que carregou a página atual da moldura ou null. */
+  Processo getDono(int moldura) {
+    return donoPorMoldura[moldura];
+  }
+
+  /**
+   * Chave da página para a política de substituição: o endereço de início,
+   * misturado ao pid para distinguir processos (o processo 0 usa o endereço).
+   */
+  public static long chavePagina(int pid, long enderecoInicioPagina) {
+    return enderecoInicioPagina ^ MapaLongInt.espalha(pid);
+  }
+
+  /** Escreve a linha da última tradução no relatório (se o nível a seleciona). */
+  public void registraUltimaTraducao(RelatorioSimulacao relatorio, long enderecoVirtual) {
+    relatorio.acesso(instante, enderecoVirtual, paginaVirtual, deslocamento, segmento, moldura,
+        ((long) moldura << bitsDeslocamento) | (long) deslocamento, tlbHit, atual.getPid());
+  }
+
+  /** @return true se o relatório deve separar os processos. */
+  private boolean isVariosProcessos() {
+    return processos.size() > 1 || !processos.containsKey(0);
+  }
+
+  /** Escreve as tabelas de páginas, as molduras e as estatísticas finais. */
+  public void imprimeResumo(RelatorioSimulacao relatorio) {
+    if (processos.isEmpty()) {
+      getProcesso(0);
+    }
+    boolean varios = isVariosProcessos();
+    for (Processo p : processos.values()) {
+      if (varios) {
+        relatorio.imprimeTabela(p.getTabela(), p.getPid());
+      } else {
+        relatorio.imprimeTabela(p.getTabela());
+      }
+    }
+    relatorio.imprimeMolduras(memoria);
+
+    PrintWriter out = relatorio.getSaida();
+    out.println();
+    out.println("=== ESTATISTICAS DE TRADUCAO ===");
+    relatorio.imprimeEstatisticas();
+    tlb.imprimeEstatisticas(out);
+    latencia.imprimeEstatisticas(out, tlb, getTabelas());
+    if (alocacao != null) {
+      alocacao.imprimeEstatisticas(out);
+    }
+    if (swap != null) {
+      swap.imprimeEstatisticas(out);
+    }
+    if (antecipacao != null) {
+      long faltas = 0;
+      for (Processo p : processos.values()) {
+        faltas += p.getFaltasPagina();
+      }
+      antecipacao.imprimeEstatisticas(out, faltas);
+    }
+    if (metricas != null) {
+      metricas.imprimeEstatisticas(out);
+    }
+    if (forks > 0) {
+      imprimeCopiaNaEscrita(out);
+    }
+    if (violacaoSegmento != TratamentoViolacao.IGNORA) {
+      for (Processo p : processos.values()) {
+        String prefixo = varios ? "PID=" + p.getPid() + " " : "";
+        out.printf("%sVIOLACOES_SEGMENTO FORA_DOS_SEGMENTOS=%d SEM_PERMISSAO=%d%n", prefixo,
+            p.getViolacoesForaSegmento(), p.getViolacoesPermissao());
+        p.getLayout().imprimeEstatisticas(out, prefixo);
+      }
+    }
+    if (!varios) {
+      Processo unico = processos.values().iterator().next();
+      if (unico.getPromotor() != null) {
+        unico.getPromotor().imprimeEstatisticas(out);
+      }
+      return;
+    }
+    out.printf("PROCESSOS=%d MODO_TROCA=%s TROCAS_CONTEXTO=%d ESVAZIAMENTOS_TLB=%d"
+        + " ASIDS_RECICLADOS=%d%n", processos.size(), modoTroca, trocasContexto,
+        tlb.getEsvaziamentos(), asidsReciclados);
+    for (Processo p : processos.values()) {
+      out.printf(Locale.ROOT, "PROCESSO PID=%d ASID=%d ACESSOS=%d ACERTOS_TLB=%d"
+          + " TAXA_ACERTO_TLB=%.4f FALTAS_PAGINA=%d CAMINHADAS=%d TROCAS=%d"
+          + " PAGINAS_RESIDENTES=%d%n", p.getPid(), p.getAsid(), p.getAcessos(),
+          p.getAcertosTLB(),
+          p.getAcessos() == 0 ? 0.0 : (double) p.getAcertosTLB() / p.getAcessos(),
+          p.getFaltasPagina(), p.getTabela().getCaminhadas(), p.getTrocasContexto(),
+          p.getPaginasResidentes());
+      if (p.getPromotor() != null) {
+        p.getPromotor().imprimeEstatisticas(out);
+      }
+    }
+  }
+
+  /**
+   * Escreve os forks, as cópias na escrita e a memória de cada processo: RSS
+   * conta as páginas mapeadas e PSS divide cada moldura compartilhada entre os
+   * processos que a mapeiam.
+   */
+  private void imprimeCopiaNaEscrita(PrintWriter out) {
+    int compartilhadas = 0;
+    for (int m = 0; m < memoria.getNumeroMolduras(); m++) {
+      if (memoria.getReferencias(m) > 1) {
+        compartilhadas++;
+      }
+    }
+    long folhasCopiadas = 0;
+    for (Processo p : processos.values()) {
+      folhasCopiadas += p.getTabela().getFolhasCopiadas();
+    }
+    out.printf("FORKS=%d QUEBRAS_COW=%d ESCRITAS_SEM_COPIA=%d MOLDURAS_COMPARTILHADAS=%d"
+        + " FOLHAS_COPIADAS=%d%n", forks, quebrasCopiaNaEscrita, copiasEvitadas,
+        compartilhadas, folhasCopiadas);
+    for (Processo p : processos.values()) {
+      long[] rss = {0};
+      double[] pss = {0};
+      p.getTabela().paraCadaMapeamento((vpn, m) -> {
+        rss[0]++;
+        pss[0] += 1.0 / memoria.getReferencias(m);
+      });
+      out.printf(Locale.ROOT, "MEMORIA PID=%d RSS_PAGINAS=%d PSS_PAGINAS=%.2f QUEBRAS_COW=%d%n",
+          p.getPid(), rss[0], pss[0], p.getQuebrasCopiaNaEscrita());
+    }
+  }
+
+  /**
+   * Grava o estado atual em um checkpoint (ver {@link Checkpoint}).
+   *
+   * @param registrosTrace registros do trace já consumidos, para a retomada
+   */
+  public void gravaCheckpoint(String arquivo, long registrosTrace) throws IOException {
+    Checkpoint.grava(this, arquivo, registrosTrace);
+  }
+
+  /**
+   * Recoloca este motor, que ainda não traduziu nada, no estado gravado em um
+   * checkpoint. As estatísticas passam a contar só as traduções seguintes.
+   *
+   * @return registros do trace consumidos quando o checkpoint foi gravado
+   */
+  public long restauraCheckpoint(String arquivo) throws IOException {
+    return Checkpoint.restaura(this, arquivo);
+  }
+
+  Configuracao getConfig() {
+    return config;
+  }
+
+  /** @return processo em execução ou null antes da primeira tradução. */
+  Processo getAtual() {
+    return atual;
+  }
+
+  /** @return próximo ASID a ser atribuído. */
+  int getProximoASID() {
+    return proximoASID;
+  }
+
+  /** Restaura o ASID de um processo vindo de um checkpoint. */
+  void restauraASID(Processo p, int asid) {
+    donoPorASID[asid] = p;
+    p.asid = asid;
+  }
+
+  /** Restaura o processo dono da página de uma moldura vinda de um checkpoint. */
+  void restauraDono(int m, Processo dono) {
+    donoPorMoldura[m] = dono;
+  }
+
+  /** Restaura o relógio, o rodízio de ASIDs e o processo em execução. */
+  void restauraEstado(long instante, int proximoASID, Processo atual) {
+    this.instante = instante;
+    this.proximoASID = proximoASID;
+    this.atual = atual;
+    if (metricas != null) {
+      metricas.reinicia(instante);
+    }
+  }
+
+  /** @return quantidade de endereços traduzidos até agora. */
+  public long getInstante() {
+    return instante;
+  }
+
+  public long getPaginaVirtual() {
+    return paginaVirtual;
+  }
+
+  public int getDeslocamento() {
+    return deslocamento;
+  }
+
+  public TipoSegmento getSegmento() {
+    return segmento;
+  }
+
+  public int getMoldura() {
+    return moldura;
+  }
+
+  /** @return true se a última tradução foi servida por alguma TLB. */
+  public boolean isAcertoTLB() {
+    return tlbHit;
+  }
+
+  /** @return true se a última tradução causou falta de página. */
+  public boolean isFaltaPagina() {
+    return falta;
+  }
+
+  /** @return pid do processo em execução (0 antes da primeira tradução). */
+  public int getProcessoAtual() {
+    return atual == null ? 0 : atual.getPid();
+  }
+
+  /** @return processos já vistos, em ordem de pid. */
+  public Collection<Processo> getProcessos() {
+    return processos.values();
+  }
+
+  /** @return tabelas de páginas de todos os processos (ao menos a do processo 0). */
+  public TabelaPaginas[] getTabelas() {
+    if (processos.isEmpty()) {
+      getProcesso(0);
+    }
+    TabelaPaginas[] tabelas = new TabelaPaginas[processos.size()];
+    int i = 0;
+    for (Processo p : processos.values()) {
+      tabelas[i++] = p.getTabela();
+    }
+    return tabelas;
+  }
+
+  /** @return caminhadas na tabela somadas entre os processos. */
+  public long getCaminhadas() {
+    long total = 0;
+    for (Processo p : processos.values()) {
+      total += p.getTabela().getCaminhadas();
+    }
+    return total;
+  }
+
+  /** @return referências à memória das caminhadas, somadas entre os processos. */
+  public long getReferenciasCaminhada() {
+    long total = 0;
+    for (Processo p : processos.values()) {
+      total += p.getTabela().getReferenciasCaminhada();
+    }
+    return total;
+  }
+
+  /** @return escritas que copiaram uma página compartilhada por fork. */
+  public long getQuebrasCopiaNaEscrita() {
+    return quebrasCopiaNaEscrita;
+  }
+
+  /** @return trocas de processo em execução. */
+  public long getTrocasContexto() {
+    return trocasContexto;
+  }
+
+  public HierarquiaTLB getTLB() {
+    return tlb;
+  }
+
+  public MemoriaFisica getMemoria() {
+    return memoria;
+  }
+
+  public ModeloLatencia getLatencia() {
+    return latencia;
+  }
+
+  public int getBitsDeslocamento() {
+    return bitsDeslocamento;
+  }
+
+  /**
+   * Lê o arquivo de entrada inteiro e devolve a chave de página de cada
+   * referência, na ordem. Usado pela política OPT, que precisa conhecer o
+   * futuro.
+   */
+  public static long[] lerSequenciaPaginas(Configuracao config) throws IOException {
+    try (LeitorTrace trace = LeitorTrace.abre(config.getArquivoEntrada())) {
+      return sequenciaPaginas(trace, config.getTamanhoPagina());
+    }
+  }
+
+  /**
+   * Consome o trace e devolve a chave ({@link #chavePagina}) da página de cada
+   * referência.
+   */
+  public static long[] sequenciaPaginas(LeitorTrace trace, int tamanhoPagina)
+      throws IOException {
+    long mascaraPagina = ~((long) tamanhoPagina - 1);
+    long[] sequencia = new long[(int) Math.max(1024, trace.getTotalRegistros())];
+    int total = 0;
+    while (trace.proximo()) {
+      if (total == sequencia.length) {
+        sequencia = Arrays.copyOf(sequencia, total * 2);
+      }
+      sequencia[total++] = chavePagina(trace.getProcesso(), trace.getEndereco() & mascaraPagina);
+    }
+    return Arrays.copyOf(sequencia, total);
+  }
+
+  /** Fecha o arquivo de swap e as métricas, se houver. */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (metricas != null) {
+        metricas.close();
+      }
+    } finally {
+      if (swap != null) {
+        swap.close();
+      }
+    }
+  }
+}
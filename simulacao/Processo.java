@@ -0,0 +1,113 @@
+package simulacao;
+
+import config.LayoutSegmentos;
+import memory.Prefetcher;
+import mmu.PromotorPaginasGrandes;
+import mmu.TabelaPaginas;
+
+/**
+ * Espaço de endereçamento de um processo do trace: tabela de páginas e
+ * layout de segmentos próprios, o ASID atribuído e as estatísticas das
+ * referências feitas por ele. A memória física e as TLBs são compartilhadas
+ * entre os processos (ver {@link MotorSimulacao}).
+ */
+public final class Processo {
+  private final int pid;
+  private final LayoutSegmentos layout;
+  private final TabelaPaginas tabela;
+  private final PromotorPaginasGrandes promotor;
+
+  /** ASID atual ou -1 se o processo não tem um (nunca executou ou o perdeu). */
+  int asid = -1;
+  long acessos;
+  long acertosTLB;
+  long faltasPagina;
+  long trocasContexto;
+  long violacoesForaSegmento;
+  long violacoesPermissao;
+  long quebrasCopiaNaEscrita;
+
+  // alocação de molduras (ver AlocacaoMolduras)
+  int particao;
+  ConjuntoTrabalho conjunto;
+  long ultimaFalta;
+  long substituicoesLocais;
+  long moldurasTomadas;
+  long moldurasCedidas;
+  long paginasLiberadas;
+
+  /** Prefetcher do espaço de endereçamento ou null (ver AntecipacaoPaginas). */
+  Prefetcher prefetcher;
+
+  Processo(int pid, LayoutSegmentos layout, TabelaPaginas tabela,
+      PromotorPaginasGrandes promotor) {
+    this.pid = pid;
+    this.layout = layout;
+    this.tabela = tabela;
+    this.promotor = promotor;
+  }
+
+  public int getPid() {
+    return pid;
+  }
+
+  public LayoutSegmentos getLayout() {
+    return layout;
+  }
+
+  public TabelaPaginas getTabela() {
+    return tabela;
+  }
+
+  /** @return promotor de páginas grandes do processo ou null se desativado. */
+  public PromotorPaginasGrandes getPromotor() {
+    return promotor;
+  }
+
+  /** @return ASID atual ou -1. */
+  public int getAsid() {
+    return asid;
+  }
+
+  /** @return referências feitas pelo processo. */
+  public long getAcessos() {
+    return acessos;
+  }
+
+  /** @return referências do processo servidas por alguma TLB. */
+  public long getAcertosTLB() {
+    return acertosTLB;
+  }
+
+  /** @return faltas de página do processo. */
+  public long getFaltasPagina() {
+    return faltasPagina;
+  }
+
+  /** @return vezes em que o processo voltou a executar após outro. */
+  public long getTrocasContexto() {
+    return trocasContexto;
+  }
+
+  /** @return acessos a endereços fora de todos os segmentos do processo. */
+  public long getViolacoesForaSegmento() {
+    return violacoesForaSegmento;
+  }
+
+  /** @return acessos a um segmento sem a permissão exigida pelo tipo. */
+  public long getViolacoesPermissao() {
+    return violacoesPermissao;
+  }
+
+  /** @return escritas do processo que copiaram uma página compartilhada por fork. */
+  public long getQuebrasCopiaNaEscrita() {
+    return quebrasCopiaNaEscrita;
+  }
+
+  /** @return páginas base do processo atualmente mapeadas. */
+  public long getPaginasResidentes() {
+    long[] total = {0};
+    tabela.paraCadaMapeamento((vpn, moldura) -> total[0]++);
+    return total[0];
+  }
+}
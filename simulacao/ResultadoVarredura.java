@@ -0,0 +1,103 @@
+package simulacao;
+
+import java.util.Collections;
+import java.util.Map;
+import mmu.HierarquiaTLB;
+import mmu.TabelaPaginas;
+
+/** Métricas finais de uma configuração simulada em uma varredura de parâmetros. */
+public final class ResultadoVarredura {
+  private final Map<String, String> parametros;
+  private final long acessos;
+  private final long acertosTLB;
+  private final long faltasPagina;
+  private final long caminhadas;
+  private final long referenciasCaminhada;
+  private final long ciclosTraducao;
+  private final double amat;
+  private final long tempoMs;
+  private final String erro;
+
+  private ResultadoVarredura(Map<String, String> parametros, long acessos, long acertosTLB,
+      long faltasPagina, long caminhadas, long referenciasCaminhada, long ciclosTraducao,
+      double amat, long tempoMs, String erro) {
+    this.parametros = Collections.unmodifiableMap(parametros);
+    this.acessos = acessos;
+    this.acertosTLB = acertosTLB;
+    this.faltasPagina = faltasPagina;
+    this.caminhadas = caminhadas;
+    this.referenciasCaminhada = referenciasCaminhada;
+    this.ciclosTraducao = ciclosTraducao;
+    this.amat = amat;
+    this.tempoMs = tempoMs;
+    this.erro = erro;
+  }
+
+  /** Coleta as métricas de um motor que já processou o trace. */
+  static ResultadoVarredura de(Map<String, String> parametros, MotorSimulacao motor,
+      long tempoMs) {
+    HierarquiaTLB tlb = motor.getTLB();
+    TabelaPaginas[] tabelas = motor.getTabelas();
+    return new ResultadoVarredura(parametros, tlb.getTraducoes(),
+        tlb.getServidasL1() + tlb.getServidasL2(), motor.getLatencia().getFaltasPagina(),
+        motor.getCaminhadas(), motor.getReferenciasCaminhada(),
+        motor.getLatencia().getCiclosTraducao(tlb, tabelas),
+        motor.getLatencia().getAMAT(tlb, tabelas), tempoMs, null);
+  }
+
+  /** Resultado de uma configuração que não pôde ser simulada. */
+  static ResultadoVarredura falha(Map<String, String> parametros, String erro) {
+    return new ResultadoVarredura(parametros, 0, 0, 0, 0, 0, 0, 0.0, 0, erro);
+  }
+
+  /** @return valores das dimensões da grade que geraram esta configuração. */
+  public Map<String, String> getParametros() {
+    return parametros;
+  }
+
+  public long getAcessos() {
+    return acessos;
+  }
+
+  public long getAcertosTLB() {
+    return acertosTLB;
+  }
+
+  public double getTaxaAcertoTLB() {
+    return acessos == 0 ? 0.0 : (double) acertosTLB / acessos;
+  }
+
+  public long getFaltasPagina() {
+    return faltasPagina;
+  }
+
+  public double getTaxaFaltas() {
+    return acessos == 0 ? 0.0 : (double) faltasPagina / acessos;
+  }
+
+  public long getCaminhadas() {
+    return caminhadas;
+  }
+
+  public long getReferenciasCaminhada() {
+    return referenciasCaminhada;
+  }
+
+  public long getCiclosTraducao() {
+    return ciclosTraducao;
+  }
+
+  public double getAMAT() {
+    return amat;
+  }
+
+  /** @return tempo de simulação desta configuração, em milissegundos. */
+  public long getTempoMs() {
+    return tempoMs;
+  }
+
+  /** @return mensagem de erro, ou null se a simulação terminou normalmente. */
+  public String getErro() {
+    return erro;
+  }
+}
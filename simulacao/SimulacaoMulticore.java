@@ -0,0 +1,480 @@
+package simulacao;
+
+import config.Configuracao;
+import config.LayoutSegmentos;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import memory.MemoriaFisica;
+import memory.PoliticaSubstituicao;
+import mmu.HierarquiaTLB;
+import mmu.TLB;
+import mmu.TabelaPaginas;
+import model.EstrategiaAlocacao;
+import model.TipoAcesso;
+import model.TipoPoliticaSubstituicao;
+import model.TipoPrefetch;
+import model.TipoSegmento;
+import model.TratamentoViolacao;
+import relatorio.RelatorioSimulacao;
+import trace.TraceEmMemoria;
+
+/**
+ * Simula vários núcleos, cada um em uma thread com suas próprias TLBs, sobre
+ * uma única tabela de páginas e uma única memória física.
+ *
+ * <p>
+ * Os registros do trace são distribuídos pelo processo
+ * ({@code processo % nucleos}) e todos os núcleos usam o mesmo espaço de
+ * endereçamento, como as threads de um processo. Um acerto na TLB só toma a
+ * trava da TLB do próprio núcleo, que nenhum outro disputa fora de um
+ * shootdown. A caminhada apenas lê a tabela e roda em paralelo sob o lado de
+ * leitura de uma {@link ReentrantReadWriteLock}; a falta de página muda a
+ * pilha de molduras e duas folhas da tabela (a da vítima e a da página nova)
+ * e por isso toma o lado de escrita.
+ *
+ * <p>
+ * Para cada moldura, um {@link AtomicLongArray} guarda a máscara dos núcleos
+ * que podem ter a tradução em cache, ligada por CAS quando um núcleo a insere
+ * na TLB. Ao substituir a página da moldura, o núcleo que faltou derruba a
+ * tradução nos outros núcleos da máscara (TLB shootdown): toma a trava da TLB
+ * de cada um e invalida a entrada antes de mapear a página nova, como o IPI
+ * síncrono de um sistema operacional, de modo que nenhuma tradução antiga
+ * sobrevive à troca.
+ *
+ * <p>
+ * Assim como o bit de acesso ligado pelo hardware, os acessos às molduras não
+ * chegam à política de substituição na hora: cada núcleo os acumula em um
+ * lote de {@value #LOTE_REFERENCIAS} molduras e os entrega, sob uma trava
+ * própria da política, quando o lote enche ou antes de uma falta.
+ *
+ * <p>
+ * A ordem entre núcleos depende do escalonamento das threads; por isso o
+ * relatório não lista os acessos, apenas o estado final e as estatísticas.
+ */
+public final class SimulacaoMulticore {
+  /** Molduras acumuladas por núcleo antes de atualizar a política. */
+  static final int LOTE_REFERENCIAS = 256;
+
+  private final LayoutSegmentos layout;
+  private final TabelaPaginas tabela;
+  private final MemoriaFisica memoria;
+  private final int bitsDeslocamento;
+  private final Nucleo[] nucleos;
+  /** Núcleos que podem ter em cache a tradução de cada moldura (bit = id). */
+  private final AtomicLongArray nucleosPorMoldura;
+  private final ReentrantReadWriteLock travaTabela = new ReentrantReadWriteLock();
+  /** Protege a memória física, a política e {@link #instanteMemoria}. */
+  private final ReentrantLock travaPolitica = new ReentrantLock();
+  private long instanteMemoria;
+  private volatile Throwable falha;
+  private long nanosExecucao;
+
+  /** Monta a memória compartilhada e as TLBs de cada núcleo. */
+  public SimulacaoMulticore(Configuracao config) {
+    verificaSuporte(config);
+    this.layout = new LayoutSegmentos(config);
+    this.tabela = new TabelaPaginas(config);
+    int numeroMolduras = config.getNumeroMoldurasFisicas();
+    this.memoria = new MemoriaFisica(numeroMolduras, PoliticaSubstituicao.cria(
+        config.getPoliticaSubstituicao(), numeroMolduras, null));
+    this.bitsDeslocamento = config.getBitsDeslocamentoPagina();
+    this.nucleosPorMoldura = new AtomicLongArray(numeroMolduras);
+    this.nucleos = new Nucleo[config.getNucleos()];
+    for (int i = 0; i < nucleos.length; i++) {
+      nucleos[i] = new Nucleo(i, new HierarquiaTLB(config));
+    }
+  }
+
+  /** Recusa os recursos que guardam estado por processo ou exigem ordem global. */
+  static void verificaSuporte(Configuracao config) {
+    if (config.getArquivoSwap() != null || config.getMoldurasGrandes() > 0
+        || config.getPrefetch() != TipoPrefetch.NENHUM
+        || config.getPoliticaSubstituicao() == TipoPoliticaSubstituicao.OPT
+        || config.getAlocacaoMolduras() != EstrategiaAlocacao.GLOBAL
+        || config.getJanelaConjuntoTrabalho() > 0
+        || config.getArquivoCheckpoint() != null || config.getRestauraCheckpoint() != null
+        || config.getIntervaloMetricas() > 0 || config.isJmxMetricas()
+        || config.getViolacaoSegmento() != TratamentoViolacao.IGNORA) {
+      throw new IllegalArgumentException("Modo multinúcleo não disponível com swap, páginas"
+          + " grandes, prefetch, OPT, alocação local, checkpoint, métricas ou verificação"
+          + " de segmentos");
+    }
+  }
+
+  /**
+   * Distribui o trace entre os núcleos, executa-os em paralelo e escreve o
+   * estado final e as estatísticas no relatório.
+   */
+  public void executa(TraceEmMemoria trace, RelatorioSimulacao relatorio) {
+    distribui(trace);
+    Thread[] threads = new Thread[nucleos.length];
+    for (int i = 0; i < nucleos.length; i++) {
+      Nucleo n = nucleos[i];
+      threads[i] = new Thread(() -> {
+        try {
+          n.executa();
+        } catch (Throwable e) {
+          if (falha == null) {
+            falha = e;
+          }
+        }
+      }, "nucleo-" + i);
+    }
+    long inicio = System.nanoTime();
+    for (Thread t : threads) {
+      t.start();
+    }
+    boolean interrompida = false;
+    for (Thread t : threads) {
+      while (true) {
+        try {
+          t.join();
+          break;
+        } catch (InterruptedException e) {
+          interrompida = true;
+        }
+      }
+    }
+    nanosExecucao = System.nanoTime() - inicio;
+    if (interrompida) {
+      Thread.currentThread().interrupt();
+    }
+
+    Throwable erro = falha;
+    if (erro instanceof RuntimeException) {
+      throw (RuntimeException) erro;
+    } else if (erro instanceof Error) {
+      throw (Error) erro;
+    } else if (erro != null) {
+      throw new IllegalStateException("Falha em um núcleo", erro);
+    }
+    imprime(relatorio);
+  }
+
+  /** Separa os endereços do trace no fluxo de cada núcleo, mantendo a ordem. */
+  private void distribui(TraceEmMemoria trace) {
+    int total = trace.getTamanho();
+    int[] tamanhos = new int[nucleos.length];
+    for (int i = 0; i < total; i++) {
+      if (trace.getTipoAcesso(i) == TipoAcesso.FORK) {
+        throw new IllegalArgumentException("Modo multinúcleo não disponível com fork no trace");
+      }
+      tamanhos[Math.floorMod(trace.getProcesso(i), nucleos.length)]++;
+    }
+    for (int c = 0; c < nucleos.length; c++) {
+      nucleos[c].enderecos = new long[tamanhos[c]];
+    }
+    int[] posicoes = new int[nucleos.length];
+    for (int i = 0; i < total; i++) {
+      int c = Math.floorMod(trace.getProcesso(i), nucleos.length);
+      nucleos[c].enderecos[posicoes[c]++] = trace.getEndereco(i);
+    }
+  }
+
+  /** Escreve a tabela, as molduras e as estatísticas de cada núcleo. */
+  private void imprime(RelatorioSimulacao relatorio) {
+    relatorio.imprimeTabela(tabela);
+    relatorio.imprimeMolduras(memoria);
+
+    long acessos = 0;
+    long acertos = 0;
+    long caminhadas = 0;
+    long faltas = 0;
+    long faltasConcorrentes = 0;
+    long shootdowns = 0;
+    long ipis = 0;
+    long invalidadas = 0;
+    long esperasTLB = 0;
+    long esperasLeitura = 0;
+    long esperasEscrita = 0;
+    long esperasPolitica = 0;
+    long nanosEspera = 0;
+    for (Nucleo n : nucleos) {
+      acessos += n.acessos;
+      acertos += n.acertosTLB;
+      caminhadas += n.caminhadas;
+      faltas += n.faltas;
+      faltasConcorrentes += n.faltasConcorrentes;
+      shootdowns += n.shootdowns;
+      ipis += n.ipisEnviados;
+      invalidadas += n.entradasInvalidadas;
+      esperasTLB += n.esperasTLB;
+      esperasLeitura += n.esperasLeitura;
+      esperasEscrita += n.esperasEscrita;
+      esperasPolitica += n.esperasPolitica;
+      nanosEspera += n.nanosEspera;
+    }
+
+    PrintWriter out = relatorio.getSaida();
+    out.println();
+    out.println("=== ESTATISTICAS MULTINUCLEO ===");
+    out.printf(Locale.ROOT, "NUCLEOS=%d ACESSOS=%d ACERTOS_TLB=%d TAXA_ACERTO_TLB=%.4f"
+        + " CAMINHADAS=%d FALTAS_PAGINA=%d FALTAS_CONCORRENTES=%d%n", nucleos.length, acessos,
+        acertos, taxa(acertos, acessos), caminhadas, faltas, faltasConcorrentes);
+    out.printf(Locale.ROOT, "SHOOTDOWNS=%d IPIS=%d ENTRADAS_INVALIDADAS=%d"
+        + " IPIS_POR_SHOOTDOWN=%.2f%n", shootdowns, ipis, invalidadas,
+        shootdowns == 0 ? 0.0 : (double) ipis / shootdowns);
+    out.printf(Locale.ROOT, "TRAVAS ESPERAS_TLB=%d ESPERAS_LEITURA=%d ESPERAS_ESCRITA=%d"
+        + " ESPERAS_POLITICA=%d TEMPO_ESPERA_MS=%.3f%n", esperasTLB, esperasLeitura,
+        esperasEscrita, esperasPolitica, nanosEspera / 1e6);
+    out.printf(Locale.ROOT, "TEMPO_MS=%.1f ACESSOS_POR_SEGUNDO=%.0f%n", nanosExecucao / 1e6,
+        nanosExecucao == 0 ? 0.0 : acessos * 1e9 / nanosExecucao);
+    for (Nucleo n : nucleos) {
+      out.printf(Locale.ROOT, "NUCLEO ID=%d ACESSOS=%d ACERTOS_TLB=%d TAXA_ACERTO_TLB=%.4f"
+          + " FALTAS_PAGINA=%d SHOOTDOWNS=%d IPIS_RECEBIDOS=%d ENTRADAS_INVALIDADAS=%d"
+          + " ESPERAS=%d%n", n.id, n.acessos, n.acertosTLB, taxa(n.acertosTLB, n.acessos),
+          n.faltas, n.shootdowns, n.ipisRecebidos, n.entradasInvalidadas,
+          n.esperasTLB + n.esperasLeitura + n.esperasEscrita + n.esperasPolitica);
+    }
+  }
+
+  private static double taxa(long parte, long total) {
+    return total == 0 ? 0.0 : (double) parte / total;
+  }
+
+  /** Núcleo simulado: fluxo de endereços, TLBs próprias e contadores. */
+  private final class Nucleo {
+    final int id;
+    final long bit;
+    final HierarquiaTLB tlb;
+    final TLB[] tlbs;
+    /** Tomada pelo próprio núcleo nas consultas e por quem envia um shootdown. */
+    final ReentrantLock travaTLB = new ReentrantLock();
+    long[] enderecos;
+    long instante;
+
+    final int[] referencias = new int[LOTE_REFERENCIAS];
+    int pendentes;
+    int ultimaReferencia = -1;
+
+    long acessos;
+    long acertosTLB;
+    long caminhadas;
+    long faltas;
+    long faltasConcorrentes;
+    long shootdowns;
+    long ipisEnviados;
+    // escritos por quem envia o shootdown, sempre sob o lado de escrita da tabela
+    long ipisRecebidos;
+    long entradasInvalidadas;
+    long esperasTLB;
+    long esperasLeitura;
+    long esperasEscrita;
+    long esperasPolitica;
+    long nanosEspera;
+
+    Nucleo(int id, HierarquiaTLB tlb) {
+      this.id = id;
+      this.bit = 1L << id;
+      this.tlb = tlb;
+      this.tlbs = tlb.getTLBs();
+    }
+
+    void executa() {
+      for (int i = 0; i < enderecos.length && falha == null; i++) {
+        traduz(enderecos[i]);
+      }
+      if (adquire(travaPolitica)) {
+        esperasPolitica++;
+      }
+      try {
+        entregaReferencias();
+      } finally {
+        travaPolitica.unlock();
+      }
+    }
+
+    /** @return moldura que traduz o endereço. */
+    int traduz(long enderecoVirtual) {
+      instante++;
+      acessos++;
+      long pagina = enderecoVirtual >>> bitsDeslocamento;
+      TipoSegmento segmento = layout.getSegmento(enderecoVirtual);
+
+      if (adquire(travaTLB)) {
+        esperasTLB++;
+      }
+      int moldura;
+      try {
+        moldura = tlb.lookup(pagina, segmento, instante);
+      } finally {
+        travaTLB.unlock();
+      }
+      if (moldura != -1) {
+        acertosTLB++;
+        referencia(moldura);
+        return moldura;
+      }
+
+      Lock leitura = travaTabela.readLock();
+      if (adquire(leitura)) {
+        esperasLeitura++;
+      }
+      try {
+        caminhadas++;
+        moldura = tabela.consultaMoldura(pagina);
+        if (moldura != -1) {
+          instalaNaTLB(pagina, moldura, segmento);
+        }
+      } finally {
+        leitura.unlock();
+      }
+      if (moldura != -1) {
+        referencia(moldura);
+        return moldura;
+      }
+      return falta(pagina, segmento);
+    }
+
+    /**
+     * Traz a página para uma moldura sob o lado de escrita da tabela,
+     * derrubando das outras TLBs a tradução da página substituída.
+     */
+    private int falta(long pagina, TipoSegmento segmento) {
+      Lock escrita = travaTabela.writeLock();
+      if (adquire(escrita)) {
+        esperasEscrita++;
+      }
+      try {
+        int moldura = tabela.consultaMoldura(pagina);
+        if (moldura != -1) {
+          // outro núcleo trouxe a página enquanto este esperava a trava
+          faltasConcorrentes++;
+          instalaNaTLB(pagina, moldura, segmento);
+          return moldura;
+        }
+        faltas++;
+        if (adquire(travaPolitica)) {
+          esperasPolitica++;
+        }
+        try {
+          entregaReferencias();
+          long inicioPagina = pagina << bitsDeslocamento;
+          moldura = memoria.selecionaMolduraParaUso(++instanteMemoria, inicioPagina);
+          long conteudo = memoria.getConteudoMolduras()[moldura];
+          long antiga = conteudo == -1 ? -1 : conteudo >>> bitsDeslocamento;
+          if (antiga != -1) {
+            tabela.desmapeiaPagina(antiga);
+            derruba(moldura, antiga);
+          }
+          tabela.mapeiaPagina(pagina, moldura);
+          memoria.setaConteudo(moldura, inicioPagina, instanteMemoria);
+        } finally {
+          travaPolitica.unlock();
+        }
+        instalaNaTLB(pagina, moldura, segmento);
+        return moldura;
+      } finally {
+        escrita.unlock();
+      }
+    }
+
+    /**
+     * Insere a tradução na TLB e marca o núcleo na máscara da moldura. Exige um
+     * dos lados da trava da tabela, para que nenhum shootdown da moldura corra
+     * entre as duas coisas.
+     */
+    private void instalaNaTLB(long pagina, int moldura, TipoSegmento segmento) {
+      if (adquire(travaTLB)) {
+        esperasTLB++;
+      }
+      try {
+        tlb.insereOuAtualiza(pagina, moldura, segmento, instante);
+      } finally {
+        travaTLB.unlock();
+      }
+      long mascara;
+      do {
+        mascara = nucleosPorMoldura.get(moldura);
+        if ((mascara & bit) != 0) {
+          return;
+        }
+      } while (!nucleosPorMoldura.compareAndSet(moldura, mascara, mascara | bit));
+    }
+
+    /**
+     * Invalida a página que deixou a moldura em todos os núcleos que podem
+     * tê-la em cache, inclusive este. Chamado sob o lado de escrita da tabela.
+     */
+    private void derruba(int moldura, long pagina) {
+      long mascara = nucleosPorMoldura.getAndSet(moldura, 0);
+      if ((mascara & ~bit) != 0) {
+        shootdowns++;
+      }
+      for (long resto = mascara; resto != 0; resto &= resto - 1) {
+        Nucleo alvo = nucleos[Long.numberOfTrailingZeros(resto)];
+        if (alvo != this) {
+          ipisEnviados++;
+          alvo.ipisRecebidos++;
+        }
+        if (adquire(alvo.travaTLB)) {
+          esperasTLB++;
+        }
+        try {
+          long antes = alvo.cobertas();
+          alvo.tlb.invalidaEntrada(pagina);
+          if (alvo.cobertas() != antes) {
+            alvo.entradasInvalidadas++;
+          }
+        } finally {
+          alvo.travaTLB.unlock();
+        }
+      }
+    }
+
+    /** @return páginas cobertas pelas TLBs do núcleo (exige a trava da TLB). */
+    private long cobertas() {
+      long total = 0;
+      for (TLB t : tlbs) {
+        total += t.getPaginasCobertas();
+      }
+      return total;
+    }
+
+    /** Acumula o acesso à moldura para a política, ignorando repetições seguidas. */
+    private void referencia(int moldura) {
+      if (moldura == ultimaReferencia) {
+        return;
+      }
+      ultimaReferencia = moldura;
+      referencias[pendentes++] = moldura;
+      if (pendentes == referencias.length) {
+        if (adquire(travaPolitica)) {
+          esperasPolitica++;
+        }
+        try {
+          entregaReferencias();
+        } finally {
+          travaPolitica.unlock();
+        }
+      }
+    }
+
+    /** Repassa à política os acessos acumulados (exige a trava da política). */
+    private void entregaReferencias() {
+      for (int i = 0; i < pendentes; i++) {
+        memoria.atualizaAcesso(referencias[i], ++instanteMemoria);
+      }
+      pendentes = 0;
+    }
+
+    /**
+     * Toma a trava, medindo o tempo quando ela está ocupada.
+     *
+     * @return true se foi preciso esperar
+     */
+    private boolean adquire(Lock trava) {
+      if (trava.tryLock()) {
+        return false;
+      }
+      long inicio = System.nanoTime();
+      trava.lock();
+      nanosEspera += System.nanoTime() - inicio;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package simulacao;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+import model.TipoAcesso;
+import model.TipoSegmento;
+import relatorio.RelatorioSimulacao;
+import trace.LeitorTrace;
+import util.FilaSPSC;
+
+/**
+ * Executa a simulação em três etapas concorrentes: leitura do trace,
+ * tradução e escrita do relatório.
+ *
+ * <p>
+ * A leitora decodifica endereços em {@link LoteAcessos}, a tradução (na
+ * thread que chama {@link #executa}) processa cada lote em ordem com o
+ * {@link MotorSimulacao} e a escritora formata as linhas. As etapas trocam
+ * lotes por três {@link FilaSPSC} que formam um ciclo (livres -> lidos ->
+ * traduzidos -> livres), de modo que um número fixo de lotes é reaproveitado
+ * durante toda a execução.
+ *
+ * <p>
+ * A saída é idêntica à do modo sequencial.
+ */
+public class SimulacaoPipeline {
+  /** Lotes em circulação: o suficiente para absorver variações entre as etapas. */
+  static final int LOTES = 8;
+  /** Tentativas com {@link Thread#onSpinWait()} antes de estacionar a thread. */
+  private static final int ESPERAS_ATIVAS = 1000;
+  private static final TipoSegmento[] SEGMENTOS = TipoSegmento.values();
+  private static final TipoAcesso[] TIPOS = TipoAcesso.values();
+  private static final byte FORK = (byte) TipoAcesso.FORK.ordinal();
+
+  private final MotorSimulacao motor;
+  private final FilaSPSC<LoteAcessos> livres = new FilaSPSC<>(LOTES);
+  private final FilaSPSC<LoteAcessos> lidos = new FilaSPSC<>(LOTES);
+  private final FilaSPSC<LoteAcessos> traduzidos = new FilaSPSC<>(LOTES);
+  private volatile Throwable falha;
+
+  /** @param tamanhoLote referências por lote */
+  public SimulacaoPipeline(MotorSimulacao motor, int tamanhoLote) {
+    this.motor = motor;
+    for (int i = 0; i < LOTES; i++) {
+      livres.oferece(new LoteAcessos(tamanhoLote));
+    }
+  }
+
+  /** Processa o trace inteiro, escrevendo as linhas de acesso no relatório. */
+  public void executa(LeitorTrace trace, RelatorioSimulacao relatorio) throws IOException {
+    Thread leitora = new Thread(() -> etapa(() -> leitura(trace)), "pipeline-leitura");
+    Thread escritora = new Thread(() -> etapa(() -> escrita(relatorio)), "pipeline-escrita");
+    leitora.start();
+    escritora.start();
+    etapa(this::traducao);
+
+    boolean interrompida = false;
+    for (Thread t : new Thread[] {leitora, escritora}) {
+      while (true) {
+        try {
+          t.join();
+          break;
+        } catch (InterruptedException e) {
+          interrompida = true;
+        }
+      }
+    }
+    if (interrompida) {
+      Thread.currentThread().interrupt();
+    }
+
+    Throwable erro = falha;
+    if (erro instanceof IOException) {
+      throw (IOException) erro;
+    } else if (erro instanceof RuntimeException) {
+      throw (RuntimeException) erro;
+    } else if (erro instanceof Error) {
+      throw (Error) erro;
+    }
+  }
+
+  private interface Etapa {
+    void executa() throws IOException;
+  }
+
+  /** Executa a etapa registrando a primeira falha, que encerra as demais. */
+  private void etapa(Etapa etapa) {
+    try {
+      etapa.executa();
+    } catch (EtapaCancelada e) {
+      // outra etapa falhou
+    } catch (Throwable e) {
+      if (falha == null) {
+        falha = e;
+      }
+    }
+  }
+
+  private void leitura(LeitorTrace trace) throws IOException {
+    boolean fim = false;
+    while (!fim) {
+      LoteAcessos lote = espera(livres);
+      int n = 0;
+      while (n < lote.capacidade() && trace.proximo()) {
+        lote.enderecos[n] = trace.getEndereco();
+        lote.tipos[n] = (byte) trace.getTipoAcesso().ordinal();
+        lote.processos[n] = trace.getProcesso();
+        n++;
+      }
+      fim = n < lote.capacidade();
+      lote.tamanho = n;
+      lote.ultimo = fim;
+      entrega(lidos, lote);
+    }
+  }
+
+  private void traducao() {
+    boolean fim = false;
+    while (!fim) {
+      LoteAcessos lote = espera(lidos);
+      lote.primeiroInstante = motor.getInstante() + 1;
+      for (int i = 0; i < lote.tamanho; i++) {
+        if (lote.tipos[i] == FORK) {
+          throw new IllegalStateException("fork no trace exige pipeline=false");
+        }
+        motor.traduz(lote.enderecos[i], lote.processos[i], TIPOS[lote.tipos[i]]);
+        lote.molduras[i] = motor.getMoldura();
+        lote.segmentos[i] = (byte) motor.getSegmento().ordinal();
+        lote.acertosTLB[i] = motor.isAcertoTLB();
+      }
+      fim = lote.ultimo;
+      entrega(traduzidos, lote);
+    }
+  }
+
+  private void escrita(RelatorioSimulacao relatorio) {
+    int bitsDeslocamento = motor.getBitsDeslocamento();
+    long mascaraDeslocamento = (1L << bitsDeslocamento) - 1;
+    boolean fim = false;
+    while (!fim) {
+      LoteAcessos lote = espera(traduzidos);
+      for (int i = 0; i < lote.tamanho; i++) {
+        long instante = lote.primeiroInstante + i;
+        if (!relatorio.registraAcesso(instante)) {
+          continue;
+        }
+        long va = lote.enderecos[i];
+        int deslocamento = (int) (va & mascaraDeslocamento);
+        int moldura = lote.molduras[i];
+        relatorio.acesso(instante, va, va >>> bitsDeslocamento, deslocamento,
+            SEGMENTOS[lote.segmentos[i]], moldura,
+            ((long) moldura << bitsDeslocamento) | deslocamento, lote.acertosTLB[i],
+            lote.processos[i]);
+      }
+      fim = lote.ultimo;
+      entrega(livres, lote);
+    }
+  }
+
+  /** Retira um lote da fila, esperando enquanto ela estiver vazia. */
+  private LoteAcessos espera(FilaSPSC<LoteAcessos> fila) {
+    int tentativas = 0;
+    LoteAcessos lote;
+    while ((lote = fila.retira()) == null) {
+      aguarda(tentativas++);
+    }
+    return lote;
+  }
+
+  /** Entrega o lote à próxima etapa; a fila nunca enche, pois comporta todos os lotes. */
+  private void entrega(FilaSPSC<LoteAcessos> fila, LoteAcessos lote) {
+    int tentativas = 0;
+    while (!fila.oferece(lote)) {
+      aguarda(tentativas++);
+    }
+  }
+
+  private void aguarda(int tentativas) {
+    if (falha != null) {
+      throw new EtapaCancelada();
+    }
+    if (tentativas < ESPERAS_ATIVAS) {
+      Thread.onSpinWait();
+    } else {
+      LockSupport.parkNanos(10_000);
+    }
+  }
+
+  /** Interrompe uma etapa quando outra já falhou. */
+  private static final class EtapaCancelada extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    EtapaCancelada() {
+      super(null, null, false, false);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package simulacao;
+
+import config.Configuracao;
+import java.io.Closeable;
+import java.io.IOException;
+import model.TipoAcesso;
+import model.TipoSegmento;
+
+/**
+ * Fachada da MMU para quem usa o simulador como biblioteca: traduz lotes de
+ * endereços virtuais em endereços físicos, sem trace nem relatório.
+ *
+ * <p>
+ * A classificação do lote em segmentos é feita antes, de uma vez, por
+ * {@link config.LayoutSegmentos#classifica}, em laços sobre vetores primitivos
+ * que o JIT pode vetorizar. As consultas e atualizações de TLBs, tabela de
+ * páginas e memória física continuam em ordem, um endereço por vez, com o
+ * mesmo resultado de {@link MotorSimulacao#traduz(long, int, TipoAcesso)}.
+ *
+ * <p>
+ * Cada tradução ganha um byte de flags: o ordinal do {@link TipoSegmento} nos
+ * bits de {@link #MASCARA_SEGMENTO}, mais {@link #ACERTO_TLB} e
+ * {@link #FALTA_PAGINA}. Como o motor, o tradutor deve ser usado por uma única
+ * thread e fechado ao final.
+ */
+public final class TradutorLote implements Closeable {
+  /** Bits das flags com o ordinal do segmento do endereço. */
+  public static final int MASCARA_SEGMENTO = 0x07;
+  /** A tradução foi servida por alguma TLB. */
+  public static final int ACERTO_TLB = 0x08;
+  /** A tradução causou falta de página. */
+  public static final int FALTA_PAGINA = 0x10;
+
+  private static final TipoSegmento[] SEGMENTOS = TipoSegmento.values();
+
+  private final MotorSimulacao motor;
+  private byte[] segmentos = new byte[0];
+
+  /** Monta um motor novo com os componentes descritos na configuração. */
+  public TradutorLote(Configuracao config) {
+    this(new MotorSimulacao(config, null));
+  }
+
+  /** Traduz com um motor já montado, que continua acessível por {@link #getMotor()}. */
+  public TradutorLote(MotorSimulacao motor) {
+    this.motor = motor;
+  }
+
+  /** Traduz os {@code n} primeiros endereços como leituras do processo 0. */
+  public void traduz(long[] enderecos, int n, long[] fisicos, byte[] flags) {
+    traduz(0, TipoAcesso.LEITURA, enderecos, n, fisicos, flags);
+  }
+
+  /**
+   * Traduz os {@code n} primeiros endereços, na ordem, como referências do
+   * tipo informado feitas pelo processo {@code pid}.
+   *
+   * @param fisicos recebe o endereço físico de cada referência
+   * @param flags   recebe as flags de cada tradução
+   * @throws IllegalStateException com {@code violacaoSegmento=ABORTA}, na
+   *         primeira violação; as referências anteriores já foram traduzidas
+   */
+  public void traduz(int pid, TipoAcesso tipo, long[] enderecos, int n, long[] fisicos,
+      byte[] flags) {
+    if (tipo == TipoAcesso.FORK) {
+      throw new IllegalArgumentException("fork não é uma referência; use MotorSimulacao.fork");
+    }
+    if (n < 0 || n > enderecos.length || n > fisicos.length || n > flags.length) {
+      throw new IllegalArgumentException("Lote de " + n + " endereços não cabe nos vetores");
+    }
+    if (segmentos.length < n) {
+      segmentos = new byte[n];
+    }
+    motor.executa(pid);
+    motor.getProcesso(pid).getLayout().classifica(enderecos, n, segmentos);
+    for (int i = 0; i < n; i++) {
+      fisicos[i] = motor.traduz(enderecos[i], tipo, SEGMENTOS[segmentos[i]]);
+      flags[i] = (byte) (segmentos[i] | (motor.isAcertoTLB() ? ACERTO_TLB : 0)
+          | (motor.isFaltaPagina() ? FALTA_PAGINA : 0));
+    }
+  }
+
+  /** @return motor que faz as traduções, com as estatísticas acumuladas. */
+  public MotorSimulacao getMotor() {
+    return motor;
+  }
+
+  @Override
+  public void close() throws IOException {
+    motor.close();
+  }
+}
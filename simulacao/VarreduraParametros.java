@@ -0,0 +1,296 @@
+package simulacao;
+
+import config.Configuracao;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.TipoAcesso;
+import model.TipoPoliticaSubstituicao;
+import trace.TraceEmMemoria;
+
+/**
+ * Simula muitas variações de configuração sobre o mesmo trace.
+ *
+ * <p>
+ * O arquivo de varredura usa as mesmas chaves de
+ * {@link Configuracao#deArquivo}; toda chave com valores separados por vírgula
+ * (por exemplo {@code bitsTLB=3,4,5}) é uma dimensão da grade, e cada
+ * combinação das dimensões gera uma configuração. O trace é decodificado uma
+ * única vez em um {@link TraceEmMemoria} compartilhado e cada configuração é
+ * simulada com seus próprios componentes em um {@link ForkJoinPool}. Os
+ * resultados, na ordem da grade, são gravados em CSV ou JSON.
+ *
+ * <p>
+ * Uso: {@code java simulacao.VarreduraParametros <varredura.properties>
+ * <resultado.csv|resultado.json> [threads]}
+ */
+public final class VarreduraParametros {
+  private static final String[] COLUNAS = {"acessos", "acertosTLB", "taxaAcertoTLB",
+      "faltasPagina", "taxaFaltas", "caminhadas", "referenciasCaminhada", "ciclosTraducao",
+      "amat", "tempoMs", "erro"};
+
+  private final Properties base;
+  private final List<String> dimensoes = new ArrayList<>();
+  private final List<String[]> valores = new ArrayList<>();
+  /** Numera os arquivos de swap e de métricas das simulações que rodam ao mesmo tempo. */
+  private final AtomicInteger simulacoes = new AtomicInteger();
+
+  /** @param props propriedades da varredura, com as dimensões separadas por vírgula */
+  public VarreduraParametros(Properties props) {
+    this.base = props;
+    for (String chave : new TreeSet<>(props.stringPropertyNames())) {
+      String valor = props.getProperty(chave);
+      if (valor.indexOf(',') >= 0) {
+        if (chave.equals("arquivoEntrada")) {
+          throw new IllegalArgumentException("Todas as variações devem usar o mesmo trace");
+        }
+        String[] partes = valor.split(",");
+        for (int i = 0; i < partes.length; i++) {
+          partes[i] = partes[i].trim();
+        }
+        dimensoes.add(chave);
+        valores.add(partes);
+      }
+    }
+  }
+
+  /** @return nomes das dimensões da grade, em ordem alfabética. */
+  public List<String> getDimensoes() {
+    return dimensoes;
+  }
+
+  /** @return valores das dimensões de cada configuração, na ordem da grade. */
+  public List<Map<String, String>> variacoes() {
+    List<Map<String, String>> combinacoes = new ArrayList<>();
+    combinacoes.add(new LinkedHashMap<>());
+    for (int d = 0; d < dimensoes.size(); d++) {
+      List<Map<String, String>> proximas = new ArrayList<>();
+      for (Map<String, String> parcial : combinacoes) {
+        for (String v : valores.get(d)) {
+          Map<String, String> c = new LinkedHashMap<>(parcial);
+          c.put(dimensoes.get(d), v);
+          proximas.add(c);
+        }
+      }
+      combinacoes = proximas;
+    }
+    return combinacoes;
+  }
+
+  /** @return arquivo de trace comum a todas as variações. */
+  public String getArquivoEntrada() {
+    return base.getProperty("arquivoEntrada", "enderecos_entrada.txt").trim();
+  }
+
+  /**
+   * Simula todas as variações.
+   *
+   * @param paralelismo threads do pool (0 = processadores disponíveis)
+   */
+  public List<ResultadoVarredura> executa(TraceEmMemoria trace, int paralelismo)
+      throws InterruptedException {
+    List<Callable<ResultadoVarredura>> tarefas = new ArrayList<>();
+    for (Map<String, String> parametros : variacoes()) {
+      tarefas.add(() -> simula(parametros, trace));
+    }
+    ForkJoinPool pool = paralelismo > 0 ? new ForkJoinPool(paralelismo) : new ForkJoinPool();
+    try {
+      List<ResultadoVarredura> resultados = new ArrayList<>();
+      for (Future<ResultadoVarredura> f : pool.invokeAll(tarefas)) {
+        try {
+          resultados.add(f.get());
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("Falha na varredura", e.getCause());
+        }
+      }
+      return resultados;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Simula uma variação da grade do início ao fim do trace, ou a partir do
+   * estado de {@code restauraCheckpoint} se configurado.
+   */
+  private ResultadoVarredura simula(Map<String, String> parametros, TraceEmMemoria trace) {
+    Properties props = new Properties();
+    props.putAll(base);
+    props.putAll(parametros);
+    int numero = simulacoes.incrementAndGet();
+    for (String chave : new String[] {"arquivoSwap", "arquivoMetricas"}) {
+      String arquivo = props.getProperty(chave);
+      if (arquivo != null && !arquivo.trim().isEmpty()) {
+        props.setProperty(chave, arquivo.trim() + "." + numero);
+      }
+    }
+    Configuracao config;
+    try {
+      config = Configuracao.deProperties(props);
+    } catch (IllegalArgumentException e) {
+      return ResultadoVarredura.falha(parametros, e.getMessage());
+    }
+
+    long inicio = System.nanoTime();
+    long[] sequenciaFutura = config.getPoliticaSubstituicao() == TipoPoliticaSubstituicao.OPT
+        ? sequenciaPaginas(trace, config.getTamanhoPagina())
+        : null;
+    try (MotorSimulacao motor = new MotorSimulacao(config, sequenciaFutura)) {
+      TraceEmMemoria.Cursor cursor = trace.cursor();
+      if (config.getRestauraCheckpoint() != null) {
+        long registros = motor.restauraCheckpoint(config.getRestauraCheckpoint());
+        if (config.isRetomaCheckpoint()) {
+          cursor.pula(registros);
+        }
+      }
+      while (cursor.proximo()) {
+        if (cursor.getTipoAcesso() == TipoAcesso.FORK) {
+          motor.fork(cursor.getProcesso(), (int) cursor.getEndereco());
+        } else {
+          motor.traduz(cursor.getEndereco(), cursor.getProcesso(), cursor.getTipoAcesso());
+        }
+      }
+      return ResultadoVarredura.de(parametros, motor, (System.nanoTime() - inicio) / 1_000_000);
+    } catch (IllegalArgumentException | IllegalStateException | IOException
+        | UncheckedIOException e) {
+      return ResultadoVarredura.falha(parametros, e.getMessage());
+    }
+  }
+
+  /** Chaves de página exigidas pela política OPT (ver {@link MotorSimulacao#chavePagina}). */
+  private static long[] sequenciaPaginas(TraceEmMemoria trace, int tamanhoPagina) {
+    long mascaraPagina = ~((long) tamanhoPagina - 1);
+    long[] sequencia = new long[trace.getTamanho()];
+    for (int i = 0; i < sequencia.length; i++) {
+      sequencia[i] = MotorSimulacao.chavePagina(trace.getProcesso(i),
+          trace.getEndereco(i) & mascaraPagina);
+    }
+    return sequencia;
+  }
+
+  /** Grava os resultados em CSV, uma linha por configuração. */
+  public void escreveCsv(List<ResultadoVarredura> resultados, PrintWriter out) {
+    List<String> cabecalho = new ArrayList<>(dimensoes);
+    for (String c : COLUNAS) {
+      cabecalho.add(c);
+    }
+    out.println(String.join(",", cabecalho));
+    for (ResultadoVarredura r : resultados) {
+      StringBuilder linha = new StringBuilder();
+      for (String d : dimensoes) {
+        linha.append(campoCsv(r.getParametros().get(d))).append(',');
+      }
+      for (Object v : metricas(r)) {
+        linha.append(campoCsv(v == null ? "" : formata(v))).append(',');
+      }
+      linha.setLength(linha.length() - 1);
+      out.println(linha);
+    }
+  }
+
+  /** Grava os resultados como um vetor JSON de objetos. */
+  public void escreveJson(List<ResultadoVarredura> resultados, PrintWriter out) {
+    out.println("[");
+    for (int i = 0; i < resultados.size(); i++) {
+      ResultadoVarredura r = resultados.get(i);
+      StringBuilder obj = new StringBuilder("  {");
+      for (String d : dimensoes) {
+        obj.append(textoJson(d)).append(": ").append(textoJson(r.getParametros().get(d)))
+            .append(", ");
+      }
+      Object[] m = metricas(r);
+      for (int c = 0; c < COLUNAS.length; c++) {
+        obj.append(textoJson(COLUNAS[c])).append(": ");
+        if (m[c] == null) {
+          obj.append("null");
+        } else if (m[c] instanceof String) {
+          obj.append(textoJson((String) m[c]));
+        } else {
+          obj.append(formata(m[c]));
+        }
+        obj.append(c + 1 < COLUNAS.length ? ", " : "}");
+      }
+      out.println(obj.append(i + 1 < resultados.size() ? "," : ""));
+    }
+    out.println("]");
+  }
+
+  /** Métricas na ordem de {@link #COLUNAS}. */
+  private static Object[] metricas(ResultadoVarredura r) {
+    return new Object[] {r.getAcessos(), r.getAcertosTLB(), r.getTaxaAcertoTLB(),
+        r.getFaltasPagina(), r.getTaxaFaltas(), r.getCaminhadas(), r.getReferenciasCaminhada(),
+        r.getCiclosTraducao(), r.getAMAT(), r.getTempoMs(), r.getErro()};
+  }
+
+  private static String formata(Object valor) {
+    return valor instanceof Double ? String.format(Locale.ROOT, "%.6f", valor) : valor.toString();
+  }
+
+  private static String campoCsv(String valor) {
+    if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0) {
+      return valor;
+    }
+    return '"' + valor.replace("\"", "\"\"") + '"';
+  }
+
+  private static String textoJson(String valor) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (int i = 0; i < valor.length(); i++) {
+      char c = valor.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < 0x20) {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("Uso: java simulacao.VarreduraParametros <varredura.properties>"
+          + " <resultado.csv|resultado.json> [threads]");
+      System.exit(1);
+    }
+    Properties props = new Properties();
+    try (FileReader reader = new FileReader(args[0])) {
+      props.load(reader);
+    }
+    VarreduraParametros varredura = new VarreduraParametros(props);
+    int paralelismo = args.length == 3 ? Integer.parseInt(args[2]) : 0;
+
+    long inicio = System.nanoTime();
+    TraceEmMemoria trace = TraceEmMemoria.carrega(varredura.getArquivoEntrada());
+    long carga = System.nanoTime();
+    List<ResultadoVarredura> resultados = varredura.executa(trace, paralelismo);
+    long fim = System.nanoTime();
+
+    try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(args[1])))) {
+      if (args[1].toLowerCase(Locale.ROOT).endsWith(".json")) {
+        varredura.escreveJson(resultados, out);
+      } else {
+        varredura.escreveCsv(resultados, out);
+      }
+    }
+    System.out.printf(Locale.ROOT, "%d configurações, %d referências: carga %.1f s,"
+        + " simulação %.1f s -> %s%n", resultados.size(), trace.getTamanho(),
+        (carga - inicio) / 1e9, (fim - carga) / 1e9, args[1]);
+  }
+}
@@ -0,0 +1,84 @@
+package trace;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Converte traces entre o formato texto e o binário.
+ *
+ * <p>
+ * Uso: {@code java trace.ConversorTrace [-t] [-p] <entrada> <saida>}. Uma
+ * entrada texto gera um trace binário (com {@code -t} os tipos de acesso e com
+ * {@code -p} os processos também são gravados); uma entrada binária gera o
+ * texto equivalente, útil para inspeção.
+ */
+public final class ConversorTrace {
+  private ConversorTrace() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    boolean comTipos = false;
+    boolean comProcessos = false;
+    int opcoes = 0;
+    for (; opcoes < args.length - 2; opcoes++) {
+      if (args[opcoes].equals("-t")) {
+        comTipos = true;
+      } else if (args[opcoes].equals("-p")) {
+        comProcessos = true;
+      } else {
+        break;
+      }
+    }
+    if (args.length < 2 || args.length != opcoes + 2) {
+      System.err.println("Uso: java trace.ConversorTrace [-t] [-p] <entrada> <saida>");
+      System.exit(1);
+    }
+    String entrada = args[args.length - 2];
+    String saida = args[args.length - 1];
+
+    long registros;
+    try (LeitorTrace leitor = LeitorTrace.abre(entrada)) {
+      if (leitor instanceof LeitorTraceBinario) {
+        registros = paraTexto((LeitorTraceBinario) leitor, saida);
+      } else {
+        registros = paraBinario(leitor, saida, comTipos, comProcessos);
+      }
+    }
+    System.out.println(registros + " registros convertidos para " + saida);
+  }
+
+  /** Grava o trace no formato binário e devolve a quantidade de registros. */
+  public static long paraBinario(LeitorTrace leitor, String saida, boolean comTipos,
+      boolean comProcessos) throws IOException {
+    try (EscritorTraceBinario escritor =
+        new EscritorTraceBinario(saida, comTipos, comProcessos)) {
+      while (leitor.proximo()) {
+        escritor.escreve(leitor.getEndereco(), leitor.getTipoAcesso(), leitor.getProcesso());
+      }
+      return escritor.getRegistros();
+    }
+  }
+
+  private static long paraTexto(LeitorTraceBinario leitor, String saida) throws IOException {
+    long registros = 0;
+    try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(saida), 1 << 16))) {
+      while (leitor.proximo()) {
+        if (leitor.isComProcessos()) {
+          out.print('P');
+          out.print(leitor.getProcesso());
+          out.print(' ');
+        }
+        out.print(leitor.getEndereco());
+        if (leitor.isComTipos()) {
+          out.print(' ');
+          out.print(leitor.getTipoAcesso().getLetra());
+        }
+        out.println();
+        registros++;
+      }
+    }
+    return registros;
+  }
+}
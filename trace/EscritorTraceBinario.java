@@ -0,0 +1,177 @@
+package trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import model.TipoAcesso;
+
+/**
+ * Grava referências no formato binário descrito em {@link FormatoTrace}.
+ *
+ * <p>
+ * Os registros são codificados em um buffer direto reaproveitado e escritos
+ * no canal em blocos; a quantidade de registros é preenchida no cabeçalho ao
+ * fechar o arquivo.
+ */
+public final class EscritorTraceBinario implements Closeable {
+  private static final int TAMANHO_BUFFER = 1 << 20;
+
+  private final FileChannel canal;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+  private final boolean comTipos;
+  private final boolean comProcessos;
+  private long anterior;
+  private long registros;
+
+  /**
+   * Cria (ou sobrescreve) o arquivo.
+   *
+   * @param comTipos grava o tipo de acesso em cada registro
+   */
+  public EscritorTraceBinario(String caminho, boolean comTipos) throws IOException {
+    this(caminho, comTipos, false);
+  }
+
+  /**
+   * Cria (ou sobrescreve) o arquivo.
+   *
+   * @param comTipos     grava o tipo de acesso em cada registro
+   * @param comProcessos grava o identificador do processo em cada registro
+   */
+  public EscritorTraceBinario(String caminho, boolean comTipos, boolean comProcessos)
+      throws IOException {
+    this.canal = FileChannel.open(Paths.get(caminho), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.comTipos = comTipos;
+    this.comProcessos = comProcessos;
+    FormatoTrace.escreveCabecalho(buffer, flags(), 0);
+  }
+
+  private int flags() {
+    return (comTipos ? FormatoTrace.FLAG_TIPOS : 0)
+        | (comProcessos ? FormatoTrace.FLAG_PROCESSOS : 0);
+  }
+
+  /** Grava uma referência de leitura (o tipo é ignorado sem a flag de tipos). */
+  public void escreve(long endereco) throws IOException {
+    escreve(endereco, TipoAcesso.LEITURA);
+  }
+
+  /** Grava uma referência com o tipo informado. */
+  public void escreve(long endereco, TipoAcesso tipo) throws IOException {
+    escreve(endereco, tipo, 0);
+  }
+
+  /**
+   * Grava uma referência com o tipo e o processo informados (cada um ignorado
+   * se o arquivo não tem a flag correspondente).
+   */
+  public void escreve(long endereco, TipoAcesso tipo, int processo) throws IOException {
+    if (buffer.remaining() < FormatoTrace.TAMANHO_MAXIMO_REGISTRO) {
+      descarrega();
+    }
+    if (comTipos) {
+      buffer.put((byte) tipo.ordinal());
+    } else if (tipo == TipoAcesso.FORK) {
+      throw new IllegalArgumentException("Registros de fork exigem o tipo de acesso (-t)");
+    }
+    if (comProcessos) {
+      if (processo < 0) {
+        throw new IllegalArgumentException("Identificador de processo negativo: " + processo);
+      }
+      escreveVarint(processo);
+    }
+    escreveVarint(FormatoTrace.zigzag(endereco - anterior));
+    anterior = endereco;
+    registros++;
+  }
+
+  private void escreveVarint(long valor) {
+    escreveVarint(buffer, valor);
+  }
+
+  private static void escreveVarint(ByteBuffer destino, long valor) {
+    while ((valor & ~0x7FL) != 0) {
+      destino.put((byte) (valor | 0x80));
+      valor >>>= 7;
+    }
+    destino.put((byte) valor);
+  }
+
+  /**
+   * Codifica, sem processos, os registros de {@code enderecos[1..n-1]} com o
+   * delta em relação ao anterior; o primeiro fica para
+   * {@link #escreveCodificados}, que conhece o endereço que o precede no
+   * arquivo. Pode ser chamado em paralelo para blocos diferentes.
+   *
+   * @param tipos códigos dos tipos de acesso (ignorados sem {@code comTipos})
+   */
+  static byte[] codifica(long[] enderecos, byte[] tipos, int n, boolean comTipos) {
+    ByteBuffer destino =
+        ByteBuffer.allocate(Math.max(0, n - 1) * FormatoTrace.TAMANHO_MAXIMO_REGISTRO);
+    for (int i = 1; i < n; i++) {
+      if (comTipos) {
+        destino.put(tipos[i]);
+      }
+      escreveVarint(destino, FormatoTrace.zigzag(enderecos[i] - enderecos[i - 1]));
+    }
+    return Arrays.copyOf(destino.array(), destino.position());
+  }
+
+  /**
+   * Grava um bloco preparado por {@link #codifica}: o primeiro registro é
+   * codificado aqui e os demais são copiados.
+   */
+  void escreveCodificados(long[] enderecos, byte[] tipos, int n, byte[] restantes)
+      throws IOException {
+    if (n == 0) {
+      return;
+    }
+    escreve(enderecos[0], TipoAcesso.deCodigo(tipos[0]));
+    int posicao = 0;
+    while (posicao < restantes.length) {
+      if (!buffer.hasRemaining()) {
+        descarrega();
+      }
+      int parte = Math.min(buffer.remaining(), restantes.length - posicao);
+      buffer.put(restantes, posicao, parte);
+      posicao += parte;
+    }
+    anterior = enderecos[n - 1];
+    registros += n - 1;
+  }
+
+  private void descarrega() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      canal.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /** @return registros gravados até agora. */
+  public long getRegistros() {
+    return registros;
+  }
+
+  /** Descarrega o buffer, grava a contagem no cabeçalho e fecha o arquivo. */
+  @Override
+  public void close() throws IOException {
+    try {
+      descarrega();
+      FormatoTrace.escreveCabecalho(buffer, flags(), registros);
+      buffer.flip();
+      long posicao = 0;
+      while (buffer.hasRemaining()) {
+        posicao += canal.write(buffer, posicao);
+      }
+      buffer.clear();
+    } finally {
+      canal.close();
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Layout do trace binário.
+ *
+ * <pre>
+ * cabeçalho (16 bytes, little-endian):
+ *   0  "TRCB"        número mágico
+ *   4  u16 versão    1
+ *   6  u16 flags     bit 0: cada registro traz o tipo de acesso
+ *                    bit 1: cada registro traz o identificador do processo
+ *   8  u64 registros quantidade de registros
+ * registros:
+ *   [u8 tipo]        só com a flag de tipos (0 = R, 1 = W, 2 = X, 3 = F)
+ *   [varint pid]     só com a flag de processos
+ *   varint           zigzag(endereço - endereço anterior), 7 bits por byte
+ * </pre>
+ *
+ * <p>
+ * Endereços próximos ao anterior ocupam um ou dois bytes, e nenhum registro
+ * passa de {@value #TAMANHO_MAXIMO_REGISTRO} bytes.
+ */
+final class FormatoTrace {
+  static final int MAGICO = 'T' | 'R' << 8 | 'C' << 16 | 'B' << 24;
+  static final short VERSAO = 1;
+  static final int FLAG_TIPOS = 1;
+  static final int FLAG_PROCESSOS = 2;
+  static final int TAMANHO_CABECALHO = 16;
+  static final int TAMANHO_MAXIMO_REGISTRO = 16;
+
+  private FormatoTrace() {
+  }
+
+  static boolean isMagico(ByteBuffer inicio) {
+    return inicio.order(ByteOrder.LITTLE_ENDIAN).getInt(0) == MAGICO;
+  }
+
+  static void escreveCabecalho(ByteBuffer destino, int flags, long registros) {
+    destino.order(ByteOrder.LITTLE_ENDIAN);
+    destino.putInt(MAGICO).putShort(VERSAO).putShort((short) flags).putLong(registros);
+  }
+
+  /** Valida o cabeçalho na posição atual e devolve as flags. */
+  static int leFlags(ByteBuffer origem) throws IOException {
+    origem.order(ByteOrder.LITTLE_ENDIAN);
+    if (origem.remaining() < TAMANHO_CABECALHO || origem.getInt() != MAGICO) {
+      throw new IOException("Arquivo não é um trace binário");
+    }
+    short versao = origem.getShort();
+    if (versao != VERSAO) {
+      throw new IOException("Versão de trace binário não suportada: " + versao);
+    }
+    return origem.getShort() & 0xFFFF;
+  }
+
+  static long zigzag(long valor) {
+    return (valor << 1) ^ (valor >> 63);
+  }
+
+  static long desfazZigzag(long valor) {
+    return (valor >>> 1) ^ -(valor & 1);
+  }
+}
@@ -0,0 +1,363 @@
+package trace;
+
+import config.Configuracao;
+import config.LayoutSegmentos;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import model.TipoAcesso;
+
+/**
+ * Gera traces sintéticos grandes e reproduzíveis respeitando o layout de
+ * segmentos da configuração.
+ *
+ * <p>
+ * Cada referência vem de um de quatro fluxos, sorteado pelos pesos
+ * configurados:
+ * <ul>
+ * <li>código: busca sequencial de instruções no .text, com saltos para outro
+ * ponto da região de código quente da fase;</li>
+ * <li>heap: acesso Zipfiano às páginas do .data/.bss (poucas páginas recebem
+ * a maior parte das referências);</li>
+ * <li>pilha: push, pop e acesso a variáveis locais perto do topo da pilha;</li>
+ * <li>varredura: leitura de um vetor do heap com passo fixo.</li>
+ * </ul>
+ *
+ * <p>
+ * A cada {@code tamanhoFase} referências o programa muda de fase: a região de
+ * código quente, as páginas populares do heap e o vetor varrido mudam de
+ * lugar. As referências são geradas em blocos independentes, cada um com seu
+ * próprio gerador derivado da semente e do índice do bloco, em um pool de
+ * threads que também os codifica; os blocos são gravados em ordem, de modo que
+ * o arquivo é o mesmo qualquer que seja a quantidade de threads.
+ *
+ * <p>
+ * Uso: {@code java trace.GeradorTrace <gerador.properties> <saida> [threads]}.
+ * O arquivo usa as chaves de layout de {@link Configuracao#deArquivo} e as
+ * chaves do gerador (ver {@code gerador_exemplo.properties}).
+ */
+public final class GeradorTrace {
+  private static final long ESPALHA_BLOCO = 0x9E3779B97F4A7C15L;
+  private static final long ESPALHA_FASE = 0xC2B2AE3D27D4EB4FL;
+  /** Primo usado para embaralhar as páginas do heap (primo com qualquer tamanho menor). */
+  private static final long PRIMO_HEAP = 2654435761L;
+  private static final int PALAVRA = 8;
+  private static final int INSTRUCAO = 4;
+
+  private final long referencias;
+  private final long semente;
+  private final int tamanhoBloco;
+  private final boolean binario;
+  private final boolean comTipos;
+  private final long tamanhoFase;
+  private final int[] pesos = new int[4];
+  private final int pesoTotal;
+  private final double probabilidadeSalto;
+  private final double fracaoEscrita;
+  private final int passoVarredura;
+
+  private final int tamanhoPagina;
+  private final long tamanhoCodigoQuente;
+  private final long tamanhoText;
+  private final long inicioHeap;
+  private final long tamanhoHeap;
+  private final int paginasHeap;
+  private final long multiplicadorHeap;
+  private final double[] acumuladaZipf;
+  private final long tamanhoVetor;
+  private final long topoPilha;
+  private final int palavrasPilha;
+
+  /**
+   * Lê e valida as chaves do gerador; o layout vem de {@code config}.
+   *
+   * @throws IllegalArgumentException se algum valor é inválido ou não cabe no layout
+   */
+  public GeradorTrace(Configuracao config, Properties props) {
+    this.referencias = Long.parseLong(valor(props, "referencias", "1000000"));
+    this.semente = Long.parseLong(valor(props, "semente", "1"));
+    this.tamanhoBloco = Integer.parseInt(valor(props, "tamanhoBloco", "1048576"));
+    String formato = valor(props, "formatoTrace", "BINARIO").toUpperCase(Locale.ROOT);
+    if (!formato.equals("BINARIO") && !formato.equals("TEXTO")) {
+      throw new IllegalArgumentException("formatoTrace deve ser BINARIO ou TEXTO: " + formato);
+    }
+    this.binario = formato.equals("BINARIO");
+    this.comTipos = Boolean.parseBoolean(valor(props, "comTipos", "true"));
+    this.tamanhoFase = Long.parseLong(valor(props, "tamanhoFase", "0"));
+    pesos[0] = Integer.parseInt(valor(props, "pesoCodigo", "40"));
+    pesos[1] = Integer.parseInt(valor(props, "pesoHeap", "35"));
+    pesos[2] = Integer.parseInt(valor(props, "pesoPilha", "15"));
+    pesos[3] = Integer.parseInt(valor(props, "pesoVarredura", "10"));
+    this.probabilidadeSalto = Double.parseDouble(valor(props, "probabilidadeSalto", "0.05"));
+    this.fracaoEscrita = Double.parseDouble(valor(props, "fracaoEscrita", "0.3"));
+    double expoenteZipf = Double.parseDouble(valor(props, "expoenteZipf", "0.99"));
+    this.passoVarredura = Integer.parseInt(valor(props, "passoVarredura", "64"));
+    long codigoQuente = Long.parseLong(valor(props, "codigoQuente", "65536"));
+    int paginasPedidas = Integer.parseInt(valor(props, "paginasHeap", "16384"));
+    long vetor = Long.parseLong(valor(props, "tamanhoVetor", "8388608"));
+    long profundidadePilha = Long.parseLong(valor(props, "profundidadePilha", "16384"));
+
+    int soma = 0;
+    for (int p : pesos) {
+      if (p < 0) {
+        throw new IllegalArgumentException("Pesos dos fluxos não podem ser negativos");
+      }
+      soma += p;
+    }
+    if (soma == 0) {
+      throw new IllegalArgumentException("Pelo menos um fluxo precisa de peso positivo");
+    }
+    this.pesoTotal = soma;
+    if (referencias < 0 || tamanhoBloco < 1 || tamanhoFase < 0) {
+      throw new IllegalArgumentException("referencias, tamanhoBloco ou tamanhoFase inválido");
+    }
+    if (probabilidadeSalto < 0 || probabilidadeSalto > 1 || fracaoEscrita < 0
+        || fracaoEscrita > 1 || expoenteZipf < 0) {
+      throw new IllegalArgumentException(
+          "probabilidadeSalto e fracaoEscrita devem estar em [0, 1] e expoenteZipf >= 0");
+    }
+    if (passoVarredura < 1 || codigoQuente < INSTRUCAO || vetor < 1
+        || profundidadePilha < PALAVRA) {
+      throw new IllegalArgumentException(
+          "passoVarredura, codigoQuente, tamanhoVetor ou profundidadePilha inválido");
+    }
+    if (paginasPedidas < 1 || paginasPedidas > 1 << 24) {
+      throw new IllegalArgumentException("paginasHeap deve estar entre 1 e 2^24");
+    }
+
+    LayoutSegmentos layout = new LayoutSegmentos(config);
+    this.tamanhoPagina = config.getTamanhoPagina();
+    this.tamanhoText = (layout.getFimText() + 1) & -INSTRUCAO;
+    this.tamanhoCodigoQuente = Math.min(codigoQuente, tamanhoText) & -INSTRUCAO;
+    this.inicioHeap = layout.getInicioData();
+    long fimHeap = Math.min(layout.getFimBss(), layout.getInicioStack() - 1);
+    this.tamanhoHeap = fimHeap - inicioHeap + 1;
+    if (tamanhoCodigoQuente < INSTRUCAO || tamanhoHeap < tamanhoPagina) {
+      throw new IllegalArgumentException("Segmentos .text ou .data/.bss pequenos demais");
+    }
+    this.paginasHeap = (int) Math.min(paginasPedidas, tamanhoHeap / tamanhoPagina);
+    this.multiplicadorHeap = PRIMO_HEAP % paginasHeap;
+    this.acumuladaZipf = acumuladaZipf(paginasHeap, expoenteZipf);
+    this.tamanhoVetor = Math.min(vetor, tamanhoHeap);
+    // deixa uma linha acima do topo para as variáveis locais
+    this.topoPilha = (layout.getFimStack() + 1 - PALAVRA * PALAVRA) & -PALAVRA;
+    long pilha = Math.min(profundidadePilha, topoPilha - layout.getInicioStack());
+    this.palavrasPilha = (int) Math.min(Integer.MAX_VALUE, pilha / PALAVRA);
+    if (palavrasPilha < 1) {
+      throw new IllegalArgumentException("Segmento .stack pequeno demais");
+    }
+  }
+
+  private static String valor(Properties props, String chave, String padrao) {
+    return props.getProperty(chave, padrao).trim();
+  }
+
+  private static double[] acumuladaZipf(int n, double expoente) {
+    double[] acumulada = new double[n];
+    double soma = 0;
+    for (int i = 0; i < n; i++) {
+      soma += 1.0 / Math.pow(i + 1, expoente);
+      acumulada[i] = soma;
+    }
+    for (int i = 0; i < n; i++) {
+      acumulada[i] /= soma;
+    }
+    return acumulada;
+  }
+
+  /** Referências geradas de um bloco, já codificadas no formato de saída. */
+  private static final class Bloco {
+    final long[] enderecos;
+    final byte[] tipos;
+    byte[] codificado;
+
+    Bloco(int n) {
+      this.enderecos = new long[n];
+      this.tipos = new byte[n];
+    }
+  }
+
+  /** Lugares da região de código quente, do heap e do vetor durante uma fase. */
+  private static final class Fase {
+    final long inicioCodigo;
+    final long deslocamentoHeap;
+    final long baseVetor;
+
+    Fase(long inicioCodigo, long deslocamentoHeap, long baseVetor) {
+      this.inicioCodigo = inicioCodigo;
+      this.deslocamentoHeap = deslocamentoHeap;
+      this.baseVetor = baseVetor;
+    }
+  }
+
+  private Fase fase(long indice) {
+    SplittableRandom r = new SplittableRandom(semente ^ (indice + 1) * ESPALHA_FASE);
+    long inicioCodigo = r.nextLong(tamanhoText - tamanhoCodigoQuente + 1) & -INSTRUCAO;
+    long deslocamentoHeap = r.nextLong(paginasHeap);
+    long paginasVetor = (tamanhoHeap - tamanhoVetor) / tamanhoPagina;
+    long baseVetor = inicioHeap + r.nextLong(paginasVetor + 1) * tamanhoPagina;
+    return new Fase(inicioCodigo, deslocamentoHeap, baseVetor);
+  }
+
+  /** Gera o bloco {@code indice}; depende só da configuração e da semente. */
+  private Bloco geraBloco(long indice) {
+    long inicio = indice * tamanhoBloco;
+    int n = (int) Math.min(tamanhoBloco, referencias - inicio);
+    Bloco bloco = new Bloco(n);
+    SplittableRandom r = new SplittableRandom(semente + indice * ESPALHA_BLOCO);
+
+    long numeroFase = -1;
+    Fase f = null;
+    long pc = 0;
+    long cursor = 0;
+    long sp = topoPilha - (long) PALAVRA * r.nextInt(palavrasPilha / 2 + 1);
+    for (int i = 0; i < n; i++) {
+      long atual = tamanhoFase == 0 ? 0 : (inicio + i) / tamanhoFase;
+      if (atual != numeroFase) {
+        numeroFase = atual;
+        f = fase(atual);
+        pc = f.inicioCodigo + (r.nextLong(tamanhoCodigoQuente) & -INSTRUCAO);
+        cursor = f.baseVetor + r.nextLong(tamanhoVetor / passoVarredura + 1) * passoVarredura;
+      }
+      long endereco;
+      TipoAcesso tipo;
+      int sorteio = r.nextInt(pesoTotal);
+      if (sorteio < pesos[0]) {
+        if (r.nextDouble() < probabilidadeSalto) {
+          pc = f.inicioCodigo + (r.nextLong(tamanhoCodigoQuente) & -INSTRUCAO);
+        } else {
+          pc += INSTRUCAO;
+          if (pc >= f.inicioCodigo + tamanhoCodigoQuente) {
+            pc = f.inicioCodigo;
+          }
+        }
+        endereco = pc;
+        tipo = TipoAcesso.EXECUCAO;
+      } else if (sorteio < pesos[0] + pesos[1]) {
+        int rank = Arrays.binarySearch(acumuladaZipf, r.nextDouble());
+        rank = rank >= 0 ? rank : Math.min(-rank - 1, paginasHeap - 1);
+        long pagina = (rank * multiplicadorHeap + f.deslocamentoHeap) % paginasHeap;
+        endereco = inicioHeap + pagina * tamanhoPagina + (r.nextInt(tamanhoPagina) & -PALAVRA);
+        tipo = escritaOuLeitura(r);
+      } else if (sorteio < pesos[0] + pesos[1] + pesos[2]) {
+        int operacao = r.nextInt(3);
+        boolean cheia = topoPilha - sp >= (long) palavrasPilha * PALAVRA;
+        if (operacao == 0 && !cheia || operacao == 1 && sp == topoPilha) {
+          sp -= PALAVRA; // push
+          endereco = sp;
+          tipo = TipoAcesso.ESCRITA;
+        } else if (operacao == 1) {
+          endereco = sp; // pop
+          sp += PALAVRA;
+          tipo = TipoAcesso.LEITURA;
+        } else {
+          endereco = sp + (long) r.nextInt(PALAVRA) * PALAVRA; // variável local
+          tipo = escritaOuLeitura(r);
+        }
+      } else {
+        endereco = cursor;
+        cursor += passoVarredura;
+        if (cursor >= f.baseVetor + tamanhoVetor) {
+          cursor = f.baseVetor;
+        }
+        tipo = escritaOuLeitura(r);
+      }
+      bloco.enderecos[i] = endereco;
+      bloco.tipos[i] = (byte) tipo.ordinal();
+    }
+    bloco.codificado = binario
+        ? EscritorTraceBinario.codifica(bloco.enderecos, bloco.tipos, n, comTipos)
+        : texto(bloco);
+    return bloco;
+  }
+
+  private TipoAcesso escritaOuLeitura(SplittableRandom r) {
+    return r.nextDouble() < fracaoEscrita ? TipoAcesso.ESCRITA : TipoAcesso.LEITURA;
+  }
+
+  private byte[] texto(Bloco bloco) {
+    StringBuilder sb = new StringBuilder(bloco.enderecos.length * 14);
+    for (int i = 0; i < bloco.enderecos.length; i++) {
+      sb.append(bloco.enderecos[i]);
+      if (comTipos) {
+        sb.append(' ').append(TipoAcesso.deCodigo(bloco.tipos[i]).getLetra());
+      }
+      sb.append('\n');
+    }
+    return sb.toString().getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Gera todas as referências e grava o trace.
+   *
+   * @param threads threads de geração (0 = processadores disponíveis)
+   * @return referências gravadas
+   */
+  public long gera(String saida, int threads) throws IOException, InterruptedException {
+    int paralelismo = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    long blocos = (referencias + tamanhoBloco - 1) / tamanhoBloco;
+    ExecutorService pool = Executors.newFixedThreadPool(paralelismo);
+    // limita os blocos em memória a dois por thread
+    ArrayDeque<Future<Bloco>> pendentes = new ArrayDeque<>();
+    try (EscritorTraceBinario escritor = binario
+        ? new EscritorTraceBinario(saida, comTipos)
+        : null;
+        OutputStream texto = binario ? null
+            : new BufferedOutputStream(new FileOutputStream(saida), 1 << 20)) {
+      long proximo = 0;
+      while (proximo < blocos || !pendentes.isEmpty()) {
+        while (proximo < blocos && pendentes.size() < 2 * paralelismo) {
+          long indice = proximo++;
+          pendentes.add(pool.submit(() -> geraBloco(indice)));
+        }
+        Bloco bloco = obtem(pendentes.poll());
+        if (binario) {
+          escritor.escreveCodificados(bloco.enderecos, bloco.tipos, bloco.enderecos.length,
+              bloco.codificado);
+        } else {
+          texto.write(bloco.codificado);
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    return referencias;
+  }
+
+  private static Bloco obtem(Future<Bloco> futuro) throws InterruptedException {
+    try {
+      return futuro.get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Falha na geração do trace", e.getCause());
+    }
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("Uso: java trace.GeradorTrace <gerador.properties> <saida> [threads]");
+      System.exit(1);
+    }
+    Properties props = new Properties();
+    try (InputStream in = new FileInputStream(args[0])) {
+      props.load(in);
+    }
+    GeradorTrace gerador = new GeradorTrace(Configuracao.deProperties(props), props);
+    long inicio = System.nanoTime();
+    long registros = gerador.gera(args[1], args.length == 3 ? Integer.parseInt(args[2]) : 0);
+    System.out.printf(Locale.ROOT, "%d referências gravadas em %s (%.1f s)%n", registros,
+        args[1], (System.nanoTime() - inicio) / 1e9);
+  }
+}
@@ -0,0 +1,75 @@
+package trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import model.TipoAcesso;
+
+/**
+ * Fonte sequencial de referências à memória.
+ *
+ * <p>
+ * O leitor funciona como um cursor: {@link #proximo()} avança para o próximo
+ * registro e os getters devolvem os campos do registro atual, sem criar
+ * objetos por referência lida.
+ */
+public interface LeitorTrace extends Closeable {
+
+  /**
+   * Avança para o próximo registro.
+   *
+   * @return false quando o trace terminou.
+   */
+  boolean proximo() throws IOException;
+
+  /** @return endereço virtual do registro atual. */
+  long getEndereco();
+
+  /** @return tipo do registro atual ({@link TipoAcesso#LEITURA} se o trace não informa). */
+  TipoAcesso getTipoAcesso();
+
+  /** @return processo que fez a referência atual (0 se o trace não informa). */
+  default int getProcesso() {
+    return 0;
+  }
+
+  /**
+   * Descarta os próximos registros sem entregá-los (retomada de um checkpoint).
+   * O registro atual passa a ser o último descartado.
+   *
+   * @return registros descartados (menos que {@code registros} se o trace acabou)
+   */
+  default long pula(long registros) throws IOException {
+    long pulados = 0;
+    while (pulados < registros && proximo()) {
+      pulados++;
+    }
+    return pulados;
+  }
+
+  /** @return quantidade total de registros, ou -1 se só é conhecida ao final. */
+  default long getTotalRegistros() {
+    return -1;
+  }
+
+  /**
+   * Abre o trace no formato adequado: binário se o arquivo começa com o número
+   * mágico de {@link EscritorTraceBinario}, texto (um endereço decimal por
+   * linha) caso contrário.
+   */
+  static LeitorTrace abre(String caminho) throws IOException {
+    try (FileChannel canal = FileChannel.open(Paths.get(caminho), StandardOpenOption.READ)) {
+      ByteBuffer inicio = ByteBuffer.allocate(4);
+      while (inicio.hasRemaining() && canal.read(inicio) != -1) {
+        // lê até 4 bytes
+      }
+      if (!inicio.hasRemaining() && FormatoTrace.isMagico(inicio.flip())) {
+        return new LeitorTraceBinario(caminho);
+      }
+    }
+    return new LeitorTraceTexto(caminho);
+  }
+}
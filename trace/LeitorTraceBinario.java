@@ -0,0 +1,161 @@
+package trace;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import model.TipoAcesso;
+
+/**
+ * Lê o trace binário descrito em {@link FormatoTrace} através de janelas
+ * mapeadas em memória.
+ *
+ * <p>
+ * O arquivo é mapeado em janelas de até {@value #TAMANHO_JANELA} bytes, o que
+ * permite traces maiores que o limite de 2 GB de um único
+ * {@link MappedByteBuffer}. A janela seguinte é mapeada quando restam menos
+ * bytes que o maior registro possível, de modo que a decodificação nunca cruza
+ * o fim de uma janela. Nenhum objeto é criado por registro.
+ */
+public final class LeitorTraceBinario implements LeitorTrace {
+  static final int TAMANHO_JANELA = 1 << 28;
+
+  private final FileChannel canal;
+  private final long tamanhoArquivo;
+  private final boolean comTipos;
+  private final boolean comProcessos;
+  private final long totalRegistros;
+
+  private MappedByteBuffer janela;
+  private long inicioJanela;
+  private long lidos;
+  private long endereco;
+  private TipoAcesso tipo = TipoAcesso.LEITURA;
+  private int processo;
+
+  /** Abre o arquivo e valida o cabeçalho. */
+  public LeitorTraceBinario(String caminho) throws IOException {
+    this.canal = FileChannel.open(Paths.get(caminho), StandardOpenOption.READ);
+    try {
+      this.tamanhoArquivo = canal.size();
+      mapeia(0);
+      int flags = FormatoTrace.leFlags(janela);
+      this.comTipos = (flags & FormatoTrace.FLAG_TIPOS) != 0;
+      this.comProcessos = (flags & FormatoTrace.FLAG_PROCESSOS) != 0;
+      this.totalRegistros = janela.getLong();
+    } catch (IOException | RuntimeException e) {
+      canal.close();
+      throw e;
+    }
+  }
+
+  private void mapeia(long inicio) throws IOException {
+    long tamanho = Math.min(TAMANHO_JANELA, tamanhoArquivo - inicio);
+    janela = canal.map(FileChannel.MapMode.READ_ONLY, inicio, tamanho);
+    janela.order(ByteOrder.LITTLE_ENDIAN);
+    inicioJanela = inicio;
+  }
+
+  @Override
+  public boolean proximo() throws IOException {
+    if (lidos == totalRegistros) {
+      return false;
+    }
+    if (janela.remaining() < FormatoTrace.TAMANHO_MAXIMO_REGISTRO
+        && inicioJanela + janela.limit() < tamanhoArquivo) {
+      mapeia(inicioJanela + janela.position());
+    }
+    if (!janela.hasRemaining()) {
+      throw new IOException("Trace binário truncado após " + lidos + " registros");
+    }
+    if (comTipos) {
+      tipo = TipoAcesso.deCodigo(janela.get());
+    }
+    if (comProcessos) {
+      processo = (int) leVarint();
+    }
+    endereco += FormatoTrace.desfazZigzag(leVarint());
+    lidos++;
+    return true;
+  }
+
+  /**
+   * Descarta registros decodificando só o necessário: o tipo e o processo do
+   * último e a soma dos deltas de endereço.
+   */
+  @Override
+  public long pula(long registros) throws IOException {
+    long alvo = lidos + Math.min(registros, totalRegistros - lidos);
+    long pulados = alvo - lidos;
+    while (lidos < alvo - 1) {
+      if (janela.remaining() < FormatoTrace.TAMANHO_MAXIMO_REGISTRO
+          && inicioJanela + janela.limit() < tamanhoArquivo) {
+        mapeia(inicioJanela + janela.position());
+      }
+      if (!janela.hasRemaining()) {
+        throw new IOException("Trace binário truncado após " + lidos + " registros");
+      }
+      if (comTipos) {
+        janela.get();
+      }
+      if (comProcessos) {
+        leVarint();
+      }
+      endereco += FormatoTrace.desfazZigzag(leVarint());
+      lidos++;
+    }
+    if (lidos < alvo) {
+      proximo();
+    }
+    return pulados;
+  }
+
+  private long leVarint() {
+    long valor = 0;
+    int deslocamento = 0;
+    byte b;
+    do {
+      b = janela.get();
+      valor |= (long) (b & 0x7F) << deslocamento;
+      deslocamento += 7;
+    } while (b < 0);
+    return valor;
+  }
+
+  @Override
+  public long getEndereco() {
+    return endereco;
+  }
+
+  @Override
+  public TipoAcesso getTipoAcesso() {
+    return tipo;
+  }
+
+  @Override
+  public int getProcesso() {
+    return processo;
+  }
+
+  @Override
+  public long getTotalRegistros() {
+    return totalRegistros;
+  }
+
+  /** @return true se os registros trazem o tipo de acesso. */
+  public boolean isComTipos() {
+    return comTipos;
+  }
+
+  /** @return true se os registros trazem o processo. */
+  public boolean isComProcessos() {
+    return comProcessos;
+  }
+
+  @Override
+  public void close() throws IOException {
+    canal.close();
+  }
+}
@@ -0,0 +1,151 @@
+package trace;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import model.TipoAcesso;
+
+/**
+ * Lê o trace texto original: um endereço decimal por linha, opcionalmente
+ * acompanhado de uma letra com o tipo de acesso (R, W ou X) e do processo no
+ * formato {@code P<pid>}, antes ou depois do número (por exemplo
+ * {@code P2 4096 W}). Linhas em branco são ignoradas. A letra F marca um fork,
+ * com o pid do processo criado no lugar do endereço ({@code P2 F 7}).
+ *
+ * <p>
+ * Os números são convertidos diretamente a partir dos bytes do buffer de
+ * leitura, sem criar uma String por linha.
+ */
+public final class LeitorTraceTexto implements LeitorTrace {
+  private static final int TAMANHO_BUFFER = 1 << 16;
+
+  private final InputStream entrada;
+  private final byte[] buffer = new byte[TAMANHO_BUFFER];
+  private int posicao;
+  private int limite;
+  private long linha = 1;
+
+  private long endereco;
+  private TipoAcesso tipo = TipoAcesso.LEITURA;
+  private boolean tipoInformado;
+  private int processo;
+
+  public LeitorTraceTexto(String caminho) throws IOException {
+    this.entrada = new FileInputStream(caminho);
+  }
+
+  /** @return próximo byte do arquivo ou -1 no fim. */
+  private int le() throws IOException {
+    if (posicao == limite) {
+      limite = entrada.read(buffer, 0, buffer.length);
+      posicao = 0;
+      if (limite <= 0) {
+        limite = 0;
+        return -1;
+      }
+    }
+    return buffer[posicao++] & 0xFF;
+  }
+
+  @Override
+  public boolean proximo() throws IOException {
+    int c = le();
+    // pula espaços e linhas em branco
+    while (c != -1 && c <= ' ') {
+      if (c == '\n') {
+        linha++;
+      }
+      c = le();
+    }
+    if (c == -1) {
+      return false;
+    }
+
+    boolean temEndereco = false;
+    boolean temProcesso = false;
+    tipo = TipoAcesso.LEITURA;
+    tipoInformado = false;
+    processo = 0;
+    while (c != -1 && c != '\n') {
+      if (c <= ' ') {
+        c = le();
+      } else if (!temEndereco && (c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+        c = leNumero(c);
+        temEndereco = true;
+      } else if (!temProcesso && (c == 'P' || c == 'p')) {
+        long enderecoLido = endereco;
+        c = leNumero(le());
+        if (endereco < 0 || endereco > Integer.MAX_VALUE) {
+          throw erro();
+        }
+        processo = (int) endereco;
+        endereco = enderecoLido;
+        temProcesso = true;
+      } else if (!tipoInformado && TipoAcesso.deLetra(c) != null) {
+        tipo = TipoAcesso.deLetra(c);
+        tipoInformado = true;
+        c = le();
+      } else {
+        throw erro();
+      }
+    }
+    if (!temEndereco) {
+      throw erro();
+    }
+    if (c == '\n') {
+      linha++;
+    }
+    return true;
+  }
+
+  /** Converte o número que começa em {@code c} e devolve o byte seguinte a ele. */
+  private int leNumero(int c) throws IOException {
+    boolean negativo = c == '-';
+    if (c == '-' || c == '+') {
+      c = le();
+    }
+    if (c < '0' || c > '9') {
+      throw erro();
+    }
+    long valor = 0;
+    do {
+      int digito = c - '0';
+      if (valor > (Long.MAX_VALUE - digito) / 10) {
+        throw erro();
+      }
+      valor = valor * 10 + digito;
+      c = le();
+    } while (c >= '0' && c <= '9');
+    endereco = negativo ? -valor : valor;
+    return c;
+  }
+
+  private NumberFormatException erro() {
+    return new NumberFormatException("Linha " + linha + " do trace não contém um endereço válido");
+  }
+
+  @Override
+  public long getEndereco() {
+    return endereco;
+  }
+
+  @Override
+  public TipoAcesso getTipoAcesso() {
+    return tipo;
+  }
+
+  @Override
+  public int getProcesso() {
+    return processo;
+  }
+
+  /** @return true se a linha atual trouxe a letra do tipo de acesso. */
+  public boolean isTipoInformado() {
+    return tipoInformado;
+  }
+
+  @Override
+  public void close() throws IOException {
+    entrada.close();
+  }
+}
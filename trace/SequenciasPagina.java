@@ -0,0 +1,105 @@
+package trace;
+
+import java.io.IOException;
+import model.TipoAcesso;
+
+/**
+ * Agrupa referências consecutivas do mesmo processo à mesma página em
+ * sequências, para que o simulador traduza a página uma vez por sequência
+ * (ver {@code MotorSimulacao.traduzSequencia}).
+ *
+ * <p>
+ * Funciona como cursor sobre um {@link LeitorTrace}: {@link #proxima()}
+ * preenche os endereços da próxima sequência em um vetor reaproveitado. O
+ * leitor fica um registro à frente, já posicionado no início da sequência
+ * seguinte. Sequências mais longas que o vetor são quebradas. Um registro de
+ * fork forma sozinho uma sequência ({@link #isFork()}).
+ */
+public final class SequenciasPagina {
+  private final LeitorTrace trace;
+  private final int bitsDeslocamento;
+  private final long[] enderecos;
+  private final TipoAcesso[] tipos;
+  private int tamanho;
+  private int processo;
+  /** O leitor já está no primeiro registro da próxima sequência. */
+  private boolean adiantado;
+  private boolean fim;
+
+  /**
+   * @param bitsDeslocamento bits do deslocamento dentro da página
+   * @param tamanhoMaximo    referências por sequência
+   */
+  public SequenciasPagina(LeitorTrace trace, int bitsDeslocamento, int tamanhoMaximo) {
+    this.trace = trace;
+    this.bitsDeslocamento = bitsDeslocamento;
+    this.enderecos = new long[tamanhoMaximo];
+    this.tipos = new TipoAcesso[tamanhoMaximo];
+  }
+
+  /**
+   * Avança para a próxima sequência.
+   *
+   * @return false quando o trace terminou.
+   */
+  public boolean proxima() throws IOException {
+    tamanho = 0;
+    if (!adiantado && (fim || !trace.proximo())) {
+      fim = true;
+      return false;
+    }
+    adiantado = false;
+    long endereco = trace.getEndereco();
+    long pagina = endereco >>> bitsDeslocamento;
+    processo = trace.getProcesso();
+    tipos[tamanho] = trace.getTipoAcesso();
+    enderecos[tamanho++] = endereco;
+    if (tipos[0] == TipoAcesso.FORK) {
+      return true;
+    }
+    while (tamanho < enderecos.length) {
+      if (!trace.proximo()) {
+        fim = true;
+        break;
+      }
+      endereco = trace.getEndereco();
+      TipoAcesso tipo = trace.getTipoAcesso();
+      if (endereco >>> bitsDeslocamento != pagina || trace.getProcesso() != processo
+          || tipo == TipoAcesso.FORK) {
+        adiantado = true;
+        break;
+      }
+      tipos[tamanho] = tipo;
+      enderecos[tamanho++] = endereco;
+    }
+    return true;
+  }
+
+  /** @return referências da sequência atual. */
+  public int getTamanho() {
+    return tamanho;
+  }
+
+  /** @return endereço virtual da i-ésima referência da sequência. */
+  public long getEndereco(int i) {
+    return enderecos[i];
+  }
+
+  /** @return processo que fez as referências. */
+  public int getProcesso() {
+    return processo;
+  }
+
+  /** @return tipo da i-ésima referência da sequência. */
+  public TipoAcesso getTipo(int i) {
+    return tipos[i];
+  }
+
+  /**
+   * @return true se a sequência é um fork do processo, com o pid do filho no
+   *         campo de endereço
+   */
+  public boolean isFork() {
+    return tipos[0] == TipoAcesso.FORK;
+  }
+}
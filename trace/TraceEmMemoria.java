@@ -0,0 +1,144 @@
+package trace;
+
+import java.io.IOException;
+import java.util.Arrays;
+import model.TipoAcesso;
+
+/**
+ * Trace decodificado uma única vez para vetores primitivos e compartilhado,
+ * somente para leitura, entre várias simulações.
+ *
+ * <p>
+ * Cada simulação percorre o trace por um {@link #cursor()} próprio; os
+ * vetores nunca são alterados depois da carga, então vários cursores podem
+ * ser usados em threads diferentes. Comporta até {@value #MAXIMO_REGISTROS}
+ * referências.
+ */
+public final class TraceEmMemoria {
+  static final int MAXIMO_REGISTROS = Integer.MAX_VALUE - 8;
+  private static final TipoAcesso[] TIPOS = TipoAcesso.values();
+
+  private final long[] enderecos;
+  private final byte[] tipos;
+  /** Processo de cada referência; null se todas são do processo 0. */
+  private final int[] processos;
+
+  private TraceEmMemoria(long[] enderecos, byte[] tipos, int[] processos) {
+    this.enderecos = enderecos;
+    this.tipos = tipos;
+    this.processos = processos;
+  }
+
+  /** Lê o trace inteiro (texto ou binário). */
+  public static TraceEmMemoria carrega(String caminho) throws IOException {
+    try (LeitorTrace leitor = LeitorTrace.abre(caminho)) {
+      long total = leitor.getTotalRegistros();
+      if (total > MAXIMO_REGISTROS) {
+        throw new IOException("Trace grande demais para ser carregado em memória: " + total);
+      }
+      int capacidade = (int) Math.max(1024, total);
+      long[] enderecos = new long[capacidade];
+      byte[] tipos = new byte[capacidade];
+      int[] processos = null;
+      int n = 0;
+      while (leitor.proximo()) {
+        if (n == enderecos.length) {
+          if (n == MAXIMO_REGISTROS) {
+            throw new IOException("Trace grande demais para ser carregado em memória");
+          }
+          capacidade = (int) Math.min(MAXIMO_REGISTROS, 2L * n);
+          enderecos = Arrays.copyOf(enderecos, capacidade);
+          tipos = Arrays.copyOf(tipos, capacidade);
+          if (processos != null) {
+            processos = Arrays.copyOf(processos, capacidade);
+          }
+        }
+        enderecos[n] = leitor.getEndereco();
+        tipos[n] = (byte) leitor.getTipoAcesso().ordinal();
+        if (leitor.getProcesso() != 0 && processos == null) {
+          processos = new int[enderecos.length];
+        }
+        if (processos != null) {
+          processos[n] = leitor.getProcesso();
+        }
+        n++;
+      }
+      return new TraceEmMemoria(Arrays.copyOf(enderecos, n), Arrays.copyOf(tipos, n),
+          processos == null ? null : Arrays.copyOf(processos, n));
+    }
+  }
+
+  /** @return quantidade de referências. */
+  public int getTamanho() {
+    return enderecos.length;
+  }
+
+  /** @return endereço da referência {@code i}. */
+  public long getEndereco(int i) {
+    return enderecos[i];
+  }
+
+  /** @return tipo da referência {@code i}. */
+  public TipoAcesso getTipoAcesso(int i) {
+    return TIPOS[tipos[i]];
+  }
+
+  /** @return processo da referência {@code i} (0 se o trace não informa). */
+  public int getProcesso(int i) {
+    return processos == null ? 0 : processos[i];
+  }
+
+  /** @return leitor independente posicionado antes da primeira referência. */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /** Leitor sobre os vetores compartilhados; não lança exceções de E/S. */
+  public final class Cursor implements LeitorTrace {
+    private int posicao = -1;
+
+    private Cursor() {
+    }
+
+    @Override
+    public boolean proximo() {
+      if (posicao + 1 >= enderecos.length) {
+        posicao = enderecos.length;
+        return false;
+      }
+      posicao++;
+      return true;
+    }
+
+    @Override
+    public long pula(long registros) {
+      long pulados = Math.max(0, Math.min(registros, enderecos.length - 1L - posicao));
+      posicao += (int) pulados;
+      return pulados;
+    }
+
+    @Override
+    public long getEndereco() {
+      return enderecos[posicao];
+    }
+
+    @Override
+    public TipoAcesso getTipoAcesso() {
+      return TIPOS[tipos[posicao]];
+    }
+
+    @Override
+    public int getProcesso() {
+      return processos == null ? 0 : processos[posicao];
+    }
+
+    @Override
+    public long getTotalRegistros() {
+      return enderecos.length;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Árvore de Fenwick (binary indexed tree) de contadores inteiros: soma de
+ * prefixo e atualização pontual em O(log n).
+ *
+ * <p>
+ * As posições vão de 1 a {@link #getTamanho()}.
+ */
+public class ArvoreFenwick {
+  private final int[] arvore;
+
+  public ArvoreFenwick(int tamanho) {
+    this.arvore = new int[tamanho + 1];
+  }
+
+  /** Soma {@code delta} à posição {@code i}. */
+  public void adiciona(int i, int delta) {
+    for (; i < arvore.length; i += i & -i) {
+      arvore[i] += delta;
+    }
+  }
+
+  /** @return soma das posições 1..i. */
+  public int soma(int i) {
+    int total = 0;
+    for (; i > 0; i -= i & -i) {
+      total += arvore[i];
+    }
+    return total;
+  }
+
+  /** Zera todos os contadores. */
+  public void limpa() {
+    Arrays.fill(arvore, 0);
+  }
+
+  /**
+   * Reinicia a árvore com o valor 1 nas posições 1..n e 0 nas demais, em
+   * O(tamanho).
+   */
+  public void preencheUns(int n) {
+    for (int i = 1; i < arvore.length; i++) {
+      arvore[i] = i <= n ? 1 : 0;
+    }
+    for (int i = 1; i < arvore.length; i++) {
+      int pai = i + (i & -i);
+      if (pai < arvore.length) {
+        arvore[pai] += arvore[i];
+      }
+    }
+  }
+
+  /** @return quantidade de posições. */
+  public int getTamanho() {
+    return arvore.length - 1;
+  }
+}
@@ -0,0 +1,68 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fila circular limitada e sem travas para exatamente um produtor e um
+ * consumidor.
+ *
+ * <p>
+ * Cada lado escreve apenas o próprio índice (com {@code lazySet}, que basta
+ * para publicar o elemento ao outro lado) e guarda uma cópia local do índice
+ * do outro lado, relida só quando a fila parece cheia ou vazia. As operações
+ * não bloqueiam: devolvem false/null e cabe ao chamador decidir como esperar.
+ */
+public final class FilaSPSC<T> {
+  private final Object[] elementos;
+  private final int mascara;
+
+  /** Próxima posição a ser lida; escrita só pelo consumidor. */
+  private final AtomicLong cabeca = new AtomicLong();
+  /** Próxima posição a ser escrita; escrita só pelo produtor. */
+  private final AtomicLong cauda = new AtomicLong();
+  private long cabecaVistaPeloProdutor;
+  private long caudaVistaPeloConsumidor;
+
+  /** @param capacidade arredondada para a próxima potência de dois. */
+  public FilaSPSC(int capacidade) {
+    int tamanho = Integer.highestOneBit(Math.max(1, capacidade - 1)) << 1;
+    this.elementos = new Object[tamanho];
+    this.mascara = tamanho - 1;
+  }
+
+  /** Insere o elemento (chamado só pelo produtor). @return false se cheia. */
+  public boolean oferece(T elemento) {
+    long t = cauda.get();
+    if (t - cabecaVistaPeloProdutor == elementos.length) {
+      cabecaVistaPeloProdutor = cabeca.get();
+      if (t - cabecaVistaPeloProdutor == elementos.length) {
+        return false;
+      }
+    }
+    elementos[(int) t & mascara] = elemento;
+    cauda.lazySet(t + 1);
+    return true;
+  }
+
+  /** Retira o elemento mais antigo (chamado só pelo consumidor). @return null se vazia. */
+  @SuppressWarnings("unchecked")
+  public T retira() {
+    long h = cabeca.get();
+    if (h == caudaVistaPeloConsumidor) {
+      caudaVistaPeloConsumidor = cauda.get();
+      if (h == caudaVistaPeloConsumidor) {
+        return null;
+      }
+    }
+    int pos = (int) h & mascara;
+    T elemento = (T) elementos[pos];
+    elementos[pos] = null;
+    cabeca.lazySet(h + 1);
+    return elemento;
+  }
+
+  /** @return capacidade efetiva. */
+  public int getCapacidade() {
+    return elementos.length;
+  }
+}
@@ -0,0 +1,138 @@
+package util;
+
+/**
+ * Heap binário mínimo sobre índices inteiros (0..n-1) com prioridade composta
+ * por duas chaves {@code long} (primária e desempate).
+ *
+ * <p>
+ * Guarda a posição de cada índice no heap, permitindo atualizar ou remover um
+ * elemento arbitrário em O(log n) sem alocação.
+ */
+public class HeapIndexado {
+  private static final int TAMANHO_MINIMO = 16;
+
+  private int[] heap;
+  private final int[] posicao;
+  private final long[] primaria;
+  private final long[] secundaria;
+  private int tamanho;
+
+  /** @param capacidade quantidade máxima de índices. */
+  public HeapIndexado(int capacidade) {
+    this.heap = new int[capacidade];
+    this.posicao = new int[capacidade];
+    this.primaria = new long[capacidade];
+    this.secundaria = new long[capacidade];
+    java.util.Arrays.fill(posicao, -1);
+  }
+
+  /**
+   * Heap vazio que divide com {@code outro} os vetores indexados por id; só o
+   * vetor do heap é próprio e cresce conforme a ocupação. Cada id pode estar
+   * em apenas um dos heaps.
+   */
+  public HeapIndexado(HeapIndexado outro) {
+    this.heap = new int[Math.min(TAMANHO_MINIMO, outro.posicao.length)];
+    this.posicao = outro.posicao;
+    this.primaria = outro.primaria;
+    this.secundaria = outro.secundaria;
+  }
+
+  /** Insere o índice ou atualiza sua prioridade caso já esteja no heap. */
+  public void insereOuAtualiza(int id, long chavePrimaria, long chaveSecundaria) {
+    primaria[id] = chavePrimaria;
+    secundaria[id] = chaveSecundaria;
+    int pos = posicao[id];
+    if (pos == -1) {
+      if (tamanho == heap.length) {
+        heap = java.util.Arrays.copyOf(heap, Math.min(posicao.length, 2 * tamanho));
+      }
+      pos = tamanho++;
+      heap[pos] = id;
+      posicao[id] = pos;
+      sobe(pos);
+    } else {
+      sobe(pos);
+      desce(posicao[id]);
+    }
+  }
+
+  /** Remove o índice do heap (sem efeito se ausente). */
+  public void remove(int id) {
+    int pos = posicao[id];
+    if (pos == -1) {
+      return;
+    }
+    int ultimo = heap[--tamanho];
+    posicao[id] = -1;
+    if (pos < tamanho) {
+      heap[pos] = ultimo;
+      posicao[ultimo] = pos;
+      sobe(pos);
+      desce(posicao[ultimo]);
+    }
+  }
+
+  /** @return índice de menor prioridade ou -1 se o heap estiver vazio. */
+  public int topo() {
+    return tamanho == 0 ? -1 : heap[0];
+  }
+
+  /** @return true se o índice está no heap. */
+  public boolean contem(int id) {
+    return posicao[id] != -1;
+  }
+
+  /** @return chave primária atual do índice. */
+  public long getPrimaria(int id) {
+    return primaria[id];
+  }
+
+  /** @return quantidade de elementos no heap. */
+  public int tamanho() {
+    return tamanho;
+  }
+
+  private boolean menor(int a, int b) {
+    if (primaria[a] != primaria[b]) {
+      return primaria[a] < primaria[b];
+    }
+    return secundaria[a] < secundaria[b];
+  }
+
+  private void sobe(int pos) {
+    int id = heap[pos];
+    while (pos > 0) {
+      int pai = (pos - 1) >>> 1;
+      if (!menor(id, heap[pai])) {
+        break;
+      }
+      heap[pos] = heap[pai];
+      posicao[heap[pos]] = pos;
+      pos = pai;
+    }
+    heap[pos] = id;
+    posicao[id] = pos;
+  }
+
+  private void desce(int pos) {
+    int id = heap[pos];
+    while (true) {
+      int filho = 2 * pos + 1;
+      if (filho >= tamanho) {
+        break;
+      }
+      if (filho + 1 < tamanho && menor(heap[filho + 1], heap[filho])) {
+        filho++;
+      }
+      if (!menor(heap[filho], id)) {
+        break;
+      }
+      heap[pos] = heap[filho];
+      posicao[heap[pos]] = pos;
+      pos = filho;
+    }
+    heap[pos] = id;
+    posicao[id] = pos;
+  }
+}
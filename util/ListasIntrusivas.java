@@ -0,0 +1,127 @@
+package util;
+
+/**
+ * Conjunto de listas duplamente encadeadas intrusivas sobre índices inteiros
+ * (0..n-1), guardadas em vetores primitivos.
+ *
+ * <p>
+ * Cada índice pertence a no máximo uma das listas. Inserção, remoção e
+ * movimentação custam O(1) e não alocam objetos, o que permite usá-las em
+ * caminhos quentes como a manutenção da ordem LRU de molduras ou entradas.
+ */
+public class ListasIntrusivas {
+  private static final int NENHUM = -1;
+
+  private final int[] anterior;
+  private final int[] proximo;
+  private final int[] listaDoNo;
+  private int[] cabeca;
+  private int[] cauda;
+  private int[] tamanho;
+
+  /**
+   * @param numeroNos    quantidade de índices gerenciados
+   * @param numeroListas quantidade de listas independentes
+   */
+  public ListasIntrusivas(int numeroNos, int numeroListas) {
+    this.anterior = new int[numeroNos];
+    this.proximo = new int[numeroNos];
+    this.listaDoNo = new int[numeroNos];
+    this.cabeca = new int[numeroListas];
+    this.cauda = new int[numeroListas];
+    this.tamanho = new int[numeroListas];
+    java.util.Arrays.fill(listaDoNo, NENHUM);
+    java.util.Arrays.fill(cabeca, NENHUM);
+    java.util.Arrays.fill(cauda, NENHUM);
+  }
+
+  /**
+   * Acrescenta uma lista vazia, que passa a dividir os nós com as demais.
+   *
+   * @return índice da nova lista
+   */
+  public int novaLista() {
+    int lista = cabeca.length;
+    cabeca = java.util.Arrays.copyOf(cabeca, lista + 1);
+    cauda = java.util.Arrays.copyOf(cauda, lista + 1);
+    tamanho = java.util.Arrays.copyOf(tamanho, lista + 1);
+    cabeca[lista] = NENHUM;
+    cauda[lista] = NENHUM;
+    return lista;
+  }
+
+  /** Insere o nó no início (posição mais recente) da lista, removendo-o de onde estiver. */
+  public void insereInicio(int lista, int no) {
+    remove(no);
+    anterior[no] = NENHUM;
+    proximo[no] = cabeca[lista];
+    if (cabeca[lista] != NENHUM) {
+      anterior[cabeca[lista]] = no;
+    } else {
+      cauda[lista] = no;
+    }
+    cabeca[lista] = no;
+    listaDoNo[no] = lista;
+    tamanho[lista]++;
+  }
+
+  /** Insere o nó no fim (posição mais antiga) da lista, removendo-o de onde estiver. */
+  public void insereFim(int lista, int no) {
+    remove(no);
+    proximo[no] = NENHUM;
+    anterior[no] = cauda[lista];
+    if (cauda[lista] != NENHUM) {
+      proximo[cauda[lista]] = no;
+    } else {
+      cabeca[lista] = no;
+    }
+    cauda[lista] = no;
+    listaDoNo[no] = lista;
+    tamanho[lista]++;
+  }
+
+  /** Retira o nó da lista em que estiver (sem efeito se não estiver em nenhuma). */
+  public void remove(int no) {
+    int lista = listaDoNo[no];
+    if (lista == NENHUM) {
+      return;
+    }
+    if (anterior[no] != NENHUM) {
+      proximo[anterior[no]] = proximo[no];
+    } else {
+      cabeca[lista] = proximo[no];
+    }
+    if (proximo[no] != NENHUM) {
+      anterior[proximo[no]] = anterior[no];
+    } else {
+      cauda[lista] = anterior[no];
+    }
+    listaDoNo[no] = NENHUM;
+    tamanho[lista]--;
+  }
+
+  /** @return primeiro nó (mais recente) da lista ou -1 se vazia. */
+  public int primeiro(int lista) {
+    return cabeca[lista];
+  }
+
+  /** @return último nó (mais antigo) da lista ou -1 se vazia. */
+  public int ultimo(int lista) {
+    return cauda[lista];
+  }
+
+  /** @return nó seguinte (mais antigo) ou -1 no fim da lista. */
+  public int seguinte(int no) {
+    return proximo[no];
+  }
+
+  /** @return lista que contém o nó ou -1. */
+  public int listaDe(int no) {
+    return listaDoNo[no];
+  }
+
+  /** @return quantidade de nós na lista. */
+  public int tamanho(int lista) {
+    return tamanho[lista];
+  }
+}
@@ -0,0 +1,160 @@
+package util;
+
+/**
+ * Mapa {@code long -> int} com endereçamento aberto (sondagem linear) sobre
+ * vetores primitivos, sem boxing nem alocação após a construção.
+ *
+ * <p>
+ * Só armazena valores não negativos; {@link #obtem} devolve -1 para chaves
+ * ausentes. A capacidade deve comportar o maior número de chaves simultâneas
+ * informado na construção; {@link #cresce(int)} a amplia quando esse número
+ * não é conhecido de antemão.
+ */
+public class MapaLongInt {
+  private long[] chaves;
+  /** Valor + 1; zero marca posição vazia. */
+  private int[] valores;
+  private int mascara;
+  private int maximoChaves;
+  private int tamanho;
+
+  /** @param maximoChaves quantidade máxima de chaves presentes ao mesmo tempo. */
+  public MapaLongInt(int maximoChaves) {
+    int capacidade = Integer.highestOneBit(Math.max(4, maximoChaves * 2 - 1)) << 1;
+    this.chaves = new long[capacidade];
+    this.valores = new int[capacidade];
+    this.mascara = capacidade - 1;
+    this.maximoChaves = maximoChaves;
+  }
+
+  /** Visitante de {@link #paraCada}. */
+  public interface Visitante {
+    void visita(long chave, int valor);
+  }
+
+  /**
+   * Amplia a tabela para comportar {@code maximoChaves} chaves, redistribuindo
+   * as existentes. Não faz nada se a capacidade atual já basta.
+   */
+  public void cresce(int maximoChaves) {
+    if (maximoChaves <= this.maximoChaves) {
+      return;
+    }
+    long[] chavesAntigas = chaves;
+    int[] valoresAntigos = valores;
+    int capacidade = Integer.highestOneBit(Math.max(4, maximoChaves * 2 - 1)) << 1;
+    chaves = new long[capacidade];
+    valores = new int[capacidade];
+    mascara = capacidade - 1;
+    this.maximoChaves = maximoChaves;
+    for (int i = 0; i < chavesAntigas.length; i++) {
+      if (valoresAntigos[i] != 0) {
+        int pos = posicaoInicial(chavesAntigas[i]);
+        while (valores[pos] != 0) {
+          pos = (pos + 1) & mascara;
+        }
+        chaves[pos] = chavesAntigas[i];
+        valores[pos] = valoresAntigos[i];
+      }
+    }
+  }
+
+  /** @return quantidade de chaves comportada sem {@link #cresce(int)}. */
+  public int getMaximoChaves() {
+    return maximoChaves;
+  }
+
+  /**
+   * Visita todas as chaves, em ordem arbitrária. O visitante pode alterar o
+   * valor de chaves existentes com {@link #insere}, mas não incluir nem
+   * remover chaves.
+   */
+  public void paraCada(Visitante visitante) {
+    for (int i = 0; i < chaves.length; i++) {
+      if (valores[i] != 0) {
+        visitante.visita(chaves[i], valores[i] - 1);
+      }
+    }
+  }
+
+  /** Espalha os bits da chave (finalizador do SplitMix64). */
+  public static long espalha(long chave) {
+    chave = (chave ^ (chave >>> 30)) * 0xbf58476d1ce4e5b9L;
+    chave = (chave ^ (chave >>> 27)) * 0x94d049bb133111ebL;
+    return chave ^ (chave >>> 31);
+  }
+
+  private int posicaoInicial(long chave) {
+    return (int) espalha(chave) & mascara;
+  }
+
+  /** @return valor associado à chave ou -1 se ausente. */
+  public int obtem(long chave) {
+    int pos = posicaoInicial(chave);
+    while (valores[pos] != 0) {
+      if (chaves[pos] == chave) {
+        return valores[pos] - 1;
+      }
+      pos = (pos + 1) & mascara;
+    }
+    return -1;
+  }
+
+  /** Associa o valor (não negativo) à chave, substituindo o anterior. */
+  public void insere(long chave, int valor) {
+    int pos = posicaoInicial(chave);
+    while (valores[pos] != 0) {
+      if (chaves[pos] == chave) {
+        valores[pos] = valor + 1;
+        return;
+      }
+      pos = (pos + 1) & mascara;
+    }
+    if (tamanho == chaves.length - 1) {
+      throw new IllegalStateException("MapaLongInt cheio");
+    }
+    chaves[pos] = chave;
+    valores[pos] = valor + 1;
+    tamanho++;
+  }
+
+  /** Remove a chave, reposicionando as colisões seguintes (sem lápides). */
+  public void remove(long chave) {
+    int pos = posicaoInicial(chave);
+    while (valores[pos] != 0) {
+      if (chaves[pos] == chave) {
+        break;
+      }
+      pos = (pos + 1) & mascara;
+    }
+    if (valores[pos] == 0) {
+      return;
+    }
+    valores[pos] = 0;
+    tamanho--;
+    int livre = pos;
+    int atual = (pos + 1) & mascara;
+    while (valores[atual] != 0) {
+      int ideal = posicaoInicial(chaves[atual]);
+      // move se a posição livre estiver entre a ideal e a atual (circularmente)
+      if (((atual - ideal) & mascara) >= ((atual - livre) & mascara)) {
+        chaves[livre] = chaves[atual];
+        valores[livre] = valores[atual];
+        valores[atual] = 0;
+        livre = atual;
+      }
+      atual = (atual + 1) & mascara;
+    }
+  }
+
+  /** Remove todas as chaves. */
+  public void limpa() {
+    java.util.Arrays.fill(valores, 0);
+    tamanho = 0;
+  }
+
+  /** @return quantidade de chaves presentes. */
+  public int tamanho() {
+    return tamanho;
+  }
+}